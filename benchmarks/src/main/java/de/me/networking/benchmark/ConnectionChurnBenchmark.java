@@ -0,0 +1,77 @@
+package de.me.networking.benchmark;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.me.networking.server.ThreadingMode;
+
+
+/**
+ * Connections per second a {@link de.me.networking.server.SimpleServer} accepts, serves with a single byte and closes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ConnectionChurnBenchmark {
+
+	@Param({ "EVENT_LOOP", "THREAD_PER_CONNECTION" })
+	public ThreadingMode threadingMode;
+
+	private EchoServer server;
+
+
+	@Setup(Level.Trial)
+	public void startServer() throws Exception {
+		server = new EchoServer(18301, threadingMode);
+	}
+
+	@TearDown(Level.Trial)
+	public void stopServer() throws Exception {
+		server.stop();
+	}
+
+
+	@Benchmark
+	public int connectEchoClose(Buffer buffer) throws Exception {
+		final SocketChannel channel = SocketChannel.open(server.getAddress());
+		try {
+			// Reset instead of a graceful close, so TIME_WAIT sockets do not exhaust the ephemeral ports
+			channel.socket().setSoLinger(true, 0);
+
+			buffer.buffer.clear();
+			channel.write(buffer.buffer);
+			buffer.buffer.clear();
+			return channel.read(buffer.buffer);
+		}
+		finally {
+			channel.close();
+		}
+	}
+
+
+	@State(Scope.Thread)
+	public static class Buffer {
+
+		final ByteBuffer buffer = ByteBuffer.allocateDirect(1);
+
+	}
+
+}
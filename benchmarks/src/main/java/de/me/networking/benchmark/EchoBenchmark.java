@@ -0,0 +1,207 @@
+package de.me.networking.benchmark;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.me.networking.client.SimpleClient;
+import de.me.networking.client.listener.ClientListener;
+import de.me.networking.server.ThreadingMode;
+import de.me.networking.server.UnixDomainSockets;
+
+
+/**
+ * Echo round trips of a {@link SimpleClient} through a {@link de.me.networking.server.SimpleServer} over loopback TCP
+ * or a Unix domain socket (Java 16 or later), as throughput and as latency percentiles.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class EchoBenchmark {
+
+	@Param({ "64", "1024", "16384" })
+	public int messageSize;
+
+	@Param({ "EVENT_LOOP" })
+	public ThreadingMode threadingMode;
+
+	@Param({ "TCP", "UNIX" })
+	public String transport;
+
+	private Path socketDirectory;
+	private EchoServer server;
+
+
+	@Setup(Level.Trial)
+	public void startServer() throws Exception {
+		final SocketAddress address;
+		if ("UNIX".equals(transport)) {
+			socketDirectory = Files.createTempDirectory("echo-benchmark");
+			address = UnixDomainSockets.address(socketDirectory.resolve("echo.sock"));
+		}
+		else {
+			address = new InetSocketAddress("127.0.0.1", 18300);
+		}
+
+		server = new EchoServer(address, threadingMode);
+	}
+
+	@TearDown(Level.Trial)
+	public void stopServer() throws Exception {
+		server.stop();
+
+		if (socketDirectory != null) {
+			Files.delete(socketDirectory);
+		}
+	}
+
+
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	public long echoThroughput(Connection connection) throws Exception {
+		return connection.roundTrip();
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SampleTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public long echoLatency(Connection connection) throws Exception {
+		return connection.roundTrip();
+	}
+
+
+	/**
+	 * A client connection per benchmark thread waiting for each message to be echoed completely.
+	 * A failed connection fails the benchmark instead of waiting for the echo.
+	 */
+	@State(Scope.Thread)
+	public static class Connection {
+
+		private final Logger log = LoggerFactory.getLogger(getClass());
+		private final Object lock = new Object();
+		private SimpleClient client;
+		private Thread thread;
+		private ByteBuffer message;
+		private long sent;
+		private long received;
+		private Throwable failure;
+
+
+		@Setup(Level.Trial)
+		public void connect(EchoBenchmark benchmark) throws Exception {
+			message = ByteBuffer.allocateDirect(benchmark.messageSize);
+			client = new SimpleClient(benchmark.server.getAddress());
+
+			final CountDownLatch connected = new CountDownLatch(1);
+			client.addListener(new ClientListener() {
+
+				@Override
+				public void onConnect() {
+					connected.countDown();
+				}
+
+				@Override
+				public void onMessage(ByteBuffer messageBuffer) {
+					synchronized (lock) {
+						received += messageBuffer.remaining();
+						if (received >= sent) {
+							lock.notifyAll();
+						}
+					}
+				}
+
+				@Override
+				public void onClose() {
+				}
+
+				@Override
+				public void onError(Throwable exception) {
+					fail(exception);
+				}
+
+			});
+
+			thread = new Thread("echo-client") {
+				@Override
+				public void run() {
+					try {
+						client.connect();
+					}
+					catch (IOException e) {
+						fail(e);
+					}
+					finally {
+						connected.countDown();
+					}
+				}
+			};
+			thread.start();
+
+			if (!connected.await(10, TimeUnit.SECONDS)) {
+				throw new IllegalStateException("Client not connected");
+			}
+			synchronized (lock) {
+				if (failure != null) {
+					throw new IOException("Client not connected", failure);
+				}
+			}
+		}
+
+		@TearDown(Level.Trial)
+		public void close() throws Exception {
+			client.close();
+			thread.join();
+		}
+
+		long roundTrip() throws IOException, InterruptedException {
+			synchronized (lock) {
+				sent += message.capacity();
+			}
+
+			client.send(message.duplicate());
+
+			synchronized (lock) {
+				while (received < sent) {
+					if (failure != null) {
+						throw new IOException("Echo failed", failure);
+					}
+					lock.wait();
+				}
+				return received;
+			}
+		}
+
+		private void fail(Throwable exception) {
+			log.error("Echo client failed", exception);
+			synchronized (lock) {
+				failure = exception;
+				lock.notifyAll();
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,131 @@
+package de.me.networking.benchmark;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.me.networking.server.SimpleServer;
+import de.me.networking.server.ThreadingMode;
+import de.me.networking.server.buffer.BufferAllocator;
+import de.me.networking.server.listener.Client;
+import de.me.networking.server.listener.ClientAcceptListener;
+import de.me.networking.server.listener.ClientListener;
+import de.me.networking.server.listener.SendListener;
+
+
+/**
+ * A {@link SimpleServer} on loopback or a Unix domain socket sending all received data back, run in a background thread.
+ */
+class EchoServer {
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+	private final SimpleServer server;
+	private final SocketAddress address;
+	private final Thread thread;
+	private volatile IOException failure;
+
+
+	EchoServer(int port, ThreadingMode threadingMode) throws IOException, InterruptedException {
+		this(new InetSocketAddress("127.0.0.1", port), threadingMode);
+	}
+
+	EchoServer(SocketAddress address, ThreadingMode threadingMode) throws IOException, InterruptedException {
+		this.address = address;
+		this.server = new SimpleServer(address).setThreadingMode(threadingMode).setBacklog(1024);
+
+		server.addListener(new ClientAcceptListener() {
+
+			@Override
+			public void onIncomingClient(final Client client) {
+				client.addListener(new ClientListener() {
+
+					@Override
+					public void onMessage(ByteBuffer messageBuffer) throws IOException {
+						final BufferAllocator allocator = client.getBufferAllocator();
+						final ByteBuffer echo = allocator.allocate(messageBuffer.remaining());
+						echo.put(messageBuffer).flip();
+
+						client.send(echo, new SendListener() {
+
+							@Override
+							public void onSent() {
+								allocator.release(echo);
+							}
+
+							@Override
+							public void onError(Throwable exception) {
+								allocator.release(echo);
+							}
+
+						});
+					}
+
+					@Override
+					public void onClose() throws IOException {
+						client.close();
+					}
+
+					@Override
+					public void onError(Throwable exception) {
+					}
+
+				});
+			}
+
+		});
+
+		this.thread = new Thread("echo-server") {
+			@Override
+			public void run() {
+				try {
+					server.start();
+				}
+				catch (IOException e) {
+					log.error("Echo server failed", e);
+					failure = e;
+				}
+			}
+		};
+		thread.start();
+
+		awaitListening();
+	}
+
+
+	private void awaitListening() throws IOException, InterruptedException {
+		for (int i = 0; ; i++) {
+			try {
+				SocketChannel.open(address).close();
+				return;
+			}
+			catch (IOException e) {
+				if (failure != null) {
+					throw failure;
+				}
+				if (i == 100) {
+					throw e;
+				}
+				Thread.sleep(50L);
+			}
+		}
+	}
+
+	SocketAddress getAddress() {
+		return address;
+	}
+
+	SimpleServer getServer() {
+		return server;
+	}
+
+	void stop() throws IOException, InterruptedException {
+		server.stop();
+		thread.join();
+	}
+
+}
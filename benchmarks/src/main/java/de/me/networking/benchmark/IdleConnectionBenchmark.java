@@ -0,0 +1,105 @@
+package de.me.networking.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.me.networking.server.ThreadingMode;
+
+
+/**
+ * Steady-state heap held per idle connection, reported as the auxiliary counter <code>heapBytesPerConnection</code>.<br>
+ * Both ends of each connection live in the benchmark JVM, so the figure includes a client {@link SocketChannel}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class IdleConnectionBenchmark {
+
+	@Param({ "2000" })
+	public int connections;
+
+	@Param({ "EVENT_LOOP" })
+	public ThreadingMode threadingMode;
+
+	private EchoServer server;
+
+
+	@Setup(Level.Trial)
+	public void startServer() throws Exception {
+		server = new EchoServer(18302, threadingMode);
+	}
+
+	@TearDown(Level.Trial)
+	public void stopServer() throws Exception {
+		server.stop();
+	}
+
+
+	@Benchmark
+	public void openIdleConnections(Footprint footprint) throws Exception {
+		final long before = usedHeap();
+
+		final List<SocketChannel> channels = new ArrayList<>(connections);
+		try {
+			for (int i = 0; i < connections; i++) {
+				channels.add(SocketChannel.open(server.getAddress()));
+			}
+			awaitActive(connections);
+
+			footprint.heapBytesPerConnection = (usedHeap() - before) / connections;
+		}
+		finally {
+			for (SocketChannel channel : channels) {
+				channel.close();
+			}
+			awaitActive(0);
+		}
+	}
+
+	private void awaitActive(int active) throws InterruptedException {
+		while (server.getServer().getConnectionStats().getActiveConnections() != active) {
+			Thread.sleep(10L);
+		}
+	}
+
+	private static long usedHeap() throws InterruptedException {
+		final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+			Thread.sleep(50L);
+		}
+		return memory.getHeapMemoryUsage().getUsed();
+	}
+
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Footprint {
+
+		public long heapBytesPerConnection;
+
+	}
+
+}
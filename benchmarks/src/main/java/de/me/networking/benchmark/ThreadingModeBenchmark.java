@@ -0,0 +1,96 @@
+package de.me.networking.benchmark;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.me.networking.server.ThreadingMode;
+
+
+/**
+ * Echo round trips of many concurrent connections per threading mode of a {@link de.me.networking.server.SimpleServer}.<br>
+ * Each invocation sends a message on every connection before reading the echoes, so all connections are busy at once.
+ * <code>VIRTUAL_THREAD</code> needs Java 21 or later.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ThreadingModeBenchmark {
+
+	private static final int CONNECTIONS = 1000;
+
+	@Param({ "EVENT_LOOP", "THREAD_PER_CONNECTION", "VIRTUAL_THREAD" })
+	public ThreadingMode threadingMode;
+
+	@Param({ "64" })
+	public int messageSize;
+
+	private EchoServer server;
+	private SocketChannel[] channels;
+	private ByteBuffer buffer;
+
+
+	@Setup(Level.Trial)
+	public void connect() throws Exception {
+		server = new EchoServer(18303, threadingMode);
+
+		channels = new SocketChannel[CONNECTIONS];
+		for (int i = 0; i < channels.length; i++) {
+			channels[i] = SocketChannel.open(server.getAddress());
+		}
+		buffer = ByteBuffer.allocateDirect(messageSize);
+	}
+
+	@TearDown(Level.Trial)
+	public void close() throws Exception {
+		for (SocketChannel channel : channels) {
+			if (channel != null) {
+				channel.close();
+			}
+		}
+		server.stop();
+	}
+
+
+	@Benchmark
+	@OperationsPerInvocation(CONNECTIONS)
+	public long echoRoundTrips() throws Exception {
+		for (SocketChannel channel : channels) {
+			buffer.clear();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+
+		long received = 0L;
+		for (SocketChannel channel : channels) {
+			buffer.clear();
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer) < 0) {
+					throw new IllegalStateException("Server closed the connection");
+				}
+			}
+			received += buffer.position();
+		}
+		return received;
+	}
+
+}
@@ -0,0 +1,16 @@
+package de.me.networking.client;
+
+import java.net.InetSocketAddress;
+
+
+/**
+ * Creates the clients of a {@link SimpleClientPool}.
+ */
+public interface ClientFactory {
+
+	/**
+	 * Creates a configured client for the address, with its listeners added but not connected yet.
+	 */
+	public SimpleClient newClient(InetSocketAddress address);
+
+}
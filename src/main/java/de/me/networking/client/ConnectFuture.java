@@ -0,0 +1,133 @@
+package de.me.networking.client;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import de.me.networking.client.listener.ClientListener;
+
+
+/**
+ * The pending connection of {@link SimpleClient#connectAsync()}.<br>
+ * Completes with the client once connected, or with the error if the connection failed or timed out.
+ */
+public class ConnectFuture implements Future<SimpleClient> {
+
+	private final SimpleClient client;
+	private final CountDownLatch done = new CountDownLatch(1);
+	private volatile Throwable cause;
+	private volatile boolean cancelled = false;
+
+	private final ClientListener listener = new ClientListener() {
+
+		@Override
+		public void onConnect() {
+			complete(null, false);
+		}
+
+		@Override
+		public void onMessage(ByteBuffer messageBuffer) {
+		}
+
+		@Override
+		public void onClose() {
+		}
+
+		@Override
+		public void onError(Throwable exception) {
+			complete(exception, false);
+		}
+
+	};
+
+
+	ConnectFuture(SimpleClient client) {
+		this.client = client;
+	}
+
+
+	/**
+	 * Gets the listener completing this future, to be added after all other listeners.
+	 */
+	ClientListener getListener() {
+		return listener;
+	}
+
+	private synchronized boolean complete(Throwable cause, boolean cancelled) {
+		if (done.getCount() == 0) {
+			return false;
+		}
+
+		this.cause = cause;
+		this.cancelled = cancelled;
+		done.countDown();
+		return true;
+	}
+
+
+	/**
+	 * Cancels the connection by closing the client, if not connected yet.
+	 */
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		if (!complete(new CancellationException("Connect cancelled"), true)) {
+			return false;
+		}
+
+		try {
+			client.close();
+		}
+		catch (IOException e) {
+			// Closed anyway
+		}
+		return true;
+	}
+
+	@Override
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	@Override
+	public boolean isDone() {
+		return done.getCount() == 0;
+	}
+
+	/**
+	 * Checks if the client connected successfully.
+	 */
+	public boolean isSuccess() {
+		return isDone() && cause == null;
+	}
+
+	/**
+	 * Gets the error the connection failed with or <code>null</code> if not failed (yet).
+	 */
+	public Throwable getCause() {
+		return isDone() ? cause : null;
+	}
+
+	@Override
+	public SimpleClient get() throws InterruptedException, ExecutionException {
+		done.await();
+		return result();
+	}
+
+	@Override
+	public SimpleClient get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+		if (!done.await(timeout, unit)) throw new TimeoutException("Not connected yet");
+		return result();
+	}
+
+	private SimpleClient result() throws ExecutionException {
+		if (cancelled) throw new CancellationException("Connect cancelled");
+		if (cause != null) throw new ExecutionException(cause);
+		return client;
+	}
+
+}
@@ -0,0 +1,188 @@
+package de.me.networking.client;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.LinkedList;
+import java.util.List;
+
+import de.me.networking.server.DatagramHandler;
+import de.me.networking.server.EventLoopGroup;
+import de.me.networking.server.buffer.BufferAllocator;
+import de.me.networking.server.buffer.PooledBufferAllocator;
+import de.me.networking.server.listener.DatagramListener;
+import de.me.networking.server.metrics.NetworkMetrics;
+
+
+/**
+ * A simple event-driven datagram (UDP) client.<br>
+ * The channel is connected to the server address, so only its datagrams are received, on a loop of the event loop group.
+ */
+public class DatagramClient {
+
+	private InetSocketAddress socketAddress;
+	private EventLoopGroup eventLoopGroup;
+	private int maxDatagramSize = 2048;
+	private int receiveBatchSize = 64;
+	private int receiveBufferSize = 0;
+	private BufferAllocator bufferAllocator = PooledBufferAllocator.DEFAULT;
+
+	private final List<DatagramListener> listeners = new LinkedList<>();
+	private final NetworkMetrics metrics = new NetworkMetrics();
+	private DatagramHandler handler;
+
+
+	/**
+	 * Create new {@link DatagramClient} prepared to send to host on port.
+	 */
+	public DatagramClient(String host, int port) {
+		this(new InetSocketAddress(host, port));
+	}
+
+	/**
+	 * Create new {@link DatagramClient} prepared to send to the provided socket address.
+	 */
+	public DatagramClient(InetSocketAddress socketAddress) {
+		this.socketAddress = socketAddress;
+	}
+
+
+	/**
+	 * Opens a channel connected to the configured socket address and starts receiving on an event loop.<br>
+	 * This method returns immediately, as connecting a datagram channel involves no handshake.<br><br>
+	 * <b>Note</b> that listeners should be added <u>before</u> by calling {@link #addListener(DatagramListener)}.
+	 *
+	 * @see #setEventLoopGroup(EventLoopGroup)
+	 */
+	public void connect() throws IOException {
+		if (handler != null) throw new IllegalStateException("Client already in use");
+
+		final DatagramChannel channel = DatagramChannel.open();
+		try {
+			if (receiveBufferSize > 0) {
+				channel.setOption(StandardSocketOptions.SO_RCVBUF, receiveBufferSize);
+			}
+			channel.connect(socketAddress);
+		}
+		catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+
+		handler = new DatagramHandler(channel, bufferAllocator, maxDatagramSize, receiveBatchSize, metrics);
+		for (DatagramListener listener : listeners) {
+			handler.addListener(listener);
+		}
+
+		final EventLoopGroup group = eventLoopGroup != null ? eventLoopGroup : SharedEventLoopGroup.INSTANCE;
+		handler.register(group.next());
+	}
+
+	/**
+	 * Sends the remaining content of the buffer as a single datagram to the server.<br>
+	 * The datagram is written immediately without queuing or allocating, so the buffer may be reused after the call.
+	 * Like on the network, a datagram the socket send buffer has no room for is dropped.
+	 *
+	 * @return the number of bytes sent, <code>0</code> if dropped
+	 */
+	public int send(ByteBuffer buffer) throws IOException {
+		checkHandler();
+		return handler.send(buffer);
+	}
+
+	public void close() throws IOException {
+		checkHandler();
+		handler.close();
+	}
+
+	public boolean isOpen() {
+		checkHandler();
+		return handler.isOpen();
+	}
+
+	public SocketAddress getLocalAddress() throws IOException {
+		checkHandler();
+		return handler.getLocalAddress();
+	}
+
+	/**
+	 * Gets the metrics of the client, counting received and sent datagrams and their bytes.
+	 */
+	public NetworkMetrics getMetrics() {
+		return metrics;
+	}
+
+
+	/**
+	 * Adds a new listener for received datagrams.
+	 */
+	public DatagramClient addListener(DatagramListener listener) {
+		if (listener == null) throw new IllegalArgumentException("Listener required");
+		if (handler != null) throw new IllegalStateException("Client already connected");
+		listeners.add(listener);
+		return this;
+	}
+
+	/**
+	 * Overwrites the socket address provided in the constructor.
+	 */
+	public DatagramClient setSocketAddress(InetSocketAddress socketAddress) {
+		this.socketAddress = socketAddress;
+		return this;
+	}
+
+	/**
+	 * Sets the event loops receiving datagrams, defaults to the group of daemon loops shared by all clients.
+	 */
+	public DatagramClient setEventLoopGroup(EventLoopGroup eventLoopGroup) {
+		if (eventLoopGroup == null) throw new IllegalArgumentException("Event loop group required");
+		this.eventLoopGroup = eventLoopGroup;
+		return this;
+	}
+
+	/**
+	 * Sets the capacity of the receive buffer, defaults to <code>2048</code>.<br>
+	 * The excess of bigger datagrams is discarded.
+	 */
+	public DatagramClient setMaxDatagramSize(int maxDatagramSize) {
+		if (maxDatagramSize <= 0) throw new IllegalArgumentException("Invalid max datagram size: " + maxDatagramSize);
+		this.maxDatagramSize = maxDatagramSize;
+		return this;
+	}
+
+	/**
+	 * Sets the maximum number of datagrams received per selector wake-up, defaults to <code>64</code>.
+	 */
+	public DatagramClient setReceiveBatchSize(int receiveBatchSize) {
+		if (receiveBatchSize <= 0) throw new IllegalArgumentException("Invalid receive batch size: " + receiveBatchSize);
+		this.receiveBatchSize = receiveBatchSize;
+		return this;
+	}
+
+	/**
+	 * Sets the socket receive buffer size (<code>SO_RCVBUF</code>), defaults to <code>0</code> meaning the platform default.
+	 */
+	public DatagramClient setReceiveBufferSize(int receiveBufferSize) {
+		if (receiveBufferSize < 0) throw new IllegalArgumentException("Invalid receive buffer size: " + receiveBufferSize);
+		this.receiveBufferSize = receiveBufferSize;
+		return this;
+	}
+
+	/**
+	 * Sets the allocator for the receive buffer, defaults to {@link PooledBufferAllocator#DEFAULT}.
+	 */
+	public DatagramClient setBufferAllocator(BufferAllocator bufferAllocator) {
+		if (bufferAllocator == null) throw new IllegalArgumentException("Buffer allocator required");
+		this.bufferAllocator = bufferAllocator;
+		return this;
+	}
+
+
+	private void checkHandler() {
+		if (handler == null) throw new IllegalStateException("Client not connected yet");
+	}
+
+}
@@ -0,0 +1,357 @@
+package de.me.networking.client;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.me.networking.client.listener.ClientListener;
+import de.me.networking.server.EventLoopGroup;
+import de.me.networking.server.metrics.LatencyHistogram;
+import de.me.networking.server.metrics.NetworkMetrics;
+import de.me.networking.server.metrics.StripedCounter;
+import de.me.networking.server.timer.HashedWheelTimer;
+
+
+/**
+ * A load generator multiplexing many {@link SimpleClient}s on a few shared {@link de.me.networking.server.EventLoop}s.<br>
+ * Each connection sends messages of a fixed size to an echo server and waits for them to be echoed completely.
+ * Latency is measured from the time a request was due according to the pacing, so the time requests could not be sent
+ * while the server stalled is included (coordinated omission correction).<br><br>
+ * Run from the command line with <code>LoadGenerator host port</code>, configured by the system properties
+ * <code>load.connections</code>, <code>load.connectRate</code>, <code>load.messageSize</code>, <code>load.requestRate</code>,
+ * <code>load.pacing</code>, <code>load.seconds</code> and <code>load.threads</code>.
+ */
+public class LoadGenerator {
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final InetSocketAddress socketAddress;
+	private int connections = 100;
+	private int connectRate = 0;
+	private int messageSize = 64;
+	private int requestRate = 0;
+	private Pacing pacing = Pacing.CLOSED_LOOP;
+	private long duration = TimeUnit.SECONDS.toNanos(10L);
+	private int eventLoopThreads = 0;
+
+	private final AtomicInteger connected = new AtomicInteger();
+	private final AtomicInteger failed = new AtomicInteger();
+	private StripedCounter requests;
+	private StripedCounter responses;
+	private LatencyHistogram latency;
+	private LatencyHistogram serviceTime;
+	private LatencyHistogram connectTime;
+	private ByteBuffer message;
+	private long interval;
+	private volatile boolean running = false;
+
+
+	/**
+	 * Create new {@link LoadGenerator} for the echo server on host and port.
+	 */
+	public LoadGenerator(String host, int port) {
+		this(new InetSocketAddress(host, port));
+	}
+
+	/**
+	 * Create new {@link LoadGenerator} for the echo server on the provided socket address.
+	 */
+	public LoadGenerator(InetSocketAddress socketAddress) {
+		if (socketAddress == null) throw new IllegalArgumentException("Socket address required");
+		this.socketAddress = socketAddress;
+	}
+
+
+	/**
+	 * Generates load for the configured duration, including the time to connect.<br>
+	 * This method will <b>block</b> until all connections are closed again.
+	 */
+	public synchronized LoadReport run() throws IOException, InterruptedException {
+		if (pacing == Pacing.OPEN_LOOP && requestRate == 0) throw new IllegalStateException("Open loop pacing requires a request rate");
+
+		connected.set(0);
+		failed.set(0);
+		requests = new StripedCounter();
+		responses = new StripedCounter();
+		latency = new LatencyHistogram();
+		serviceTime = new LatencyHistogram();
+		connectTime = new LatencyHistogram();
+		interval = requestRate == 0 ? 0L : TimeUnit.SECONDS.toNanos(1L) / requestRate;
+
+		final byte[] data = new byte[messageSize];
+		Arrays.fill(data, (byte) 'x');
+		message = ByteBuffer.allocateDirect(messageSize).put(data);
+		message.flip();
+		message = message.asReadOnlyBuffer();
+
+		final NetworkMetrics metrics = new NetworkMetrics();
+		final HashedWheelTimer timer = new HashedWheelTimer(1L, TimeUnit.MILLISECONDS, 1024, "load-generator-timer");
+		final EventLoopGroup group = new EventLoopGroup(eventLoopThreads, "load-generator-loop").setMetrics(metrics);
+		final List<SimpleClient> clients = new ArrayList<>(connections);
+
+		log.info("Generating load on {} with {} connections", socketAddress, connections);
+
+		final long start = System.nanoTime();
+		long elapsed = 0L;
+		running = true;
+		try {
+			final long connectInterval = connectRate == 0 ? 0L : TimeUnit.SECONDS.toNanos(1L) / connectRate;
+			for (int i = 0; i < connections && System.nanoTime() - start < duration; i++) {
+				sleepUntil(start + i * connectInterval);
+
+				final SimpleClient client = new SimpleClient(socketAddress).setEventLoopGroup(group).setTimer(timer).setMetrics(metrics);
+				client.addListener(new Connection(client));
+				try {
+					client.connectAsync();
+					clients.add(client);
+				}
+				catch (IOException e) {
+					log.warn("Cannot open connection", e);
+					failed.incrementAndGet();
+				}
+			}
+
+			sleepUntil(start + duration);
+		}
+		finally {
+			running = false;
+			elapsed = System.nanoTime() - start;
+
+			for (SimpleClient client : clients) {
+				try {
+					client.close();
+				}
+				catch (IOException e) {
+					log.debug("Cannot close connection", e);
+				}
+			}
+
+			group.shutdown();
+			if (!group.awaitTermination(10L, TimeUnit.SECONDS)) {
+				log.warn("Event loops did not terminate");
+			}
+			timer.stop();
+		}
+
+		log.info("Load generation finished");
+
+		return new LoadReport(connected.get(), failed.get(), requests.sum(), responses.sum(),
+				metrics.getBytesWritten(), metrics.getBytesRead(), elapsed,
+				latency.snapshot(), serviceTime.snapshot(), connectTime.snapshot());
+	}
+
+	private static void sleepUntil(long deadline) throws InterruptedException {
+		final long delay = deadline - System.nanoTime();
+		if (delay > 0L) {
+			TimeUnit.NANOSECONDS.sleep(delay);
+		}
+	}
+
+
+	/**
+	 * Sets the number of connections, defaults to <code>100</code>.
+	 */
+	public LoadGenerator setConnections(int connections) {
+		if (connections <= 0) throw new IllegalArgumentException("Invalid connection count: " + connections);
+		this.connections = connections;
+		return this;
+	}
+
+	/**
+	 * Sets the connections opened per second, defaults to <code>0</code> meaning as fast as possible.
+	 */
+	public LoadGenerator setConnectRate(int connectRate) {
+		if (connectRate < 0) throw new IllegalArgumentException("Invalid connect rate: " + connectRate);
+		this.connectRate = connectRate;
+		return this;
+	}
+
+	/**
+	 * Sets the size of each request, defaults to <code>64</code>.
+	 */
+	public LoadGenerator setMessageSize(int messageSize) {
+		if (messageSize <= 0) throw new IllegalArgumentException("Invalid message size: " + messageSize);
+		this.messageSize = messageSize;
+		return this;
+	}
+
+	/**
+	 * Sets the requests per second of each connection, defaults to <code>0</code> meaning
+	 * as fast as responses arrive with {@link Pacing#CLOSED_LOOP}.
+	 */
+	public LoadGenerator setRequestRate(int requestRate) {
+		if (requestRate < 0 || requestRate > 1000000000) throw new IllegalArgumentException("Invalid request rate: " + requestRate);
+		this.requestRate = requestRate;
+		return this;
+	}
+
+	/**
+	 * Sets the way requests are paced, defaults to {@link Pacing#CLOSED_LOOP}.<br>
+	 * {@link Pacing#OPEN_LOOP} requires a request rate.
+	 */
+	public LoadGenerator setPacing(Pacing pacing) {
+		if (pacing == null) throw new IllegalArgumentException("Pacing required");
+		this.pacing = pacing;
+		return this;
+	}
+
+	/**
+	 * Sets the time load is generated, including the time to connect, defaults to <code>10</code> seconds.
+	 */
+	public LoadGenerator setDuration(long duration, TimeUnit unit) {
+		if (duration <= 0L) throw new IllegalArgumentException("Invalid duration: " + duration);
+		this.duration = unit.toNanos(duration);
+		return this;
+	}
+
+	/**
+	 * Sets the number of event loops handling the connections,
+	 * defaults to <code>0</code> meaning one per available processor.
+	 */
+	public LoadGenerator setEventLoopThreads(int eventLoopThreads) {
+		if (eventLoopThreads < 0) throw new IllegalArgumentException("Invalid thread count: " + eventLoopThreads);
+		this.eventLoopThreads = eventLoopThreads;
+		return this;
+	}
+
+
+	public static void main(String[] args) throws Exception {
+		if (args.length != 2) {
+			System.err.println("Usage: LoadGenerator <host> <port>");
+			System.exit(1);
+		}
+
+		final LoadReport report = new LoadGenerator(args[0], Integer.parseInt(args[1]))
+				.setConnections(Integer.getInteger("load.connections", 100))
+				.setConnectRate(Integer.getInteger("load.connectRate", 0))
+				.setMessageSize(Integer.getInteger("load.messageSize", 64))
+				.setRequestRate(Integer.getInteger("load.requestRate", 0))
+				.setPacing(Pacing.valueOf(System.getProperty("load.pacing", Pacing.CLOSED_LOOP.name())))
+				.setDuration(Integer.getInteger("load.seconds", 10), TimeUnit.SECONDS)
+				.setEventLoopThreads(Integer.getInteger("load.threads", 0))
+				.run();
+
+		System.out.println(report);
+	}
+
+
+
+	/**
+	 * A single connection sending requests and matching the echoed bytes to them.<br>
+	 * All methods run on the event loop of the connection.
+	 */
+	private class Connection implements ClientListener {
+
+		private final SimpleClient client;
+		private final long connectStart = System.nanoTime();
+		private long start;
+		private long sent;
+		private long received;
+		private final OutstandingRequests outstanding = new OutstandingRequests();
+
+		private boolean scheduled = false;
+		private final Runnable sendTask = new Runnable() {
+			@Override
+			public void run() {
+				scheduled = false;
+				sendDue();
+			}
+		};
+
+
+		Connection(SimpleClient client) {
+			this.client = client;
+		}
+
+
+		@Override
+		public void onConnect() {
+			start = System.nanoTime();
+			connectTime.record(start - connectStart);
+			connected.incrementAndGet();
+
+			sendDue();
+		}
+
+		/**
+		 * Sends all requests due by now and schedules the next one.
+		 */
+		private void sendDue() {
+			if (!running) {
+				return;
+			}
+
+			final long now = System.nanoTime();
+			while (pacing == Pacing.OPEN_LOOP || outstanding.size() == 0) {
+				final long due = interval == 0L ? now : start + requests() * interval;
+				if (due > now) {
+					if (!scheduled) {
+						scheduled = true;
+						client.schedule(sendTask, due - now, TimeUnit.NANOSECONDS);
+					}
+					return;
+				}
+
+				send(due, now);
+			}
+		}
+
+		private long requests() {
+			return sent / messageSize;
+		}
+
+		private void send(long due, long now) {
+			sent += messageSize;
+			outstanding.add(due, now, sent);
+			requests.increment();
+
+			try {
+				client.send(message.duplicate());
+			}
+			catch (IOException e) {
+				log.debug("Cannot send request", e);
+			}
+		}
+
+		@Override
+		public void onMessage(ByteBuffer messageBuffer) {
+			received += messageBuffer.remaining();
+
+			final int completed = outstanding.complete(received, System.nanoTime(), latency, serviceTime);
+			responses.add(completed);
+
+			if (completed > 0 && pacing == Pacing.CLOSED_LOOP) {
+				sendDue();
+			}
+		}
+
+		@Override
+		public void onClose() throws IOException {
+			if (running) {
+				log.debug("Server closed connection");
+			}
+			client.close();
+		}
+
+		@Override
+		public void onError(Throwable exception) {
+			if (start == 0L) {
+				failed.incrementAndGet();
+				log.debug("Cannot connect", exception);
+			}
+			else if (running) {
+				log.debug("Connection error", exception);
+			}
+		}
+
+	}
+
+}
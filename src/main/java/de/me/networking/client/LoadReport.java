@@ -0,0 +1,130 @@
+package de.me.networking.client;
+
+import java.util.concurrent.TimeUnit;
+
+import de.me.networking.server.metrics.HistogramSnapshot;
+
+
+/**
+ * The results of a {@link LoadGenerator} run.<br>
+ * Latencies are in nanoseconds.
+ */
+public class LoadReport {
+
+	private final int connections;
+	private final int failedConnections;
+	private final long requests;
+	private final long responses;
+	private final long bytesSent;
+	private final long bytesReceived;
+	private final long elapsedNanos;
+	private final HistogramSnapshot latency;
+	private final HistogramSnapshot serviceTime;
+	private final HistogramSnapshot connectTime;
+
+
+	LoadReport(int connections, int failedConnections, long requests, long responses, long bytesSent, long bytesReceived,
+			long elapsedNanos, HistogramSnapshot latency, HistogramSnapshot serviceTime, HistogramSnapshot connectTime) {
+		this.connections = connections;
+		this.failedConnections = failedConnections;
+		this.requests = requests;
+		this.responses = responses;
+		this.bytesSent = bytesSent;
+		this.bytesReceived = bytesReceived;
+		this.elapsedNanos = elapsedNanos;
+		this.latency = latency;
+		this.serviceTime = serviceTime;
+		this.connectTime = connectTime;
+	}
+
+
+	/**
+	 * Gets the number of established connections.
+	 */
+	public int getConnections() {
+		return connections;
+	}
+
+	/**
+	 * Gets the number of connections that could not be established.
+	 */
+	public int getFailedConnections() {
+		return failedConnections;
+	}
+
+	/**
+	 * Gets the number of sent requests.
+	 */
+	public long getRequests() {
+		return requests;
+	}
+
+	/**
+	 * Gets the number of completely received responses.
+	 */
+	public long getResponses() {
+		return responses;
+	}
+
+	/**
+	 * Gets the number of bytes written to the server.
+	 */
+	public long getBytesSent() {
+		return bytesSent;
+	}
+
+	/**
+	 * Gets the number of bytes read from the server.
+	 */
+	public long getBytesReceived() {
+		return bytesReceived;
+	}
+
+	/**
+	 * Gets the duration of the run in the provided unit.
+	 */
+	public long getElapsed(TimeUnit unit) {
+		return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Gets the received responses per second.
+	 */
+	public double getThroughput() {
+		return elapsedNanos == 0L ? 0.0 : responses * 1e9 / elapsedNanos;
+	}
+
+	/**
+	 * Gets the time from when each request was due according to the pacing until its response arrived.<br>
+	 * Requests delayed by a stalled server count their waiting time, so this is corrected for coordinated omission.
+	 */
+	public HistogramSnapshot getLatency() {
+		return latency;
+	}
+
+	/**
+	 * Gets the time from actually sending each request until its response arrived.<br>
+	 * Requests not sent while the server stalled are missing, so this hides the stall (coordinated omission).
+	 */
+	public HistogramSnapshot getServiceTime() {
+		return serviceTime;
+	}
+
+	/**
+	 * Gets the time taken to establish each connection.
+	 */
+	public HistogramSnapshot getConnectTime() {
+		return connectTime;
+	}
+
+
+	@Override
+	public String toString() {
+		return "LoadReport [connections=" + connections + ", failedConnections=" + failedConnections
+				+ ", requests=" + requests + ", responses=" + responses
+				+ ", bytesSent=" + bytesSent + ", bytesReceived=" + bytesReceived
+				+ ", elapsedMillis=" + getElapsed(TimeUnit.MILLISECONDS) + ", throughput=" + getThroughput()
+				+ ", latency=" + latency + ", serviceTime=" + serviceTime + ", connectTime=" + connectTime + "]";
+	}
+
+}
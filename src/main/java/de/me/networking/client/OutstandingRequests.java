@@ -0,0 +1,74 @@
+package de.me.networking.client;
+
+import de.me.networking.server.metrics.LatencyHistogram;
+
+
+/**
+ * The requests of a {@link LoadGenerator} connection waiting for their echo, in the order they were sent.<br>
+ * Kept as growing ring of due time, send time and end offset in the echoed stream, so adding and completing does not allocate
+ * once the ring is big enough. Not thread-safe, a connection uses it on its event loop only.
+ */
+final class OutstandingRequests {
+
+	private long[] ring = new long[3 * 16];
+	private int head = 0;
+	private int size = 0;
+
+
+	/**
+	 * Adds a request sent at <code>sent</code>, which was due at <code>due</code> according to the pacing.
+	 *
+	 * @param end the offset in the echoed stream at which the request is echoed completely
+	 */
+	void add(long due, long sent, long end) {
+		if (3 * size == ring.length) {
+			// Unroll the ring into a larger array
+			final long[] grown = new long[2 * ring.length];
+			System.arraycopy(ring, head, grown, 0, ring.length - head);
+			System.arraycopy(ring, 0, grown, ring.length - head, head);
+			ring = grown;
+			head = 0;
+		}
+
+		final int tail = (head + 3 * size) % ring.length;
+		ring[tail] = due;
+		ring[tail + 1] = sent;
+		ring[tail + 2] = end;
+		size++;
+	}
+
+	/**
+	 * Completes the requests echoed completely by <code>received</code> bytes.<br>
+	 * Latency is recorded from the due time, so it includes the time a request could not be sent
+	 * because the connection waited for earlier responses (coordinated omission correction).
+	 * Service time is recorded from the send time.
+	 *
+	 * @return the number of completed requests
+	 */
+	int complete(long received, long now, LatencyHistogram latency, LatencyHistogram serviceTime) {
+		int completed = 0;
+		while (size > 0 && received >= ring[head + 2]) {
+			latency.record(now - ring[head]);
+			serviceTime.record(now - ring[head + 1]);
+			head = (head + 3) % ring.length;
+			size--;
+			completed++;
+		}
+		return completed;
+	}
+
+	/**
+	 * Gets the number of requests waiting for their echo.
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Gets the number of requests the ring holds without growing.
+	 */
+	int capacity() {
+		return ring.length / 3;
+	}
+
+}
@@ -0,0 +1,19 @@
+package de.me.networking.client;
+
+
+/**
+ * The way a {@link LoadGenerator} paces the requests of each connection.
+ */
+public enum Pacing {
+
+	/**
+	 * Requests are sent at the configured rate regardless of outstanding responses, like independent users would.
+	 */
+	OPEN_LOOP,
+
+	/**
+	 * The next request is sent once the previous response arrived, at most at the configured rate.
+	 */
+	CLOSED_LOOP
+
+}
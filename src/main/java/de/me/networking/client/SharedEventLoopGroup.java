@@ -0,0 +1,24 @@
+package de.me.networking.client;
+
+import java.io.IOException;
+
+import de.me.networking.server.EventLoopGroup;
+
+
+/**
+ * The event loops shared by all clients without an own group, created on first use.
+ */
+class SharedEventLoopGroup {
+
+	static final EventLoopGroup INSTANCE;
+
+	static {
+		try {
+			INSTANCE = new EventLoopGroup(0, "simple-client-loop", true);
+		}
+		catch (IOException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+}
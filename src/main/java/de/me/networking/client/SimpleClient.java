@@ -1,21 +1,42 @@
 package de.me.networking.client;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import de.me.networking.client.listener.Client;
 import de.me.networking.client.listener.ClientListener;
+import de.me.networking.server.ClientConfig;
 import de.me.networking.server.ClientHandler;
+import de.me.networking.server.EventLoopGroup;
 import de.me.networking.server.ListenerException;
+import de.me.networking.server.ThreadingMode;
+import de.me.networking.server.UnixDomainSockets;
+import de.me.networking.server.VirtualThreads;
+import de.me.networking.server.buffer.BufferAllocator;
+import de.me.networking.server.buffer.PooledBufferAllocator;
+import de.me.networking.server.codec.FrameDecoder;
 import de.me.networking.server.listener.ClientAcceptListener;
+import de.me.networking.server.listener.SendListener;
+import de.me.networking.server.listener.TimeoutListener;
+import de.me.networking.server.metrics.NetworkMetrics;
+import de.me.networking.server.timer.HashedWheelTimer;
+import de.me.networking.server.timer.Timeout;
+import de.me.networking.server.tls.TlsConfig;
 
 
 /**
@@ -25,9 +46,13 @@ public class SimpleClient implements Client {
 
 	private final Logger log = LoggerFactory.getLogger(getClass());
 
-	private int clientBufferCapacity = 4096;
+	private NetworkMetrics metrics = new NetworkMetrics();
+	private final ClientConfig clientConfig = new ClientConfig().setMetrics(metrics);
+	private ThreadingMode threadingMode = ThreadingMode.THREAD_PER_CONNECTION;
+	private EventLoopGroup eventLoopGroup;
+	private final CountDownLatch terminated = new CountDownLatch(1);
 
-	private InetSocketAddress socketAddress;
+	private SocketAddress socketAddress;
 	private final List<ClientListener> listeners = new LinkedList<>();
 	private ClientHandler handler;
 
@@ -47,9 +72,10 @@ public class SimpleClient implements Client {
 	}
 
 	/**
-	 * Create new {@link SimpleClient} prepared to connect to the provided socket address.
+	 * Create new {@link SimpleClient} prepared to connect to the provided socket address,
+	 * which may be a Unix domain socket address on Java 16 or later, see {@link UnixDomainSockets#address(java.nio.file.Path)}.
 	 */
-	public SimpleClient(InetSocketAddress socketAddress) {
+	public SimpleClient(SocketAddress socketAddress) {
 		this.socketAddress = socketAddress;
 	}
 
@@ -62,9 +88,14 @@ public class SimpleClient implements Client {
 	 * @throws IOException If the connection process failed
 	 */
 	public void connect() throws IOException, ListenerException {
+		if (threadingMode == ThreadingMode.EVENT_LOOP) {
+			connectOnLoop();
+			return;
+		}
+
 		if (handler != null) throw new IllegalStateException("Client already in use");
 
-		handler = new ClientHandler(SocketChannel.open(socketAddress), clientBufferCapacity);
+		handler = new ClientHandler(openChannel(), clientConfig);
 
 		for (ClientListener listener : listeners) {
 			handler.addListener(listener);
@@ -73,7 +104,12 @@ public class SimpleClient implements Client {
 		onConnect();
 
 		try {
-			handler.execute();
+			if (threadingMode == ThreadingMode.VIRTUAL_THREAD) {
+				executeVirtual();
+			}
+			else {
+				handler.execute();
+			}
 		}
 		catch (Throwable e) {
 			log.error("Client Handler error", e);
@@ -88,6 +124,114 @@ public class SimpleClient implements Client {
 		}
 	}
 
+	/**
+	 * Connects this client to the configured socket address on an event loop without blocking.<br>
+	 * Listeners are notified on the loop thread once connected, the returned future completes afterwards.
+	 * A failed or timed out connection is reported to the listeners as error and fails the future.<br><br>
+	 * <b>Note</b> that listeners should be added <u>before</u> by calling {@link #addListener(ClientAcceptListener)}.
+	 *
+	 * @see #setEventLoopGroup(EventLoopGroup)
+	 * @see #setConnectTimeout(long, TimeUnit)
+	 */
+	public ConnectFuture connectAsync() throws IOException {
+		if (handler != null) throw new IllegalStateException("Client already in use");
+
+		final EventLoopGroup group = eventLoopGroup != null ? eventLoopGroup : SharedEventLoopGroup.INSTANCE;
+		final ConnectFuture future = new ConnectFuture(this);
+
+		handler = new ClientHandler(UnixDomainSockets.openSocketChannel(socketAddress), clientConfig);
+		handler.setTerminationTask(new Runnable() {
+			@Override
+			public void run() {
+				terminated.countDown();
+			}
+		});
+
+		for (ClientListener listener : listeners) {
+			handler.addListener(listener);
+		}
+		handler.addListener(future.getListener());
+
+		handler.connect(group.next(), socketAddress);
+		return future;
+	}
+
+	/**
+	 * Connects on an event loop and waits until the client was completely handled.
+	 */
+	private void connectOnLoop() throws IOException {
+		final ConnectFuture future = connectAsync();
+
+		try {
+			future.get();
+			terminated.await();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while handling client");
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			// Already reported to the listeners
+		}
+	}
+
+	/**
+	 * Opens a blocking channel connected within the connect timeout.<br>
+	 * Unix domain sockets connect immediately or fail, so there is no timeout for them.
+	 */
+	private SocketChannel openChannel() throws IOException {
+		final SocketChannel channel = UnixDomainSockets.openSocketChannel(socketAddress);
+		try {
+			if (UnixDomainSockets.isUnixDomain(socketAddress)) {
+				channel.connect(socketAddress);
+			}
+			else {
+				channel.socket().connect(socketAddress, (int) Math.min(Integer.MAX_VALUE,
+						TimeUnit.NANOSECONDS.toMillis(clientConfig.getConnectTimeout() + 999999L)));
+			}
+			return channel;
+		}
+		catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+
+	/**
+	 * Handles the client with blocking reads in a virtual thread, which is the calling thread if it is virtual already.
+	 */
+	private void executeVirtual() throws IOException {
+		if (VirtualThreads.isVirtual(Thread.currentThread())) {
+			handler.executeBlocking();
+			return;
+		}
+
+		final Thread thread = VirtualThreads.factory("simple-client").newThread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					handler.executeBlocking();
+				}
+				catch (IOException e) {
+					log.error("Client Handler error", e);
+				}
+			}
+		});
+		thread.start();
+
+		try {
+			thread.join();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while handling client");
+		}
+	}
+
 
 	@Override
 	public SimpleClient addListener(ClientListener listener) {
@@ -105,7 +249,34 @@ public class SimpleClient implements Client {
 
 	@Override
 	public int getBufferCapacity() {
-		return clientBufferCapacity;
+		return handler == null ? clientConfig.getBufferCapacity() : handler.getBufferCapacity();
+	}
+
+	@Override
+	public BufferAllocator getBufferAllocator() {
+		return clientConfig.getBufferAllocator();
+	}
+
+	@Override
+	public void cork() {
+		checkHandler();
+		handler.cork();
+	}
+
+	@Override
+	public void flush() {
+		checkHandler();
+		handler.flush();
+	}
+
+	@Override
+	public void setFrameDecoder(FrameDecoder frameDecoder) {
+		if (handler == null) {
+			clientConfig.setFrameDecoder(frameDecoder);
+		}
+		else {
+			handler.setFrameDecoder(frameDecoder);
+		}
 	}
 
 	@Override
@@ -120,12 +291,66 @@ public class SimpleClient implements Client {
 		handler.resumeMessages();
 	}
 
+	@Override
+	public boolean isWritable() {
+		checkHandler();
+		return handler.isWritable();
+	}
+
+	@Override
+	public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+		checkHandler();
+		return handler.schedule(task, delay, unit);
+	}
+
 	@Override
 	public int send(ByteBuffer buffer) throws IOException {
 		checkHandler();
 		return handler.send(buffer);
 	}
 
+	@Override
+	public int send(ByteBuffer buffer, SendListener listener) throws IOException {
+		checkHandler();
+		return handler.send(buffer, listener);
+	}
+
+	@Override
+	public long send(ByteBuffer... buffers) throws IOException {
+		checkHandler();
+		return handler.send(buffers);
+	}
+
+	@Override
+	public long send(ByteBuffer[] buffers, SendListener listener) throws IOException {
+		checkHandler();
+		return handler.send(buffers, listener);
+	}
+
+	@Override
+	public long sendFile(FileChannel file, long position, long count) throws IOException {
+		checkHandler();
+		return handler.sendFile(file, position, count);
+	}
+
+	@Override
+	public long sendFile(FileChannel file, long position, long count, SendListener listener) throws IOException {
+		checkHandler();
+		return handler.sendFile(file, position, count, listener);
+	}
+
+	@Override
+	public long sendFile(Path path) throws IOException {
+		checkHandler();
+		return handler.sendFile(path);
+	}
+
+	@Override
+	public long sendFile(Path path, SendListener listener) throws IOException {
+		checkHandler();
+		return handler.sendFile(path, listener);
+	}
+
 	@Override
 	public void close() throws IOException {
 		checkHandler();
@@ -148,16 +373,197 @@ public class SimpleClient implements Client {
 	/**
 	 * Overwrites the socket address provided in the constructor.
 	 */
-	public SimpleClient setSocketAddress(InetSocketAddress socketAddress) {
+	public SimpleClient setSocketAddress(SocketAddress socketAddress) {
 		this.socketAddress = socketAddress;
 		return this;
 	}
 
 	/**
-	 * Sets the client buffer capacity, defaults to <code>4096</code>.
+	 * Sets the threading mode, defaults to {@link ThreadingMode#THREAD_PER_CONNECTION}
+	 * handling the client with a private selector in the thread calling {@link #connect()}.<br>
+	 * With {@link ThreadingMode#VIRTUAL_THREAD} the client is handled with blocking reads in a virtual thread,
+	 * with {@link ThreadingMode#EVENT_LOOP} on a loop of the event loop group like {@link #connectAsync()}.
+	 */
+	public SimpleClient setThreadingMode(ThreadingMode threadingMode) {
+		if (threadingMode == null) throw new IllegalArgumentException("Threading mode required");
+		this.threadingMode = threadingMode;
+		return this;
+	}
+
+	/**
+	 * Sets the event loops shared by clients connecting with {@link #connectAsync()} or {@link ThreadingMode#EVENT_LOOP},
+	 * defaults to a group of daemon loops, one per available processor, shared by all clients.
+	 */
+	public SimpleClient setEventLoopGroup(EventLoopGroup eventLoopGroup) {
+		if (eventLoopGroup == null) throw new IllegalArgumentException("Event loop group required");
+		this.eventLoopGroup = eventLoopGroup;
+		return this;
+	}
+
+	/**
+	 * Sets the time after which a connection not yet established fails,
+	 * defaults to <code>0</code> meaning no timeout.
+	 */
+	public SimpleClient setConnectTimeout(long connectTimeout, TimeUnit unit) {
+		clientConfig.setConnectTimeout(connectTimeout, unit);
+		return this;
+	}
+
+	/**
+	 * Sets the initial client buffer capacity, defaults to <code>4096</code>.
 	 */
 	public SimpleClient setClientBufferCapacity(int clientBufferCapacity) {
-		this.clientBufferCapacity = clientBufferCapacity;
+		clientConfig.setBufferCapacity(clientBufferCapacity);
+		return this;
+	}
+
+	/**
+	 * Sets the range the client read buffer capacity adapts in, defaults to <code>512</code> - <code>65536</code>.<br>
+	 * Use the same value for minimum and maximum to disable adapting.
+	 */
+	public SimpleClient setClientBufferCapacityRange(int minClientBufferCapacity, int maxClientBufferCapacity) {
+		clientConfig.setBufferCapacityRange(minClientBufferCapacity, maxClientBufferCapacity);
+		return this;
+	}
+
+	/**
+	 * Sets the allocator for client buffers, defaults to {@link PooledBufferAllocator#DEFAULT}.
+	 */
+	public SimpleClient setBufferAllocator(BufferAllocator bufferAllocator) {
+		clientConfig.setBufferAllocator(bufferAllocator);
+		return this;
+	}
+
+	/**
+	 * Sets if data sent inside a listener callback is held back until the callback returns
+	 * and then written with as few gathering writes as possible, defaults to <code>false</code>.
+	 */
+	public SimpleClient setWriteCoalescing(boolean writeCoalescing) {
+		clientConfig.setWriteCoalescing(writeCoalescing);
+		return this;
+	}
+
+	/**
+	 * Sets the water marks for the data queued for sending, defaults to <code>32768</code> - <code>65536</code>.<br>
+	 * A client becomes unwritable when more than the high water mark is queued
+	 * and writable again when no more than the low water mark is queued.
+	 */
+	public SimpleClient setWriteBufferWaterMarks(long lowWaterMark, long highWaterMark) {
+		clientConfig.setWriteBufferWaterMarks(lowWaterMark, highWaterMark);
+		return this;
+	}
+
+	/**
+	 * Sets if reading input is suspended while the client is unwritable, defaults to <code>true</code>.
+	 */
+	public SimpleClient setSuspendReadWhenUnwritable(boolean suspendReadWhenUnwritable) {
+		clientConfig.setSuspendReadWhenUnwritable(suspendReadWhenUnwritable);
+		return this;
+	}
+
+	/**
+	 * Sets the TLS settings created with {@link TlsConfig#forClient(javax.net.ssl.SSLContext)} to encrypt the connection with,
+	 * defaults to <code>null</code> for a plain connection.<br>
+	 * Data sent on connect is written once the handshake finished,
+	 * listeners implementing {@link de.me.networking.server.listener.HandshakeListener} are notified then.
+	 */
+	public SimpleClient setTlsConfig(TlsConfig tlsConfig) {
+		if (tlsConfig != null && !tlsConfig.isClientMode()) throw new IllegalArgumentException("Client TLS config required");
+		clientConfig.setTlsConfig(tlsConfig);
+		return this;
+	}
+
+	/**
+	 * Sets the executor running the listener callbacks for received data, closing and errors,
+	 * defaults to <code>null</code> running them on the thread handling the connection.<br>
+	 * Callbacks of a connection still run one after another in order, so slow listeners do not delay reading other connections.
+	 */
+	public SimpleClient setListenerExecutor(Executor listenerExecutor) {
+		clientConfig.setListenerExecutor(listenerExecutor);
+		return this;
+	}
+
+	/**
+	 * Sets the number of received bytes waiting for the listener executor above which reading is suspended,
+	 * defaults to <code>65536</code>. Reading resumes once half of it is left.
+	 */
+	public SimpleClient setListenerQueueLimit(long listenerQueueLimit) {
+		clientConfig.setListenerQueueLimit(listenerQueueLimit);
+		return this;
+	}
+
+	/**
+	 * Sets how much the client on an event loop reads per wake-up, defaults to <code>262144</code> bytes and <code>64</code> messages.<br>
+	 * Reading continues until the socket is drained or one of the budgets is used up,
+	 * listeners implementing {@link de.me.networking.server.listener.ReadCompleteListener} are notified afterwards.
+	 */
+	public SimpleClient setReadBudget(long readBudgetBytes, int readBudgetMessages) {
+		clientConfig.setReadBudget(readBudgetBytes, readBudgetMessages);
+		return this;
+	}
+
+	/**
+	 * Sets the time after which a client neither sending nor receiving data times out,
+	 * defaults to <code>0</code> meaning no timeout.<br>
+	 * The connection is closed unless a listener implements {@link TimeoutListener}.
+	 */
+	public SimpleClient setIdleTimeout(long idleTimeout, TimeUnit unit) {
+		clientConfig.setIdleTimeout(idleTimeout, unit);
+		return this;
+	}
+
+	/**
+	 * Sets the time after which a client not sending any data times out,
+	 * defaults to <code>0</code> meaning no timeout.<br>
+	 * The connection is closed unless a listener implements {@link TimeoutListener}.
+	 */
+	public SimpleClient setReadTimeout(long readTimeout, TimeUnit unit) {
+		clientConfig.setReadTimeout(readTimeout, unit);
+		return this;
+	}
+
+	/**
+	 * Sets the time after which a client times out when queued data cannot be written,
+	 * defaults to <code>0</code> meaning no timeout.<br>
+	 * The connection is closed unless a listener implements {@link TimeoutListener}.
+	 */
+	public SimpleClient setWriteTimeout(long writeTimeout, TimeUnit unit) {
+		clientConfig.setWriteTimeout(writeTimeout, unit);
+		return this;
+	}
+
+	/**
+	 * Gets the metrics of the client connections.
+	 */
+	public NetworkMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Sets if the client connections record their {@link #getMetrics() metrics}, defaults to <code>true</code>.
+	 */
+	public SimpleClient setMetricsEnabled(boolean metricsEnabled) {
+		clientConfig.setMetrics(metricsEnabled ? metrics : null);
+		return this;
+	}
+
+	/**
+	 * Sets the metrics recording the client connections instead of the own ones, e.g. to sum up many clients in one instance.
+	 */
+	public SimpleClient setMetrics(NetworkMetrics metrics) {
+		if (metrics == null) throw new IllegalArgumentException("Metrics required");
+		if (clientConfig.getMetrics() != null) {
+			clientConfig.setMetrics(metrics);
+		}
+		this.metrics = metrics;
+		return this;
+	}
+
+	/**
+	 * Sets the timer watching the timeouts and running scheduled client tasks, defaults to {@link HashedWheelTimer#DEFAULT}.
+	 */
+	public SimpleClient setTimer(HashedWheelTimer timer) {
+		clientConfig.setTimer(timer);
 		return this;
 	}
 
@@ -0,0 +1,665 @@
+package de.me.networking.client;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.me.networking.client.listener.ClientListener;
+import de.me.networking.server.timer.HashedWheelTimer;
+import de.me.networking.server.timer.Timeout;
+
+
+/**
+ * A pool of connected {@link SimpleClient}s per server address, so calls reuse connections instead of connecting each time.<br>
+ * Clients are leased with {@link #lease(InetSocketAddress, long, TimeUnit)} and given back with {@link #release(SimpleClient)}.
+ * While all clients of an address are leased, callers wait and are served in the order they arrived.<br>
+ * In the background closed clients and clients idle for too long are evicted and the minimum of idle clients is restored.
+ * Clients are connected with {@link SimpleClient#connectAsync()}.
+ */
+public class SimpleClientPool {
+
+	private static final ClientFactory DEFAULT_FACTORY = new ClientFactory() {
+		@Override
+		public SimpleClient newClient(InetSocketAddress address) {
+			return new SimpleClient(address);
+		}
+	};
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final ClientFactory factory;
+	private final ConcurrentMap<InetSocketAddress, Partition> partitions = new ConcurrentHashMap<>();
+	private final ConcurrentMap<SimpleClient, Entry> entries = new ConcurrentHashMap<>();
+
+	private int minIdle = 0;
+	private int maxTotal = 8;
+	private long maxIdleTime = TimeUnit.SECONDS.toNanos(60L);
+	private long validationInterval = TimeUnit.SECONDS.toNanos(5L);
+	private HashedWheelTimer timer = HashedWheelTimer.DEFAULT;
+
+	private final AtomicBoolean validating = new AtomicBoolean();
+	private volatile Timeout validation;
+	private volatile boolean closed = false;
+	private final Runnable validationTask = new Runnable() {
+		@Override
+		public void run() {
+			validate();
+		}
+	};
+
+
+	/**
+	 * Create new {@link SimpleClientPool} of plain {@link SimpleClient}s.
+	 */
+	public SimpleClientPool() {
+		this(DEFAULT_FACTORY);
+	}
+
+	/**
+	 * Create new {@link SimpleClientPool} of the clients created by the factory.
+	 */
+	public SimpleClientPool(ClientFactory factory) {
+		if (factory == null) throw new IllegalArgumentException("Client factory required");
+		this.factory = factory;
+	}
+
+
+	/**
+	 * Leases a connected client for the address, connecting a new one if none is idle and the limit allows.<br>
+	 * This method will <b>block</b> until a client is available.
+	 *
+	 * @throws TimeoutException if no client became available within the timeout
+	 * @throws IOException if connecting a new client failed
+	 */
+	public SimpleClient lease(InetSocketAddress address, long timeout, TimeUnit unit) throws IOException, InterruptedException, TimeoutException {
+		if (address == null) throw new IllegalArgumentException("Address required");
+		if (closed) throw new IllegalStateException("Pool closed");
+
+		final long deadline = System.nanoTime() + unit.toNanos(timeout);
+		final Partition partition = partition(address);
+
+		final Entry entry = partition.acquire(deadline);
+		return entry != null ? entry.client : partition.create(deadline);
+	}
+
+	/**
+	 * Gives a leased client back to the pool for reuse, or closes it if it is closed already or the pool is.
+	 */
+	public void release(SimpleClient client) {
+		final Entry entry = entry(client);
+		entry.partition.release(entry, false);
+	}
+
+	/**
+	 * Closes a leased client that must not be reused, e.g. after a protocol error, and frees its place in the pool.
+	 */
+	public void invalidate(SimpleClient client) {
+		final Entry entry = entry(client);
+		entry.partition.release(entry, true);
+	}
+
+	private Entry entry(SimpleClient client) {
+		final Entry entry = client == null ? null : entries.get(client);
+		if (entry == null) throw new IllegalArgumentException("Client not leased from this pool");
+		return entry;
+	}
+
+	private Partition partition(InetSocketAddress address) {
+		Partition partition = partitions.get(address);
+		if (partition == null) {
+			final Partition created = new Partition(address);
+			partition = partitions.putIfAbsent(address, created);
+			if (partition == null) {
+				partition = created;
+			}
+
+			if (validating.compareAndSet(false, true)) {
+				validation = timer.newTimeout(validationTask, validationInterval, TimeUnit.NANOSECONDS);
+			}
+		}
+		return partition;
+	}
+
+	private void validate() {
+		if (closed) {
+			return;
+		}
+
+		for (Partition partition : partitions.values()) {
+			try {
+				partition.validate();
+			}
+			catch (Throwable e) {
+				log.error("Cannot validate pooled clients of {}", partition.address, e);
+			}
+		}
+
+		validation = timer.newTimeout(validationTask, validationInterval, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Closes all idle clients and stops validating, leased clients are closed when released.<br>
+	 * Callers waiting for a client fail.
+	 */
+	public void close() {
+		closed = true;
+
+		final Timeout validation = this.validation;
+		if (validation != null) {
+			validation.cancel();
+		}
+
+		for (Partition partition : partitions.values()) {
+			partition.close();
+		}
+	}
+
+
+	/**
+	 * Gets the number of idle clients for the address.
+	 */
+	public int getIdleCount(InetSocketAddress address) {
+		final Partition partition = partitions.get(address);
+		return partition == null ? 0 : partition.getIdleCount();
+	}
+
+	/**
+	 * Gets the number of idle, leased and connecting clients for the address.
+	 */
+	public int getTotalCount(InetSocketAddress address) {
+		final Partition partition = partitions.get(address);
+		return partition == null ? 0 : partition.getTotalCount();
+	}
+
+
+	/**
+	 * Sets the number of idle clients kept connected per address, defaults to <code>0</code>.
+	 */
+	public SimpleClientPool setMinIdle(int minIdle) {
+		if (minIdle < 0) throw new IllegalArgumentException("Invalid minimum idle clients: " + minIdle);
+		this.minIdle = minIdle;
+		return this;
+	}
+
+	/**
+	 * Sets the maximum number of clients per address, defaults to <code>8</code>.
+	 */
+	public SimpleClientPool setMaxTotal(int maxTotal) {
+		if (maxTotal <= 0) throw new IllegalArgumentException("Invalid maximum clients: " + maxTotal);
+		this.maxTotal = maxTotal;
+		return this;
+	}
+
+	/**
+	 * Sets the time after which an idle client is closed, defaults to <code>60</code> seconds.
+	 */
+	public SimpleClientPool setMaxIdleTime(long maxIdleTime, TimeUnit unit) {
+		if (maxIdleTime <= 0L) throw new IllegalArgumentException("Invalid maximum idle time: " + maxIdleTime);
+		this.maxIdleTime = unit.toNanos(maxIdleTime);
+		return this;
+	}
+
+	/**
+	 * Sets the interval idle clients are validated in, defaults to <code>5</code> seconds.
+	 */
+	public SimpleClientPool setValidationInterval(long validationInterval, TimeUnit unit) {
+		if (validationInterval <= 0L) throw new IllegalArgumentException("Invalid validation interval: " + validationInterval);
+		this.validationInterval = unit.toNanos(validationInterval);
+		return this;
+	}
+
+	/**
+	 * Sets the timer running the validation, defaults to {@link HashedWheelTimer#DEFAULT}.
+	 */
+	public SimpleClientPool setTimer(HashedWheelTimer timer) {
+		if (timer == null) throw new IllegalArgumentException("Timer required");
+		this.timer = timer;
+		return this;
+	}
+
+
+	private static void closeAll(List<Entry> entries) {
+		for (Entry entry : entries) {
+			try {
+				entry.client.close();
+			}
+			catch (IOException | IllegalStateException e) {
+				// Closed anyway
+			}
+		}
+	}
+
+
+
+	private enum State {
+		CONNECTING, IDLE, LEASED, CLOSED
+	}
+
+
+	/**
+	 * The clients of a single address.
+	 */
+	private class Partition {
+
+		private final InetSocketAddress address;
+		private final ReentrantLock lock = new ReentrantLock();
+		// Most recently used first, so the least recently used ones idle out
+		private final Deque<Entry> idle = new ArrayDeque<>();
+		private final Deque<Waiter> waiters = new ArrayDeque<>();
+		private int total = 0;
+		private int connecting = 0;
+
+
+		Partition(InetSocketAddress address) {
+			this.address = address;
+		}
+
+
+		/**
+		 * Leases an idle client or waits for one.
+		 *
+		 * @return the leased entry or <code>null</code> if a new client may be created
+		 */
+		Entry acquire(long deadline) throws InterruptedException, TimeoutException {
+			lock.lock();
+			try {
+				if (waiters.isEmpty()) {
+					final Entry entry = pollIdle();
+					if (entry != null) {
+						entry.state = State.LEASED;
+						return entry;
+					}
+					if (total < maxTotal) {
+						total++;
+						return null;
+					}
+				}
+
+				final Waiter waiter = new Waiter(lock.newCondition());
+				waiters.add(waiter);
+
+				try {
+					while (waiter.entry == null && !waiter.mayCreate) {
+						final long remaining = deadline - System.nanoTime();
+						if (closed || remaining <= 0L) {
+							waiters.remove(waiter);
+							if (closed) throw new IllegalStateException("Pool closed");
+							throw new TimeoutException("No client available for " + address);
+						}
+						waiter.condition.awaitNanos(remaining);
+					}
+				}
+				catch (InterruptedException e) {
+					if (!waiters.remove(waiter)) {
+						// Pass on what was granted meanwhile
+						if (waiter.entry != null) {
+							waiter.entry.state = State.IDLE;
+							idle.addFirst(waiter.entry);
+						}
+						else {
+							total--;
+						}
+						dispatch();
+					}
+					throw e;
+				}
+
+				return waiter.entry;
+			}
+			finally {
+				lock.unlock();
+			}
+		}
+
+		/**
+		 * Connects a new client in place reserved by {@link #acquire(long)}.
+		 */
+		SimpleClient create(long deadline) throws IOException, InterruptedException, TimeoutException {
+			final Entry entry = newEntry(false);
+			try {
+				entry.client.connectAsync().get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+			}
+			catch (ExecutionException e) {
+				closed(entry);
+				throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException("Cannot connect to " + address, e.getCause());
+			}
+			catch (IOException | InterruptedException | TimeoutException | RuntimeException e) {
+				closed(entry);
+				throw e;
+			}
+
+			lock.lock();
+			try {
+				if (entry.state == State.CONNECTING) {
+					entry.state = State.LEASED;
+				}
+			}
+			finally {
+				lock.unlock();
+			}
+			return entry.client;
+		}
+
+		private Entry newEntry(boolean replenish) {
+			final Entry entry = new Entry(this, factory.newClient(address), replenish);
+			entries.put(entry.client, entry);
+			entry.client.addListener(entry);
+			return entry;
+		}
+
+		void release(Entry entry, boolean invalid) {
+			final List<Entry> closing = new ArrayList<>(1);
+
+			lock.lock();
+			try {
+				if (entry.state == State.CLOSED) {
+					// Closed while leased
+					entries.remove(entry.client);
+					return;
+				}
+				if (entry.state != State.LEASED) throw new IllegalStateException("Client not leased");
+
+				if (invalid || closed || !entry.client.isOpen()) {
+					remove(entry);
+					closing.add(entry);
+				}
+				else {
+					entry.state = State.IDLE;
+					entry.lastUsed = System.nanoTime();
+					idle.addFirst(entry);
+				}
+
+				dispatch();
+			}
+			finally {
+				lock.unlock();
+			}
+
+			closeAll(closing);
+		}
+
+		/**
+		 * Notification that the client of the entry was closed or failed to connect.
+		 */
+		void closed(Entry entry) {
+			final List<Entry> closing = new ArrayList<>(1);
+
+			lock.lock();
+			try {
+				switch (entry.state) {
+					case CLOSED:
+						return;
+					case IDLE:
+						idle.remove(entry);
+						break;
+					case CONNECTING:
+						if (entry.replenish) {
+							connecting--;
+						}
+						break;
+					default:
+						break;
+				}
+
+				if (entry.state == State.LEASED) {
+					// Forgotten when released
+					entry.state = State.CLOSED;
+					total--;
+				}
+				else {
+					remove(entry);
+				}
+				closing.add(entry);
+
+				dispatch();
+			}
+			finally {
+				lock.unlock();
+			}
+
+			closeAll(closing);
+		}
+
+		/**
+		 * Notification that a client connected in the background.
+		 */
+		void connected(Entry entry) {
+			final List<Entry> closing = new ArrayList<>(1);
+
+			lock.lock();
+			try {
+				if (entry.state != State.CONNECTING) {
+					return;
+				}
+
+				connecting--;
+				if (closed) {
+					remove(entry);
+					closing.add(entry);
+					return;
+				}
+
+				entry.state = State.IDLE;
+				entry.lastUsed = System.nanoTime();
+				idle.addFirst(entry);
+				dispatch();
+			}
+			finally {
+				lock.unlock();
+			}
+
+			closeAll(closing);
+		}
+
+		/**
+		 * Evicts closed and expired idle clients and connects new ones up to the minimum.
+		 */
+		void validate() throws IOException {
+			final List<Entry> closing = new ArrayList<>();
+			final List<Entry> replenishing = new ArrayList<>();
+
+			lock.lock();
+			try {
+				final long now = System.nanoTime();
+				final Iterator<Entry> it = idle.iterator();
+				while (it.hasNext()) {
+					final Entry entry = it.next();
+					if (!entry.client.isOpen() || now - entry.lastUsed > maxIdleTime) {
+						it.remove();
+						remove(entry);
+						closing.add(entry);
+					}
+				}
+
+				while (idle.size() + connecting < minIdle && total < maxTotal && waiters.isEmpty()) {
+					total++;
+					connecting++;
+					replenishing.add(newEntry(true));
+				}
+			}
+			finally {
+				lock.unlock();
+			}
+
+			if (!closing.isEmpty()) {
+				log.debug("Evicting {} idle clients of {}", closing.size(), address);
+			}
+			closeAll(closing);
+
+			for (Entry entry : replenishing) {
+				try {
+					entry.client.connectAsync();
+				}
+				catch (IOException | RuntimeException e) {
+					closed(entry);
+					throw e;
+				}
+			}
+		}
+
+		void close() {
+			final List<Entry> closing;
+
+			lock.lock();
+			try {
+				closing = new ArrayList<>(idle);
+				idle.clear();
+				for (Entry entry : closing) {
+					remove(entry);
+				}
+
+				for (Waiter waiter : waiters) {
+					waiter.condition.signal();
+				}
+			}
+			finally {
+				lock.unlock();
+			}
+
+			closeAll(closing);
+		}
+
+		/**
+		 * Takes the most recently used idle client that is still open.
+		 */
+		private Entry pollIdle() {
+			Entry entry;
+			while ((entry = idle.pollFirst()) != null) {
+				if (entry.client.isOpen()) {
+					return entry;
+				}
+				remove(entry);
+			}
+			return null;
+		}
+
+		private void remove(Entry entry) {
+			entry.state = State.CLOSED;
+			entries.remove(entry.client);
+			total--;
+		}
+
+		/**
+		 * Hands idle clients or free places to the waiting callers in order.
+		 */
+		private void dispatch() {
+			while (!waiters.isEmpty()) {
+				final Waiter waiter = waiters.peek();
+				final Entry entry = pollIdle();
+
+				if (entry != null) {
+					entry.state = State.LEASED;
+					waiter.entry = entry;
+				}
+				else if (total < maxTotal && !closed) {
+					total++;
+					waiter.mayCreate = true;
+				}
+				else {
+					break;
+				}
+
+				waiters.poll();
+				waiter.condition.signal();
+			}
+		}
+
+		int getIdleCount() {
+			lock.lock();
+			try {
+				return idle.size();
+			}
+			finally {
+				lock.unlock();
+			}
+		}
+
+		int getTotalCount() {
+			lock.lock();
+			try {
+				return total;
+			}
+			finally {
+				lock.unlock();
+			}
+		}
+
+	}
+
+
+	/**
+	 * A pooled client, listening for its connection and closing.
+	 */
+	private static class Entry implements ClientListener {
+
+		private final Partition partition;
+		private final SimpleClient client;
+		private final boolean replenish;
+		private State state = State.CONNECTING;
+		private long lastUsed;
+
+
+		Entry(Partition partition, SimpleClient client, boolean replenish) {
+			this.partition = partition;
+			this.client = client;
+			this.replenish = replenish;
+		}
+
+
+		@Override
+		public void onConnect() {
+			if (replenish) {
+				partition.connected(this);
+			}
+		}
+
+		@Override
+		public void onMessage(ByteBuffer messageBuffer) {
+		}
+
+		@Override
+		public void onClose() {
+			partition.closed(this);
+		}
+
+		@Override
+		public void onError(Throwable exception) {
+			partition.closed(this);
+		}
+
+	}
+
+
+	/**
+	 * A caller waiting for a client.
+	 */
+	private static class Waiter {
+
+		private final Condition condition;
+		private Entry entry;
+		private boolean mayCreate = false;
+
+
+		Waiter(Condition condition) {
+			this.condition = condition;
+		}
+
+	}
+
+}
@@ -1,16 +1,17 @@
 package de.me.networking.client.listener;
 
-
+import de.me.networking.server.listener.ConnectListener;
 
 
 /**
  * A listener extending the server {@link de.me.networking.server.listener.ClientListener} notifying on connect.
  */
-public interface ClientListener extends de.me.networking.server.listener.ClientListener {
+public interface ClientListener extends de.me.networking.server.listener.ClientListener, ConnectListener {
 
 	/**
 	 * Notification that the client connected.
 	 */
+	@Override
 	public void onConnect();
 
 }
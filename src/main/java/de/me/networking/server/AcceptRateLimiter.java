@@ -0,0 +1,56 @@
+package de.me.networking.server;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Internal token bucket limiting the connections accepted per second.<br>
+ * Up to a second's worth of permits can be used in a burst.
+ */
+class AcceptRateLimiter {
+
+	private final long permitsPerSecond;
+	private final long nanosPerPermit;
+
+	private long permits;
+	private long lastRefill;
+
+
+	AcceptRateLimiter(long permitsPerSecond) {
+		this.permitsPerSecond = permitsPerSecond;
+		this.nanosPerPermit = Math.max(1L, TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+		this.permits = permitsPerSecond;
+		this.lastRefill = System.nanoTime();
+	}
+
+
+	/**
+	 * Takes a permit if available.
+	 */
+	synchronized boolean tryAcquire() {
+		refill();
+		if (permits == 0) {
+			return false;
+		}
+		permits--;
+		return true;
+	}
+
+	/**
+	 * Gets the nanoseconds until the next permit is available, <code>0</code> if one is available now.
+	 */
+	synchronized long nanosUntilPermit() {
+		refill();
+		return permits > 0 ? 0L : Math.max(1L, lastRefill + nanosPerPermit - System.nanoTime());
+	}
+
+	private void refill() {
+		final long now = System.nanoTime();
+		final long added = (now - lastRefill) / nanosPerPermit;
+		if (added > 0) {
+			permits = Math.min(permitsPerSecond, permits + added);
+			lastRefill += added * nanosPerPermit;
+		}
+	}
+
+}
@@ -2,6 +2,7 @@ package de.me.networking.server;
 
 import java.io.IOException;
 import java.nio.channels.SocketChannel;
+import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,34 +11,106 @@ import de.me.networking.server.listener.ClientAcceptListener;
 
 
 /**
- * Internal class to handle an accepted client in an executor execution.
+ * Internal class to handle an accepted client in an executor execution or on an {@link EventLoop}.<br>
+ * A single {@link ClientHandler} is created per client and passed to all accept listeners,
+ * so one reader passes the client's data on to all registered client listeners.
  */
 class ClientAcceptHandler implements Runnable {
 
 	private final Logger log = LoggerFactory.getLogger(getClass());
 
 	private final SocketChannel client;
-	private final int capacity;
-	private final ClientAcceptListener listener;
+	private final ClientConfig config;
+	private final List<ClientAcceptListener> listeners;
+	private final EventLoop loop;
+	private final boolean blocking;
+	private Runnable terminationTask;
+	private ConnectionRegistry registry;
 
 
-	ClientAcceptHandler(SocketChannel client, ClientAcceptListener listener, int capacity) {
+	/**
+	 * Create new {@link ClientAcceptHandler} watching the client in the executing thread.
+	 */
+	ClientAcceptHandler(SocketChannel client, List<ClientAcceptListener> listeners, ClientConfig config) {
+		this(client, listeners, config, null, false);
+	}
+
+	/**
+	 * Create new {@link ClientAcceptHandler} watching the client in the executing thread,
+	 * with blocking reads instead of a private selector if requested.
+	 */
+	ClientAcceptHandler(SocketChannel client, List<ClientAcceptListener> listeners, ClientConfig config, boolean blocking) {
+		this(client, listeners, config, null, blocking);
+	}
+
+	/**
+	 * Create new {@link ClientAcceptHandler} watching the client on the provided loop.
+	 */
+	ClientAcceptHandler(SocketChannel client, List<ClientAcceptListener> listeners, ClientConfig config, EventLoop loop) {
+		this(client, listeners, config, loop, false);
+	}
+
+	private ClientAcceptHandler(SocketChannel client, List<ClientAcceptListener> listeners, ClientConfig config, EventLoop loop, boolean blocking) {
 		this.client = client;
-		this.listener = listener;
-		this.capacity = capacity;
+		this.listeners = listeners;
+		this.config = config;
+		this.loop = loop;
+		this.blocking = blocking;
+	}
+
+
+	/**
+	 * Sets a task run once the client is not handled anymore.
+	 */
+	ClientAcceptHandler setTerminationTask(Runnable terminationTask) {
+		this.terminationTask = terminationTask;
+		return this;
+	}
+
+	/**
+	 * Sets the registry to hold the client while it is handled.
+	 */
+	ClientAcceptHandler setRegistry(ConnectionRegistry registry) {
+		this.registry = registry;
+		return this;
 	}
 
 
 	@Override
 	public void run() {
-		final ClientHandler handler = new ClientHandler(client, capacity);
+		final ClientHandler handler = new ClientHandler(client, config);
+		if (registry != null) {
+			registry.add(handler);
+			handler.setTerminationTask(new Runnable() {
+				@Override
+				public void run() {
+					registry.remove(handler);
+					if (terminationTask != null) {
+						terminationTask.run();
+					}
+				}
+			});
+		}
+		else {
+			handler.setTerminationTask(terminationTask);
+		}
 
 		try {
-			// Let listener register on events
-			listener.onIncomingClient(handler);
+			// Let listeners register on events
+			for (ClientAcceptListener listener : listeners) {
+				listener.onIncomingClient(handler);
+			}
 
 			// Watch client
-			handler.execute();
+			if (loop != null) {
+				handler.register(loop);
+			}
+			else if (blocking) {
+				handler.executeBlocking();
+			}
+			else {
+				handler.execute();
+			}
 		} catch (Throwable e) {
 			log.error("Client Handler error", e);
 
@@ -55,6 +128,8 @@ class ClientAcceptHandler implements Runnable {
 				catch (IOException eee) {
 					log.error("Cannot close client connection", eee);
 				}
+
+				handler.terminate();
 			}
 		}
 	}
@@ -0,0 +1,358 @@
+package de.me.networking.server;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import de.me.networking.server.buffer.BufferAllocator;
+import de.me.networking.server.buffer.PooledBufferAllocator;
+import de.me.networking.server.codec.FrameDecoder;
+import de.me.networking.server.metrics.NetworkMetrics;
+import de.me.networking.server.timer.HashedWheelTimer;
+import de.me.networking.server.tls.TlsConfig;
+
+
+/**
+ * Settings applied to each {@link ClientHandler}.<br>
+ * Changes only affect handlers created afterwards.
+ */
+public class ClientConfig {
+
+	private int bufferCapacity = 4096;
+	private int minBufferCapacity = 512;
+	private int maxBufferCapacity = 65536;
+	private BufferAllocator bufferAllocator = PooledBufferAllocator.DEFAULT;
+	private boolean writeCoalescing = false;
+	private FrameDecoder frameDecoder = null;
+	private long lowWaterMark = 32768;
+	private long highWaterMark = 65536;
+	private boolean suspendReadWhenUnwritable = true;
+	private long connectTimeout = 0L;
+	private long idleTimeout = 0L;
+	private long readTimeout = 0L;
+	private long writeTimeout = 0L;
+	private HashedWheelTimer timer = HashedWheelTimer.DEFAULT;
+	private NetworkMetrics metrics = null;
+	private TlsConfig tlsConfig = null;
+	private Executor listenerExecutor = null;
+	private long listenerQueueLimit = 65536;
+	private long readBudgetBytes = 262144;
+	private int readBudgetMessages = 64;
+
+
+	/**
+	 * Gets the initial read buffer capacity.
+	 */
+	public int getBufferCapacity() {
+		return bufferCapacity;
+	}
+
+	/**
+	 * Sets the initial read buffer capacity, defaults to <code>4096</code>.<br>
+	 * The capacity is rounded up to a power of two and adapts to the read sizes within {@link #setBufferCapacityRange(int, int)}.
+	 */
+	public ClientConfig setBufferCapacity(int bufferCapacity) {
+		if (bufferCapacity <= 0) throw new IllegalArgumentException("Invalid buffer capacity: " + bufferCapacity);
+		this.bufferCapacity = bufferCapacity;
+		return this;
+	}
+
+	/**
+	 * Gets the minimum read buffer capacity.
+	 */
+	public int getMinBufferCapacity() {
+		return Math.min(minBufferCapacity, bufferCapacity);
+	}
+
+	/**
+	 * Gets the maximum read buffer capacity.
+	 */
+	public int getMaxBufferCapacity() {
+		return Math.max(maxBufferCapacity, bufferCapacity);
+	}
+
+	/**
+	 * Sets the range the read buffer capacity adapts in, defaults to <code>512</code> - <code>65536</code>.<br>
+	 * The capacity grows when reads fill the buffer and shrinks after consecutive small reads.
+	 * Use the same value for minimum and maximum to disable adapting.
+	 */
+	public ClientConfig setBufferCapacityRange(int minBufferCapacity, int maxBufferCapacity) {
+		if (minBufferCapacity <= 0 || maxBufferCapacity < minBufferCapacity) {
+			throw new IllegalArgumentException("Invalid buffer capacity range: " + minBufferCapacity + " - " + maxBufferCapacity);
+		}
+		this.minBufferCapacity = minBufferCapacity;
+		this.maxBufferCapacity = maxBufferCapacity;
+		return this;
+	}
+
+	/**
+	 * Gets the allocator for client buffers.
+	 */
+	public BufferAllocator getBufferAllocator() {
+		return bufferAllocator;
+	}
+
+	/**
+	 * Sets the allocator for client buffers, defaults to {@link PooledBufferAllocator#DEFAULT}.
+	 */
+	public ClientConfig setBufferAllocator(BufferAllocator bufferAllocator) {
+		if (bufferAllocator == null) throw new IllegalArgumentException("Buffer allocator required");
+		this.bufferAllocator = bufferAllocator;
+		return this;
+	}
+
+	/**
+	 * Checks if data sent inside a listener callback is coalesced until the callback returns.
+	 */
+	public boolean isWriteCoalescing() {
+		return writeCoalescing;
+	}
+
+	/**
+	 * Sets if data sent inside a listener callback on the event loop is held back until the callback returns
+	 * and then written with as few gathering writes as possible, defaults to <code>false</code>.
+	 */
+	public ClientConfig setWriteCoalescing(boolean writeCoalescing) {
+		this.writeCoalescing = writeCoalescing;
+		return this;
+	}
+
+	/**
+	 * Gets the decoder splitting received data into frames.
+	 */
+	public FrameDecoder getFrameDecoder() {
+		return frameDecoder;
+	}
+
+	/**
+	 * Sets the decoder splitting received data into frames, defaults to <code>null</code> passing data on as read.
+	 */
+	public ClientConfig setFrameDecoder(FrameDecoder frameDecoder) {
+		this.frameDecoder = frameDecoder;
+		return this;
+	}
+
+	/**
+	 * Gets the queued outbound bytes at or below which an unwritable client becomes writable again.
+	 */
+	public long getLowWaterMark() {
+		return lowWaterMark;
+	}
+
+	/**
+	 * Gets the queued outbound bytes above which a client becomes unwritable.
+	 */
+	public long getHighWaterMark() {
+		return highWaterMark;
+	}
+
+	/**
+	 * Sets the water marks for the data queued for sending, defaults to <code>32768</code> - <code>65536</code>.<br>
+	 * A client becomes unwritable when more than the high water mark is queued
+	 * and writable again when no more than the low water mark is queued.
+	 */
+	public ClientConfig setWriteBufferWaterMarks(long lowWaterMark, long highWaterMark) {
+		if (lowWaterMark < 0 || highWaterMark < lowWaterMark) {
+			throw new IllegalArgumentException("Invalid water marks: " + lowWaterMark + " - " + highWaterMark);
+		}
+		this.lowWaterMark = lowWaterMark;
+		this.highWaterMark = highWaterMark;
+		return this;
+	}
+
+	/**
+	 * Checks if reading is suspended while a client is unwritable.
+	 */
+	public boolean isSuspendReadWhenUnwritable() {
+		return suspendReadWhenUnwritable;
+	}
+
+	/**
+	 * Sets if reading client input is suspended while the client is unwritable, defaults to <code>true</code>.<br>
+	 * This keeps clients not reading their responses from making the server queue data without bound.
+	 */
+	public ClientConfig setSuspendReadWhenUnwritable(boolean suspendReadWhenUnwritable) {
+		this.suspendReadWhenUnwritable = suspendReadWhenUnwritable;
+		return this;
+	}
+
+	/**
+	 * Gets the connect timeout in nanoseconds, <code>0</code> if disabled.
+	 */
+	public long getConnectTimeout() {
+		return connectTimeout;
+	}
+
+	/**
+	 * Sets the time after which a connection not yet established fails,
+	 * defaults to <code>0</code> meaning no timeout.
+	 */
+	public ClientConfig setConnectTimeout(long connectTimeout, TimeUnit unit) {
+		this.connectTimeout = toTimeout(connectTimeout, unit);
+		return this;
+	}
+
+	/**
+	 * Gets the idle timeout in nanoseconds, <code>0</code> if disabled.
+	 */
+	public long getIdleTimeout() {
+		return idleTimeout;
+	}
+
+	/**
+	 * Sets the time after which a client neither sending nor receiving data times out,
+	 * defaults to <code>0</code> meaning no timeout.
+	 */
+	public ClientConfig setIdleTimeout(long idleTimeout, TimeUnit unit) {
+		this.idleTimeout = toTimeout(idleTimeout, unit);
+		return this;
+	}
+
+	/**
+	 * Gets the read timeout in nanoseconds, <code>0</code> if disabled.
+	 */
+	public long getReadTimeout() {
+		return readTimeout;
+	}
+
+	/**
+	 * Sets the time after which a client not sending any data times out,
+	 * defaults to <code>0</code> meaning no timeout.<br>
+	 * Time with reading suspended does not count.
+	 */
+	public ClientConfig setReadTimeout(long readTimeout, TimeUnit unit) {
+		this.readTimeout = toTimeout(readTimeout, unit);
+		return this;
+	}
+
+	/**
+	 * Gets the write timeout in nanoseconds, <code>0</code> if disabled.
+	 */
+	public long getWriteTimeout() {
+		return writeTimeout;
+	}
+
+	/**
+	 * Sets the time after which a client times out when queued data cannot be written,
+	 * defaults to <code>0</code> meaning no timeout.
+	 */
+	public ClientConfig setWriteTimeout(long writeTimeout, TimeUnit unit) {
+		this.writeTimeout = toTimeout(writeTimeout, unit);
+		return this;
+	}
+
+	private static long toTimeout(long timeout, TimeUnit unit) {
+		if (timeout < 0) throw new IllegalArgumentException("Invalid timeout: " + timeout);
+		if (unit == null) throw new IllegalArgumentException("Time unit required");
+		return unit.toNanos(timeout);
+	}
+
+	/**
+	 * Gets the timer watching the timeouts and running scheduled client tasks.
+	 */
+	public HashedWheelTimer getTimer() {
+		return timer;
+	}
+
+	/**
+	 * Sets the timer watching the timeouts and running scheduled client tasks, defaults to {@link HashedWheelTimer#DEFAULT}.
+	 */
+	public ClientConfig setTimer(HashedWheelTimer timer) {
+		if (timer == null) throw new IllegalArgumentException("Timer required");
+		this.timer = timer;
+		return this;
+	}
+
+	/**
+	 * Gets the metrics recording the client traffic.
+	 */
+	public NetworkMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Sets the metrics recording the client traffic, defaults to <code>null</code> recording nothing.
+	 */
+	public ClientConfig setMetrics(NetworkMetrics metrics) {
+		this.metrics = metrics;
+		return this;
+	}
+
+	/**
+	 * Gets the TLS settings or <code>null</code> if connections are not encrypted.
+	 */
+	public TlsConfig getTlsConfig() {
+		return tlsConfig;
+	}
+
+	/**
+	 * Sets the TLS settings to encrypt connections with or <code>null</code> for plain connections, defaults to <code>null</code>.
+	 */
+	public ClientConfig setTlsConfig(TlsConfig tlsConfig) {
+		this.tlsConfig = tlsConfig;
+		return this;
+	}
+
+	/**
+	 * Gets the executor running the listener callbacks or <code>null</code> if they run on the thread handling the client.
+	 */
+	public Executor getListenerExecutor() {
+		return listenerExecutor;
+	}
+
+	/**
+	 * Sets the executor running the listener callbacks for received data, closing and errors,
+	 * defaults to <code>null</code> running them on the thread handling the client.<br>
+	 * Callbacks of a client still run one after another in order, callbacks of different clients in parallel.
+	 * Received data is copied for the callbacks.
+	 */
+	public ClientConfig setListenerExecutor(Executor listenerExecutor) {
+		this.listenerExecutor = listenerExecutor;
+		return this;
+	}
+
+	/**
+	 * Gets the number of received bytes waiting for the listener executor above which reading is suspended.
+	 */
+	public long getListenerQueueLimit() {
+		return listenerQueueLimit;
+	}
+
+	/**
+	 * Sets the number of received bytes waiting for the listener executor above which reading the client is suspended,
+	 * defaults to <code>65536</code>. Reading resumes once half of it is left.
+	 */
+	public ClientConfig setListenerQueueLimit(long listenerQueueLimit) {
+		if (listenerQueueLimit <= 0) throw new IllegalArgumentException("Invalid listener queue limit: " + listenerQueueLimit);
+		this.listenerQueueLimit = listenerQueueLimit;
+		return this;
+	}
+
+	/**
+	 * Gets the number of bytes read from a client per event loop wake-up at most.
+	 */
+	public long getReadBudgetBytes() {
+		return readBudgetBytes;
+	}
+
+	/**
+	 * Gets the number of messages passed to the listeners per event loop wake-up at most.
+	 */
+	public int getReadBudgetMessages() {
+		return readBudgetMessages;
+	}
+
+	/**
+	 * Sets how much a client on an event loop reads per wake-up, defaults to <code>262144</code> bytes and <code>64</code> messages.<br>
+	 * Reading continues until the socket is drained or one of the budgets is used up, checked after each read.
+	 * Use <code>1</code> message to read once per wake-up.
+	 */
+	public ClientConfig setReadBudget(long readBudgetBytes, int readBudgetMessages) {
+		if (readBudgetBytes <= 0 || readBudgetMessages <= 0) {
+			throw new IllegalArgumentException("Invalid read budget: " + readBudgetBytes + " bytes, " + readBudgetMessages + " messages");
+		}
+		this.readBudgetBytes = readBudgetBytes;
+		this.readBudgetMessages = readBudgetMessages;
+		return this;
+	}
+
+}
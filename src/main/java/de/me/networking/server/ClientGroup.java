@@ -0,0 +1,137 @@
+package de.me.networking.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.me.networking.server.listener.Client;
+
+
+/**
+ * A named group of clients of a {@link ConnectionRegistry}, e.g. the subscribers of a topic.<br>
+ * Clients leave all groups automatically once they are not handled anymore.
+ */
+public class ClientGroup {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ClientGroup.class);
+
+	private final String name;
+	private final ConnectionRegistry registry;
+	private final LongObjectMap<Client> clients = new LongObjectMap<>();
+
+
+	ClientGroup(String name, ConnectionRegistry registry) {
+		this.name = name;
+		this.registry = registry;
+	}
+
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Adds the client to the group.
+	 *
+	 * @return <code>false</code> if it is a member already or not registered (anymore)
+	 */
+	public boolean add(Client client) {
+		if (client == null) throw new IllegalArgumentException("Client required");
+
+		// Holding the registry lock, so a concurrent removal either precedes or also removes from the group
+		synchronized (registry.getLock()) {
+			if (registry.getClient(client.getId()) != client) {
+				return false;
+			}
+			synchronized (clients) {
+				return clients.put(client.getId(), client) == null;
+			}
+		}
+	}
+
+	/**
+	 * Removes the client from the group.
+	 *
+	 * @return <code>false</code> if it was no member
+	 */
+	public boolean remove(Client client) {
+		if (client == null) throw new IllegalArgumentException("Client required");
+
+		synchronized (clients) {
+			return clients.remove(client.getId()) != null;
+		}
+	}
+
+	public boolean contains(Client client) {
+		if (client == null) throw new IllegalArgumentException("Client required");
+
+		synchronized (clients) {
+			return clients.get(client.getId()) == client;
+		}
+	}
+
+	public int size() {
+		synchronized (clients) {
+			return clients.size();
+		}
+	}
+
+	/**
+	 * Sends the buffer to all members of the group.
+	 *
+	 * @see #broadcast(ByteBuffer, boolean)
+	 */
+	public int broadcast(ByteBuffer buffer) {
+		return broadcast(buffer, false);
+	}
+
+	/**
+	 * Sends the remaining content of the buffer to all members of the group, optionally skipping the ones over their high write water mark.<br>
+	 * The content is not copied but shared read-only by all outbound queues, so the buffer must not be changed anymore.
+	 *
+	 * @return the number of clients the buffer was queued for
+	 */
+	public int broadcast(ByteBuffer buffer, boolean skipUnwritable) {
+		if (buffer == null) throw new IllegalArgumentException("Buffer required");
+
+		final Client[] recipients;
+		synchronized (clients) {
+			recipients = clients.values(new Client[clients.size()]);
+		}
+		return broadcast(recipients, buffer, skipUnwritable);
+	}
+
+	/**
+	 * Sends the buffer to the recipients up to the first <code>null</code>, outside of any lock,
+	 * as sending may close a client and so remove it from its groups.
+	 */
+	static int broadcast(Client[] recipients, ByteBuffer buffer, boolean skipUnwritable) {
+		final ByteBuffer shared = buffer.asReadOnlyBuffer();
+
+		int count = 0;
+		for (int i = 0; i < recipients.length && recipients[i] != null; i++) {
+			final Client client = recipients[i];
+			if (skipUnwritable && !client.isWritable()) {
+				continue;
+			}
+
+			try {
+				// Every queue needs its own position, but not its own copy
+				client.send(shared.duplicate());
+				count++;
+			}
+			catch (IOException e) {
+				LOG.debug("Cannot broadcast to client {}", client.getId(), e);
+			}
+		}
+		return count;
+	}
+
+	@Override
+	public String toString() {
+		return "ClientGroup [name=" + name + ", size=" + size() + "]";
+	}
+
+}
@@ -1,173 +1,1547 @@
 package de.me.networking.server;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
 import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
 import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.NotYetConnectedException;
 import java.nio.channels.SelectionKey;
-import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import de.me.networking.server.buffer.AdaptiveBufferSize;
+import de.me.networking.server.buffer.BufferAllocator;
+import de.me.networking.server.codec.FrameDecoder;
 import de.me.networking.server.listener.Client;
 import de.me.networking.server.listener.ClientListener;
+import de.me.networking.server.listener.ConnectListener;
+import de.me.networking.server.listener.HandshakeListener;
+import de.me.networking.server.listener.ReadCompleteListener;
+import de.me.networking.server.listener.SendListener;
+import de.me.networking.server.listener.TimeoutListener;
+import de.me.networking.server.listener.TimeoutType;
+import de.me.networking.server.listener.WritabilityListener;
+import de.me.networking.server.metrics.NetworkMetrics;
+import de.me.networking.server.timer.HashedWheelTimer;
+import de.me.networking.server.timer.Timeout;
+import de.me.networking.server.tls.TlsChannel;
+import de.me.networking.server.tls.TlsConfig;
 
 
 /**
  * Internal {@link Client} facade implementation.
  */
-public class ClientHandler implements Client {
+public class ClientHandler implements Client, SelectionHandler {
+
+	private static final AtomicLong NEXT_ID = new AtomicLong();
+	private static final ClientListener[] NO_LISTENERS = new ClientListener[0];
 
 	private final Logger log = LoggerFactory.getLogger(getClass());
 
+	private final long id = NEXT_ID.incrementAndGet();
 	private final SocketChannel client;
-	private final List<ClientListener> listeners = new LinkedList<>();
-	private final int capacity;
+	private volatile ClientListener[] listeners = NO_LISTENERS;
+	private final ReentrantLock listenersLock = new ReentrantLock();
+	private final AdaptiveBufferSize bufferSize;
+	private final BufferAllocator allocator;
+	private final boolean writeCoalescing;
+	private final AtomicBoolean deregistered = new AtomicBoolean();
+	private final AtomicBoolean terminated = new AtomicBoolean();
+	private volatile Runnable terminationTask;
+
+	private final Queue<OutboundEntry> outbound = new ConcurrentLinkedQueue<>();
+	private final AtomicLong pendingBytes = new AtomicLong();
+	private final AtomicBoolean flushScheduled = new AtomicBoolean();
+	private final Runnable flushTask = new Runnable() {
+		@Override
+		public void run() {
+			flushScheduled.set(false);
+			flushOutbound();
+		}
+	};
+	private ByteBuffer[] gathering;
+
+	private final long lowWaterMark;
+	private final long highWaterMark;
+	private final boolean suspendReadWhenUnwritable;
+	private final AtomicBoolean writable = new AtomicBoolean(true);
+	private final AtomicBoolean notifiedWritable = new AtomicBoolean(true);
+	private final Runnable writabilityTask = new Runnable() {
+		@Override
+		public void run() {
+			notifyWritability();
+		}
+	};
+
+	private volatile FrameDecoder frameDecoder;
+	private FrameCumulator cumulator;
+	private final ReadOnlyView readView = new ReadOnlyView();
+
+	private final SerialExecutor listenerQueue;
+	private final long listenerQueueLimit;
+	private final AtomicLong listenerQueueBytes = new AtomicLong();
+	private final AtomicBoolean listenerSuspended = new AtomicBoolean();
+	private volatile boolean listenerFailed = false;
+
+	private volatile boolean suspendRead = false;
+	private volatile boolean writeSuspended = false;
+	private final Runnable readInterestTask = new Runnable() {
+		@Override
+		public void run() {
+			setReadInterest();
+		}
+	};
+	private volatile boolean corked = false;
+	private boolean dispatching = false;
+
+	private volatile EventLoop loop;
+	private SelectionKey selkey;
+	private boolean inputClosed = false;
+	private boolean inputDrained = false;
+	private int readMessages = 0;
+	private final long readBudgetBytes;
+	private final int readBudgetMessages;
+	private volatile boolean failed = false;
+	private boolean connecting = false;
+	private final long connectTimeout;
+	private Timeout connectTimer;
+	private final Runnable connectTimeoutTask = new Runnable() {
+		@Override
+		public void run() {
+			if (connecting && client.isOpen()) {
+				log.debug("Client connect timeout elapsed");
+				handleError(new SocketTimeoutException("Connect timed out"));
+			}
+		}
+	};
+
+	private final TlsConfig tlsConfig;
+	private TlsChannel tls;
+	private volatile boolean handshaking;
+	private final Runnable handshakeTask = new Runnable() {
+		@Override
+		public void run() {
+			if (!client.isOpen()) {
+				return;
+			}
+
+			try {
+				continueHandshake();
+			}
+			catch (Throwable e) {
+				log.error("Client TLS handshake error", e);
+				handleError(e);
+			}
+		}
+	};
+	private final Runnable handshakeTasksDone = new Runnable() {
+		@Override
+		public void run() {
+			loop.execute(handshakeTask);
+		}
+	};
+	private final Runnable bufferedReadTask = new Runnable() {
+		@Override
+		public void run() {
+			if (tls.hasBufferedInput() && client.isOpen()) {
+				try {
+					onReadable();
+				}
+				catch (Throwable e) {
+					log.error("Client Handler error", e);
+					handleError(e);
+				}
+			}
+		}
+	};
+
+	private final NetworkMetrics metrics;
+	private final HashedWheelTimer timer;
+	private final TimeoutWatch[] timeoutWatches;
+	private volatile long lastReadTime;
+	private volatile long lastWriteTime;
+
+	private volatile Thread blockingThread;
+	// Locks instead of monitors, so virtual threads waiting or writing do not pin their carrier thread
+	private final ReentrantLock suspendLock = new ReentrantLock();
+	private final Condition resumed = suspendLock.newCondition();
+	private final ReentrantLock writeLock = new ReentrantLock();
+
+
+	public ClientHandler(SocketChannel client, int capacity) {
+		this(client, new ClientConfig().setBufferCapacity(capacity));
+	}
+
+	public ClientHandler(SocketChannel client, ClientConfig config) {
+		this.client = client;
+		this.bufferSize = new AdaptiveBufferSize(config.getMinBufferCapacity(), config.getBufferCapacity(), config.getMaxBufferCapacity());
+		this.allocator = config.getBufferAllocator();
+		this.writeCoalescing = config.isWriteCoalescing();
+		this.frameDecoder = config.getFrameDecoder();
+		this.lowWaterMark = config.getLowWaterMark();
+		this.highWaterMark = config.getHighWaterMark();
+		this.suspendReadWhenUnwritable = config.isSuspendReadWhenUnwritable();
+		this.timer = config.getTimer();
+		this.metrics = config.getMetrics();
+		this.connectTimeout = config.getConnectTimeout();
+		this.tlsConfig = config.getTlsConfig();
+		this.listenerQueue = config.getListenerExecutor() != null ? new SerialExecutor(config.getListenerExecutor()) : null;
+		this.listenerQueueLimit = config.getListenerQueueLimit();
+		this.readBudgetBytes = config.getReadBudgetBytes();
+		this.readBudgetMessages = config.getReadBudgetMessages();
+		// Nothing is written before the handshake started
+		this.handshaking = tlsConfig != null;
+
+		final List<TimeoutWatch> watches = new LinkedList<>();
+		if (config.getIdleTimeout() > 0) {
+			watches.add(new TimeoutWatch(TimeoutType.IDLE, config.getIdleTimeout()));
+		}
+		if (config.getReadTimeout() > 0) {
+			watches.add(new TimeoutWatch(TimeoutType.READ, config.getReadTimeout()));
+		}
+		if (config.getWriteTimeout() > 0) {
+			watches.add(new TimeoutWatch(TimeoutType.WRITE, config.getWriteTimeout()));
+		}
+		this.timeoutWatches = watches.toArray(new TimeoutWatch[watches.size()]);
+
+		if (metrics != null) {
+			metrics.connectionOpened();
+		}
+	}
+
+	@Override
+	public long getId() {
+		return id;
+	}
+
+	/**
+	 * Adds the listener to a copy of the listener array, so notifying the listeners needs neither a lock nor an iterator.
+	 */
+	@Override
+	public Client addListener(ClientListener listener) {
+		if (listener == null) throw new IllegalArgumentException("Listener required");
+
+		listenersLock.lock();
+		try {
+			final ClientListener[] added = Arrays.copyOf(listeners, listeners.length + 1);
+			added[listeners.length] = listener;
+			listeners = added;
+		}
+		finally {
+			listenersLock.unlock();
+		}
+		return this;
+	}
+
+	/**
+	 * Gets the read buffer capacity predicted for the next read.
+	 */
+	@Override
+	public int getBufferCapacity() {
+		return bufferSize.size();
+	}
+
+	@Override
+	public BufferAllocator getBufferAllocator() {
+		return allocator;
+	}
+
+	@Override
+	public void setFrameDecoder(FrameDecoder frameDecoder) {
+		this.frameDecoder = frameDecoder;
+	}
+
+	/**
+	 * Gets the decoder splitting received data into frames or <code>null</code> if data is passed on as read.
+	 */
+	public FrameDecoder getFrameDecoder() {
+		return frameDecoder;
+	}
+
+	@Override
+	public void suspendMessages() {
+		suspendRead = true;
+		updateReadInterest();
+	}
+
+	@Override
+	public void resumeMessages() {
+		suspendRead = false;
+		updateReadInterest();
+	}
+
+	private boolean isReadSuspended() {
+		return suspendRead || writeSuspended || listenerSuspended.get();
+	}
+
+	/**
+	 * Applies a changed read suspension on the thread handling the client.<br>
+	 * On an event loop the read interest is removed while suspended, so the selector does not report
+	 * the pending input over and over again.
+	 */
+	private void updateReadInterest() {
+		if (timeoutWatches.length > 0) {
+			// Time with reading suspended does not count as inactivity
+			lastReadTime = System.nanoTime();
+		}
+
+		if (blockingThread != null) {
+			suspendLock.lock();
+			try {
+				resumed.signalAll();
+			}
+			finally {
+				suspendLock.unlock();
+			}
+			return;
+		}
+
+		final EventLoop loop = this.loop;
+		if (loop == null) {
+			// Applied as soon as registered
+			return;
+		}
+
+		if (loop.inEventLoop()) {
+			setReadInterest();
+		}
+		else {
+			loop.execute(readInterestTask);
+		}
+	}
+
+	private void setReadInterest() {
+		if (selkey == null || connecting || handshaking || !selkey.isValid()) {
+			return;
+		}
+
+		final int ops = selkey.interestOps();
+		final boolean read = !isReadSuspended() && !inputClosed;
+		final int newOps = read ? ops | SelectionKey.OP_READ : ops & ~SelectionKey.OP_READ;
+		if (ops != newOps) {
+			selkey.interestOps(newOps);
+		}
+
+		if (read && tls != null && tls.hasBufferedInput()) {
+			// Decrypted without the socket becoming readable again
+			loop.execute(bufferedReadTask);
+		}
+	}
+
+	/**
+	 * Gets the interest set on the event loop, <code>0</code> if not registered.<br>
+	 * Must be called on the loop thread.
+	 */
+	int getInterestOps() {
+		return selkey != null && selkey.isValid() ? selkey.interestOps() : 0;
+	}
+
+	@Override
+	public boolean isWritable() {
+		return writable.get();
+	}
+
+
+	@Override
+	public int send(ByteBuffer buffer) throws IOException {
+		return send(buffer, null);
+	}
+
+	@Override
+	public int send(ByteBuffer buffer, SendListener listener) throws IOException {
+		if (buffer == null) throw new IllegalArgumentException("Buffer required");
+		final int length = buffer.remaining();
+		if (!writeImmediately(buffer, listener)) {
+			enqueue(new OutboundEntry.BufferEntry(buffer, listener));
+		}
+		return length;
+	}
+
+	@Override
+	public long send(ByteBuffer... buffers) throws IOException {
+		return send(buffers, null);
+	}
+
+	@Override
+	public long send(ByteBuffer[] buffers, SendListener listener) throws IOException {
+		if (buffers == null) throw new IllegalArgumentException("Buffers required");
+
+		long length = 0L;
+		for (ByteBuffer buffer : buffers) {
+			if (buffer == null) throw new IllegalArgumentException("Buffer required");
+			length += buffer.remaining();
+		}
+
+		enqueue(buffers.length == 1
+				? new OutboundEntry.BufferEntry(buffers[0], listener)
+				: new OutboundEntry.BuffersEntry(buffers, listener));
+		return length;
+	}
+
+	@Override
+	public long sendFile(FileChannel file, long position, long count) throws IOException {
+		return sendFile(file, position, count, null);
+	}
+
+	@Override
+	public long sendFile(FileChannel file, long position, long count, SendListener listener) throws IOException {
+		if (file == null) throw new IllegalArgumentException("File required");
+		if (position < 0 || count < 0) throw new IllegalArgumentException("Invalid file region: " + position + " + " + count);
+		enqueue(new OutboundEntry.FileEntry(file, position, count, false, listener));
+		return count;
+	}
+
+	@Override
+	public long sendFile(Path path) throws IOException {
+		return sendFile(path, null);
+	}
+
+	@Override
+	public long sendFile(Path path, SendListener listener) throws IOException {
+		if (path == null) throw new IllegalArgumentException("Path required");
+
+		final FileChannel file = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			final long count = file.size();
+			enqueue(new OutboundEntry.FileEntry(file, 0L, count, true, listener));
+			return count;
+		}
+		catch (IOException | RuntimeException e) {
+			file.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Gets the number of bytes queued but not yet written to the socket.
+	 */
+	public long getPendingBytes() {
+		return pendingBytes.get();
+	}
+
+	/**
+	 * Writes the buffer right away if nothing else is queued and the calling thread may write,
+	 * so a response sent by a listener is written without any queue entry.
+	 *
+	 * @return <code>true</code> if the buffer was written completely, otherwise the rest has to be queued
+	 */
+	private boolean writeImmediately(ByteBuffer buffer, SendListener listener) {
+		if (corked || handshaking || !client.isOpen()) {
+			return false;
+		}
+
+		final EventLoop loop = this.loop;
+		if (loop != null) {
+			if (!loop.inEventLoop() || dispatching || selkey == null || connecting || inputClosed || !outbound.isEmpty()) {
+				return false;
+			}
+			return writeUnqueued(buffer, listener);
+		}
+
+		if (blockingThread == null || (dispatching && inHandlerThread())) {
+			return false;
+		}
+		writeLock.lock();
+		try {
+			return outbound.isEmpty() && !handshaking && writeUnqueued(buffer, listener);
+		}
+		finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Writes the buffer as far as the socket accepts it and notifies the listener if it was written completely.
+	 */
+	private boolean writeUnqueued(ByteBuffer buffer, SendListener listener) {
+		final long written;
+		try {
+			written = output().write(buffer);
+		}
+		catch (IOException e) {
+			// Reported by writing the queued rest
+			return false;
+		}
+
+		if (written > 0) {
+			if (metrics != null) {
+				metrics.bytesWritten(written);
+			}
+			if (timeoutWatches.length > 0) {
+				lastWriteTime = System.nanoTime();
+			}
+		}
+
+		if (buffer.hasRemaining() || (tls != null && tls.hasPendingOutput())) {
+			// Queued to write the rest, with TLS to complete once the encrypted data was written
+			return false;
+		}
+
+		if (metrics != null) {
+			metrics.messageWritten();
+		}
+		OutboundEntry.notifySent(listener);
+		return true;
+	}
+
+	private void enqueue(OutboundEntry entry) throws IOException {
+		if (!client.isOpen()) throw new ClosedChannelException();
+
+		outbound.add(entry);
+		queued(entry.remaining());
+
+		if (corked) {
+			// Flushed as soon as uncorked
+			return;
+		}
+
+		final EventLoop loop = this.loop;
+		if (loop == null) {
+			if (blockingThread != null && !(dispatching && inHandlerThread())) {
+				flushBlocking();
+			}
+			// Otherwise flushed as soon as registered
+			return;
+		}
+
+		if (loop.inEventLoop()) {
+			if (!dispatching) {
+				flushOutbound();
+			}
+		}
+		else {
+			scheduleFlush(loop);
+		}
+	}
+
+	private void queued(long bytes) {
+		if (metrics != null) {
+			metrics.outboundChanged(bytes);
+		}
+
+		final long pending = pendingBytes.addAndGet(bytes);
+		if (pending == bytes && timeoutWatches.length > 0) {
+			// Write stall is measured from the moment data is waiting
+			lastWriteTime = System.nanoTime();
+		}
+
+		if (pending > highWaterMark && writable.compareAndSet(true, false)) {
+			writabilityChanged();
+		}
+	}
+
+	private void dequeued(long bytes) {
+		if (metrics != null) {
+			metrics.outboundChanged(-bytes);
+		}
+		if (bytes > 0 && timeoutWatches.length > 0) {
+			lastWriteTime = System.nanoTime();
+		}
+
+		if (pendingBytes.addAndGet(-bytes) <= lowWaterMark && writable.compareAndSet(false, true)) {
+			writabilityChanged();
+		}
+	}
+
+	private void writabilityChanged() {
+		final EventLoop loop = this.loop;
+		if (loop != null && !loop.inEventLoop()) {
+			loop.execute(writabilityTask);
+		}
+		else {
+			notifyWritability();
+		}
+	}
+
+	/**
+	 * Notifies the listeners of the current writability if it differs from the one notified last.<br>
+	 * Suspends or resumes reading if configured.
+	 */
+	private void notifyWritability() {
+		while (true) {
+			final boolean writable = this.writable.get();
+			// Checked again after notifying, so a change racing with the notification is not lost
+			if (!notifiedWritable.compareAndSet(!writable, writable)) {
+				return;
+			}
+			notifyWritability(writable);
+		}
+	}
+
+	private void notifyWritability(boolean writable) {
+		log.trace("Client writability changed to {}", writable);
+
+		if (suspendReadWhenUnwritable) {
+			writeSuspended = !writable;
+			updateReadInterest();
+		}
+
+		if (!client.isOpen()) {
+			return;
+		}
+
+		for (ClientListener listener : listeners) {
+			if (listener instanceof WritabilityListener) {
+				try {
+					((WritabilityListener) listener).onWritabilityChanged(writable);
+				}
+				catch (Throwable e) {
+					log.error("Error in writability listener", e);
+				}
+			}
+		}
+	}
+
+	private void scheduleFlush(EventLoop loop) {
+		if (flushScheduled.compareAndSet(false, true)) {
+			loop.execute(flushTask);
+		}
+	}
+
+	@Override
+	public void cork() {
+		corked = true;
+	}
+
+	@Override
+	public void flush() {
+		corked = false;
+
+		final EventLoop loop = this.loop;
+		if (loop != null && !outbound.isEmpty()) {
+			if (loop.inEventLoop()) {
+				flushOutbound();
+			}
+			else {
+				scheduleFlush(loop);
+			}
+		}
+		else if (blockingThread != null) {
+			flushBlocking();
+		}
+	}
+
+	/**
+	 * Checks if the calling thread is the one handling the client.
+	 */
+	private boolean inHandlerThread() {
+		final EventLoop loop = this.loop;
+		return loop != null ? loop.inEventLoop() : Thread.currentThread() == blockingThread;
+	}
+
+	/**
+	 * Writes all queued data to the blocking channel in the calling thread.
+	 */
+	private void flushBlocking() {
+		writeLock.lock();
+		try {
+			if (!client.isOpen()) {
+				failOutbound(new ClosedChannelException());
+				return;
+			}
+			if (handshaking) {
+				// Written once the handshake finished
+				return;
+			}
+
+			try {
+				OutboundEntry entry;
+				while ((entry = outbound.peek()) != null) {
+					final ByteBuffer[] gathering = gatheringBuffers();
+					final int count = gather(gathering);
+					final long written = count == 0 ? entry.write(output()) : writeGathered(gathering, count);
+					dequeued(written);
+					if (metrics != null) {
+						metrics.bytesWritten(written);
+					}
+
+					completeWritten();
+				}
+			}
+			catch (Throwable e) {
+				log.error("Client write error", e);
+				// The queued data fails with the cause rather than the closed channel
+				failOutbound(e);
+				handleError(e);
+			}
+		}
+		finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Writes queued data as long as the socket accepts it.<br>
+	 * Consecutive buffers are written with a single gathering write.
+	 * Write interest is only enabled while data remains queued.
+	 */
+	private void flushOutbound() {
+		if (selkey == null || connecting || handshaking) {
+			return;
+		}
+
+		if (!client.isOpen()) {
+			failOutbound(new ClosedChannelException());
+			return;
+		}
+
+		try {
+			OutboundEntry entry;
+			while ((entry = outbound.peek()) != null) {
+				final ByteBuffer[] gathering = gatheringBuffers();
+				final int count = gather(gathering);
+				final long written = count == 0 ? entry.write(output()) : writeGathered(gathering, count);
+				dequeued(written);
+				if (metrics != null) {
+					metrics.bytesWritten(written);
+				}
+
+				final boolean flushed = completeWritten();
+				if (!outbound.isEmpty() && (written == 0 || !flushed)) {
+					log.trace("Client socket full, waiting for writability");
+					setWriteInterest(true);
+					return;
+				}
+			}
+
+			if (tls != null && !tls.flush()) {
+				log.trace("Client socket full, waiting for writability");
+				setWriteInterest(true);
+				return;
+			}
+
+			setWriteInterest(false);
+
+			if (inputClosed) {
+				deregister();
+			}
+		}
+		catch (Throwable e) {
+			log.error("Client write error", e);
+			// The queued data fails with the cause rather than the closed channel
+			failOutbound(e);
+			handleError(e);
+		}
+	}
+
+	/**
+	 * Completes the leading entries written completely.<br>
+	 * With TLS this waits until their encrypted data left the channel's buffer,
+	 * so send listeners are only notified of data written to the socket.
+	 *
+	 * @return <code>false</code> if encrypted data is still waiting for the socket
+	 */
+	private boolean completeWritten() throws IOException {
+		if (tls != null && !tls.flush()) {
+			return false;
+		}
+
+		OutboundEntry entry;
+		while ((entry = outbound.peek()) != null && entry.isDone()) {
+			outbound.poll();
+			entry.complete();
+			if (metrics != null) {
+				metrics.messageWritten();
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Collects the buffers of the leading queued entries into the gathering array.
+	 *
+	 * @return the number of collected buffers
+	 */
+	private int gather(ByteBuffer[] gathering) {
+		int count = 0;
+		for (OutboundEntry entry : outbound) {
+			final int n = entry.gather(gathering, count);
+			if (n < 0) {
+				break;
+			}
+			count += n;
+		}
+		return count;
+	}
+
+	private long writeGathered(ByteBuffer[] gathering, int count) throws IOException {
+		final GatheringByteChannel output = output();
+		try {
+			return count == 1 ? output.write(gathering[0]) : output.write(gathering, 0, count);
+		}
+		finally {
+			Arrays.fill(gathering, 0, count, null);
+		}
+	}
+
+	/**
+	 * Gets the array for gathering writes, shared by all clients of the event loop.
+	 */
+	private ByteBuffer[] gatheringBuffers() {
+		final EventLoop loop = this.loop;
+		if (loop != null) {
+			return loop.gatheringBuffers();
+		}
+		if (gathering == null) {
+			gathering = new ByteBuffer[EventLoop.GATHERING_BUFFERS];
+		}
+		return gathering;
+	}
+
+	/**
+	 * Gets the channel to write data to, encrypting it if TLS is used.
+	 */
+	private GatheringByteChannel output() {
+		return tls != null ? tls : client;
+	}
+
+	private void setWriteInterest(boolean enabled) throws IOException {
+		if (!selkey.isValid()) {
+			if (enabled) {
+				throw new ClosedChannelException();
+			}
+			return;
+		}
+
+		final int ops = selkey.interestOps();
+		final int newOps = enabled ? ops | SelectionKey.OP_WRITE : ops & ~SelectionKey.OP_WRITE;
+		if (ops != newOps) {
+			selkey.interestOps(newOps);
+		}
+	}
+
+	private void failOutbound(Throwable exception) {
+		OutboundEntry entry;
+		while ((entry = outbound.poll()) != null) {
+			dequeued(entry.remaining());
+			entry.fail(exception);
+		}
+	}
+
+
+	@Override
+	public void close() throws IOException {
+		final EventLoop loop = this.loop;
+		if (loop != null && loop.inEventLoop() && client.isOpen() && !failed) {
+			// Last chance to write queued data
+			flushOutbound();
+		}
+
+		if (tls != null && client.isOpen() && (loop == null || loop.inEventLoop())) {
+			// Also sends the alert of a failed handshake
+			try {
+				tls.closeOutbound();
+			}
+			catch (IOException e) {
+				log.debug("Cannot send TLS close_notify", e);
+			}
+		}
+
+		try {
+			client.shutdownOutput();
+		}
+		catch (ClosedChannelException | NotYetConnectedException e) {}
+
+		try {
+			client.shutdownInput();
+		}
+		catch (ClosedChannelException | NotYetConnectedException e) {}
+
+		try {
+			client.close();
+		}
+		catch (ClosedChannelException e) {}
+
+		if (loop != null) {
+			loop.execute(new Runnable() {
+				@Override
+				public void run() {
+					deregister();
+				}
+			});
+		}
+		else {
+			failOutbound(new ClosedChannelException());
+		}
+	}
+
+
+	/**
+	 * Starts handling client traffic in a private {@link EventLoop} run by the calling thread.<br>
+	 * This method will <b>block</b> until the client was completely handled.
+	 */
+	public void execute() throws IOException {
+		final EventLoop loop = new EventLoop().setMetrics(metrics);
+		register(loop);
+		loop.shutdown();
+		loop.run();
+	}
+
+	/**
+	 * Starts handling client traffic with blocking reads and writes in the calling thread.<br>
+	 * This method will <b>block</b> until the client was completely handled and is meant to be run in a virtual thread.
+	 */
+	public void executeBlocking() throws IOException {
+		client.configureBlocking(true);
+		blockingThread = Thread.currentThread();
+
+		try {
+			startTimeouts();
+
+			if (tlsConfig != null) {
+				handshakeBlocking();
+			}
+
+			// Write data queued before
+			flushBlocking();
+
+			while (client.isOpen()) {
+				awaitResume();
+
+				if (readInput()) {
+					break;
+				}
+			}
+		}
+		catch (Throwable e) {
+			log.error("Client Handler error", e);
+			handleError(e);
+		}
+		finally {
+			terminate();
+		}
+	}
+
+	private void awaitResume() throws InterruptedIOException {
+		suspendLock.lock();
+		try {
+			while (isReadSuspended()) {
+				log.trace("Client read currently suspended");
+
+				try {
+					resumed.await();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted while suspended");
+				}
+			}
+		}
+		finally {
+			suspendLock.unlock();
+		}
+	}
+
+	/**
+	 * Starts handling client traffic on the provided {@link EventLoop}.<br>
+	 * This method returns immediately, the client is registered on the loop thread.
+	 */
+	public void register(final EventLoop loop) {
+		this.loop = loop;
+
+		loop.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					selkey = loop.register(client, tlsConfig != null ? 0 : readOps(), ClientHandler.this);
+					startTimeouts();
+
+					if (tlsConfig != null) {
+						startHandshake();
+						continueHandshake();
+					}
+					else {
+						flushOutbound();
+					}
+				}
+				catch (Throwable e) {
+					log.error("Cannot register client", e);
+					handleError(e);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Connects the unconnected channel to the address and starts handling client traffic on the provided {@link EventLoop}.<br>
+	 * This method returns immediately, the connection is made on the loop thread without blocking it.
+	 * Listeners implementing {@link ConnectListener} are notified once connected, a failed connection is reported as error,
+	 * as is a connection not established within the connect timeout. Data sent before is written as soon as connected.
+	 */
+	public void connect(final EventLoop loop, final SocketAddress address) {
+		this.loop = loop;
+
+		loop.execute(new Runnable() {
+			@Override
+			public void run() {
+				if (!client.isOpen()) {
+					// Closed before connecting
+					deregister();
+					return;
+				}
+
+				try {
+					client.configureBlocking(false);
+					connecting = !client.connect(address);
+					selkey = loop.register(client, connecting ? SelectionKey.OP_CONNECT : 0, ClientHandler.this);
+
+					if (!connecting) {
+						connected();
+					}
+					else if (connectTimeout > 0) {
+						connectTimer = timer.newTimeout(new Runnable() {
+							@Override
+							public void run() {
+								runInHandler(connectTimeoutTask);
+							}
+						}, connectTimeout, TimeUnit.NANOSECONDS);
+					}
+				}
+				catch (Throwable e) {
+					log.error("Cannot connect client", e);
+					handleError(e);
+				}
+			}
+		});
+	}
+
+	private int readOps() {
+		return isReadSuspended() ? 0 : SelectionKey.OP_READ;
+	}
+
+	private void connected() throws IOException {
+		log.debug("Client connected");
+		connecting = false;
+
+		if (connectTimer != null) {
+			connectTimer.cancel();
+		}
+
+		startTimeouts();
+
+		for (ClientListener listener : listeners) {
+			if (listener instanceof ConnectListener) {
+				try {
+					((ConnectListener) listener).onConnect();
+				}
+				catch (Throwable e) {
+					throw new ListenerException(e);
+				}
+			}
+		}
+
+		if (tlsConfig != null) {
+			// Data sent so far is written once the handshake finished
+			startHandshake();
+			continueHandshake();
+		}
+		else {
+			selkey.interestOps(readOps());
+			flushOutbound();
+		}
+	}
+
+	/**
+	 * Creates the TLS channel for the connected client and starts the handshake.<br>
+	 * A client engine is created for the host connected to, to verify the server certificate against it.
+	 */
+	private void startHandshake() throws IOException {
+		String host = null;
+		int port = -1;
+
+		final SocketAddress remote = client.getRemoteAddress();
+		if (remote instanceof InetSocketAddress) {
+			host = ((InetSocketAddress) remote).getHostString();
+			port = ((InetSocketAddress) remote).getPort();
+		}
+
+		tls = new TlsChannel(client, tlsConfig.createEngine(host, port), allocator);
+		tls.beginHandshake();
+	}
+
+	/**
+	 * Continues the handshake on the event loop, waiting for the socket or the delegated tasks without blocking.
+	 */
+	private void continueHandshake() throws IOException {
+		switch (tls.handshake()) {
+			case NEED_READ:
+				selkey.interestOps(SelectionKey.OP_READ);
+				break;
+
+			case NEED_WRITE:
+				selkey.interestOps(SelectionKey.OP_WRITE);
+				break;
+
+			case NEED_TASK:
+				selkey.interestOps(0);
+				tls.runDelegatedTasks(tlsConfig.getTaskExecutor(), handshakeTasksDone);
+				break;
+
+			default:
+				handshakeFinished();
+				selkey.interestOps(readOps());
+				flushOutbound();
+
+				if (tls.hasBufferedInput()) {
+					// Data received together with the end of the handshake
+					onReadable();
+				}
+				break;
+		}
+	}
+
+	/**
+	 * Runs the whole handshake in the calling thread with blocking reads and writes.
+	 */
+	private void handshakeBlocking() throws IOException {
+		startHandshake();
+
+		TlsChannel.HandshakeStep step;
+		while ((step = tls.handshake()) != TlsChannel.HandshakeStep.FINISHED) {
+			if (step == TlsChannel.HandshakeStep.NEED_TASK) {
+				tls.runDelegatedTasks();
+			}
+		}
+
+		handshakeFinished();
+	}
+
+	private void handshakeFinished() throws ListenerException {
+		handshaking = false;
+
+		if (log.isDebugEnabled()) {
+			log.debug("Client TLS handshake finished with {} {}", tls.getEngine().getSession().getProtocol(), tls.getEngine().getSession().getCipherSuite());
+		}
+
+		for (ClientListener listener : listeners) {
+			if (listener instanceof HandshakeListener) {
+				try {
+					((HandshakeListener) listener).onHandshake(tls.getEngine().getSession(), tls.getApplicationProtocol());
+				}
+				catch (Throwable e) {
+					throw new ListenerException(e);
+				}
+			}
+		}
+	}
+
+	@Override
+	public void handleSelection(SelectionKey key) {
+		if (log.isTraceEnabled()) {
+			log.trace("Have selection ops {}", key.readyOps());
+		}
+
+		try {
+			if (key.isConnectable()) {
+				if (client.finishConnect()) {
+					connected();
+				}
+				return;
+			}
 
-	private boolean suspendRead = false;
+			if (handshaking) {
+				continueHandshake();
+				return;
+			}
 
+			if (key.isReadable()) {
+				log.trace("Client signalized readability");
+				onReadable();
+			}
 
-	public ClientHandler(SocketChannel client, int capacity) {
-		this.client = client;
-		this.capacity = capacity;
+			if (key.isValid() && key.isWritable()) {
+				log.trace("Client signalized writability");
+				flushOutbound();
+			}
+		}
+		catch (CancelledKeyException e) {
+			log.debug("Client closed while handling selection");
+			deregister();
+		}
+		catch (Throwable e) {
+			log.error("Client Handler error", e);
+			handleError(e);
+		}
 	}
 
-	@Override
-	public Client addListener(ClientListener listener) {
-		if (listener == null) throw new IllegalArgumentException("Listener required");
-		listeners.add(listener);
-		return this;
+	/**
+	 * Reads the available input, including records already received but not decrypted yet.
+	 */
+	private void onReadable() throws IOException {
+		if (readInput()) {
+			// Have EOF, keep registered until queued data is written
+			inputClosed = true;
+			if (outbound.isEmpty() && (tls == null || !tls.hasPendingOutput())) {
+				deregister();
+			}
+			else {
+				setReadInterest();
+				flushOutbound();
+			}
+		}
 	}
 
-	@Override
-	public int getBufferCapacity() {
-		return capacity;
-	}
+	/**
+	 * Reads the available input and passes it to the listeners, on an event loop until the read budget is used up.<br>
+	 * With write coalescing data sent by the listeners is held back until all of them are done.
+	 *
+	 * @return <code>true</code> on EOF
+	 */
+	private boolean readInput() throws IOException {
+		final boolean coalesce = writeCoalescing && !dispatching;
+		if (coalesce) {
+			dispatching = true;
+		}
 
-	@Override
-	public void suspendMessages() {
-		suspendRead = true;
+		boolean eof = false;
+		try {
+			eof = loop != null ? readBatch() : readClientInput() < 0;
+			if (!eof) {
+				readComplete();
+			}
+		}
+		finally {
+			if (coalesce) {
+				dispatching = false;
+			}
+		}
+
+		if (coalesce && !corked && !outbound.isEmpty()) {
+			if (loop != null) {
+				flushOutbound();
+			}
+			else {
+				flushBlocking();
+			}
+		}
+
+		return eof;
 	}
 
-	@Override
-	public void resumeMessages() {
-		if (suspendRead) {
-			try {
-				readClientInput(ByteBuffer.allocateDirect(capacity));
+	/**
+	 * Reads until the socket is drained or the read budget of the wake-up is used up,
+	 * so a busy client does not keep the other clients of the loop waiting.
+	 * Input left in the socket is reported by the next select.
+	 *
+	 * @return <code>true</code> on EOF
+	 */
+	private boolean readBatch() throws IOException {
+		long bytes = 0L;
+		readMessages = 0;
+
+		while (!isReadSuspended()) {
+			final int r = readClientInput();
+			if (r < 0) {
+				return true;
 			}
-			catch (IOException e) {
-				onError(e);
+
+			if (tls != null && tls.hasPendingOutput()) {
+				// Reply to messages of the peer after the handshake
+				flushOutbound();
 			}
-			finally {
-				suspendRead = false;
+
+			bytes += r;
+			if (inputDrained || !client.isOpen()) {
+				return false;
+			}
+			if (bytes >= readBudgetBytes || readMessages >= readBudgetMessages) {
+				log.trace("Client read budget used up");
+				if (tls != null && tls.hasBufferedInput()) {
+					// Not reported by the select
+					loop.execute(bufferedReadTask);
+				}
+				return false;
 			}
 		}
+
+		log.trace("Client read currently suspended");
+		return false;
 	}
 
+	/**
+	 * Notifies the listeners implementing {@link ReadCompleteListener} once the data read at once was passed on.
+	 */
+	private void readComplete() throws ListenerException {
+		if (readMessages == 0) {
+			return;
+		}
+		readMessages = 0;
+
+		if (listenerQueue != null) {
+			listenerQueue.execute(new ListenerTask() {
+				@Override
+				void notifyListeners() throws ListenerException {
+					notifyReadComplete();
+				}
+			});
+		}
+		else {
+			notifyReadComplete();
+		}
+	}
 
-	@Override
-	public int send(ByteBuffer buffer) throws IOException {
-		return client.write(buffer);
+	private void notifyReadComplete() throws ListenerException {
+		for (ClientListener listener : listeners) {
+			if (listener instanceof ReadCompleteListener) {
+				try {
+					((ReadCompleteListener) listener).onReadComplete();
+				}
+				catch (Throwable e) {
+					throw new ListenerException(e);
+				}
+			}
+		}
 	}
 
+	private void handleError(Throwable e) {
+		// Writing again on close would fail again
+		failed = true;
 
-	@Override
-	public void close() throws IOException {
+		// Inform listeners for error
 		try {
-			client.shutdownOutput();
+			onError(e);
 		}
-		catch (ClosedChannelException e) {}
+		catch (Throwable ee) {
+			log.error("Error in client handler onError", ee);
+		}
+		finally {
+			try {
+				client.close();
+			}
+			catch (IOException eee) {
+				log.error("Cannot close client connection", eee);
+			}
 
-		try {
-			client.shutdownInput();
+			deregister();
 		}
-		catch (ClosedChannelException e) {}
+	}
 
-		try {
-			client.close();
+	private void deregister() {
+		if (selkey != null && deregistered.compareAndSet(false, true)) {
+			loop.deregister(selkey);
+		}
+
+		if (loop != null) {
+			// Blocking handling terminates as soon as its thread is done
+			terminate();
+		}
+
+		if (!outbound.isEmpty()) {
+			failOutbound(new ClosedChannelException());
 		}
-		catch (ClosedChannelException e) {}
 	}
 
+	@Override
+	public Timeout schedule(final Runnable task, long delay, TimeUnit unit) {
+		if (task == null) throw new IllegalArgumentException("Task required");
+
+		final Runnable clientTask = new Runnable() {
+			@Override
+			public void run() {
+				if (client.isOpen()) {
+					task.run();
+				}
+			}
+		};
+
+		return timer.newTimeout(new Runnable() {
+			@Override
+			public void run() {
+				runInHandler(clientTask);
+			}
+		}, delay, unit);
+	}
 
 	/**
-	 * Starts handling client traffic.
+	 * Runs the task on the event loop handling the client or else in the calling thread.
 	 */
-	public void execute() throws IOException {
-		client.configureBlocking(false);
+	private void runInHandler(Runnable task) {
+		final EventLoop loop = this.loop;
+		if (loop != null && !loop.inEventLoop()) {
+			loop.execute(task);
+		}
+		else {
+			task.run();
+		}
+	}
 
-		final Selector selector = Selector.open();
-		try {
-			final SelectionKey selkey = client.register(selector, client.validOps());
+	private void startTimeouts() {
+		if (timeoutWatches.length == 0) {
+			return;
+		}
 
-			final ByteBuffer buffer = ByteBuffer.allocateDirect(capacity);
+		lastReadTime = lastWriteTime = System.nanoTime();
+		for (TimeoutWatch watch : timeoutWatches) {
+			watch.schedule(watch.timeout);
+		}
+	}
 
-			for (;;) {
-				selector.select();
+	/**
+	 * Notifies the listeners implementing {@link TimeoutListener} or closes the client if there are none.
+	 */
+	private void onTimeout(TimeoutType type) {
+		log.debug("Client {} timeout elapsed", type);
 
-				if (log.isTraceEnabled()) {
-					log.trace("Have selection ops {}", selkey.readyOps());
+		boolean notified = false;
+		for (ClientListener listener : listeners) {
+			if (listener instanceof TimeoutListener) {
+				notified = true;
+				try {
+					((TimeoutListener) listener).onTimeout(type);
+				}
+				catch (Throwable e) {
+					log.error("Error in timeout listener", e);
 				}
+			}
+		}
 
-				if (selkey.isReadable()) {
-					log.trace("Client signalized readability");
+		if (!notified) {
+			try {
+				close();
+			}
+			catch (IOException e) {
+				log.error("Cannot close timed out client", e);
+			}
+		}
+	}
 
-					if (suspendRead) {
-						log.trace("Client read currently suspended");
-					}
-					else if (readClientInput(buffer)) {
-						// Have EOF
-						break;
-					}
-				}
+	/**
+	 * Sets a task run once the client is not handled anymore.
+	 */
+	public void setTerminationTask(Runnable terminationTask) {
+		this.terminationTask = terminationTask;
+	}
 
-				if (log.isTraceEnabled()) {
-					if (selkey.isConnectable()) {
-						log.trace("Client signalized connectability");
-					}
+	/**
+	 * Closes the connection if still open, releases the resources held for handling the client and runs the termination task, only once.<br>
+	 * Must be called on the thread handling the client or before handling started.
+	 */
+	void terminate() {
+		if (!terminated.compareAndSet(false, true)) {
+			return;
+		}
 
-					if (selkey.isWritable()) {
-						log.trace("Client signalized writability");
-					}
-				}
+		if (cumulator != null) {
+			cumulator.release();
+		}
+		if (tls != null) {
+			tls.release();
+		}
+
+		for (TimeoutWatch watch : timeoutWatches) {
+			watch.cancel();
+		}
+		if (connectTimer != null) {
+			connectTimer.cancel();
+		}
+
+		// Not closed yet after EOF with all queued data written, the connection must not hold its socket any longer
+		if (client.isOpen()) {
+			try {
+				client.close();
+			}
+			catch (IOException e) {
+				log.error("Cannot close client connection", e);
 			}
 		}
-		finally {
-			selector.close();
+
+		if (metrics != null) {
+			metrics.connectionClosed();
+		}
+
+		final Runnable task = terminationTask;
+		if (task != null) {
+			try {
+				task.run();
+			}
+			catch (Throwable e) {
+				log.error("Client termination task error", e);
+			}
 		}
 	}
 
-	private boolean readClientInput(final ByteBuffer buffer) throws IOException {
-		buffer.clear();
+	/**
+	 * Reads client input into a buffer borrowed from the allocator for this read only,
+	 * so idle clients do not hold any read buffer.
+	 */
+	private int readClientInput() throws IOException {
+		final int size = tls != null ? Math.max(bufferSize.size(), tls.getApplicationBufferSize()) : bufferSize.size();
+		final ByteBuffer buffer = allocator.allocate(size);
+		try {
+			final int r = readClientInput(buffer);
+			// A read not filling the buffer took all the socket had
+			inputDrained = tls != null ? r == 0 && !tls.hasBufferedInput() : r < size;
+			return r;
+		}
+		finally {
+			allocator.release(buffer);
+		}
+	}
 
+	/**
+	 * Reads into the buffer and passes the data on.
+	 *
+	 * @return the number of bytes read or <code>-1</code> on EOF
+	 */
+	private int readClientInput(final ByteBuffer buffer) throws IOException {
+		// With TLS more than predicted is read, at least a whole record
+		final int capacity = buffer.remaining();
 		int r;
 
 		try {
-			r = client.read(buffer);
+			r = tls != null ? tls.read(buffer) : client.read(buffer);
 		}
 		catch (ClosedChannelException e) {
 			log.debug("Client already closed");
-			return true;
+			return -1;
+		}
+
+		if (r >= 0) {
+			bufferSize.record(r, capacity);
+		}
+		if (r > 0 && timeoutWatches.length > 0) {
+			lastReadTime = System.nanoTime();
+		}
+		if (r > 0 && metrics != null) {
+			metrics.bytesRead(r);
 		}
 
 		if (r < 0) {
 			log.debug("Client read signalized EOF");
 
+			readComplete();
 			onClose();
-			return true;
 		}
 		else if (r > 0) {
-			log.trace("Client read message of length {}", r);
+			if (log.isTraceEnabled()) {
+				log.trace("Client read message of length {}", r);
+			}
 
 			buffer.flip();
-			onMessage(buffer);
+			dispatch(buffer);
 		}
 
-		return false;
+		return r;
 	}
 
 
@@ -182,8 +1556,36 @@ public class ClientHandler implements Client {
 	}
 
 
-	private void onMessage(ByteBuffer buffer) throws ListenerException {
-		final ByteBuffer robuffer = buffer.asReadOnlyBuffer();
+	/**
+	 * Passes the read data to the listeners, split into frames if a decoder is set.
+	 */
+	private void dispatch(ByteBuffer buffer) throws IOException {
+		if (frameDecoder == null && (cumulator == null || !cumulator.hasPending())) {
+			onMessage(buffer);
+			return;
+		}
+
+		if (cumulator == null) {
+			cumulator = new FrameCumulator(allocator);
+		}
+		cumulator.decode(buffer, this);
+	}
+
+	void onMessage(ByteBuffer buffer) throws ListenerException {
+		readMessages++;
+
+		if (listenerQueue != null) {
+			queueMessage(buffer);
+		}
+		else {
+			notifyMessage(buffer);
+		}
+	}
+
+	private void notifyMessage(ByteBuffer buffer) throws ListenerException {
+		final long start = metrics != null ? System.nanoTime() : 0L;
+		// Frames are read-only slices already, read buffers come from the pool and get a reused view
+		final ByteBuffer robuffer = buffer.isReadOnly() ? buffer : readView.of(buffer);
 
 		for (ClientListener listener : listeners) {
 			try {
@@ -194,9 +1596,72 @@ public class ClientHandler implements Client {
 				throw new ListenerException(e);
 			}
 		}
+
+		if (metrics != null) {
+			metrics.messageRead(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Copies the data and passes it to the listeners on the listener executor.<br>
+	 * Reading is suspended while more data than the limit waits for the listeners.
+	 */
+	private void queueMessage(ByteBuffer buffer) {
+		final int length = buffer.remaining();
+		final ByteBuffer copy = allocator.allocate(length);
+		copy.put(buffer);
+		copy.flip();
+
+		listenerQueued(length);
+		listenerQueue.execute(new ListenerTask() {
+			@Override
+			void notifyListeners() throws ListenerException {
+				try {
+					// Like inline, data after a failed callback or close is not passed on
+					if (!listenerFailed && client.isOpen()) {
+						notifyMessage(copy);
+					}
+				}
+				finally {
+					allocator.release(copy);
+					listenerDequeued(length);
+				}
+			}
+		});
+	}
+
+	private void listenerQueued(long bytes) {
+		if (listenerQueueBytes.addAndGet(bytes) > listenerQueueLimit && listenerSuspended.compareAndSet(false, true)) {
+			log.trace("Client listeners behind, suspending read");
+			updateReadInterest();
+
+			// The listeners may have caught up meanwhile
+			listenerDequeued(0L);
+		}
+	}
+
+	private void listenerDequeued(long bytes) {
+		if (listenerQueueBytes.addAndGet(-bytes) <= listenerQueueLimit / 2 && listenerSuspended.compareAndSet(true, false)) {
+			log.trace("Client listeners caught up, resuming read");
+			updateReadInterest();
+		}
 	}
 
 	private void onClose() throws ListenerException {
+		if (listenerQueue != null) {
+			listenerQueue.execute(new ListenerTask() {
+				@Override
+				void notifyListeners() throws ListenerException {
+					notifyClose();
+				}
+			});
+		}
+		else {
+			notifyClose();
+		}
+	}
+
+	private void notifyClose() throws ListenerException {
 		for (ClientListener listener : listeners) {
 			try {
 				listener.onClose();
@@ -207,7 +1672,29 @@ public class ClientHandler implements Client {
 		}
 	}
 
-	public void onError(Throwable e) throws ListenerException {
+	public void onError(final Throwable e) throws ListenerException {
+		if (listenerQueue != null) {
+			listenerQueue.execute(new ListenerTask() {
+				@Override
+				void notifyListeners() throws ListenerException {
+					notifyError(e);
+				}
+			});
+		}
+		else {
+			notifyError(e);
+		}
+
+		// Try to close the client connection
+		try {
+			close();
+		}
+		catch (IOException ee) {
+			log.error("Failed to close client onError", ee);
+		}
+	}
+
+	private void notifyError(Throwable e) throws ListenerException {
 		for (ClientListener listener : listeners) {
 			try {
 				listener.onError(e);
@@ -216,14 +1703,112 @@ public class ClientHandler implements Client {
 				throw new ListenerException(ee);
 			}
 		}
+	}
 
-		// Try to close the client connection
-		try {
-			close();
+
+
+	/**
+	 * A listener callback run on the listener executor.<br>
+	 * A failing callback is handled like one run inline, on the thread handling the client.
+	 */
+	private abstract class ListenerTask implements Runnable {
+
+		@Override
+		public void run() {
+			try {
+				notifyListeners();
+			}
+			catch (final ListenerException e) {
+				if (listenerFailed) {
+					log.error("Error in client listener after failure", e);
+					return;
+				}
+				listenerFailed = true;
+
+				log.error("Client Handler error", e);
+				runInHandler(new Runnable() {
+					@Override
+					public void run() {
+						handleError(e);
+					}
+				});
+			}
 		}
-		catch (IOException ee) {
-			log.error("Failed to close client onError", ee);
+
+		abstract void notifyListeners() throws ListenerException;
+
+	}
+
+
+
+	/**
+	 * Watches a single timeout of the client.<br>
+	 * Activity only updates a timestamp, the timer entry is checked and rescheduled for the remaining time when it is due.
+	 */
+	private class TimeoutWatch implements Runnable {
+
+		private final TimeoutType type;
+		private final long timeout;
+		private volatile Timeout scheduled;
+		private final Runnable check = new Runnable() {
+			@Override
+			public void run() {
+				check();
+			}
+		};
+
+
+		TimeoutWatch(TimeoutType type, long timeout) {
+			this.type = type;
+			this.timeout = timeout;
+		}
+
+
+		void schedule(long delay) {
+			scheduled = timer.newTimeout(this, delay, TimeUnit.NANOSECONDS);
+		}
+
+		void cancel() {
+			final Timeout scheduled = this.scheduled;
+			if (scheduled != null) {
+				scheduled.cancel();
+			}
+		}
+
+		@Override
+		public void run() {
+			runInHandler(check);
+		}
+
+		private void check() {
+			if (terminated.get() || !client.isOpen()) {
+				return;
+			}
+
+			final long now = System.nanoTime();
+			final long last;
+			switch (type) {
+				case READ:
+					last = isReadSuspended() ? now : lastReadTime;
+					break;
+				case WRITE:
+					last = outbound.isEmpty() ? now : lastWriteTime;
+					break;
+				default:
+					last = Math.max(lastReadTime, lastWriteTime);
+					break;
+			}
+
+			final long remaining = last + timeout - now;
+			if (remaining > 0) {
+				schedule(remaining);
+				return;
+			}
+
+			schedule(timeout);
+			onTimeout(type);
 		}
+
 	}
 
 }
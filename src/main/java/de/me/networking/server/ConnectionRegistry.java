@@ -0,0 +1,127 @@
+package de.me.networking.server;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import de.me.networking.server.listener.Client;
+
+
+/**
+ * The clients handled by a {@link SimpleServer} by their {@link Client#getId() identifier}, and named groups of them.<br>
+ * Clients are registered before the accept listeners are notified and unregistered once they are not handled anymore.
+ */
+public class ConnectionRegistry {
+
+	private final LongObjectMap<Client> clients = new LongObjectMap<>();
+	private final ConcurrentMap<String, ClientGroup> groups = new ConcurrentHashMap<>();
+
+
+	Object getLock() {
+		return clients;
+	}
+
+	void add(Client client) {
+		synchronized (clients) {
+			clients.put(client.getId(), client);
+		}
+	}
+
+	void remove(Client client) {
+		synchronized (clients) {
+			if (clients.get(client.getId()) != client) {
+				return;
+			}
+			clients.remove(client.getId());
+		}
+
+		for (ClientGroup group : groups.values()) {
+			group.remove(client);
+		}
+	}
+
+
+	/**
+	 * Gets the registered client with the identifier or <code>null</code> if there is none.
+	 */
+	public Client getClient(long id) {
+		synchronized (clients) {
+			return clients.get(id);
+		}
+	}
+
+	/**
+	 * Gets the number of registered clients.
+	 */
+	public int size() {
+		synchronized (clients) {
+			return clients.size();
+		}
+	}
+
+	/**
+	 * Gets the group with the name, creating it if needed.
+	 */
+	public ClientGroup group(String name) {
+		if (name == null) throw new IllegalArgumentException("Name required");
+
+		ClientGroup group = groups.get(name);
+		if (group == null) {
+			final ClientGroup created = new ClientGroup(name, this);
+			group = groups.putIfAbsent(name, created);
+			if (group == null) {
+				group = created;
+			}
+		}
+		return group;
+	}
+
+	/**
+	 * Gets the group with the name or <code>null</code> if there is none.
+	 */
+	public ClientGroup getGroup(String name) {
+		if (name == null) throw new IllegalArgumentException("Name required");
+		return groups.get(name);
+	}
+
+	/**
+	 * Removes the group with the name, its clients are not affected.
+	 *
+	 * @return the removed group or <code>null</code> if there was none
+	 */
+	public ClientGroup removeGroup(String name) {
+		if (name == null) throw new IllegalArgumentException("Name required");
+		return groups.remove(name);
+	}
+
+	/**
+	 * Sends the buffer to all registered clients.
+	 *
+	 * @see #broadcast(ByteBuffer, boolean)
+	 */
+	public int broadcast(ByteBuffer buffer) {
+		return broadcast(buffer, false);
+	}
+
+	/**
+	 * Sends the remaining content of the buffer to all registered clients, optionally skipping the ones over their high write water mark.<br>
+	 * The content is not copied but shared read-only by all outbound queues, so the buffer must not be changed anymore.
+	 *
+	 * @return the number of clients the buffer was queued for
+	 */
+	public int broadcast(ByteBuffer buffer, boolean skipUnwritable) {
+		if (buffer == null) throw new IllegalArgumentException("Buffer required");
+
+		final Client[] recipients;
+		synchronized (clients) {
+			recipients = clients.values(new Client[clients.size()]);
+		}
+		return ClientGroup.broadcast(recipients, buffer, skipUnwritable);
+	}
+
+	@Override
+	public String toString() {
+		return "ConnectionRegistry [clients=" + size() + ", groups=" + groups.size() + "]";
+	}
+
+}
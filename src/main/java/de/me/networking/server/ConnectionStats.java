@@ -0,0 +1,59 @@
+package de.me.networking.server;
+
+
+
+/**
+ * A snapshot of the connection statistics of a {@link SimpleServer}.
+ */
+public class ConnectionStats {
+
+	private final long activeConnections;
+	private final long acceptedConnections;
+	private final long rejectedConnections;
+	private final long acceptPauses;
+
+
+	ConnectionStats(long activeConnections, long acceptedConnections, long rejectedConnections, long acceptPauses) {
+		this.activeConnections = activeConnections;
+		this.acceptedConnections = acceptedConnections;
+		this.rejectedConnections = rejectedConnections;
+		this.acceptPauses = acceptPauses;
+	}
+
+
+	/**
+	 * Gets the number of connections currently handled.
+	 */
+	public long getActiveConnections() {
+		return activeConnections;
+	}
+
+	/**
+	 * Gets the total number of connections admitted for handling.
+	 */
+	public long getAcceptedConnections() {
+		return acceptedConnections;
+	}
+
+	/**
+	 * Gets the total number of connections closed or rejected due to overload.
+	 */
+	public long getRejectedConnections() {
+		return rejectedConnections;
+	}
+
+	/**
+	 * Gets the number of times accepting was paused due to overload.
+	 */
+	public long getAcceptPauses() {
+		return acceptPauses;
+	}
+
+
+	@Override
+	public String toString() {
+		return "ConnectionStats [activeConnections=" + activeConnections + ", acceptedConnections=" + acceptedConnections
+				+ ", rejectedConnections=" + rejectedConnections + ", acceptPauses=" + acceptPauses + "]";
+	}
+
+}
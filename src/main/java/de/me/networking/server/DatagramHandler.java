@@ -0,0 +1,267 @@
+package de.me.networking.server;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.me.networking.server.buffer.BufferAllocator;
+import de.me.networking.server.listener.DatagramListener;
+import de.me.networking.server.metrics.NetworkMetrics;
+
+
+/**
+ * Internal class to receive and send the datagrams of a {@link DatagramChannel} on an {@link EventLoop}.<br>
+ * Up to the receive batch size datagrams are received per selector wake-up into a single pooled buffer,
+ * which is held while the channel is registered and passed to the listeners through a read-only view.
+ */
+public class DatagramHandler implements SelectionHandler {
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final DatagramChannel channel;
+	private final List<DatagramListener> listeners = new LinkedList<>();
+	private final BufferAllocator allocator;
+	private final int maxDatagramSize;
+	private final int receiveBatchSize;
+	private final NetworkMetrics metrics;
+	private final AtomicBoolean terminated = new AtomicBoolean();
+	private volatile Runnable terminationTask;
+
+	private EventLoop loop;
+	private SelectionKey selkey;
+	private ByteBuffer buffer;
+	private ByteBuffer view;
+
+	private final Runnable terminateTask = new Runnable() {
+		@Override
+		public void run() {
+			terminate();
+		}
+	};
+
+
+	/**
+	 * Create new {@link DatagramHandler}.
+	 *
+	 * @param channel the bound or connected channel
+	 * @param maxDatagramSize the capacity of the receive buffer, the excess of bigger datagrams is discarded
+	 * @param receiveBatchSize the maximum number of datagrams received per selector wake-up
+	 */
+	public DatagramHandler(DatagramChannel channel, BufferAllocator allocator, int maxDatagramSize, int receiveBatchSize, NetworkMetrics metrics) {
+		if (channel == null) throw new IllegalArgumentException("Channel required");
+		if (allocator == null) throw new IllegalArgumentException("Buffer allocator required");
+		if (maxDatagramSize <= 0) throw new IllegalArgumentException("Invalid max datagram size: " + maxDatagramSize);
+		if (receiveBatchSize <= 0) throw new IllegalArgumentException("Invalid receive batch size: " + receiveBatchSize);
+
+		this.channel = channel;
+		this.allocator = allocator;
+		this.maxDatagramSize = maxDatagramSize;
+		this.receiveBatchSize = receiveBatchSize;
+		this.metrics = metrics;
+	}
+
+
+	/**
+	 * Adds a listener, must be called before {@link #register(EventLoop)}.
+	 */
+	public DatagramHandler addListener(DatagramListener listener) {
+		if (listener == null) throw new IllegalArgumentException("Listener required");
+		listeners.add(listener);
+		return this;
+	}
+
+	/**
+	 * Sets a task run once the channel is not handled anymore.
+	 */
+	public void setTerminationTask(Runnable terminationTask) {
+		this.terminationTask = terminationTask;
+	}
+
+	/**
+	 * Starts receiving datagrams on the provided {@link EventLoop}.<br>
+	 * This method returns immediately, the channel is registered on the loop thread.
+	 */
+	public void register(final EventLoop loop) {
+		this.loop = loop;
+
+		loop.execute(new Runnable() {
+			@Override
+			public void run() {
+				if (!channel.isOpen()) {
+					terminate();
+					return;
+				}
+
+				try {
+					buffer = allocator.allocate(maxDatagramSize);
+					view = buffer.asReadOnlyBuffer();
+					selkey = loop.register(channel, SelectionKey.OP_READ, DatagramHandler.this);
+				}
+				catch (Throwable e) {
+					log.error("Cannot register datagram channel", e);
+					onError(e);
+					closeQuietly();
+					terminate();
+				}
+			}
+		});
+	}
+
+
+	@Override
+	public void handleSelection(SelectionKey key) {
+		try {
+			receive();
+		}
+		catch (Throwable e) {
+			if (!channel.isOpen()) {
+				terminate();
+				return;
+			}
+			onError(e);
+		}
+	}
+
+	private void receive() throws IOException {
+		for (int i = 0; i < receiveBatchSize; i++) {
+			buffer.clear();
+			final SocketAddress sender = channel.receive(buffer);
+			if (sender == null) {
+				return;
+			}
+
+			final int length = buffer.position();
+			if (metrics != null) {
+				metrics.bytesRead(length);
+			}
+
+			final long start = metrics != null ? System.nanoTime() : 0L;
+			for (DatagramListener listener : listeners) {
+				view.limit(length).position(0);
+				try {
+					listener.onDatagram(view, sender);
+				}
+				catch (Throwable e) {
+					throw new ListenerException(e);
+				}
+			}
+			if (metrics != null) {
+				metrics.messageRead(System.nanoTime() - start);
+			}
+		}
+	}
+
+	private void onError(Throwable exception) {
+		for (DatagramListener listener : listeners) {
+			try {
+				listener.onError(exception);
+			}
+			catch (Throwable e) {
+				log.error("Error in datagram listener onError", e);
+			}
+		}
+	}
+
+
+	/**
+	 * Sends the remaining content of the buffer as a single datagram to the target, from any thread.<br>
+	 * The datagram is written immediately without queuing, so nothing is allocated and the buffer may be reused after the call.
+	 * Like on the network, a datagram the socket send buffer has no room for is dropped.
+	 *
+	 * @return the number of bytes sent, <code>0</code> if dropped
+	 */
+	public int send(ByteBuffer buffer, SocketAddress target) throws IOException {
+		if (buffer == null) throw new IllegalArgumentException("Buffer required");
+		if (target == null) throw new IllegalArgumentException("Target required");
+		return sent(channel.send(buffer, target));
+	}
+
+	/**
+	 * Sends the remaining content of the buffer as a single datagram to the address the channel is connected to.
+	 *
+	 * @return the number of bytes sent, <code>0</code> if dropped
+	 * @see #send(ByteBuffer, SocketAddress)
+	 */
+	public int send(ByteBuffer buffer) throws IOException {
+		if (buffer == null) throw new IllegalArgumentException("Buffer required");
+		return sent(channel.write(buffer));
+	}
+
+	private int sent(int written) {
+		if (written > 0 && metrics != null) {
+			metrics.bytesWritten(written);
+			metrics.messageWritten();
+		}
+		return written;
+	}
+
+	public SocketAddress getLocalAddress() throws IOException {
+		return channel.getLocalAddress();
+	}
+
+	public boolean isOpen() {
+		return channel.isOpen();
+	}
+
+	/**
+	 * Closes the channel, it is deregistered and its buffer released on the loop thread.
+	 */
+	public void close() throws IOException {
+		channel.close();
+
+		final EventLoop loop = this.loop;
+		if (loop != null) {
+			loop.execute(terminateTask);
+		}
+		else {
+			terminate();
+		}
+	}
+
+	private void closeQuietly() {
+		try {
+			channel.close();
+		}
+		catch (IOException e) {
+			log.error("Cannot close datagram channel", e);
+		}
+	}
+
+	/**
+	 * Releases the resources held for handling the channel and runs the termination task, only once.
+	 */
+	private void terminate() {
+		if (!terminated.compareAndSet(false, true)) {
+			return;
+		}
+
+		if (selkey != null) {
+			loop.deregister(selkey);
+			selkey = null;
+		}
+		if (buffer != null) {
+			allocator.release(buffer);
+			buffer = null;
+			view = null;
+		}
+
+		final Runnable task = terminationTask;
+		if (task != null) {
+			try {
+				task.run();
+			}
+			catch (Throwable e) {
+				log.error("Datagram termination task error", e);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,212 @@
+package de.me.networking.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.me.networking.server.buffer.BufferAllocator;
+import de.me.networking.server.buffer.PooledBufferAllocator;
+import de.me.networking.server.listener.DatagramListener;
+import de.me.networking.server.metrics.NetworkMetrics;
+
+
+/**
+ * A simple event-driven datagram (UDP) server.<br>
+ * Datagrams are received on a single event loop running in the thread calling {@link #start()}.
+ */
+public class DatagramServer {
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private SocketAddress socketAddress;
+	private int maxDatagramSize = 2048;
+	private int receiveBatchSize = 64;
+	private int receiveBufferSize = 0;
+	private BufferAllocator bufferAllocator = PooledBufferAllocator.DEFAULT;
+
+	private final List<DatagramListener> listeners = new LinkedList<>();
+	private final NetworkMetrics metrics = new NetworkMetrics();
+	private volatile DatagramHandler handler;
+
+
+	/**
+	 * Create new {@link DatagramServer} listening on provided port on all interfaces.
+	 */
+	public DatagramServer(int port) {
+		this(null, port);
+	}
+
+	/**
+	 * Create new {@link DatagramServer} listening on provided port on interface for provided host or all interfaces.
+	 * @param host The hostname to listen on or <code>null</code> to listen on all interfaces
+	 */
+	public DatagramServer(String host, int port) {
+		this(host == null ? new InetSocketAddress(port) : new InetSocketAddress(host, port));
+	}
+
+	/**
+	 * Create new {@link DatagramServer} listening on provided socket address.
+	 */
+	public DatagramServer(SocketAddress socketAddress) {
+		this.socketAddress = socketAddress;
+	}
+
+
+	/**
+	 * Starts and executes the server.<br>
+	 * This method will <b>block</b> until the server was shut-down by {@link #stop()}.<br><br>
+	 * <b>Note</b> that listeners should be added <u>before</u> by calling {@link #addListener(DatagramListener)}.
+	 */
+	public void start() throws IOException {
+		if (handler != null) {
+			throw new IllegalStateException("Server already started");
+		}
+
+		if (listeners.isEmpty()) {
+			log.warn("No listeners registered yet to handle datagrams");
+		}
+
+		final DatagramChannel channel = DatagramChannel.open();
+		final EventLoop loop;
+		try {
+			if (receiveBufferSize > 0) {
+				channel.setOption(StandardSocketOptions.SO_RCVBUF, receiveBufferSize);
+			}
+			channel.bind(socketAddress);
+			loop = new EventLoop().setMetrics(metrics);
+		}
+		catch (IOException | RuntimeException e) {
+			log.error("Server error", e);
+			channel.close();
+			throw e;
+		}
+
+		final DatagramHandler handler = new DatagramHandler(channel, bufferAllocator, maxDatagramSize, receiveBatchSize, metrics);
+		for (DatagramListener listener : listeners) {
+			handler.addListener(listener);
+		}
+		this.handler = handler;
+
+		try {
+			log.info("Datagram server listening on {}", channel.getLocalAddress());
+
+			// The loop terminates as soon as the channel was closed
+			handler.register(loop);
+			loop.shutdown();
+			loop.run();
+		}
+		finally {
+			this.handler = null;
+		}
+
+		log.info("Datagram server shut down");
+	}
+
+	/**
+	 * Stops the server previously started with {@link #start()}.
+	 */
+	public void stop() throws IOException {
+		final DatagramHandler handler = this.handler;
+		if (handler == null) {
+			throw new IllegalStateException("Server not running");
+		}
+
+		log.debug("Stopping datagram server");
+		handler.close();
+	}
+
+	/**
+	 * Sends the remaining content of the buffer as a single datagram to the target, e.g. the sender of a received datagram.<br>
+	 * The datagram is written immediately without queuing or allocating, so the buffer may be reused after the call.
+	 * Like on the network, a datagram the socket send buffer has no room for is dropped.
+	 *
+	 * @return the number of bytes sent, <code>0</code> if dropped
+	 */
+	public int send(ByteBuffer buffer, SocketAddress target) throws IOException {
+		final DatagramHandler handler = this.handler;
+		if (handler == null) throw new IllegalStateException("Server not running");
+		return handler.send(buffer, target);
+	}
+
+	/**
+	 * Gets the address the running server is bound to, e.g. to find out an ephemeral port.
+	 */
+	public SocketAddress getLocalAddress() throws IOException {
+		final DatagramHandler handler = this.handler;
+		if (handler == null) throw new IllegalStateException("Server not running");
+		return handler.getLocalAddress();
+	}
+
+	/**
+	 * Gets the metrics of the server, counting received and sent datagrams and their bytes.
+	 */
+	public NetworkMetrics getMetrics() {
+		return metrics;
+	}
+
+
+	/**
+	 * Adds a new listener for received datagrams.
+	 */
+	public DatagramServer addListener(DatagramListener listener) {
+		if (listener == null) throw new IllegalArgumentException("Listener required");
+		listeners.add(listener);
+		return this;
+	}
+
+	/**
+	 * Overwrites the socket address provided in the constructor.
+	 */
+	public DatagramServer setSocketAddress(SocketAddress socketAddress) {
+		this.socketAddress = socketAddress;
+		return this;
+	}
+
+	/**
+	 * Sets the capacity of the receive buffer, defaults to <code>2048</code>.<br>
+	 * The excess of bigger datagrams is discarded, use <code>65507</code> to receive any IPv4 datagram completely.
+	 */
+	public DatagramServer setMaxDatagramSize(int maxDatagramSize) {
+		if (maxDatagramSize <= 0) throw new IllegalArgumentException("Invalid max datagram size: " + maxDatagramSize);
+		this.maxDatagramSize = maxDatagramSize;
+		return this;
+	}
+
+	/**
+	 * Sets the maximum number of datagrams received per selector wake-up before other channels of the loop get their turn,
+	 * defaults to <code>64</code>.
+	 */
+	public DatagramServer setReceiveBatchSize(int receiveBatchSize) {
+		if (receiveBatchSize <= 0) throw new IllegalArgumentException("Invalid receive batch size: " + receiveBatchSize);
+		this.receiveBatchSize = receiveBatchSize;
+		return this;
+	}
+
+	/**
+	 * Sets the socket receive buffer size (<code>SO_RCVBUF</code>), defaults to <code>0</code> meaning the platform default.<br>
+	 * Raise it if bursts of datagrams are dropped before they are received.
+	 */
+	public DatagramServer setReceiveBufferSize(int receiveBufferSize) {
+		if (receiveBufferSize < 0) throw new IllegalArgumentException("Invalid receive buffer size: " + receiveBufferSize);
+		this.receiveBufferSize = receiveBufferSize;
+		return this;
+	}
+
+	/**
+	 * Sets the allocator for the receive buffer, defaults to {@link PooledBufferAllocator#DEFAULT}.
+	 */
+	public DatagramServer setBufferAllocator(BufferAllocator bufferAllocator) {
+		if (bufferAllocator == null) throw new IllegalArgumentException("Buffer allocator required");
+		this.bufferAllocator = bufferAllocator;
+		return this;
+	}
+
+}
@@ -0,0 +1,233 @@
+package de.me.networking.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.me.networking.server.metrics.NetworkMetrics;
+
+
+/**
+ * A single selector thread multiplexing many channels.<br>
+ * All {@link SelectionHandler} callbacks and tasks passed to {@link #execute(Runnable)} run on the loop thread.
+ */
+public class EventLoop implements Runnable {
+
+	/**
+	 * The maximum number of buffers written with a single gathering write.
+	 */
+	static final int GATHERING_BUFFERS = 64;
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final Selector selector;
+	private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger channelCount = new AtomicInteger();
+	private final CountDownLatch terminated = new CountDownLatch(1);
+
+	private volatile Thread thread;
+	private volatile boolean shutdown = false;
+	private volatile NetworkMetrics metrics;
+	private ByteBuffer[] gathering;
+
+
+	/**
+	 * Create new {@link EventLoop} with its own {@link Selector}.<br>
+	 * The loop does not run until {@link #run()} is called by some thread.
+	 */
+	public EventLoop() throws IOException {
+		this.selector = Selector.open();
+	}
+
+
+	/**
+	 * Runs the event loop in the calling thread.<br>
+	 * This method will <b>block</b> until the loop was shut down and all registered channels are closed.
+	 */
+	@Override
+	public void run() {
+		thread = Thread.currentThread();
+		log.debug("Event loop started");
+
+		try {
+			for (;;) {
+				runTasks();
+
+				// Cancelled keys may still be in the key set until the next select, so count deregistered channels instead
+				if (shutdown && channelCount.get() == 0 && tasks.isEmpty()) {
+					break;
+				}
+
+				final int selected = selector.select();
+
+				final NetworkMetrics metrics = this.metrics;
+				if (metrics != null) {
+					metrics.selectWakeup(selected == 0 && tasks.isEmpty());
+				}
+
+				processSelectedKeys();
+			}
+		}
+		catch (IOException e) {
+			log.error("Event loop selector failed", e);
+		}
+		finally {
+			try {
+				selector.close();
+			}
+			catch (IOException e) {
+				log.error("Cannot close event loop selector", e);
+			}
+
+			terminated.countDown();
+			log.debug("Event loop terminated");
+		}
+	}
+
+	private void processSelectedKeys() {
+		final Set<SelectionKey> selectedKeys = selector.selectedKeys();
+		if (selectedKeys.isEmpty()) {
+			return;
+		}
+
+		final Iterator<SelectionKey> it = selectedKeys.iterator();
+		while (it.hasNext()) {
+			final SelectionKey key = it.next();
+			it.remove();
+
+			if (!key.isValid()) {
+				continue;
+			}
+
+			final SelectionHandler handler = (SelectionHandler) key.attachment();
+			try {
+				handler.handleSelection(key);
+			}
+			catch (Throwable e) {
+				log.error("Selection handler error", e);
+			}
+		}
+	}
+
+	private void runTasks() {
+		Runnable task;
+		while ((task = tasks.poll()) != null) {
+			try {
+				task.run();
+			}
+			catch (Throwable e) {
+				log.error("Event loop task error", e);
+			}
+		}
+	}
+
+
+	/**
+	 * Executes the task on the event loop thread.
+	 */
+	public void execute(Runnable task) {
+		if (task == null) throw new IllegalArgumentException("Task required");
+		tasks.add(task);
+
+		if (!inEventLoop()) {
+			selector.wakeup();
+		}
+	}
+
+	/**
+	 * Checks if the calling thread is the event loop thread.
+	 */
+	public boolean inEventLoop() {
+		return Thread.currentThread() == thread;
+	}
+
+	/**
+	 * Registers the channel for the provided interest operations.<br>
+	 * This method must be called on the event loop thread.
+	 *
+	 * @return the selection key attached to the handler
+	 */
+	public SelectionKey register(SelectableChannel channel, int ops, SelectionHandler handler) throws IOException {
+		if (!inEventLoop()) throw new IllegalStateException("Not called from event loop thread");
+
+		channel.configureBlocking(false);
+		final SelectionKey key = channel.register(selector, ops, handler);
+		channelCount.incrementAndGet();
+		return key;
+	}
+
+	/**
+	 * Notification that a channel registered with {@link #register(SelectableChannel, int, SelectionHandler)}
+	 * has been closed.<br>
+	 * Must be called exactly once for every registered channel.
+	 */
+	public void deregister(SelectionKey key) {
+		key.cancel();
+		channelCount.decrementAndGet();
+	}
+
+	/**
+	 * Gets the array for gathering writes shared by the channels of this loop, instead of one per connection.<br>
+	 * Must only be used on the event loop thread and cleared before any listener is called.
+	 */
+	ByteBuffer[] gatheringBuffers() {
+		if (gathering == null) {
+			gathering = new ByteBuffer[GATHERING_BUFFERS];
+		}
+		return gathering;
+	}
+
+	/**
+	 * Sets the metrics recording the select wake-ups, defaults to <code>null</code> recording nothing.
+	 */
+	public EventLoop setMetrics(NetworkMetrics metrics) {
+		this.metrics = metrics;
+		return this;
+	}
+
+	/**
+	 * Gets the number of channels currently registered with this loop.
+	 */
+	public int getChannelCount() {
+		return channelCount.get();
+	}
+
+
+	/**
+	 * Shuts the loop down gracefully.<br>
+	 * The loop will terminate as soon as all registered channels are closed.
+	 */
+	public void shutdown() {
+		shutdown = true;
+		selector.wakeup();
+	}
+
+	/**
+	 * Checks if {@link #shutdown()} was called.
+	 */
+	public boolean isShutdown() {
+		return shutdown;
+	}
+
+	/**
+	 * Waits for the loop to terminate after {@link #shutdown()}.
+	 *
+	 * @return true, if the loop terminated
+	 */
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		return terminated.await(timeout, unit);
+	}
+
+}
@@ -0,0 +1,163 @@
+package de.me.networking.server;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.me.networking.server.metrics.NetworkMetrics;
+
+
+/**
+ * A fixed set of {@link EventLoop}s each running in its own thread.<br>
+ * Channels are distributed to the loops with {@link #next()}.
+ */
+public class EventLoopGroup {
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final EventLoop[] loops;
+	private final AtomicInteger index = new AtomicInteger();
+
+	private boolean leastLoaded = false;
+
+
+	/**
+	 * Create new {@link EventLoopGroup} with one loop per available processor.
+	 */
+	public EventLoopGroup() throws IOException {
+		this(0);
+	}
+
+	/**
+	 * Create new {@link EventLoopGroup} with the provided number of loops.
+	 *
+	 * @param threads the number of loops or <code>0</code> for one loop per available processor
+	 */
+	public EventLoopGroup(int threads) throws IOException {
+		this(threads, "simple-server-loop");
+	}
+
+	/**
+	 * Create new {@link EventLoopGroup} with the provided number of loops.
+	 *
+	 * @param threads the number of loops or <code>0</code> for one loop per available processor
+	 * @param name the thread name prefix
+	 */
+	public EventLoopGroup(int threads, String name) throws IOException {
+		this(threads, name, false);
+	}
+
+	/**
+	 * Create new {@link EventLoopGroup} with the provided number of loops.
+	 *
+	 * @param threads the number of loops or <code>0</code> for one loop per available processor
+	 * @param name the thread name prefix
+	 * @param daemon if the loop threads should not keep the JVM running
+	 */
+	public EventLoopGroup(int threads, String name, boolean daemon) throws IOException {
+		if (threads < 0) throw new IllegalArgumentException("Invalid thread count: " + threads);
+		if (threads == 0) {
+			threads = Runtime.getRuntime().availableProcessors();
+		}
+
+		loops = new EventLoop[threads];
+		for (int i = 0; i < threads; i++) {
+			loops[i] = new EventLoop();
+		}
+
+		for (int i = 0; i < threads; i++) {
+			final Thread thread = new Thread(loops[i], name + "-" + i);
+			thread.setDaemon(daemon);
+			thread.start();
+		}
+
+		log.debug("Started {} event loops", threads);
+	}
+
+
+	/**
+	 * Chooses the loop to handle a new channel.<br>
+	 * Loops are chosen round-robin unless {@link #setLeastLoaded(boolean)} is enabled.
+	 */
+	public EventLoop next() {
+		if (leastLoaded) {
+			EventLoop best = loops[0];
+			for (int i = 1; i < loops.length; i++) {
+				if (loops[i].getChannelCount() < best.getChannelCount()) {
+					best = loops[i];
+				}
+			}
+			return best;
+		}
+
+		return loops[(index.getAndIncrement() & Integer.MAX_VALUE) % loops.length];
+	}
+
+	/**
+	 * Gets the number of loops in this group.
+	 */
+	public int size() {
+		return loops.length;
+	}
+
+	/**
+	 * Gets the number of channels currently registered with all loops.
+	 */
+	public int getChannelCount() {
+		int count = 0;
+		for (EventLoop loop : loops) {
+			count += loop.getChannelCount();
+		}
+		return count;
+	}
+
+
+	/**
+	 * Shuts all loops down gracefully.<br>
+	 * Each loop terminates as soon as all of its channels are closed.
+	 */
+	public void shutdown() {
+		for (EventLoop loop : loops) {
+			loop.shutdown();
+		}
+	}
+
+	/**
+	 * Waits for all loops to terminate after {@link #shutdown()}.
+	 *
+	 * @return true, if all loops terminated
+	 */
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		final long deadline = System.nanoTime() + unit.toNanos(timeout);
+		for (EventLoop loop : loops) {
+			if (!loop.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	/**
+	 * Sets if new channels should go to the loop with the fewest channels instead of round-robin,
+	 * defaults to <code>false</code>.
+	 */
+	public EventLoopGroup setLeastLoaded(boolean leastLoaded) {
+		this.leastLoaded = leastLoaded;
+		return this;
+	}
+
+	/**
+	 * Sets the metrics recording the select wake-ups of all loops, defaults to <code>null</code> recording nothing.
+	 */
+	public EventLoopGroup setMetrics(NetworkMetrics metrics) {
+		for (EventLoop loop : loops) {
+			loop.setMetrics(metrics);
+		}
+		return this;
+	}
+
+}
@@ -0,0 +1,121 @@
+package de.me.networking.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import de.me.networking.server.buffer.BufferAllocator;
+import de.me.networking.server.codec.FrameDecoder;
+
+
+/**
+ * Internal class splitting the received data of a client into frames.<br>
+ * Frames contained completely in a read buffer are passed on as read-only slices of it, cut from a reused view.
+ * Only the data of incomplete frames is kept in a cumulation buffer, which is compacted or grown only when needed
+ * and given back to the allocator as soon as it is empty.
+ */
+class FrameCumulator {
+
+	private final BufferAllocator allocator;
+	private final ReadOnlyView view = new ReadOnlyView();
+
+	private ByteBuffer cumulation;
+
+
+	FrameCumulator(BufferAllocator allocator) {
+		this.allocator = allocator;
+	}
+
+
+	/**
+	 * Decodes all complete frames of the received data and passes their content to the handler.<br>
+	 * The decoder is looked up again for each frame, so listeners may change it while receiving.
+	 */
+	void decode(ByteBuffer data, ClientHandler handler) throws IOException {
+		if (cumulation == null) {
+			decodeFrames(data, handler);
+
+			if (data.hasRemaining()) {
+				cumulation = allocator.allocate(data.remaining());
+				cumulation.put(data).flip();
+			}
+		}
+		else {
+			append(data);
+			decodeFrames(cumulation, handler);
+
+			if (!cumulation.hasRemaining()) {
+				allocator.release(cumulation);
+				cumulation = null;
+			}
+		}
+	}
+
+	private void decodeFrames(ByteBuffer buffer, ClientHandler handler) throws IOException {
+		FrameDecoder decoder;
+		while (buffer.hasRemaining() && handler.isOpen() && (decoder = handler.getFrameDecoder()) != null) {
+			final int start = buffer.position();
+			final int length = decoder.decode(buffer);
+			if (length < 0) {
+				break;
+			}
+
+			final ByteBuffer frame = view.of(buffer);
+			frame.limit(start + length - decoder.getTrailerLength()).position(start + decoder.getHeaderLength());
+			buffer.position(start + length);
+
+			handler.onMessage(frame.slice());
+		}
+
+		if (buffer.hasRemaining() && handler.getFrameDecoder() == null) {
+			// Decoding was switched off, pass remaining data as is
+			final ByteBuffer rest = view.of(buffer).slice();
+			buffer.position(buffer.limit());
+			handler.onMessage(rest);
+		}
+	}
+
+	/**
+	 * Appends the data to the cumulation buffer, compacting or growing it only if there is not enough space left.
+	 */
+	private void append(ByteBuffer data) {
+		final int needed = data.remaining();
+
+		if (cumulation.capacity() - cumulation.limit() < needed) {
+			final int size = cumulation.remaining() + needed;
+
+			if (cumulation.capacity() >= size) {
+				cumulation.compact().flip();
+			}
+			else {
+				final ByteBuffer grown = allocator.allocate(Math.max(size, cumulation.capacity() << 1));
+				grown.put(cumulation).flip();
+				allocator.release(cumulation);
+				cumulation = grown;
+			}
+		}
+
+		final int position = cumulation.position();
+		cumulation.position(cumulation.limit()).limit(cumulation.capacity());
+		cumulation.put(data);
+		cumulation.limit(cumulation.position()).position(position);
+	}
+
+	/**
+	 * Checks if incomplete frame data is pending.
+	 */
+	boolean hasPending() {
+		return cumulation != null;
+	}
+
+	/**
+	 * Gives the cumulation buffer back to the allocator, dropping pending data and the view.
+	 */
+	void release() {
+		view.clear();
+		if (cumulation != null) {
+			allocator.release(cumulation);
+			cumulation = null;
+		}
+	}
+
+}
@@ -0,0 +1,156 @@
+package de.me.networking.server;
+
+import java.util.Arrays;
+
+
+/**
+ * A map from primitive <code>long</code> keys to values using open addressing, so keys are not boxed
+ * and no entry objects are allocated.<br>
+ * Not thread-safe.
+ */
+final class LongObjectMap<V> {
+
+	private static final int MIN_CAPACITY = 16;
+
+	private long[] keys;
+	private Object[] values;
+	private int mask;
+	private int size = 0;
+
+
+	LongObjectMap() {
+		allocate(MIN_CAPACITY);
+	}
+
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		values = new Object[capacity];
+		mask = capacity - 1;
+	}
+
+	private int index(long key) {
+		final long hash = key * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32)) & mask;
+	}
+
+
+	/**
+	 * Gets the value of the key or <code>null</code> if there is none.
+	 */
+	@SuppressWarnings("unchecked")
+	V get(long key) {
+		for (int i = index(key); values[i] != null; i = (i + 1) & mask) {
+			if (keys[i] == key) {
+				return (V) values[i];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Sets the value of the key.
+	 *
+	 * @return the previous value or <code>null</code> if there was none
+	 */
+	@SuppressWarnings("unchecked")
+	V put(long key, V value) {
+		if (value == null) throw new IllegalArgumentException("Value required");
+
+		int i = index(key);
+		for (; values[i] != null; i = (i + 1) & mask) {
+			if (keys[i] == key) {
+				final V previous = (V) values[i];
+				values[i] = value;
+				return previous;
+			}
+		}
+
+		keys[i] = key;
+		values[i] = value;
+		if (++size > keys.length / 2) {
+			grow();
+		}
+		return null;
+	}
+
+	/**
+	 * Removes the value of the key.
+	 *
+	 * @return the removed value or <code>null</code> if there was none
+	 */
+	@SuppressWarnings("unchecked")
+	V remove(long key) {
+		int i = index(key);
+		for (; values[i] != null; i = (i + 1) & mask) {
+			if (keys[i] == key) {
+				final V previous = (V) values[i];
+				values[i] = null;
+				size--;
+				shiftBack(i);
+				return previous;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Moves the following entries of the probe sequence into the freed slot where they belong,
+	 * so lookups never stop at a gap before reaching their key.
+	 */
+	private void shiftBack(int free) {
+		for (int j = (free + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+			final int home = index(keys[j]);
+			final boolean between = free <= j ? free < home && home <= j : free < home || home <= j;
+			if (!between) {
+				keys[free] = keys[j];
+				values[free] = values[j];
+				values[j] = null;
+				free = j;
+			}
+		}
+	}
+
+	private void grow() {
+		final long[] oldKeys = keys;
+		final Object[] oldValues = values;
+
+		allocate(keys.length * 2);
+		for (int i = 0; i < oldValues.length; i++) {
+			if (oldValues[i] != null) {
+				int j = index(oldKeys[i]);
+				while (values[j] != null) {
+					j = (j + 1) & mask;
+				}
+				keys[j] = oldKeys[i];
+				values[j] = oldValues[i];
+			}
+		}
+	}
+
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Copies the values into the array, or a new one if it is too small, followed by <code>null</code> if there is space left.
+	 */
+	@SuppressWarnings("unchecked")
+	V[] values(V[] array) {
+		if (array.length < size) {
+			array = Arrays.copyOf(array, size);
+		}
+
+		int n = 0;
+		for (Object value : values) {
+			if (value != null) {
+				array[n++] = (V) value;
+			}
+		}
+		if (n < array.length) {
+			array[n] = null;
+		}
+		return array;
+	}
+
+}
@@ -0,0 +1,250 @@
+package de.me.networking.server;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.me.networking.server.listener.SendListener;
+
+
+/**
+ * Internal class for data queued to be written to a client.
+ */
+abstract class OutboundEntry {
+
+	private static final Logger log = LoggerFactory.getLogger(OutboundEntry.class);
+
+	private final SendListener listener;
+
+
+	OutboundEntry(SendListener listener) {
+		this.listener = listener;
+	}
+
+
+	/**
+	 * Writes as much of the remaining data as the channel accepts.
+	 *
+	 * @return the number of bytes written
+	 */
+	abstract long write(GatheringByteChannel channel) throws IOException;
+
+	/**
+	 * Gets the number of bytes not written yet.
+	 */
+	abstract long remaining();
+
+	/**
+	 * Adds the remaining buffers of the entry to the gathering array starting at the index.
+	 *
+	 * @return the number of buffers added or <code>-1</code> if the entry cannot be gathered or does not fit
+	 */
+	int gather(ByteBuffer[] gathering, int index) {
+		return -1;
+	}
+
+	/**
+	 * Checks if all data has been written.
+	 */
+	boolean isDone() {
+		return remaining() == 0;
+	}
+
+
+	/**
+	 * Frees resources held by the entry, called once the entry completed or failed.
+	 */
+	void release() {
+	}
+
+	/**
+	 * Notifies the listener that all data has been written.
+	 */
+	void complete() {
+		release();
+		notifySent(listener);
+	}
+
+	/**
+	 * Notifies the listener, if any, that all data has been written, also used for data written without queuing it.
+	 */
+	static void notifySent(SendListener listener) {
+		if (listener != null) {
+			try {
+				listener.onSent();
+			}
+			catch (Throwable e) {
+				log.error("Error in send listener onSent", e);
+			}
+		}
+	}
+
+	/**
+	 * Notifies the listener that the data could not be written.
+	 */
+	void fail(Throwable exception) {
+		release();
+
+		if (listener != null) {
+			try {
+				listener.onError(exception);
+			}
+			catch (Throwable e) {
+				log.error("Error in send listener onError", e);
+			}
+		}
+	}
+
+
+	/**
+	 * Entry for a single buffer.
+	 */
+	static class BufferEntry extends OutboundEntry {
+
+		private final ByteBuffer buffer;
+
+
+		BufferEntry(ByteBuffer buffer, SendListener listener) {
+			super(listener);
+			this.buffer = buffer;
+		}
+
+
+		@Override
+		long write(GatheringByteChannel channel) throws IOException {
+			return channel.write(buffer);
+		}
+
+		@Override
+		long remaining() {
+			return buffer.remaining();
+		}
+
+		@Override
+		int gather(ByteBuffer[] gathering, int index) {
+			if (index >= gathering.length) {
+				return -1;
+			}
+
+			gathering[index] = buffer;
+			return 1;
+		}
+
+	}
+
+
+	/**
+	 * Entry for several buffers written with a single gathering write.
+	 */
+	static class BuffersEntry extends OutboundEntry {
+
+		private final ByteBuffer[] buffers;
+		private int offset = 0;
+
+
+		BuffersEntry(ByteBuffer[] buffers, SendListener listener) {
+			super(listener);
+			this.buffers = buffers;
+		}
+
+
+		@Override
+		long write(GatheringByteChannel channel) throws IOException {
+			final long written = channel.write(buffers, offset, buffers.length - offset);
+			skipWritten();
+			return written;
+		}
+
+		@Override
+		long remaining() {
+			long remaining = 0L;
+			for (int i = offset; i < buffers.length; i++) {
+				remaining += buffers[i].remaining();
+			}
+			return remaining;
+		}
+
+		@Override
+		int gather(ByteBuffer[] gathering, int index) {
+			skipWritten();
+
+			final int count = buffers.length - offset;
+			if (index + count > gathering.length) {
+				return -1;
+			}
+
+			System.arraycopy(buffers, offset, gathering, index, count);
+			return count;
+		}
+
+		private void skipWritten() {
+			while (offset < buffers.length && !buffers[offset].hasRemaining()) {
+				offset++;
+			}
+		}
+
+	}
+
+
+	/**
+	 * Entry for a file region transferred with {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}.
+	 */
+	static class FileEntry extends OutboundEntry {
+
+		private final FileChannel file;
+		private final boolean closeFile;
+		private long position;
+		private long remaining;
+
+
+		FileEntry(FileChannel file, long position, long count, boolean closeFile, SendListener listener) {
+			super(listener);
+			this.file = file;
+			this.position = position;
+			this.remaining = count;
+			this.closeFile = closeFile;
+		}
+
+
+		@Override
+		long write(GatheringByteChannel channel) throws IOException {
+			if (remaining == 0) {
+				return 0L;
+			}
+
+			final long written = file.transferTo(position, remaining, channel);
+
+			if (written == 0 && position >= file.size()) {
+				throw new EOFException("File ended before " + remaining + " remaining bytes were sent");
+			}
+
+			position += written;
+			remaining -= written;
+			return written;
+		}
+
+		@Override
+		long remaining() {
+			return remaining;
+		}
+
+		@Override
+		void release() {
+			if (closeFile) {
+				try {
+					file.close();
+				}
+				catch (IOException e) {
+					log.error("Cannot close sent file", e);
+				}
+			}
+		}
+
+	}
+
+}
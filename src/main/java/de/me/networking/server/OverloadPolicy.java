@@ -0,0 +1,25 @@
+package de.me.networking.server;
+
+
+/**
+ * What a {@link SimpleServer} does with connections exceeding its connection or accept rate limit.
+ */
+public enum OverloadPolicy {
+
+	/**
+	 * Accepts and immediately closes the connection.
+	 */
+	CLOSE,
+
+	/**
+	 * Accepts the connection, writes the rejection message and closes it.
+	 */
+	REJECT,
+
+	/**
+	 * Stops accepting until a connection was closed or the rate limit allows more connections.<br>
+	 * New connections wait in the accept backlog meanwhile.
+	 */
+	PAUSE_ACCEPT
+
+}
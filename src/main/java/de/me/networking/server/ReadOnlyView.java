@@ -0,0 +1,39 @@
+package de.me.networking.server;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * Internal class keeping a read-only view of the last buffer passed in.<br>
+ * The read buffers come from the allocator's pool, so in the steady state the same buffers are passed on again and again
+ * and the view is reused instead of creating a new one per message.
+ */
+class ReadOnlyView {
+
+	private ByteBuffer source;
+	private ByteBuffer view;
+
+
+	/**
+	 * Gets a read-only view of the buffer with its position and limit, valid until the next call.
+	 */
+	ByteBuffer of(ByteBuffer buffer) {
+		if (buffer != source) {
+			view = buffer.asReadOnlyBuffer();
+			source = buffer;
+		}
+		else {
+			view.limit(buffer.limit()).position(buffer.position());
+		}
+		return view;
+	}
+
+	/**
+	 * Drops the view and the buffer it was created of.
+	 */
+	void clear() {
+		source = null;
+		view = null;
+	}
+
+}
@@ -0,0 +1,17 @@
+package de.me.networking.server;
+
+import java.nio.channels.SelectionKey;
+
+
+/**
+ * A handler attached to a {@link SelectionKey} of an {@link EventLoop}.
+ */
+public interface SelectionHandler {
+
+	/**
+	 * Notification that the channel of the provided key is ready for some of its interest operations.<br>
+	 * This method is always called on the event loop thread and must not block.
+	 */
+	public void handleSelection(SelectionKey key);
+
+}
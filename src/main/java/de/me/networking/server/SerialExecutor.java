@@ -0,0 +1,90 @@
+package de.me.networking.server;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Runs tasks one after another in submission order on a shared executor.<br>
+ * Serial executors of different clients run in parallel, each occupies at most one thread of the shared executor.
+ * After a batch of tasks the thread is given back, so a busy client does not keep other clients waiting.
+ */
+class SerialExecutor implements Executor {
+
+	/**
+	 * Maximum number of tasks run before giving the thread back.
+	 */
+	static final int BATCH_SIZE = 64;
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final Executor executor;
+	private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+	private final Runnable drainTask = new Runnable() {
+		@Override
+		public void run() {
+			drain();
+		}
+	};
+
+
+	SerialExecutor(Executor executor) {
+		if (executor == null) throw new IllegalArgumentException("Executor required");
+		this.executor = executor;
+	}
+
+
+	@Override
+	public void execute(Runnable task) {
+		if (task == null) throw new IllegalArgumentException("Task required");
+		tasks.add(task);
+		schedule();
+	}
+
+	private void schedule() {
+		if (scheduled.compareAndSet(false, true)) {
+			try {
+				executor.execute(drainTask);
+			}
+			catch (RejectedExecutionException e) {
+				scheduled.set(false);
+				throw e;
+			}
+		}
+	}
+
+	private void drain() {
+		try {
+			Runnable task;
+			for (int i = 0; i < BATCH_SIZE && (task = tasks.poll()) != null; i++) {
+				try {
+					task.run();
+				}
+				catch (Throwable e) {
+					log.error("Serial task error", e);
+				}
+			}
+		}
+		finally {
+			scheduled.set(false);
+			if (!tasks.isEmpty()) {
+				schedule();
+			}
+		}
+	}
+
+	/**
+	 * Checks if no tasks are waiting.
+	 */
+	boolean isEmpty() {
+		return tasks.isEmpty();
+	}
+
+}
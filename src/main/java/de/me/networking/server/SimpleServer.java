@@ -3,10 +3,20 @@ package de.me.networking.server;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.net.SocketOption;
+import java.net.StandardSocketOptions;
 import java.nio.ByteBuffer;
-import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.Executor;
@@ -14,11 +24,23 @@ import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import de.me.networking.server.buffer.BufferAllocator;
+import de.me.networking.server.buffer.PooledBufferAllocator;
+import de.me.networking.server.codec.FrameDecoder;
 import de.me.networking.server.listener.ClientAcceptListener;
+import de.me.networking.server.listener.TimeoutListener;
+import de.me.networking.server.metrics.NetworkMetrics;
+import de.me.networking.server.timer.HashedWheelTimer;
+import de.me.networking.server.tls.TlsConfig;
 
 
 /**
@@ -26,19 +48,56 @@ import de.me.networking.server.listener.ClientAcceptListener;
  */
 public class SimpleServer {
 
+	/**
+	 * The maximum number of connections accepted per selector wake-up before handing them on.
+	 */
+	private static final int ACCEPT_BATCH_SIZE = 64;
+
+	/**
+	 * <code>StandardSocketOptions.SO_REUSEPORT</code> of Java 9 and later or <code>null</code>.
+	 */
+	private static final SocketOption<Boolean> SO_REUSEPORT = reusePortOption();
+
 	private final Logger log = LoggerFactory.getLogger(getClass());
 
 	private SocketAddress socketAddress;
+	private int backlog = 0;
+	private int acceptorThreads = 1;
+	private boolean reusePort = false;
+	private int maxConnections = 0;
+	private int acceptRateLimit = 0;
+	private OverloadPolicy overloadPolicy = OverloadPolicy.CLOSE;
+	private ByteBuffer rejectionMessage = null;
 
 	private int corePoolSize = 2;
 	private int maxPoolSize = Integer.MAX_VALUE;
 	private long poolTimeout = 60;
-	private int clientBufferCapacity = 4096;
+	private final ClientConfig clientConfig = new ClientConfig();
 	private Executor executor = null;
+	private ThreadingMode threadingMode = ThreadingMode.EVENT_LOOP;
+	private int eventLoopThreads = 0;
+	private boolean leastLoaded = false;
+	private EventLoopGroup eventLoopGroup = null;
 
 	private final List<ClientAcceptListener> listeners = new LinkedList<>();
 
-	private ServerSocketChannel server;
+	private volatile List<Acceptor> acceptors;
+	private Path socketFile;
+	private volatile Exception acceptError;
+	private AcceptRateLimiter rateLimiter;
+
+	private final AtomicInteger activeConnections = new AtomicInteger();
+	private final AtomicLong acceptedConnections = new AtomicLong();
+	private final NetworkMetrics metrics = new NetworkMetrics();
+	private boolean metricsEnabled = true;
+	private final ConnectionRegistry registry = new ConnectionRegistry();
+	private boolean jmxEnabled = false;
+	private final Runnable connectionTerminated = new Runnable() {
+		@Override
+		public void run() {
+			releaseConnection();
+		}
+	};
 
 
 	/**
@@ -64,10 +123,12 @@ public class SimpleServer {
 	}
 
 	/**
-	 * Create new {@link SimpleServer} listening on provided socket address.
+	 * Create new {@link SimpleServer} listening on provided socket address,
+	 * which may be a Unix domain socket address on Java 16 or later, see {@link UnixDomainSockets#address(Path)}.
 	 */
 	public SimpleServer(SocketAddress socketAddress) {
 		this.socketAddress = socketAddress;
+		this.clientConfig.setMetrics(metrics);
 	}
 
 
@@ -77,16 +138,34 @@ public class SimpleServer {
 	 * <b>Note</b> that listeners should be added <u>before</u> by calling {@link #addListener(ClientAcceptListener)}.
 	 */
 	public void start() throws IOException {
-		if (server != null) {
+		if (acceptors != null) {
 			throw new IllegalStateException("Server already started");
 		}
 
 		if (listeners.isEmpty()) {
 			log.warn("No listeners registered yet to handle client connections");
 		}
-		final Executor executor;
+		Executor executor = null;
+		EventLoopGroup eventLoopGroup = null;
 		final boolean ownExecutor;
-		if (this.executor == null) {
+		if (threadingMode == ThreadingMode.EVENT_LOOP) {
+			if (this.eventLoopGroup == null) {
+				ownExecutor = true;
+				eventLoopGroup = new EventLoopGroup(eventLoopThreads).setLeastLoaded(leastLoaded).setMetrics(metricsEnabled ? metrics : null);
+				log.debug("Created new event loop group with {} loops", eventLoopGroup.size());
+			}
+			else {
+				ownExecutor = false;
+				eventLoopGroup = this.eventLoopGroup;
+				log.debug("Using provided event loop group {}", eventLoopGroup);
+			}
+		}
+		else if (threadingMode == ThreadingMode.VIRTUAL_THREAD) {
+			ownExecutor = false;
+			executor = VirtualThreads.executor("simple-server-client");
+			log.debug("Using virtual threads");
+		}
+		else if (this.executor == null) {
 			ownExecutor = true;
 			executor = new ThreadPoolExecutor(
 					corePoolSize, maxPoolSize,
@@ -100,57 +179,339 @@ public class SimpleServer {
 			log.debug("Using provided executor {}", executor);
 		}
 
-
+		final List<Acceptor> acceptors = new ArrayList<>(acceptorThreads);
 		try {
 			log.debug("Starting server");
 
-			server = ServerSocketChannel.open().bind(socketAddress);
-			log.info("Server listening on {}", socketAddress);
+			rateLimiter = acceptRateLimit > 0 ? new AcceptRateLimiter(acceptRateLimit) : null;
+			openAcceptors(acceptors, executor, eventLoopGroup);
+			acceptError = null;
+			this.acceptors = acceptors;
+			log.info("Server listening on {} with {} acceptors", socketAddress, acceptors.size());
 
-			try {
-				for (;;) {
-					final SocketChannel client = server.accept();
-					if (log.isDebugEnabled()) {
-						log.debug("Accepted new client from {}", client.getRemoteAddress());
-					}
+			if (jmxEnabled) {
+				registerMBean();
+			}
 
-					try {
-						for (ClientAcceptListener listener : listeners) {
-							executor.execute(new ClientAcceptHandler(client, listener, clientBufferCapacity));
-						}
-					}
-					catch (RejectedExecutionException e) {
-						log.error("Rejected execution for client handling", e);
-						try {
-							client.close();
-						}
-						catch (IOException ee) {
-							log.error("Cannot close client after rejection", ee);
-						}
-					}
+			// Run the first acceptor in the calling thread
+			final List<Thread> threads = new ArrayList<>(acceptors.size() - 1);
+			for (int i = 1; i < acceptors.size(); i++) {
+				final Thread thread = new Thread(acceptors.get(i), "simple-server-acceptor-" + i);
+				thread.start();
+				threads.add(thread);
+			}
+
+			acceptors.get(0).run();
+
+			for (Thread thread : threads) {
+				try {
+					thread.join();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
 				}
 			}
-			finally {
-				if (server.isOpen()) {
-					log.debug("Closing server channel");
-					server.close();
+
+			final Exception error = acceptError;
+			if (error instanceof IOException) {
+				throw (IOException) error;
+			}
+			else if (error != null) {
+				throw (RuntimeException) error;
+			}
+		}
+		finally {
+			closeAcceptors(acceptors);
+			this.acceptors = null;
+			deleteSocketFile();
+
+			if (jmxEnabled) {
+				unregisterMBean();
+			}
+
+			if (ownExecutor) {
+				if (eventLoopGroup != null) {
+					log.debug("Shutting down created event loop group");
+					eventLoopGroup.shutdown();
+				}
+				else {
+					log.debug("Shutting down created executor");
+					((ThreadPoolExecutor) executor).shutdown();
 				}
 			}
 		}
-		catch (AsynchronousCloseException e) {
+
+		log.info("Server shut down");
+	}
+
+	/**
+	 * Binds the server channels and creates the acceptors.<br>
+	 * With port reuse each acceptor gets its own channel and the kernel balances new connections between them,
+	 * otherwise all acceptors share a single channel.
+	 */
+	private void openAcceptors(List<Acceptor> acceptors, Executor executor, EventLoopGroup eventLoopGroup) throws IOException {
+		try {
+			final boolean reuse = reusePort && acceptorThreads > 1 && SO_REUSEPORT != null && !UnixDomainSockets.isUnixDomain(socketAddress);
+			if (reusePort && !reuse && acceptorThreads > 1) {
+				log.warn("SO_REUSEPORT not available, acceptors share a single server channel");
+			}
+
+			final ServerSocketChannel first = openServerChannel(socketAddress, reuse);
+			acceptors.add(new Acceptor(first, executor, eventLoopGroup));
+
+			// Bind the other channels to the actual address in case of an ephemeral port
+			final SocketAddress boundAddress = first.getLocalAddress();
+			for (int i = 1; i < acceptorThreads; i++) {
+				final ServerSocketChannel server = reuse ? openServerChannel(boundAddress, true) : first;
+				acceptors.add(new Acceptor(server, executor, eventLoopGroup));
+			}
 		}
-		catch (Exception e) {
+		catch (IOException | RuntimeException e) {
 			log.error("Server error", e);
+			closeAcceptors(acceptors);
+			throw e;
+		}
+	}
+
+	private ServerSocketChannel openServerChannel(SocketAddress address, boolean reuse) throws IOException {
+		final boolean unix = UnixDomainSockets.isUnixDomain(address);
+		if (unix) {
+			deleteStaleSocketFile(address);
+		}
+
+		final ServerSocketChannel server = UnixDomainSockets.openServerSocketChannel(address);
+		try {
+			if (reuse) {
+				server.setOption(SO_REUSEPORT, true);
+			}
+			server.bind(address, backlog);
+			server.configureBlocking(false);
+		}
+		catch (IOException | RuntimeException e) {
+			server.close();
 			throw e;
 		}
+
+		if (unix) {
+			socketFile = UnixDomainSockets.getPath(address);
+		}
+		return server;
+	}
+
+	/**
+	 * Deletes a socket file left behind by a server not shut down properly, which would make binding fail.<br>
+	 * A socket file a server still accepts connections on is kept, as is any other kind of file.
+	 */
+	private void deleteStaleSocketFile(SocketAddress address) throws IOException {
+		final Path path = UnixDomainSockets.getPath(address);
+		final BasicFileAttributes attributes;
+		try {
+			attributes = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+		}
+		catch (NoSuchFileException e) {
+			return;
+		}
+		if (!attributes.isOther()) {
+			return;
+		}
+
+		try (SocketChannel probe = UnixDomainSockets.openSocketChannel(address)) {
+			probe.connect(address);
+			return;
+		}
+		catch (IOException e) {
+			log.info("Deleting stale socket file {}", path);
+		}
+		Files.deleteIfExists(path);
+	}
+
+	/**
+	 * Deletes the socket file the server was bound to, so it does not outlive the server.
+	 */
+	private void deleteSocketFile() {
+		final Path path = socketFile;
+		if (path == null) {
+			return;
+		}
+
+		socketFile = null;
+		try {
+			Files.deleteIfExists(path);
+		}
+		catch (IOException e) {
+			log.warn("Cannot delete socket file {}", path, e);
+		}
+	}
+
+	private void closeAcceptors(List<Acceptor> acceptors) {
+		for (Acceptor acceptor : acceptors) {
+			acceptor.close();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static SocketOption<Boolean> reusePortOption() {
+		try {
+			return (SocketOption<Boolean>) StandardSocketOptions.class.getField("SO_REUSEPORT").get(null);
+		}
+		catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Reserves a connection slot for an accepted client if neither the connection nor the rate limit is exceeded.
+	 */
+	private boolean admit() {
+		for (;;) {
+			final int active = activeConnections.get();
+			if (maxConnections > 0 && active >= maxConnections) {
+				return false;
+			}
+			if (activeConnections.compareAndSet(active, active + 1)) {
+				break;
+			}
+		}
+
+		if (rateLimiter != null && !rateLimiter.tryAcquire()) {
+			releaseConnection();
+			return false;
+		}
+
+		return true;
+	}
+
+	private void releaseConnection() {
+		final int active = activeConnections.decrementAndGet();
+
+		if (overloadPolicy == OverloadPolicy.PAUSE_ACCEPT && active == maxConnections - 1) {
+			// Wake up acceptors paused for the connection limit
+			final List<Acceptor> acceptors = this.acceptors;
+			if (acceptors != null) {
+				for (Acceptor acceptor : acceptors) {
+					acceptor.wakeup();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the nanoseconds accepting has to pause due to overload, <code>0</code> if clients can be accepted now.
+	 */
+	private long pauseNanos() {
+		if (overloadPolicy != OverloadPolicy.PAUSE_ACCEPT) {
+			return 0L;
+		}
+		if (maxConnections > 0 && activeConnections.get() >= maxConnections) {
+			// Until a connection is released
+			return Long.MAX_VALUE;
+		}
+		return rateLimiter != null ? rateLimiter.nanosUntilPermit() : 0L;
+	}
+
+	/**
+	 * Sheds an accepted client not admitted due to overload.
+	 */
+	private void reject(SocketChannel client) {
+		log.debug("Rejecting client due to overload");
+		metrics.connectionRejected();
+
+		try {
+			if (overloadPolicy == OverloadPolicy.REJECT && rejectionMessage != null) {
+				client.configureBlocking(false);
+				client.write(rejectionMessage.duplicate());
+			}
+		}
+		catch (IOException e) {
+			log.debug("Cannot write rejection message", e);
+		}
 		finally {
-			if (ownExecutor) {
-				log.debug("Shutting down created executor");
-				((ThreadPoolExecutor) executor).shutdown();
+			try {
+				client.close();
+			}
+			catch (IOException e) {
+				log.error("Cannot close rejected client", e);
 			}
 		}
+	}
 
-		log.info("Server shut down");
+	/**
+	 * Gets a snapshot of the connection statistics.
+	 */
+	public ConnectionStats getConnectionStats() {
+		return new ConnectionStats(activeConnections.get(), acceptedConnections.get(),
+				metrics.getRejectedConnections(), metrics.getAcceptPauses());
+	}
+
+	/**
+	 * Gets the metrics of the server and its clients.<br>
+	 * With {@link #setMetricsEnabled(boolean) metrics disabled} only rejected connections and accept pauses are counted.
+	 */
+	public NetworkMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Gets the registry of the currently handled clients, e.g. to broadcast to all or a group of them.
+	 */
+	public ConnectionRegistry getConnectionRegistry() {
+		return registry;
+	}
+
+	private void registerMBean() {
+		try {
+			metrics.registerMBean("de.me.networking:type=SimpleServer,name=" + ObjectName.quote(String.valueOf(socketAddress)));
+		}
+		catch (JMException e) {
+			log.warn("Cannot register server metrics MBean", e);
+		}
+	}
+
+	private void unregisterMBean() {
+		try {
+			metrics.unregisterMBean();
+		}
+		catch (JMException e) {
+			log.warn("Cannot unregister server metrics MBean", e);
+		}
+	}
+
+	/**
+	 * Hands an accepted client over to the threading mode's workers.
+	 */
+	private void handleClient(SocketChannel client, Executor executor, EventLoopGroup eventLoopGroup) {
+		if (log.isDebugEnabled()) {
+			try {
+				log.debug("Accepted new client from {}", client.getRemoteAddress());
+			}
+			catch (IOException e) {
+				log.debug("Accepted new client");
+			}
+		}
+
+		try {
+			if (eventLoopGroup == null) {
+				executor.execute(new ClientAcceptHandler(client, listeners, clientConfig,
+						threadingMode == ThreadingMode.VIRTUAL_THREAD).setRegistry(registry).setTerminationTask(connectionTerminated));
+			}
+			else {
+				final EventLoop loop = eventLoopGroup.next();
+				loop.execute(new ClientAcceptHandler(client, listeners, clientConfig, loop).setRegistry(registry).setTerminationTask(connectionTerminated));
+			}
+			acceptedConnections.incrementAndGet();
+		}
+		catch (RejectedExecutionException e) {
+			log.error("Rejected execution for client handling", e);
+			metrics.connectionRejected();
+			releaseConnection();
+			try {
+				client.close();
+			}
+			catch (IOException ee) {
+				log.error("Cannot close client after rejection", ee);
+			}
+		}
 	}
 
 
@@ -158,12 +519,13 @@ public class SimpleServer {
 	 * Stops the server previously started with {@link #start()}.
 	 */
 	public void stop() throws IOException {
-		if (server == null) {
+		final List<Acceptor> acceptors = this.acceptors;
+		if (acceptors == null) {
 			throw new IllegalStateException("Server not running");
 		}
 
 		log.debug("Stopping server");
-		server.close();
+		closeAcceptors(acceptors);
 		log.debug("Server stopped");
 	}
 
@@ -177,7 +539,138 @@ public class SimpleServer {
 	}
 
 	/**
-	 * Sets the core pool size, defaults to <code>2</code>.
+	 * Sets the maximum number of pending connections the operating system queues for accepting,
+	 * defaults to <code>0</code> meaning the platform default.<br>
+	 * Raise it if connection storms make the system drop connection attempts.
+	 */
+	public SimpleServer setBacklog(int backlog) {
+		if (backlog < 0) throw new IllegalArgumentException("Invalid backlog: " + backlog);
+		this.backlog = backlog;
+		return this;
+	}
+
+	/**
+	 * Sets the number of threads accepting connections, defaults to <code>1</code>.<br>
+	 * The thread calling {@link #start()} is one of them.
+	 * Each acceptor accepts up to 64 pending connections per wake-up before handing them on.
+	 */
+	public SimpleServer setAcceptorThreads(int acceptorThreads) {
+		if (acceptorThreads <= 0) throw new IllegalArgumentException("Invalid acceptor threads: " + acceptorThreads);
+		this.acceptorThreads = acceptorThreads;
+		return this;
+	}
+
+	/**
+	 * Sets if each acceptor binds its own server channel with <code>SO_REUSEPORT</code>, defaults to <code>false</code>.<br>
+	 * The operating system then balances new connections between the acceptors instead of waking all of them.
+	 * Requires Java 9 or later and a supporting platform, otherwise the acceptors share a single channel.
+	 */
+	public SimpleServer setReusePort(boolean reusePort) {
+		this.reusePort = reusePort;
+		return this;
+	}
+
+	/**
+	 * Sets the maximum number of concurrently handled connections, defaults to <code>0</code> meaning no limit.<br>
+	 * In {@link ThreadingMode#THREAD_PER_CONNECTION} mode this also bounds the number of client threads.
+	 * Connections beyond the limit are handled according to {@link #setOverloadPolicy(OverloadPolicy)}.
+	 */
+	public SimpleServer setMaxConnections(int maxConnections) {
+		if (maxConnections < 0) throw new IllegalArgumentException("Invalid max connections: " + maxConnections);
+		this.maxConnections = maxConnections;
+		return this;
+	}
+
+	/**
+	 * Sets the maximum number of connections accepted per second, defaults to <code>0</code> meaning no limit.<br>
+	 * Up to a second's worth of connections are accepted in a burst.
+	 * Connections beyond the limit are handled according to {@link #setOverloadPolicy(OverloadPolicy)}.
+	 */
+	public SimpleServer setAcceptRateLimit(int acceptRateLimit) {
+		if (acceptRateLimit < 0) throw new IllegalArgumentException("Invalid accept rate limit: " + acceptRateLimit);
+		this.acceptRateLimit = acceptRateLimit;
+		return this;
+	}
+
+	/**
+	 * Sets what happens to connections beyond the connection or accept rate limit,
+	 * defaults to {@link OverloadPolicy#CLOSE}.
+	 */
+	public SimpleServer setOverloadPolicy(OverloadPolicy overloadPolicy) {
+		if (overloadPolicy == null) throw new IllegalArgumentException("Overload policy required");
+		this.overloadPolicy = overloadPolicy;
+		return this;
+	}
+
+	/**
+	 * Sets the message written to rejected connections with {@link OverloadPolicy#REJECT}.<br>
+	 * The message is written once without waiting, so it should be small. The buffer is not modified.
+	 */
+	public SimpleServer setRejectionMessage(ByteBuffer rejectionMessage) {
+		this.rejectionMessage = rejectionMessage == null ? null : rejectionMessage.asReadOnlyBuffer();
+		return this;
+	}
+
+	/**
+	 * Sets if the clients and event loops of the server record their {@link #getMetrics() metrics}, defaults to <code>true</code>.<br>
+	 * Disabling saves the counting on every read and write and the timing of every message, {@link #getConnectionStats()} stays available.
+	 */
+	public SimpleServer setMetricsEnabled(boolean metricsEnabled) {
+		this.metricsEnabled = metricsEnabled;
+		this.clientConfig.setMetrics(metricsEnabled ? metrics : null);
+		return this;
+	}
+
+	/**
+	 * Sets if the metrics are registered as MXBean while the server is running, defaults to <code>false</code>.<br>
+	 * The object name is <code>de.me.networking:type=SimpleServer,name="&lt;socket address&gt;"</code>.
+	 */
+	public SimpleServer setJmxEnabled(boolean jmxEnabled) {
+		this.jmxEnabled = jmxEnabled;
+		return this;
+	}
+
+	/**
+	 * Sets the threading mode, defaults to {@link ThreadingMode#EVENT_LOOP}.
+	 */
+	public SimpleServer setThreadingMode(ThreadingMode threadingMode) {
+		if (threadingMode == null) throw new IllegalArgumentException("Threading mode required");
+		this.threadingMode = threadingMode;
+		return this;
+	}
+
+	/**
+	 * Sets the number of event loops created on {@link #start()},
+	 * defaults to <code>0</code> meaning one loop per available processor.<br>
+	 * Only used in {@link ThreadingMode#EVENT_LOOP} mode without a provided event loop group.
+	 */
+	public SimpleServer setEventLoopThreads(int eventLoopThreads) {
+		this.eventLoopThreads = eventLoopThreads;
+		return this;
+	}
+
+	/**
+	 * Sets if accepted clients go to the event loop with the fewest clients instead of round-robin,
+	 * defaults to <code>false</code>.<br>
+	 * Only used in {@link ThreadingMode#EVENT_LOOP} mode without a provided event loop group.
+	 */
+	public SimpleServer setLeastLoaded(boolean leastLoaded) {
+		this.leastLoaded = leastLoaded;
+		return this;
+	}
+
+	/**
+	 * Sets the event loop group to handle clients in {@link ThreadingMode#EVENT_LOOP} mode.<br>
+	 * If unset or set to <code>null</code> then a new {@link EventLoopGroup} is created on {@link #start()}.
+	 */
+	public SimpleServer setEventLoopGroup(EventLoopGroup eventLoopGroup) {
+		this.eventLoopGroup = eventLoopGroup;
+		return this;
+	}
+
+	/**
+	 * Sets the core pool size, defaults to <code>2</code>.<br>
+	 * Only used in {@link ThreadingMode#THREAD_PER_CONNECTION} mode.
 	 */
 	public SimpleServer setCorePoolSize(int corePoolSize) {
 		this.corePoolSize = corePoolSize;
@@ -185,7 +678,8 @@ public class SimpleServer {
 	}
 
 	/**
-	 * Sets the max pool size, defaults to {@link Integer#MAX_VALUE}.
+	 * Sets the max pool size, defaults to {@link Integer#MAX_VALUE}.<br>
+	 * Only used in {@link ThreadingMode#THREAD_PER_CONNECTION} mode.
 	 */
 	public SimpleServer setMaxPoolSize(int maxPoolSize) {
 		this.maxPoolSize = maxPoolSize;
@@ -193,7 +687,8 @@ public class SimpleServer {
 	}
 
 	/**
-	 * Sets the pool timeout in seconds, defaults to <code>60</code>.
+	 * Sets the pool timeout in seconds, defaults to <code>60</code>.<br>
+	 * Only used in {@link ThreadingMode#THREAD_PER_CONNECTION} mode.
 	 */
 	public SimpleServer setPoolTimeout(long poolTimeout) {
 		this.poolTimeout = poolTimeout;
@@ -201,16 +696,156 @@ public class SimpleServer {
 	}
 
 	/**
-	 * Sets the {@link ByteBuffer} capacity to use for client handlers, defaults to <code>4096</code>.
+	 * Sets the initial {@link ByteBuffer} capacity to use for client handlers, defaults to <code>4096</code>.
 	 */
 	public SimpleServer setClientBufferCapacity(int clientBufferCapacity) {
-		this.clientBufferCapacity = clientBufferCapacity;
+		clientConfig.setBufferCapacity(clientBufferCapacity);
 		return this;
 	}
 
+	/**
+	 * Sets the range the client read buffer capacity adapts in, defaults to <code>512</code> - <code>65536</code>.<br>
+	 * Use the same value for minimum and maximum to disable adapting.
+	 */
+	public SimpleServer setClientBufferCapacityRange(int minClientBufferCapacity, int maxClientBufferCapacity) {
+		clientConfig.setBufferCapacityRange(minClientBufferCapacity, maxClientBufferCapacity);
+		return this;
+	}
+
+	/**
+	 * Sets the allocator for client buffers, defaults to {@link PooledBufferAllocator#DEFAULT}.
+	 */
+	public SimpleServer setBufferAllocator(BufferAllocator bufferAllocator) {
+		clientConfig.setBufferAllocator(bufferAllocator);
+		return this;
+	}
+
+	/**
+	 * Sets if data sent inside a listener callback is held back until the callback returns
+	 * and then written with as few gathering writes as possible, defaults to <code>false</code>.
+	 */
+	public SimpleServer setWriteCoalescing(boolean writeCoalescing) {
+		clientConfig.setWriteCoalescing(writeCoalescing);
+		return this;
+	}
+
+	/**
+	 * Sets the water marks for the data queued for sending, defaults to <code>32768</code> - <code>65536</code>.<br>
+	 * A client becomes unwritable when more than the high water mark is queued
+	 * and writable again when no more than the low water mark is queued.
+	 */
+	public SimpleServer setWriteBufferWaterMarks(long lowWaterMark, long highWaterMark) {
+		clientConfig.setWriteBufferWaterMarks(lowWaterMark, highWaterMark);
+		return this;
+	}
+
+	/**
+	 * Sets if reading input is suspended while the client is unwritable, defaults to <code>true</code>.
+	 */
+	public SimpleServer setSuspendReadWhenUnwritable(boolean suspendReadWhenUnwritable) {
+		clientConfig.setSuspendReadWhenUnwritable(suspendReadWhenUnwritable);
+		return this;
+	}
+
+	/**
+	 * Sets the time after which a client neither sending nor receiving data times out,
+	 * defaults to <code>0</code> meaning no timeout.<br>
+	 * The connection is closed unless a listener implements {@link TimeoutListener}.
+	 */
+	public SimpleServer setIdleTimeout(long idleTimeout, TimeUnit unit) {
+		clientConfig.setIdleTimeout(idleTimeout, unit);
+		return this;
+	}
+
+	/**
+	 * Sets the time after which a client not sending any data times out,
+	 * defaults to <code>0</code> meaning no timeout.<br>
+	 * The connection is closed unless a listener implements {@link TimeoutListener}.
+	 */
+	public SimpleServer setReadTimeout(long readTimeout, TimeUnit unit) {
+		clientConfig.setReadTimeout(readTimeout, unit);
+		return this;
+	}
+
+	/**
+	 * Sets the time after which a client times out when queued data cannot be written,
+	 * defaults to <code>0</code> meaning no timeout.<br>
+	 * The connection is closed unless a listener implements {@link TimeoutListener}.
+	 */
+	public SimpleServer setWriteTimeout(long writeTimeout, TimeUnit unit) {
+		clientConfig.setWriteTimeout(writeTimeout, unit);
+		return this;
+	}
+
+	/**
+	 * Sets the timer watching the timeouts and running scheduled client tasks, defaults to {@link HashedWheelTimer#DEFAULT}.
+	 */
+	public SimpleServer setTimer(HashedWheelTimer timer) {
+		clientConfig.setTimer(timer);
+		return this;
+	}
+
+	/**
+	 * Sets the decoder splitting the data received from clients into frames,
+	 * defaults to <code>null</code> passing data on as read.
+	 */
+	public SimpleServer setFrameDecoder(FrameDecoder frameDecoder) {
+		clientConfig.setFrameDecoder(frameDecoder);
+		return this;
+	}
+
+	/**
+	 * Sets the TLS settings created with {@link TlsConfig#forServer(javax.net.ssl.SSLContext)} to encrypt client connections with,
+	 * defaults to <code>null</code> for plain connections.<br>
+	 * Listeners receive the decrypted data, those implementing {@link de.me.networking.server.listener.HandshakeListener}
+	 * are notified once the handshake finished.
+	 */
+	public SimpleServer setTlsConfig(TlsConfig tlsConfig) {
+		if (tlsConfig != null && tlsConfig.isClientMode()) throw new IllegalArgumentException("Server TLS config required");
+		clientConfig.setTlsConfig(tlsConfig);
+		return this;
+	}
+
+	/**
+	 * Sets the executor running the listener callbacks for received data, closing and errors,
+	 * defaults to <code>null</code> running them on the thread handling the client.<br>
+	 * Callbacks of a client still run one after another in order, so slow listeners do not delay reading other connections.
+	 */
+	public SimpleServer setListenerExecutor(Executor listenerExecutor) {
+		clientConfig.setListenerExecutor(listenerExecutor);
+		return this;
+	}
+
+	/**
+	 * Sets the number of received bytes waiting for the listener executor above which reading is suspended,
+	 * defaults to <code>65536</code>. Reading resumes once half of it is left.
+	 */
+	public SimpleServer setListenerQueueLimit(long listenerQueueLimit) {
+		clientConfig.setListenerQueueLimit(listenerQueueLimit);
+		return this;
+	}
+
+	/**
+	 * Sets how much a client on an event loop reads per wake-up, defaults to <code>262144</code> bytes and <code>64</code> messages.<br>
+	 * Reading continues until the socket is drained or one of the budgets is used up,
+	 * listeners implementing {@link de.me.networking.server.listener.ReadCompleteListener} are notified afterwards.
+	 */
+	public SimpleServer setReadBudget(long readBudgetBytes, int readBudgetMessages) {
+		clientConfig.setReadBudget(readBudgetBytes, readBudgetMessages);
+		return this;
+	}
+
+	/**
+	 * Gets the settings applied to accepted clients.
+	 */
+	public ClientConfig getClientConfig() {
+		return clientConfig;
+	}
+
 	/**
 	 * Sets the executor to use when a new client is to be handled.<br>
-	 * If unset or set to <code>null</code> then a new {@link ThreadPoolExecutor} is created on {@link #start()}.
+	 * If unset or set to <code>null</code> then a new {@link ThreadPoolExecutor} is created on {@link #start()}.<br>
+	 * Only used in {@link ThreadingMode#THREAD_PER_CONNECTION} mode.
 	 */
 	public SimpleServer setExecutor(Executor executor) {
 		this.executor = executor;
@@ -219,6 +854,7 @@ public class SimpleServer {
 
 	/**
 	 * Adds a {@link ClientAcceptListener}.<br>
+	 * All listeners are notified of each accepted client with the same {@link de.me.networking.server.listener.Client}.<br>
 	 * <b>Note</b> that listeners should be added before calling {@link #start()}.
 	 */
 	public SimpleServer addListener(ClientAcceptListener listener) {
@@ -227,4 +863,111 @@ public class SimpleServer {
 		return this;
 	}
 
+
+
+	/**
+	 * Accepts clients from a non-blocking server channel, draining a batch of pending connections per wake-up.
+	 */
+	private class Acceptor implements Runnable {
+
+		private final ServerSocketChannel server;
+		private final Selector selector;
+		private final Executor executor;
+		private final EventLoopGroup eventLoopGroup;
+		private final SocketChannel[] batch = new SocketChannel[ACCEPT_BATCH_SIZE];
+
+
+		Acceptor(ServerSocketChannel server, Executor executor, EventLoopGroup eventLoopGroup) throws IOException {
+			this.server = server;
+			this.selector = Selector.open();
+			this.executor = executor;
+			this.eventLoopGroup = eventLoopGroup;
+		}
+
+
+		@Override
+		public void run() {
+			try {
+				final SelectionKey key = server.register(selector, SelectionKey.OP_ACCEPT);
+
+				while (server.isOpen()) {
+					final long pause = pauseNanos();
+					if (pause > 0L) {
+						if (key.interestOps() != 0) {
+							log.debug("Pausing accepting clients due to overload");
+							metrics.acceptPaused();
+							key.interestOps(0);
+						}
+
+						selector.select(pause == Long.MAX_VALUE ? 0L : Math.max(1L, TimeUnit.NANOSECONDS.toMillis(pause)));
+						selector.selectedKeys().clear();
+						continue;
+					}
+					if (key.interestOps() == 0) {
+						log.debug("Resuming accepting clients");
+						key.interestOps(SelectionKey.OP_ACCEPT);
+					}
+
+					selector.select();
+					selector.selectedKeys().clear();
+
+					int count = 0;
+					SocketChannel client;
+					while (count < batch.length && pauseNanos() == 0L && (client = server.accept()) != null) {
+						if (admit()) {
+							batch[count++] = client;
+						}
+						else {
+							reject(client);
+						}
+					}
+
+					for (int i = 0; i < count; i++) {
+						handleClient(batch[i], executor, eventLoopGroup);
+						batch[i] = null;
+					}
+				}
+			}
+			catch (ClosedChannelException e) {
+				// Server stopped
+			}
+			catch (IOException | RuntimeException e) {
+				log.error("Server error", e);
+				acceptError = e;
+
+				// Take down the other acceptors as well
+				final List<Acceptor> acceptors = SimpleServer.this.acceptors;
+				if (acceptors != null) {
+					closeAcceptors(acceptors);
+				}
+			}
+			finally {
+				try {
+					selector.close();
+				}
+				catch (IOException e) {
+					log.error("Cannot close acceptor selector", e);
+				}
+			}
+		}
+
+		void wakeup() {
+			selector.wakeup();
+		}
+
+		void close() {
+			if (server.isOpen()) {
+				log.debug("Closing server channel");
+				try {
+					server.close();
+				}
+				catch (IOException e) {
+					log.error("Cannot close server channel", e);
+				}
+			}
+			selector.wakeup();
+		}
+
+	}
+
 }
@@ -0,0 +1,26 @@
+package de.me.networking.server;
+
+
+/**
+ * The way client connections are mapped to threads.
+ */
+public enum ThreadingMode {
+
+	/**
+	 * A fixed set of {@link EventLoop}s multiplexes all client connections.
+	 */
+	EVENT_LOOP,
+
+	/**
+	 * Each client connection is handled in its own executor thread with a private {@link EventLoop}.
+	 */
+	THREAD_PER_CONNECTION,
+
+	/**
+	 * Each client connection is handled in its own virtual thread with blocking reads and writes.<br>
+	 * Listeners may block, and sending blocks the calling thread until the socket accepted the data.
+	 * Requires Java 21 or later, see {@link VirtualThreads#isSupported()}.
+	 */
+	VIRTUAL_THREAD
+
+}
@@ -0,0 +1,134 @@
+package de.me.networking.server;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+
+
+/**
+ * Access to Unix domain sockets of Java 16 and later while still compiling for older platforms.<br>
+ * Channels for any other socket address are opened as TCP channels.
+ */
+public final class UnixDomainSockets {
+
+	private static final Class<?> ADDRESS;
+	private static final Method OF;
+	private static final Method GET_PATH;
+	private static final ProtocolFamily UNIX;
+	private static final Method OPEN_SERVER;
+	private static final Method OPEN;
+
+	static {
+		Class<?> address = null;
+		Method of = null;
+		Method getPath = null;
+		ProtocolFamily unix = null;
+		Method openServer = null;
+		Method open = null;
+
+		try {
+			address = Class.forName("java.net.UnixDomainSocketAddress");
+			of = address.getMethod("of", Path.class);
+			getPath = address.getMethod("getPath");
+			unix = StandardProtocolFamily.valueOf("UNIX");
+			openServer = ServerSocketChannel.class.getMethod("open", ProtocolFamily.class);
+			open = SocketChannel.class.getMethod("open", ProtocolFamily.class);
+		}
+		catch (ReflectiveOperationException | IllegalArgumentException e) {
+			address = null;
+		}
+
+		ADDRESS = address;
+		OF = of;
+		GET_PATH = getPath;
+		UNIX = unix;
+		OPEN_SERVER = openServer;
+		OPEN = open;
+	}
+
+
+	private UnixDomainSockets() {
+	}
+
+
+	/**
+	 * Checks if the running platform supports Unix domain sockets.
+	 */
+	public static boolean isSupported() {
+		return ADDRESS != null;
+	}
+
+	/**
+	 * Checks if the address is a Unix domain socket address.
+	 */
+	public static boolean isUnixDomain(SocketAddress address) {
+		return ADDRESS != null && ADDRESS.isInstance(address);
+	}
+
+	/**
+	 * Creates the Unix domain socket address of the socket file.
+	 *
+	 * @throws UnsupportedOperationException if the platform does not support Unix domain sockets
+	 */
+	public static SocketAddress address(Path path) {
+		if (!isSupported()) throw new UnsupportedOperationException("Unix domain sockets require Java 16 or later");
+		if (path == null) throw new IllegalArgumentException("Path required");
+
+		try {
+			return (SocketAddress) OF.invoke(null, path);
+		}
+		catch (ReflectiveOperationException e) {
+			throw new UnsupportedOperationException("Cannot create Unix domain socket address", e);
+		}
+	}
+
+	/**
+	 * Gets the socket file of a Unix domain socket address.
+	 */
+	public static Path getPath(SocketAddress address) {
+		if (!isUnixDomain(address)) throw new IllegalArgumentException("Invalid Unix domain socket address: " + address);
+
+		try {
+			return (Path) GET_PATH.invoke(address);
+		}
+		catch (ReflectiveOperationException e) {
+			throw new UnsupportedOperationException("Cannot get Unix domain socket path", e);
+		}
+	}
+
+	/**
+	 * Opens an unbound server channel of the address family.
+	 */
+	public static ServerSocketChannel openServerSocketChannel(SocketAddress address) throws IOException {
+		return isUnixDomain(address) ? (ServerSocketChannel) open(OPEN_SERVER) : ServerSocketChannel.open();
+	}
+
+	/**
+	 * Opens an unconnected channel of the address family.
+	 */
+	public static SocketChannel openSocketChannel(SocketAddress address) throws IOException {
+		return isUnixDomain(address) ? (SocketChannel) open(OPEN) : SocketChannel.open();
+	}
+
+	private static Object open(Method open) throws IOException {
+		try {
+			return open.invoke(null, UNIX);
+		}
+		catch (InvocationTargetException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new UnsupportedOperationException("Cannot open Unix domain socket channel", e.getCause());
+		}
+		catch (IllegalAccessException e) {
+			throw new UnsupportedOperationException("Cannot open Unix domain socket channel", e);
+		}
+	}
+
+}
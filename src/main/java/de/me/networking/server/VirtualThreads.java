@@ -0,0 +1,102 @@
+package de.me.networking.server;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+
+
+/**
+ * Access to virtual threads of Java 21 and later while still compiling for older platforms.
+ */
+public final class VirtualThreads {
+
+	private static final Method OF_VIRTUAL;
+	private static final Method NAME;
+	private static final Method FACTORY;
+	private static final Method IS_VIRTUAL;
+
+	static {
+		Method ofVirtual = null;
+		Method name = null;
+		Method factory = null;
+		Method isVirtual = null;
+
+		try {
+			ofVirtual = Thread.class.getMethod("ofVirtual");
+			final Class<?> builder = Class.forName("java.lang.Thread$Builder");
+			name = builder.getMethod("name", String.class, long.class);
+			factory = builder.getMethod("factory");
+			isVirtual = Thread.class.getMethod("isVirtual");
+		}
+		catch (ReflectiveOperationException e) {
+			ofVirtual = null;
+		}
+
+		OF_VIRTUAL = ofVirtual;
+		NAME = name;
+		FACTORY = factory;
+		IS_VIRTUAL = isVirtual;
+	}
+
+
+	private VirtualThreads() {
+	}
+
+
+	/**
+	 * Checks if the running platform supports virtual threads.
+	 */
+	public static boolean isSupported() {
+		return OF_VIRTUAL != null;
+	}
+
+	/**
+	 * Checks if the thread is a virtual thread.
+	 */
+	public static boolean isVirtual(Thread thread) {
+		if (IS_VIRTUAL == null) {
+			return false;
+		}
+
+		try {
+			return (Boolean) IS_VIRTUAL.invoke(thread);
+		}
+		catch (ReflectiveOperationException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Creates a factory for virtual threads named with the prefix and a counter.
+	 *
+	 * @throws UnsupportedOperationException if the platform does not support virtual threads
+	 */
+	public static ThreadFactory factory(String prefix) {
+		if (!isSupported()) throw new UnsupportedOperationException("Virtual threads require Java 21 or later");
+
+		try {
+			final Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), prefix + "-", 0L);
+			return (ThreadFactory) FACTORY.invoke(builder);
+		}
+		catch (ReflectiveOperationException e) {
+			throw new UnsupportedOperationException("Cannot create virtual thread factory", e);
+		}
+	}
+
+	/**
+	 * Creates an executor starting a new virtual thread for each task.
+	 *
+	 * @throws UnsupportedOperationException if the platform does not support virtual threads
+	 */
+	public static Executor executor(String prefix) {
+		final ThreadFactory factory = factory(prefix);
+
+		return new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				factory.newThread(command).start();
+			}
+		};
+	}
+
+}
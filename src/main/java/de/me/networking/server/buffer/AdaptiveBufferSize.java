@@ -0,0 +1,83 @@
+package de.me.networking.server.buffer;
+
+
+
+/**
+ * Predicts the read buffer size of a connection from the sizes of previous reads.<br>
+ * Sizes are powers of two between a minimum and a maximum. The size doubles as soon as a read fills the buffer
+ * and halves after two consecutive reads that would have fit into half the buffer.<br><br>
+ * Instances are not thread-safe.
+ */
+public class AdaptiveBufferSize {
+
+	private final int minShift;
+	private final int maxShift;
+
+	private int shift;
+	private boolean decreaseNow = false;
+
+
+	/**
+	 * Create new {@link AdaptiveBufferSize}.
+	 *
+	 * @param min the minimum size, rounded up to a power of two
+	 * @param initial the initial size, rounded up to a power of two
+	 * @param max the maximum size, rounded up to a power of two
+	 */
+	public AdaptiveBufferSize(int min, int initial, int max) {
+		if (min <= 0 || initial < min || max < initial) {
+			throw new IllegalArgumentException("Invalid buffer sizes: " + min + " <= " + initial + " <= " + max);
+		}
+
+		this.minShift = shift(min);
+		this.maxShift = shift(max);
+		if (maxShift > 30) throw new IllegalArgumentException("Buffer size too big: " + max);
+		this.shift = shift(initial);
+	}
+
+
+	/**
+	 * Gets the predicted size for the next read.
+	 */
+	public int size() {
+		return 1 << shift;
+	}
+
+	/**
+	 * Records the number of bytes the last read returned into a buffer of the predicted size.
+	 */
+	public void record(int bytesRead) {
+		record(bytesRead, size());
+	}
+
+	/**
+	 * Records the number of bytes the last read returned into a buffer of the given capacity,
+	 * which may be bigger than predicted, e.g. to take a whole TLS record.
+	 * Only filling the buffer actually used increases the size.
+	 */
+	public void record(int bytesRead, int capacity) {
+		if (bytesRead >= Math.max(capacity, size())) {
+			if (shift < maxShift) {
+				shift++;
+			}
+			decreaseNow = false;
+		}
+		else if (shift > minShift && bytesRead <= 1 << (shift - 1)) {
+			if (decreaseNow) {
+				shift--;
+				decreaseNow = false;
+			}
+			else {
+				decreaseNow = true;
+			}
+		}
+		else {
+			decreaseNow = false;
+		}
+	}
+
+	private static int shift(int size) {
+		return size <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1);
+	}
+
+}
@@ -0,0 +1,23 @@
+package de.me.networking.server.buffer;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * An allocator for the direct {@link ByteBuffer}s used by client connections.
+ */
+public interface BufferAllocator {
+
+	/**
+	 * Allocates a buffer with at least the provided capacity.<br>
+	 * The returned buffer has position <code>0</code> and limit <code>capacity</code>.
+	 */
+	public ByteBuffer allocate(int capacity);
+
+	/**
+	 * Gives a buffer previously returned by {@link #allocate(int)} back to the allocator.<br>
+	 * The buffer must not be used anymore afterwards and must not be released twice.
+	 */
+	public void release(ByteBuffer buffer);
+
+}
@@ -0,0 +1,107 @@
+package de.me.networking.server.buffer;
+
+
+
+/**
+ * A snapshot of the statistics of a {@link PooledBufferAllocator}.
+ */
+public class BufferPoolStats {
+
+	private final long allocations;
+	private final long threadCacheHits;
+	private final long poolHits;
+	private final long slabs;
+	private final long slabBytes;
+	private final long unpooledAllocations;
+	private final long releases;
+	private final long discardedReleases;
+	private final long idleBytes;
+
+
+	BufferPoolStats(long allocations, long threadCacheHits, long poolHits, long slabs, long slabBytes,
+			long unpooledAllocations, long releases, long discardedReleases, long idleBytes) {
+		this.allocations = allocations;
+		this.threadCacheHits = threadCacheHits;
+		this.poolHits = poolHits;
+		this.slabs = slabs;
+		this.slabBytes = slabBytes;
+		this.unpooledAllocations = unpooledAllocations;
+		this.releases = releases;
+		this.discardedReleases = discardedReleases;
+		this.idleBytes = idleBytes;
+	}
+
+
+	/**
+	 * Gets the total number of allocation requests.
+	 */
+	public long getAllocations() {
+		return allocations;
+	}
+
+	/**
+	 * Gets the number of allocations served from a thread cache.
+	 */
+	public long getThreadCacheHits() {
+		return threadCacheHits;
+	}
+
+	/**
+	 * Gets the number of allocations served from the shared pool.
+	 */
+	public long getPoolHits() {
+		return poolHits;
+	}
+
+	/**
+	 * Gets the number of slabs allocated.
+	 */
+	public long getSlabs() {
+		return slabs;
+	}
+
+	/**
+	 * Gets the direct memory reserved by slabs in bytes.
+	 */
+	public long getSlabBytes() {
+		return slabBytes;
+	}
+
+	/**
+	 * Gets the number of allocations bigger than the biggest size class.
+	 */
+	public long getUnpooledAllocations() {
+		return unpooledAllocations;
+	}
+
+	/**
+	 * Gets the total number of released buffers.
+	 */
+	public long getReleases() {
+		return releases;
+	}
+
+	/**
+	 * Gets the number of released buffers not fitting any size class, left to the garbage collector.
+	 */
+	public long getDiscardedReleases() {
+		return discardedReleases;
+	}
+
+	/**
+	 * Gets the bytes of the buffers idle in the shared pool, excluding thread caches.
+	 */
+	public long getIdleBytes() {
+		return idleBytes;
+	}
+
+
+	@Override
+	public String toString() {
+		return "BufferPoolStats [allocations=" + allocations + ", threadCacheHits=" + threadCacheHits
+				+ ", poolHits=" + poolHits + ", slabs=" + slabs + ", slabBytes=" + slabBytes
+				+ ", unpooledAllocations=" + unpooledAllocations + ", releases=" + releases
+				+ ", discardedReleases=" + discardedReleases + ", idleBytes=" + idleBytes + "]";
+	}
+
+}
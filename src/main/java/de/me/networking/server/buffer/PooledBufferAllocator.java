@@ -0,0 +1,284 @@
+package de.me.networking.server.buffer;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.me.networking.server.VirtualThreads;
+
+
+/**
+ * A {@link BufferAllocator} pooling direct buffers in power-of-two size classes.<br>
+ * Buffers are sliced from larger direct slabs, so native memory is reserved in few big chunks.
+ * Released buffers go to a small per-thread cache first and to a shared pool per size class if the cache is full.
+ * The caches of terminated threads are moved to the shared pools before a new slab is allocated.<br><br>
+ * Requests larger than the biggest size class are served unpooled.
+ */
+public class PooledBufferAllocator implements BufferAllocator {
+
+	/**
+	 * Shared instance with default settings.
+	 */
+	public static final PooledBufferAllocator DEFAULT = new PooledBufferAllocator();
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final int minShift;
+	private final int[] sizes;
+	private final int slabSize;
+	private final int threadCacheSize;
+
+	private final Queue<ByteBuffer>[] pools;
+	private final AtomicInteger[] pooled;
+	private final ThreadLocal<ThreadCache> threadCaches;
+	private final Queue<ThreadCache> liveThreadCaches = new ConcurrentLinkedQueue<>();
+
+	private final AtomicLong allocations = new AtomicLong();
+	private final AtomicLong threadCacheHits = new AtomicLong();
+	private final AtomicLong poolHits = new AtomicLong();
+	private final AtomicLong slabs = new AtomicLong();
+	private final AtomicLong slabBytes = new AtomicLong();
+	private final AtomicLong unpooledAllocations = new AtomicLong();
+	private final AtomicLong releases = new AtomicLong();
+	private final AtomicLong discardedReleases = new AtomicLong();
+
+
+	/**
+	 * Create new {@link PooledBufferAllocator} with size classes from 512 bytes to 256 KiB,
+	 * 1 MiB slabs and 16 cached buffers per size class and thread.
+	 */
+	public PooledBufferAllocator() {
+		this(512, 256 * 1024, 1024 * 1024, 16);
+	}
+
+	/**
+	 * Create new {@link PooledBufferAllocator}.
+	 *
+	 * @param minSize the smallest size class, rounded up to a power of two
+	 * @param maxSize the biggest size class, rounded up to a power of two
+	 * @param slabSize the size of the direct memory chunks buffers are sliced from
+	 * @param threadCacheSize the number of buffers cached per size class and thread, <code>0</code> to disable
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public PooledBufferAllocator(int minSize, int maxSize, int slabSize, final int threadCacheSize) {
+		if (minSize <= 0 || maxSize < minSize) throw new IllegalArgumentException("Invalid size classes: " + minSize + " - " + maxSize);
+		if (slabSize <= 0) throw new IllegalArgumentException("Invalid slab size: " + slabSize);
+		if (threadCacheSize < 0) throw new IllegalArgumentException("Invalid thread cache size: " + threadCacheSize);
+
+		this.minShift = shift(minSize);
+		final int maxShift = shift(maxSize);
+		if (maxShift > 30) throw new IllegalArgumentException("Size class too big: " + maxSize);
+
+		this.sizes = new int[maxShift - minShift + 1];
+		this.pools = new Queue[sizes.length];
+		this.pooled = new AtomicInteger[sizes.length];
+		for (int i = 0; i < sizes.length; i++) {
+			sizes[i] = 1 << (minShift + i);
+			pools[i] = new ConcurrentLinkedQueue<>();
+			pooled[i] = new AtomicInteger();
+		}
+
+		this.slabSize = slabSize;
+		this.threadCacheSize = threadCacheSize;
+
+		final int classes = sizes.length;
+		this.threadCaches = new ThreadLocal<ThreadCache>() {
+			@Override
+			protected ThreadCache initialValue() {
+				// Many short-lived virtual threads would keep buffers in their caches
+				final Thread thread = Thread.currentThread();
+				if (VirtualThreads.isVirtual(thread)) {
+					return ThreadCache.NONE;
+				}
+
+				final ThreadCache cache = new ThreadCache(thread, classes, threadCacheSize);
+				liveThreadCaches.add(cache);
+				return cache;
+			}
+		};
+	}
+
+
+	@Override
+	public ByteBuffer allocate(int capacity) {
+		if (capacity < 0) throw new IllegalArgumentException("Invalid capacity: " + capacity);
+		allocations.incrementAndGet();
+
+		final int index = sizeClass(capacity);
+		if (index < 0) {
+			unpooledAllocations.incrementAndGet();
+			return ByteBuffer.allocateDirect(capacity);
+		}
+
+		ByteBuffer buffer = null;
+
+		if (threadCacheSize > 0) {
+			final ThreadCache cache = threadCaches.get();
+			if (cache.size > 0 && cache.counts[index] > 0) {
+				final int i = --cache.counts[index];
+				buffer = cache.buffers[index][i];
+				cache.buffers[index][i] = null;
+				threadCacheHits.incrementAndGet();
+			}
+		}
+
+		if (buffer == null) {
+			buffer = pools[index].poll();
+			if (buffer != null) {
+				pooled[index].decrementAndGet();
+				poolHits.incrementAndGet();
+			}
+			else if (drainTerminatedThreadCaches() && (buffer = pools[index].poll()) != null) {
+				pooled[index].decrementAndGet();
+				poolHits.incrementAndGet();
+			}
+			else {
+				buffer = allocateSlab(index);
+			}
+		}
+
+		buffer.clear().limit(capacity);
+		return buffer;
+	}
+
+	@Override
+	public void release(ByteBuffer buffer) {
+		if (buffer == null) return;
+		releases.incrementAndGet();
+
+		final int index = buffer.isDirect() && !buffer.isReadOnly() ? exactSizeClass(buffer.capacity()) : -1;
+		if (index < 0) {
+			// Not from this pool
+			discardedReleases.incrementAndGet();
+			return;
+		}
+
+		if (threadCacheSize > 0) {
+			final ThreadCache cache = threadCaches.get();
+			if (cache.size > 0 && cache.counts[index] < cache.size) {
+				cache.buffers[index][cache.counts[index]++] = buffer;
+				return;
+			}
+		}
+
+		pools[index].add(buffer);
+		pooled[index].incrementAndGet();
+	}
+
+	/**
+	 * Moves the buffers cached for terminated threads to the shared pools.
+	 *
+	 * @return if any buffers were moved
+	 */
+	private boolean drainTerminatedThreadCaches() {
+		boolean drained = false;
+		for (ThreadCache cache : liveThreadCaches) {
+			// Termination makes the writes of the thread visible, removal hands the cache to one caller
+			if (cache.owner.isAlive() || !liveThreadCaches.remove(cache)) {
+				continue;
+			}
+
+			for (int index = 0; index < cache.counts.length; index++) {
+				for (int i = 0; i < cache.counts[index]; i++) {
+					pools[index].add(cache.buffers[index][i]);
+					pooled[index].incrementAndGet();
+					cache.buffers[index][i] = null;
+					drained = true;
+				}
+				cache.counts[index] = 0;
+			}
+		}
+		return drained;
+	}
+
+	/**
+	 * Slices a new slab into buffers of the size class, returns one of them and pools the others.
+	 */
+	private ByteBuffer allocateSlab(int index) {
+		final int size = sizes[index];
+		final int count = Math.max(1, slabSize / size);
+		final ByteBuffer slab = ByteBuffer.allocateDirect(size * count);
+
+		slabs.incrementAndGet();
+		slabBytes.addAndGet(slab.capacity());
+		if (log.isDebugEnabled()) {
+			log.debug("Allocated new slab of {} buffers with {} bytes", count, size);
+		}
+
+		ByteBuffer first = null;
+		for (int i = 0; i < count; i++) {
+			slab.limit((i + 1) * size).position(i * size);
+			final ByteBuffer buffer = slab.slice();
+
+			if (first == null) {
+				first = buffer;
+			}
+			else {
+				pools[index].add(buffer);
+				pooled[index].incrementAndGet();
+			}
+		}
+
+		return first;
+	}
+
+	private int sizeClass(int capacity) {
+		final int shift = Math.max(shift(capacity), minShift);
+		final int index = shift - minShift;
+		return index < sizes.length ? index : -1;
+	}
+
+	private int exactSizeClass(int capacity) {
+		final int index = sizeClass(capacity);
+		return index >= 0 && sizes[index] == capacity ? index : -1;
+	}
+
+	private static int shift(int size) {
+		return size <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1);
+	}
+
+
+	/**
+	 * Gets a snapshot of the pool statistics.
+	 */
+	public BufferPoolStats getStats() {
+		long idleBytes = 0L;
+		for (int i = 0; i < sizes.length; i++) {
+			idleBytes += (long) pooled[i].get() * sizes[i];
+		}
+
+		return new BufferPoolStats(
+				allocations.get(), threadCacheHits.get(), poolHits.get(),
+				slabs.get(), slabBytes.get(), unpooledAllocations.get(),
+				releases.get(), discardedReleases.get(), idleBytes);
+	}
+
+
+	/**
+	 * Buffers cached for a single thread, stacked per size class.
+	 */
+	private static final class ThreadCache {
+
+		static final ThreadCache NONE = new ThreadCache(null, 0, 0);
+
+		final Thread owner;
+		final ByteBuffer[][] buffers;
+		final int[] counts;
+		final int size;
+
+
+		ThreadCache(Thread owner, int classes, int size) {
+			this.owner = owner;
+			this.buffers = new ByteBuffer[classes][size];
+			this.counts = new int[classes];
+			this.size = size;
+		}
+
+	}
+
+}
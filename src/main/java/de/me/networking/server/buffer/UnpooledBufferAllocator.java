@@ -0,0 +1,27 @@
+package de.me.networking.server.buffer;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * A {@link BufferAllocator} allocating a new direct buffer on every call.
+ */
+public class UnpooledBufferAllocator implements BufferAllocator {
+
+	/**
+	 * Shared instance.
+	 */
+	public static final UnpooledBufferAllocator INSTANCE = new UnpooledBufferAllocator();
+
+
+	@Override
+	public ByteBuffer allocate(int capacity) {
+		return ByteBuffer.allocateDirect(capacity);
+	}
+
+	@Override
+	public void release(ByteBuffer buffer) {
+		// Left to the garbage collector
+	}
+
+}
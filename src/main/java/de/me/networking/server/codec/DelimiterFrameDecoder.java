@@ -0,0 +1,80 @@
+package de.me.networking.server.codec;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * A {@link FrameDecoder} for frames terminated by a delimiter, e.g. a line break.
+ */
+public class DelimiterFrameDecoder implements FrameDecoder {
+
+	private final byte[] delimiter;
+	private final int maxFrameLength;
+	private final boolean stripDelimiter;
+
+
+	/**
+	 * Create new {@link DelimiterFrameDecoder} not passing the delimiter to the listeners.
+	 *
+	 * @param delimiter the delimiter terminating each frame
+	 * @param maxFrameLength the maximum frame length including the delimiter
+	 */
+	public DelimiterFrameDecoder(byte[] delimiter, int maxFrameLength) {
+		this(delimiter, maxFrameLength, true);
+	}
+
+	/**
+	 * Create new {@link DelimiterFrameDecoder}.
+	 *
+	 * @param delimiter the delimiter terminating each frame
+	 * @param maxFrameLength the maximum frame length including the delimiter
+	 * @param stripDelimiter whether the delimiter is not passed to the listeners
+	 */
+	public DelimiterFrameDecoder(byte[] delimiter, int maxFrameLength, boolean stripDelimiter) {
+		if (delimiter == null || delimiter.length == 0) throw new IllegalArgumentException("Delimiter required");
+		if (maxFrameLength < delimiter.length) throw new IllegalArgumentException("Invalid max frame length: " + maxFrameLength);
+		this.delimiter = delimiter.clone();
+		this.maxFrameLength = maxFrameLength;
+		this.stripDelimiter = stripDelimiter;
+	}
+
+
+	@Override
+	public int decode(ByteBuffer buffer) throws TooLongFrameException {
+		final int start = buffer.position();
+		final int end = Math.min(buffer.limit(), start + maxFrameLength) - delimiter.length;
+		final byte first = delimiter[0];
+
+		search:
+		for (int i = start; i <= end; i++) {
+			if (buffer.get(i) != first) {
+				continue;
+			}
+
+			for (int j = 1; j < delimiter.length; j++) {
+				if (buffer.get(i + j) != delimiter[j]) {
+					continue search;
+				}
+			}
+
+			return i - start + delimiter.length;
+		}
+
+		if (buffer.remaining() >= maxFrameLength) {
+			throw new TooLongFrameException("No delimiter found within " + maxFrameLength + " bytes");
+		}
+
+		return -1;
+	}
+
+	@Override
+	public int getHeaderLength() {
+		return 0;
+	}
+
+	@Override
+	public int getTrailerLength() {
+		return stripDelimiter ? delimiter.length : 0;
+	}
+
+}
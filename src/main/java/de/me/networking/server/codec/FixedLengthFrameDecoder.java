@@ -0,0 +1,40 @@
+package de.me.networking.server.codec;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * A {@link FrameDecoder} for frames of a fixed length.
+ */
+public class FixedLengthFrameDecoder implements FrameDecoder {
+
+	private final int frameLength;
+
+
+	/**
+	 * Create new {@link FixedLengthFrameDecoder}.
+	 *
+	 * @param frameLength the length of each frame in bytes
+	 */
+	public FixedLengthFrameDecoder(int frameLength) {
+		if (frameLength <= 0) throw new IllegalArgumentException("Invalid frame length: " + frameLength);
+		this.frameLength = frameLength;
+	}
+
+
+	@Override
+	public int decode(ByteBuffer buffer) {
+		return buffer.remaining() >= frameLength ? frameLength : -1;
+	}
+
+	@Override
+	public int getHeaderLength() {
+		return 0;
+	}
+
+	@Override
+	public int getTrailerLength() {
+		return 0;
+	}
+
+}
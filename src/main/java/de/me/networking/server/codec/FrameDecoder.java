@@ -0,0 +1,33 @@
+package de.me.networking.server.codec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+
+/**
+ * A decoder splitting the received byte stream into frames.<br>
+ * Decoders must be stateless, so a single instance can be shared by all connections.
+ */
+public interface FrameDecoder {
+
+	/**
+	 * Checks if the buffer content starting at its position begins with a complete frame.<br>
+	 * The buffer position and limit must not be changed.
+	 *
+	 * @param buffer the received data
+	 * @return the length of the complete frame in bytes or <code>-1</code> if more data is required
+	 * @throws IOException if the data is not a valid frame, e.g. {@link TooLongFrameException}
+	 */
+	public int decode(ByteBuffer buffer) throws IOException;
+
+	/**
+	 * Gets the number of leading bytes of each frame not passed to the listeners, e.g. a length header.
+	 */
+	public int getHeaderLength();
+
+	/**
+	 * Gets the number of trailing bytes of each frame not passed to the listeners, e.g. a delimiter.
+	 */
+	public int getTrailerLength();
+
+}
@@ -0,0 +1,107 @@
+package de.me.networking.server.codec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+
+/**
+ * A {@link FrameDecoder} for frames containing their length in a header field.<br>
+ * The frame length is computed as <code>lengthFieldOffset + lengthFieldLength + length + lengthAdjustment</code>.
+ */
+public class LengthFieldFrameDecoder implements FrameDecoder {
+
+	private final int lengthFieldOffset;
+	private final int lengthFieldLength;
+	private final int lengthAdjustment;
+	private final int initialBytesToStrip;
+	private final int maxFrameLength;
+	private final ByteOrder byteOrder;
+
+
+	/**
+	 * Create new {@link LengthFieldFrameDecoder} for frames starting with a big-endian length field
+	 * containing the length of the following content.<br>
+	 * The length field is not passed to the listeners.
+	 *
+	 * @param lengthFieldLength the length field size in bytes, one of 1, 2, 4 or 8
+	 * @param maxFrameLength the maximum frame length including the length field
+	 */
+	public LengthFieldFrameDecoder(int lengthFieldLength, int maxFrameLength) {
+		this(0, lengthFieldLength, 0, lengthFieldLength, maxFrameLength, ByteOrder.BIG_ENDIAN);
+	}
+
+	/**
+	 * Create new {@link LengthFieldFrameDecoder}.
+	 *
+	 * @param lengthFieldOffset the offset of the length field in the frame
+	 * @param lengthFieldLength the length field size in bytes, one of 1, 2, 4 or 8
+	 * @param lengthAdjustment the value to add to the length field to get the remaining frame length
+	 * @param initialBytesToStrip the number of leading bytes not passed to the listeners
+	 * @param maxFrameLength the maximum frame length
+	 * @param byteOrder the byte order of the length field
+	 */
+	public LengthFieldFrameDecoder(int lengthFieldOffset, int lengthFieldLength, int lengthAdjustment,
+			int initialBytesToStrip, int maxFrameLength, ByteOrder byteOrder) {
+		if (lengthFieldOffset < 0) throw new IllegalArgumentException("Invalid length field offset: " + lengthFieldOffset);
+		if (lengthFieldLength != 1 && lengthFieldLength != 2 && lengthFieldLength != 4 && lengthFieldLength != 8) {
+			throw new IllegalArgumentException("Invalid length field length: " + lengthFieldLength);
+		}
+		if (initialBytesToStrip < 0) throw new IllegalArgumentException("Invalid initial bytes to strip: " + initialBytesToStrip);
+		if (maxFrameLength < lengthFieldOffset + lengthFieldLength) throw new IllegalArgumentException("Invalid max frame length: " + maxFrameLength);
+		if (byteOrder == null) throw new IllegalArgumentException("Byte order required");
+
+		this.lengthFieldOffset = lengthFieldOffset;
+		this.lengthFieldLength = lengthFieldLength;
+		this.lengthAdjustment = lengthAdjustment;
+		this.initialBytesToStrip = initialBytesToStrip;
+		this.maxFrameLength = maxFrameLength;
+		this.byteOrder = byteOrder;
+	}
+
+
+	@Override
+	public int decode(ByteBuffer buffer) throws IOException {
+		final int headerEnd = lengthFieldOffset + lengthFieldLength;
+		if (buffer.remaining() < headerEnd) {
+			return -1;
+		}
+
+		final long frameLength = headerEnd + readLength(buffer, buffer.position() + lengthFieldOffset) + lengthAdjustment;
+		if (frameLength < Math.max(headerEnd, initialBytesToStrip)) {
+			throw new IOException("Invalid frame length: " + frameLength);
+		}
+		if (frameLength > maxFrameLength) {
+			throw new TooLongFrameException("Frame length " + frameLength + " exceeds " + maxFrameLength);
+		}
+
+		return buffer.remaining() >= frameLength ? (int) frameLength : -1;
+	}
+
+	private long readLength(ByteBuffer buffer, int index) {
+		final ByteOrder order = buffer.order();
+		buffer.order(byteOrder);
+		try {
+			switch (lengthFieldLength) {
+				case 1: return buffer.get(index) & 0xFFL;
+				case 2: return buffer.getShort(index) & 0xFFFFL;
+				case 4: return buffer.getInt(index) & 0xFFFFFFFFL;
+				default: return buffer.getLong(index);
+			}
+		}
+		finally {
+			buffer.order(order);
+		}
+	}
+
+	@Override
+	public int getHeaderLength() {
+		return initialBytesToStrip;
+	}
+
+	@Override
+	public int getTrailerLength() {
+		return 0;
+	}
+
+}
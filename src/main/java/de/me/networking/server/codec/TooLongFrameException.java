@@ -0,0 +1,18 @@
+package de.me.networking.server.codec;
+
+import java.io.IOException;
+
+
+/**
+ * This exception is thrown if a frame exceeds the maximum frame length of a {@link FrameDecoder}.
+ */
+public class TooLongFrameException extends IOException {
+
+	private static final long serialVersionUID = -1697426232582926358L;
+
+
+	public TooLongFrameException(String message) {
+		super(message);
+	}
+
+}
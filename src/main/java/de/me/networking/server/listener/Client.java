@@ -8,6 +8,11 @@ package de.me.networking.server.listener;
  */
 public interface Client extends ClientBase {
 
+	/**
+	 * Gets the identifier of the client, unique within the running JVM.
+	 */
+	public long getId();
+
 	/**
 	 * Adds a new listener for the client.<br>
 	 * <b>Note</b> that listeners should be added immediately when receiving the incoming notification.
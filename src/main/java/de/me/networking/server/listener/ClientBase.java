@@ -3,6 +3,13 @@ package de.me.networking.server.listener;
 import java.io.IOException;
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import de.me.networking.server.buffer.BufferAllocator;
+import de.me.networking.server.codec.FrameDecoder;
+import de.me.networking.server.timer.Timeout;
 
 
 /**
@@ -16,10 +23,104 @@ public interface ClientBase {
 	public int getBufferCapacity();
 
 	/**
-	 * Sends the buffer content as is to the client.
+	 * Gets the allocator providing the connection buffers.<br>
+	 * Buffers for {@link #send(ByteBuffer, SendListener)} can be allocated from it
+	 * and released again in {@link SendListener#onSent()}.
+	 */
+	public BufferAllocator getBufferAllocator();
+
+	/**
+	 * Sends the buffer content as is to the client.<br>
+	 * The content is queued and written as soon as the socket accepts it,
+	 * so the buffer must not be modified until it has been sent.
+	 * In {@link de.me.networking.server.ThreadingMode#VIRTUAL_THREAD} mode the calling thread writes the content
+	 * and blocks until the socket accepted all of it.
+	 *
+	 * @return the number of bytes queued
 	 */
 	public int send(ByteBuffer buffer) throws IOException;
 
+	/**
+	 * Sends the buffer content as is to the client like {@link #send(ByteBuffer)}
+	 * and notifies the listener once the content was completely written to the socket.
+	 *
+	 * @param listener the listener to notify or <code>null</code>
+	 * @return the number of bytes queued
+	 */
+	public int send(ByteBuffer buffer, SendListener listener) throws IOException;
+
+	/**
+	 * Sends the content of all buffers in order to the client with a single gathering write where possible.<br>
+	 * The buffers must not be modified until they have been sent.
+	 *
+	 * @return the number of bytes queued
+	 */
+	public long send(ByteBuffer... buffers) throws IOException;
+
+	/**
+	 * Sends the content of all buffers in order like {@link #send(ByteBuffer...)}
+	 * and notifies the listener once all content was completely written to the socket.
+	 *
+	 * @param listener the listener to notify or <code>null</code>
+	 * @return the number of bytes queued
+	 */
+	public long send(ByteBuffer[] buffers, SendListener listener) throws IOException;
+
+	/**
+	 * Sends a region of the file to the client without copying it into user space where the platform supports it.<br>
+	 * The region is queued in order with other sent data and the file must not be closed until it has been sent.
+	 *
+	 * @param position the file position to start sending from
+	 * @param count the number of bytes to send
+	 * @return the number of bytes queued
+	 */
+	public long sendFile(FileChannel file, long position, long count) throws IOException;
+
+	/**
+	 * Sends a region of the file to the client like {@link #sendFile(FileChannel, long, long)}
+	 * and notifies the listener once the region was completely written to the socket.
+	 *
+	 * @param listener the listener to notify or <code>null</code>
+	 * @return the number of bytes queued
+	 */
+	public long sendFile(FileChannel file, long position, long count, SendListener listener) throws IOException;
+
+	/**
+	 * Sends the complete file to the client like {@link #sendFile(FileChannel, long, long)}.<br>
+	 * The file is closed once it has been sent.
+	 *
+	 * @return the number of bytes queued
+	 */
+	public long sendFile(Path path) throws IOException;
+
+	/**
+	 * Sends the complete file to the client like {@link #sendFile(Path)}
+	 * and notifies the listener once the file was completely written to the socket.
+	 *
+	 * @param listener the listener to notify or <code>null</code>
+	 * @return the number of bytes queued
+	 */
+	public long sendFile(Path path, SendListener listener) throws IOException;
+
+	/**
+	 * Holds back all data sent from now on until {@link #flush()} is called.<br>
+	 * This allows merging many small sends into few gathering writes.
+	 */
+	public void cork();
+
+	/**
+	 * Writes all data held back since {@link #cork()} and stops holding back data.
+	 */
+	public void flush();
+
+	/**
+	 * Sets the decoder splitting the received data into frames.<br>
+	 * Each complete frame is passed to {@link ClientListener#onMessage(ByteBuffer)} on its own,
+	 * without copying if it was received within a single read.
+	 * Set to <code>null</code> to pass the data on as read.
+	 */
+	public void setFrameDecoder(FrameDecoder frameDecoder);
+
 	/**
 	 * Prevents reading more client input.<br>
 	 * Can be undone with {@link #resumeMessages()}.<br><br>
@@ -33,6 +134,23 @@ public interface ClientBase {
 	 */
 	public void resumeMessages();
 
+	/**
+	 * Checks if the data queued for sending is below the high water mark.<br>
+	 * Once unwritable, the client becomes writable again when the queued data dropped to the low water mark.
+	 * Listeners implementing {@link WritabilityListener} are notified of changes.
+	 */
+	public boolean isWritable();
+
+	/**
+	 * Schedules the task to run once on the thread handling the client after the delay.<br>
+	 * The task is skipped if the client was closed meanwhile.
+	 * It runs with the precision of the client's {@link de.me.networking.server.timer.HashedWheelTimer},
+	 * on the timer thread itself with blocking reads in {@link de.me.networking.server.ThreadingMode#VIRTUAL_THREAD} mode.
+	 *
+	 * @return the timeout to cancel the task with
+	 */
+	public Timeout schedule(Runnable task, long delay, TimeUnit unit);
+
 	/**
 	 * Closes the client connection.
 	 */
@@ -10,9 +10,11 @@ import java.nio.ByteBuffer;
 public interface ClientListener {
 
 	/**
-	 * Notification that the client sent some data.
+	 * Notification that the client sent some data.<br>
+	 * The buffer is borrowed from a pool shared with other connections and reused once this method returned,
+	 * so its content must be copied to keep it, also to pass it to {@link Client#send(ByteBuffer)}.
 	 *
-	 * @param buffer the <b>read-only</b> buffer containing the data
+	 * @param messageBuffer the <b>read-only</b> buffer containing the data, only valid during this call
 	 */
 	public void onMessage(ByteBuffer messageBuffer) throws IOException;
 
@@ -0,0 +1,19 @@
+package de.me.networking.server.listener;
+
+
+
+/**
+ * Lets a {@link ClientListener} of a {@link de.me.networking.client.SimpleClient} start talking once connected.<br>
+ * {@link #onConnect()} is called as soon as the socket is connected, before any data is read and before a TLS handshake,
+ * while a failed or timed out attempt only reaches {@link ClientListener#onError(Throwable)}.
+ * It runs on the event loop that made the connection, or in the thread calling
+ * {@link de.me.networking.client.SimpleClient#connect()}, never on a listener executor.
+ */
+public interface ConnectListener {
+
+	/**
+	 * Notification that the client connected.
+	 */
+	public void onConnect();
+
+}
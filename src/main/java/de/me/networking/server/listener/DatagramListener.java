@@ -0,0 +1,27 @@
+package de.me.networking.server.listener;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+
+
+/**
+ * A listener for datagrams received by a datagram server or client.
+ */
+public interface DatagramListener {
+
+	/**
+	 * Notification about a received datagram.<br>
+	 * <b>Note</b> that the payload is read-only and only valid during this call, as its buffer is reused for the next datagram.
+	 *
+	 * @param payload the content of the datagram
+	 * @param sender the address the datagram was sent from
+	 */
+	public void onDatagram(ByteBuffer payload, SocketAddress sender) throws IOException;
+
+	/**
+	 * Notification about an error receiving datagrams.
+	 */
+	public void onError(Throwable exception);
+
+}
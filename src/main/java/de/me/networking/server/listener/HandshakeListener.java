@@ -0,0 +1,23 @@
+package de.me.networking.server.listener;
+
+import javax.net.ssl.SSLSession;
+
+
+
+/**
+ * Gives a {@link ClientListener} of a TLS connection access to the negotiated session.<br>
+ * {@link #onHandshake(SSLSession, String)} is called once per connection after the peer was authenticated
+ * and before the first message is passed on, a failed handshake only reaches {@link ClientListener#onError(Throwable)}.
+ * It runs on the thread reading the connection, an event loop or the connection's own thread, even if a listener executor is set.
+ */
+public interface HandshakeListener {
+
+	/**
+	 * Notification that the TLS handshake finished and application data is exchanged from now on.
+	 *
+	 * @param session the negotiated session, e.g. to get the peer certificates
+	 * @param applicationProtocol the protocol negotiated by ALPN or <code>null</code> if none
+	 */
+	public void onHandshake(SSLSession session, String applicationProtocol);
+
+}
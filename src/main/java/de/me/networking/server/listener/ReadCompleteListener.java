@@ -0,0 +1,20 @@
+package de.me.networking.server.listener;
+
+import java.io.IOException;
+
+
+/**
+ * Marks the end of a batch of messages for a {@link ClientListener},
+ * e.g. to flush responses collected with {@link ClientBase#cork()} once per batch instead of per message.<br>
+ * A batch is what an event loop reads from the connection per wake-up within the read budget, or a single blocking read.
+ * {@link #onReadComplete()} runs where {@link ClientListener#onMessage(java.nio.ByteBuffer)} runs:
+ * on the thread reading the connection, or queued after the batch's messages on the listener executor if one is set.
+ */
+public interface ReadCompleteListener {
+
+	/**
+	 * Notification that all messages currently read were passed to {@link ClientListener#onMessage(java.nio.ByteBuffer)}.
+	 */
+	public void onReadComplete() throws IOException;
+
+}
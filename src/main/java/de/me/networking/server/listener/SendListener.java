@@ -0,0 +1,25 @@
+package de.me.networking.server.listener;
+
+
+
+/**
+ * A listener for the completion of a {@link ClientBase#send(java.nio.ByteBuffer, SendListener)} call, e.g. to reuse the buffer.<br>
+ * {@link #onSent()} is called by the thread writing the last byte, which may be the sending thread before <code>send</code> returns:
+ * the event loop of the connection, or the sending thread with blocking writes in {@link de.me.networking.server.ThreadingMode#VIRTUAL_THREAD} mode.
+ * {@link #onError(Throwable)} is called by the thread failing or closing the connection. Neither is moved to a listener executor.
+ */
+public interface SendListener {
+
+	/**
+	 * Notification that the data was completely written to the socket.
+	 */
+	public void onSent();
+
+	/**
+	 * Notification that the data could not be written completely, e.g. because the connection was closed.
+	 *
+	 * @param exception the exception that occurred
+	 */
+	public void onError(Throwable exception);
+
+}
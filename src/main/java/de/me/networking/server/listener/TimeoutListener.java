@@ -0,0 +1,21 @@
+package de.me.networking.server.listener;
+
+
+
+/**
+ * Takes over the handling of elapsed idle, read and write timeouts from the default of closing the connection.<br>
+ * As soon as one {@link ClientListener} implements it, timed out connections stay open unless a listener calls {@link ClientBase#close()}.
+ * {@link #onTimeout(TimeoutType)} runs on the event loop of the connection, even if a listener executor is set,
+ * or on the timer thread with blocking reads in {@link de.me.networking.server.ThreadingMode#VIRTUAL_THREAD} mode.
+ */
+public interface TimeoutListener {
+
+	/**
+	 * Notification that a timeout configured for the client elapsed.<br>
+	 * The timeout is watched again afterwards, so it is notified repeatedly as long as the client stays inactive.
+	 *
+	 * @param type the elapsed timeout
+	 */
+	public void onTimeout(TimeoutType type);
+
+}
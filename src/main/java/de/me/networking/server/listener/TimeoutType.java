@@ -0,0 +1,24 @@
+package de.me.networking.server.listener;
+
+
+/**
+ * The kinds of client connection timeouts.
+ */
+public enum TimeoutType {
+
+	/**
+	 * Nothing was read or written for the idle timeout.
+	 */
+	IDLE,
+
+	/**
+	 * Nothing was read for the read timeout.
+	 */
+	READ,
+
+	/**
+	 * Queued data could not be written for the write timeout, e.g. because the peer does not read.
+	 */
+	WRITE
+
+}
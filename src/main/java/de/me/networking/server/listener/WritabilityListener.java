@@ -0,0 +1,21 @@
+package de.me.networking.server.listener;
+
+
+
+/**
+ * Lets a {@link ClientListener} producing data stop and resume with the outbound queue, see {@link ClientBase#isWritable()}.<br>
+ * On an event loop {@link #onWritabilityChanged(boolean)} runs on the loop thread, even if a listener executor is set.
+ * With blocking writes in {@link de.me.networking.server.ThreadingMode#VIRTUAL_THREAD} mode
+ * it runs in the thread whose send or write made the queue cross a water mark.
+ */
+public interface WritabilityListener {
+
+	/**
+	 * Notification that the client became unwritable because the queued data exceeds the high water mark,
+	 * or writable again because it dropped to the low water mark.
+	 *
+	 * @param writable the new writability
+	 */
+	public void onWritabilityChanged(boolean writable);
+
+}
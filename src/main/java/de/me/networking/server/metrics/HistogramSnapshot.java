@@ -0,0 +1,85 @@
+package de.me.networking.server.metrics;
+
+
+
+/**
+ * A snapshot of the values recorded by a {@link LatencyHistogram}.<br>
+ * Percentiles and maximum are reported as the largest value of their bucket.
+ */
+public class HistogramSnapshot {
+
+	private final long[] counts;
+	private final long count;
+	private final long total;
+
+
+	HistogramSnapshot(long[] counts, long total) {
+		this.counts = counts;
+		this.total = total;
+
+		long count = 0L;
+		for (long c : counts) {
+			count += c;
+		}
+		this.count = count;
+	}
+
+
+	/**
+	 * Gets the number of recorded values.
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Gets the mean of the recorded values, <code>0</code> if there are none.
+	 */
+	public double getMean() {
+		return count == 0L ? 0.0 : (double) total / count;
+	}
+
+	/**
+	 * Gets the value the percentage of recorded values is smaller than or equal to, <code>0</code> if there are none.
+	 *
+	 * @param percentile the percentage between <code>0</code> and <code>100</code>
+	 */
+	public long getValueAtPercentile(double percentile) {
+		if (percentile < 0.0 || percentile > 100.0) throw new IllegalArgumentException("Invalid percentile: " + percentile);
+		if (count == 0L) {
+			return 0L;
+		}
+
+		final long rank = Math.max(1L, (long) Math.ceil(percentile / 100.0 * count));
+		long seen = 0L;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return LatencyHistogram.upperBound(i);
+			}
+		}
+		return getMax();
+	}
+
+	/**
+	 * Gets the largest recorded value, <code>0</code> if there are none.
+	 */
+	public long getMax() {
+		for (int i = counts.length - 1; i >= 0; i--) {
+			if (counts[i] > 0L) {
+				return LatencyHistogram.upperBound(i);
+			}
+		}
+		return 0L;
+	}
+
+
+	@Override
+	public String toString() {
+		return "HistogramSnapshot [count=" + count + ", mean=" + getMean()
+				+ ", p50=" + getValueAtPercentile(50.0) + ", p90=" + getValueAtPercentile(90.0)
+				+ ", p99=" + getValueAtPercentile(99.0) + ", p99.9=" + getValueAtPercentile(99.9)
+				+ ", max=" + getMax() + "]";
+	}
+
+}
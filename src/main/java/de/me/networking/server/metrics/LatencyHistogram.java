@@ -0,0 +1,96 @@
+package de.me.networking.server.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+
+/**
+ * A histogram of nanosecond latencies recording without allocation in constant time.<br>
+ * Values are counted in log-linear buckets: 16 linear buckets per power of two,
+ * so each value is kept with a relative error of at most 1/16.<br>
+ * Like a {@link StripedCounter} each recording thread counts into the buckets of its stripe,
+ * created on first use, so event loops do not contend on the buckets. Snapshots merge all stripes.
+ */
+public final class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+	private final AtomicReferenceArray<AtomicLongArray> stripes = new AtomicReferenceArray<AtomicLongArray>(StripedCounter.STRIPES);
+	private final StripedCounter total = new StripedCounter();
+
+
+	/**
+	 * Records the value, negative values are recorded as <code>0</code>.
+	 */
+	public void record(long value) {
+		if (value < 0L) {
+			value = 0L;
+		}
+
+		counts().incrementAndGet(index(value));
+		total.add(value);
+	}
+
+	private AtomicLongArray counts() {
+		final int stripe = StripedCounter.stripe();
+		final AtomicLongArray counts = stripes.get(stripe);
+		if (counts != null) {
+			return counts;
+		}
+
+		stripes.compareAndSet(stripe, null, new AtomicLongArray(BUCKETS));
+		return stripes.get(stripe);
+	}
+
+	/**
+	 * Gets a snapshot of the values recorded so far.
+	 */
+	public HistogramSnapshot snapshot() {
+		final long[] snapshot = new long[BUCKETS];
+		for (int stripe = 0; stripe < stripes.length(); stripe++) {
+			final AtomicLongArray counts = stripes.get(stripe);
+			if (counts == null) {
+				continue;
+			}
+
+			for (int i = 0; i < BUCKETS; i++) {
+				snapshot[i] += counts.get(i);
+			}
+		}
+		return new HistogramSnapshot(snapshot, total.sum());
+	}
+
+
+	static int index(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+
+		final int exponent = 63 - Long.numberOfLeadingZeros(value);
+		final int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+	}
+
+	/**
+	 * Gets the smallest value counted in the bucket.
+	 */
+	static long lowerBound(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+
+		final int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		final long sub = index % SUB_BUCKETS;
+		return (SUB_BUCKETS + sub) << (exponent - SUB_BUCKET_BITS);
+	}
+
+	/**
+	 * Gets the largest value counted in the bucket.
+	 */
+	static long upperBound(int index) {
+		return index + 1 < BUCKETS ? lowerBound(index + 1) - 1 : Long.MAX_VALUE;
+	}
+
+}
@@ -0,0 +1,242 @@
+package de.me.networking.server.metrics;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+
+/**
+ * Counters and latencies of client connections, updated by the networking internals and read on demand.<br>
+ * All counters are {@link StripedCounter}s, so recording costs little even with many event loops.
+ * Can be exported with {@link #registerMBean(String)}.
+ */
+public class NetworkMetrics implements NetworkMetricsMXBean {
+
+	private final StripedCounter openedConnections = new StripedCounter();
+	private final StripedCounter closedConnections = new StripedCounter();
+	private final StripedCounter rejectedConnections = new StripedCounter();
+	private final StripedCounter acceptPauses = new StripedCounter();
+	private final StripedCounter bytesRead = new StripedCounter();
+	private final StripedCounter bytesWritten = new StripedCounter();
+	private final StripedCounter messagesRead = new StripedCounter();
+	private final StripedCounter messagesWritten = new StripedCounter();
+	private final StripedCounter outboundBytes = new StripedCounter();
+	private final StripedCounter selectWakeups = new StripedCounter();
+	private final StripedCounter emptySelectWakeups = new StripedCounter();
+	private final LatencyHistogram messageLatency = new LatencyHistogram();
+
+	private volatile ObjectName objectName;
+
+
+	/**
+	 * Records a connection starting to be handled.
+	 */
+	public void connectionOpened() {
+		openedConnections.increment();
+	}
+
+	/**
+	 * Records a connection not handled anymore.
+	 */
+	public void connectionClosed() {
+		closedConnections.increment();
+	}
+
+	/**
+	 * Records a connection rejected due to overload.
+	 */
+	public void connectionRejected() {
+		rejectedConnections.increment();
+	}
+
+	/**
+	 * Records accepting being paused due to overload.
+	 */
+	public void acceptPaused() {
+		acceptPauses.increment();
+	}
+
+	/**
+	 * Records bytes read from a connection.
+	 */
+	public void bytesRead(long bytes) {
+		bytesRead.add(bytes);
+	}
+
+	/**
+	 * Records a message passed to the listeners and the time they took to process it.
+	 */
+	public void messageRead(long latencyNanos) {
+		messagesRead.increment();
+		messageLatency.record(latencyNanos);
+	}
+
+	/**
+	 * Records bytes written to a connection.
+	 */
+	public void bytesWritten(long bytes) {
+		bytesWritten.add(bytes);
+	}
+
+	/**
+	 * Records a sent message written completely.
+	 */
+	public void messageWritten() {
+		messagesWritten.increment();
+	}
+
+	/**
+	 * Records a change of the bytes queued for sending, negative when dequeued.
+	 */
+	public void outboundChanged(long bytes) {
+		outboundBytes.add(bytes);
+	}
+
+	/**
+	 * Records an event loop waking up from select.
+	 *
+	 * @param empty if there was nothing to do
+	 */
+	public void selectWakeup(boolean empty) {
+		selectWakeups.increment();
+		if (empty) {
+			emptySelectWakeups.increment();
+		}
+	}
+
+
+	@Override
+	public long getOpenedConnections() {
+		return openedConnections.sum();
+	}
+
+	@Override
+	public long getClosedConnections() {
+		return closedConnections.sum();
+	}
+
+	@Override
+	public long getActiveConnections() {
+		// Read closed first, so concurrent updates cannot make it negative
+		final long closed = closedConnections.sum();
+		return openedConnections.sum() - closed;
+	}
+
+	@Override
+	public long getRejectedConnections() {
+		return rejectedConnections.sum();
+	}
+
+	@Override
+	public long getAcceptPauses() {
+		return acceptPauses.sum();
+	}
+
+	@Override
+	public long getBytesRead() {
+		return bytesRead.sum();
+	}
+
+	@Override
+	public long getBytesWritten() {
+		return bytesWritten.sum();
+	}
+
+	@Override
+	public long getMessagesRead() {
+		return messagesRead.sum();
+	}
+
+	@Override
+	public long getMessagesWritten() {
+		return messagesWritten.sum();
+	}
+
+	/**
+	 * Gets the bytes currently queued for sending on all connections.
+	 */
+	@Override
+	public long getOutboundBytes() {
+		return outboundBytes.sum();
+	}
+
+	@Override
+	public long getSelectWakeups() {
+		return selectWakeups.sum();
+	}
+
+	/**
+	 * Gets the select wake-ups with neither ready channels nor tasks.
+	 */
+	@Override
+	public long getEmptySelectWakeups() {
+		return emptySelectWakeups.sum();
+	}
+
+	/**
+	 * Gets a snapshot of the nanoseconds the listeners took to process a message.
+	 */
+	public HistogramSnapshot getMessageLatency() {
+		return messageLatency.snapshot();
+	}
+
+	@Override
+	public double getMessageLatencyMean() {
+		return getMessageLatency().getMean();
+	}
+
+	@Override
+	public long getMessageLatencyP50() {
+		return getMessageLatency().getValueAtPercentile(50.0);
+	}
+
+	@Override
+	public long getMessageLatencyP99() {
+		return getMessageLatency().getValueAtPercentile(99.0);
+	}
+
+	@Override
+	public long getMessageLatencyP999() {
+		return getMessageLatency().getValueAtPercentile(99.9);
+	}
+
+	@Override
+	public long getMessageLatencyMax() {
+		return getMessageLatency().getMax();
+	}
+
+
+	/**
+	 * Registers the metrics as MXBean with the platform MBean server.
+	 *
+	 * @param name the object name, e.g. <code>de.me.networking:type=SimpleServer,name=main</code>
+	 */
+	public void registerMBean(String name) throws JMException {
+		final ObjectName objectName = new ObjectName(name);
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+		this.objectName = objectName;
+	}
+
+	/**
+	 * Unregisters the metrics registered with {@link #registerMBean(String)}.
+	 */
+	public void unregisterMBean() throws JMException {
+		final ObjectName objectName = this.objectName;
+		if (objectName != null) {
+			this.objectName = null;
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+		}
+	}
+
+
+	@Override
+	public String toString() {
+		return "NetworkMetrics [openedConnections=" + getOpenedConnections() + ", closedConnections=" + getClosedConnections()
+				+ ", rejectedConnections=" + getRejectedConnections() + ", bytesRead=" + getBytesRead()
+				+ ", bytesWritten=" + getBytesWritten() + ", messagesRead=" + getMessagesRead()
+				+ ", messagesWritten=" + getMessagesWritten() + ", outboundBytes=" + getOutboundBytes()
+				+ ", selectWakeups=" + getSelectWakeups() + ", emptySelectWakeups=" + getEmptySelectWakeups() + "]";
+	}
+
+}
@@ -0,0 +1,44 @@
+package de.me.networking.server.metrics;
+
+
+
+/**
+ * The JMX view of {@link NetworkMetrics}, latencies are in nanoseconds.
+ */
+public interface NetworkMetricsMXBean {
+
+	public long getOpenedConnections();
+
+	public long getClosedConnections();
+
+	public long getActiveConnections();
+
+	public long getRejectedConnections();
+
+	public long getAcceptPauses();
+
+	public long getBytesRead();
+
+	public long getBytesWritten();
+
+	public long getMessagesRead();
+
+	public long getMessagesWritten();
+
+	public long getOutboundBytes();
+
+	public long getSelectWakeups();
+
+	public long getEmptySelectWakeups();
+
+	public double getMessageLatencyMean();
+
+	public long getMessageLatencyP50();
+
+	public long getMessageLatencyP99();
+
+	public long getMessageLatencyP999();
+
+	public long getMessageLatencyMax();
+
+}
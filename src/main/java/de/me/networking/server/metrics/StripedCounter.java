@@ -0,0 +1,75 @@
+package de.me.networking.server.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * A counter for frequent updates from many threads.<br>
+ * Updates go to one of several cells chosen by the updating thread, each on its own cache line,
+ * so threads rarely contend. Reading sums up all cells and is meant to be rare.
+ */
+public final class StripedCounter {
+
+	/**
+	 * Longs per cache line, so cells of different stripes do not share one.
+	 */
+	private static final int PADDING = 8;
+	static final int STRIPES = stripes();
+
+	private final AtomicLongArray cells = new AtomicLongArray((STRIPES + 1) * PADDING);
+
+
+	/**
+	 * Adds the value.
+	 */
+	public void add(long value) {
+		cells.getAndAdd(index(), value);
+	}
+
+	/**
+	 * Adds one.
+	 */
+	public void increment() {
+		add(1L);
+	}
+
+	/**
+	 * Gets the sum of all values added so far.
+	 */
+	public long sum() {
+		long sum = 0L;
+		for (int i = 1; i <= STRIPES; i++) {
+			sum += cells.get(i * PADDING);
+		}
+		return sum;
+	}
+
+	private static int index() {
+		// Leave the first cache line to the array header
+		return (stripe() + 1) * PADDING;
+	}
+
+	/**
+	 * Gets the stripe of the current thread, from <code>0</code> to {@link #STRIPES} exclusive.<br>
+	 * Threads started one after another, like the threads of an event loop group, get different stripes.
+	 */
+	static int stripe() {
+		return (int) Thread.currentThread().getId() & (STRIPES - 1);
+	}
+
+	private static int stripes() {
+		final int processors = Math.min(Runtime.getRuntime().availableProcessors(), 64);
+		int stripes = 1;
+		while (stripes < processors) {
+			stripes <<= 1;
+		}
+		return stripes;
+	}
+
+
+	@Override
+	public String toString() {
+		return Long.toString(sum());
+	}
+
+}
@@ -0,0 +1,282 @@
+package de.me.networking.server.timer;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * A timer for many short-lived timeouts with scheduling and cancelling in constant time.<br>
+ * Timeouts are hashed into the buckets of a wheel turned by a single daemon thread once per tick,
+ * so tasks run on the timer thread with a precision of one tick and should return quickly.
+ * The thread is started with the first timeout.
+ */
+public class HashedWheelTimer {
+
+	/**
+	 * A timer with a tick of 100 milliseconds shared by all clients not configured otherwise.
+	 */
+	public static final HashedWheelTimer DEFAULT = new HashedWheelTimer();
+
+	private static final int MAX_TRANSFERS_PER_TICK = 100000;
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final long tickDuration;
+	private final Bucket[] wheel;
+	private final int mask;
+	private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+	private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+	private final String name;
+
+	private final Object startLock = new Object();
+	private volatile Thread thread;
+	private volatile long startTime;
+	private volatile boolean stopped = false;
+	private long tick;
+
+
+	/**
+	 * Create new {@link HashedWheelTimer} with a tick of 100 milliseconds and 512 buckets.
+	 */
+	public HashedWheelTimer() {
+		this(100, TimeUnit.MILLISECONDS, 512);
+	}
+
+	/**
+	 * Create new {@link HashedWheelTimer}.
+	 *
+	 * @param tickDuration the duration of a tick, which is the precision of the timer
+	 * @param ticksPerWheel the number of buckets, rounded up to a power of two
+	 */
+	public HashedWheelTimer(long tickDuration, TimeUnit unit, int ticksPerWheel) {
+		this(tickDuration, unit, ticksPerWheel, "hashed-wheel-timer");
+	}
+
+	/**
+	 * Create new {@link HashedWheelTimer}.
+	 *
+	 * @param tickDuration the duration of a tick, which is the precision of the timer
+	 * @param ticksPerWheel the number of buckets, rounded up to a power of two
+	 * @param name the timer thread name
+	 */
+	public HashedWheelTimer(long tickDuration, TimeUnit unit, int ticksPerWheel, String name) {
+		if (tickDuration <= 0) throw new IllegalArgumentException("Invalid tick duration: " + tickDuration);
+		if (ticksPerWheel <= 0 || ticksPerWheel > 1 << 30) throw new IllegalArgumentException("Invalid ticks per wheel: " + ticksPerWheel);
+
+		this.tickDuration = unit.toNanos(tickDuration);
+		int size = 1;
+		while (size < ticksPerWheel) {
+			size <<= 1;
+		}
+
+		this.wheel = new Bucket[size];
+		for (int i = 0; i < wheel.length; i++) {
+			wheel[i] = new Bucket();
+		}
+		this.mask = wheel.length - 1;
+		this.name = name;
+	}
+
+
+	/**
+	 * Schedules the task to run once on the timer thread after the delay.
+	 *
+	 * @throws IllegalStateException if the timer was stopped
+	 */
+	public Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+		if (task == null) throw new IllegalArgumentException("Task required");
+		if (stopped) throw new IllegalStateException("Timer stopped");
+
+		start();
+
+		final Timeout timeout = new Timeout(this, task, System.nanoTime() + unit.toNanos(Math.max(delay, 0L)) - startTime);
+		added.add(timeout);
+		return timeout;
+	}
+
+	/**
+	 * Stops the timer thread, pending timeouts will not run anymore.
+	 */
+	public void stop() {
+		stopped = true;
+
+		final Thread thread = this.thread;
+		if (thread != null) {
+			thread.interrupt();
+		}
+	}
+
+	private void start() {
+		if (thread != null) {
+			return;
+		}
+
+		synchronized (startLock) {
+			if (thread == null) {
+				startTime = System.nanoTime();
+
+				final Thread thread = new Thread(new Runnable() {
+					@Override
+					public void run() {
+						runWheel();
+					}
+				}, name);
+				thread.setDaemon(true);
+				thread.start();
+				this.thread = thread;
+			}
+		}
+	}
+
+	void cancelled(Timeout timeout) {
+		// Removed from its bucket by the timer thread
+		cancelled.add(timeout);
+	}
+
+
+	private void runWheel() {
+		log.debug("Timer started");
+
+		while (!stopped) {
+			final long deadline = waitForNextTick();
+			if (deadline < 0) {
+				break;
+			}
+
+			removeCancelled();
+			transferAdded();
+			wheel[(int) (tick & mask)].expire(deadline);
+			tick++;
+		}
+
+		log.debug("Timer stopped");
+	}
+
+	/**
+	 * Sleeps until the end of the current tick.
+	 *
+	 * @return the elapsed time since the start or -1 if stopped
+	 */
+	private long waitForNextTick() {
+		final long deadline = tickDuration * (tick + 1);
+
+		for (;;) {
+			final long current = System.nanoTime() - startTime;
+			final long sleepMillis = (deadline - current + 999999) / 1000000;
+
+			if (sleepMillis <= 0) {
+				return current;
+			}
+
+			try {
+				Thread.sleep(sleepMillis);
+			}
+			catch (InterruptedException e) {
+				if (stopped) {
+					return -1;
+				}
+			}
+		}
+	}
+
+	private void removeCancelled() {
+		Timeout timeout;
+		while ((timeout = cancelled.poll()) != null) {
+			if (timeout.bucket != null) {
+				timeout.bucket.remove(timeout);
+			}
+		}
+	}
+
+	private void transferAdded() {
+		for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+			final Timeout timeout = added.poll();
+			if (timeout == null) {
+				break;
+			}
+			if (timeout.isCancelled()) {
+				continue;
+			}
+
+			final long calculated = timeout.deadline / tickDuration;
+			timeout.remainingRounds = (calculated - tick) / wheel.length;
+
+			// Put timeouts already due into the current bucket
+			final long ticks = Math.max(calculated, tick);
+			wheel[(int) (ticks & mask)].add(timeout);
+		}
+	}
+
+
+	/**
+	 * A doubly linked list of the timeouts hashed to a single wheel position.
+	 */
+	static final class Bucket {
+
+		private Timeout head;
+		private Timeout tail;
+
+
+		void add(Timeout timeout) {
+			timeout.bucket = this;
+			if (head == null) {
+				head = tail = timeout;
+			}
+			else {
+				tail.next = timeout;
+				timeout.prev = tail;
+				tail = timeout;
+			}
+		}
+
+		void remove(Timeout timeout) {
+			final Timeout next = timeout.next;
+
+			if (timeout.prev != null) {
+				timeout.prev.next = next;
+			}
+			if (next != null) {
+				next.prev = timeout.prev;
+			}
+			if (timeout == head) {
+				head = next;
+			}
+			if (timeout == tail) {
+				tail = timeout.prev;
+			}
+
+			timeout.prev = null;
+			timeout.next = null;
+			timeout.bucket = null;
+		}
+
+		/**
+		 * Runs all timeouts of this bucket due at the deadline and counts down the rounds of the others.
+		 */
+		void expire(long deadline) {
+			Timeout timeout = head;
+			while (timeout != null) {
+				final Timeout next = timeout.next;
+
+				if (timeout.isCancelled()) {
+					remove(timeout);
+				}
+				else if (timeout.remainingRounds <= 0 && timeout.deadline <= deadline) {
+					remove(timeout);
+					timeout.expire();
+				}
+				else {
+					timeout.remainingRounds--;
+				}
+
+				timeout = next;
+			}
+		}
+
+	}
+
+}
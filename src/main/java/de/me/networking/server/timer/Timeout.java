@@ -0,0 +1,80 @@
+package de.me.networking.server.timer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * A task scheduled with {@link HashedWheelTimer#newTimeout(Runnable, long, java.util.concurrent.TimeUnit)}.
+ */
+public final class Timeout {
+
+	private static final Logger log = LoggerFactory.getLogger(Timeout.class);
+
+	private static final int PENDING = 0;
+	private static final int CANCELLED = 1;
+	private static final int EXPIRED = 2;
+
+	private final HashedWheelTimer timer;
+	private final Runnable task;
+	private final AtomicInteger state = new AtomicInteger(PENDING);
+
+	// Managed by the timer thread only
+	final long deadline;
+	long remainingRounds;
+	Timeout next;
+	Timeout prev;
+	HashedWheelTimer.Bucket bucket;
+
+
+	Timeout(HashedWheelTimer timer, Runnable task, long deadline) {
+		this.timer = timer;
+		this.task = task;
+		this.deadline = deadline;
+	}
+
+
+	/**
+	 * Cancels the task if it did not run yet.
+	 *
+	 * @return true, if the task was cancelled by this call
+	 */
+	public boolean cancel() {
+		if (!state.compareAndSet(PENDING, CANCELLED)) {
+			return false;
+		}
+
+		timer.cancelled(this);
+		return true;
+	}
+
+	/**
+	 * Checks if the task was cancelled.
+	 */
+	public boolean isCancelled() {
+		return state.get() == CANCELLED;
+	}
+
+	/**
+	 * Checks if the task was run.
+	 */
+	public boolean isExpired() {
+		return state.get() == EXPIRED;
+	}
+
+	void expire() {
+		if (!state.compareAndSet(PENDING, EXPIRED)) {
+			return;
+		}
+
+		try {
+			task.run();
+		}
+		catch (Throwable e) {
+			log.error("Timer task error", e);
+		}
+	}
+
+}
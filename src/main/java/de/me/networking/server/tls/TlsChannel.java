@@ -0,0 +1,601 @@
+package de.me.networking.server.tls;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.me.networking.server.buffer.BufferAllocator;
+
+
+/**
+ * Internal class encrypting the traffic of a {@link SocketChannel} with an {@link SSLEngine}.<br>
+ * Works on blocking and non-blocking channels. The packet buffers are borrowed from the allocator
+ * only while they hold data, so idle connections do not hold any.<br>
+ * Reading is done by a single thread, writing may be done by another one.
+ */
+public class TlsChannel implements ByteChannel, GatheringByteChannel {
+
+	private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+	/**
+	 * Number of records encrypted into a single packet buffer before it is written.
+	 */
+	private static final int WRITE_RECORDS = 4;
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final SocketChannel channel;
+	private final SSLEngine engine;
+	private final BufferAllocator allocator;
+	// Not a monitor, so a virtual thread blocked writing does not pin its carrier thread
+	private final ReentrantLock writeLock = new ReentrantLock();
+	private final ByteBuffer[] single = new ByteBuffer[1];
+
+	/** Received packet data in write mode, <code>null</code> if none */
+	private ByteBuffer netIn;
+	/** Whether the received packet data is an incomplete record */
+	private boolean needInput = true;
+	/** Application data received during the handshake in read mode, <code>null</code> if none */
+	private ByteBuffer appIn;
+	/** Encrypted data not written yet in read mode, <code>null</code> if none */
+	private ByteBuffer netOut;
+	private boolean inboundDone = false;
+
+
+	public TlsChannel(SocketChannel channel, SSLEngine engine, BufferAllocator allocator) {
+		this.channel = channel;
+		this.engine = engine;
+		this.allocator = allocator;
+	}
+
+
+	public SSLEngine getEngine() {
+		return engine;
+	}
+
+	/**
+	 * Gets the protocol negotiated by ALPN or <code>null</code> if none.
+	 */
+	public String getApplicationProtocol() {
+		return TlsConfig.getApplicationProtocol(engine);
+	}
+
+	/**
+	 * Gets the minimum remaining space of buffers passed to {@link #read(ByteBuffer)}.
+	 */
+	public int getApplicationBufferSize() {
+		return engine.getSession().getApplicationBufferSize();
+	}
+
+
+	/**
+	 * The step needed to continue the handshake.
+	 */
+	public static enum HandshakeStep {
+		/** The handshake finished and all its data was written */
+		FINISHED,
+		/** The channel has to become readable */
+		NEED_READ,
+		/** The channel has to become writable */
+		NEED_WRITE,
+		/** Delegated tasks have to be run, see {@link TlsChannel#runDelegatedTasks(Executor, Runnable)} */
+		NEED_TASK
+	}
+
+	public void beginHandshake() throws SSLException {
+		engine.beginHandshake();
+	}
+
+	/**
+	 * Continues the handshake as far as possible without blocking on a non-blocking channel.
+	 *
+	 * @return the step needed to continue
+	 */
+	public HandshakeStep handshake() throws IOException {
+		while (true) {
+			if (!flush()) {
+				return HandshakeStep.NEED_WRITE;
+			}
+
+			switch (engine.getHandshakeStatus()) {
+				case NOT_HANDSHAKING:
+				case FINISHED:
+					return HandshakeStep.FINISHED;
+
+				case NEED_TASK:
+					return HandshakeStep.NEED_TASK;
+
+				case NEED_WRAP:
+					writeLock.lock();
+					try {
+						wrap(EMPTY);
+					}
+					finally {
+						writeLock.unlock();
+					}
+					break;
+
+				default:
+					// NEED_UNWRAP, or NEED_UNWRAP_AGAIN on Java 9 or later
+					if (!handshakeUnwrap()) {
+						return HandshakeStep.NEED_READ;
+					}
+					break;
+			}
+		}
+	}
+
+	/**
+	 * Unwraps a handshake record, reading from the channel if none is complete.
+	 *
+	 * @return <code>false</code> if the channel has no data available
+	 */
+	private boolean handshakeUnwrap() throws IOException {
+		if (needInput) {
+			final int r = readPacketData();
+			if (r < 0) {
+				throw new EOFException("Connection closed during TLS handshake");
+			}
+			if (r == 0) {
+				return false;
+			}
+		}
+
+		if (appIn == null) {
+			appIn = allocator.allocate(getApplicationBufferSize());
+		}
+		else {
+			appIn.compact();
+		}
+
+		try {
+			final SSLEngineResult result = unwrap(appIn);
+			if (result.getStatus() == SSLEngineResult.Status.CLOSED) {
+				throw new SSLException("Connection closed during TLS handshake");
+			}
+			if (result.getStatus() == SSLEngineResult.Status.BUFFER_OVERFLOW) {
+				throw new SSLException("Too much application data during TLS handshake");
+			}
+		}
+		finally {
+			appIn.flip();
+			if (!appIn.hasRemaining()) {
+				allocator.release(appIn);
+				appIn = null;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Runs the delegated tasks of the engine with the executor and the <code>done</code> task afterwards,
+	 * to not block the thread handling the connection.
+	 */
+	public void runDelegatedTasks(Executor executor, final Runnable done) {
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					runDelegatedTasks();
+				}
+				finally {
+					done.run();
+				}
+			}
+		});
+	}
+
+	/**
+	 * Runs the delegated tasks of the engine in the calling thread.
+	 */
+	public void runDelegatedTasks() {
+		Runnable task;
+		while ((task = engine.getDelegatedTask()) != null) {
+			task.run();
+		}
+	}
+
+
+	/**
+	 * Reads and decrypts data from the channel.<br>
+	 * Messages of the peer after the handshake, like new session tickets, are processed on the way,
+	 * a reply to them may be left for {@link #flush()}.
+	 *
+	 * @param dst the buffer with at least {@link #getApplicationBufferSize()} remaining
+	 * @return the number of decrypted bytes, <code>-1</code> once the peer closed the connection
+	 */
+	@Override
+	public int read(ByteBuffer dst) throws IOException {
+		if (appIn != null) {
+			return readHandshakeData(dst);
+		}
+		if (inboundDone) {
+			return -1;
+		}
+
+		final int start = dst.position();
+
+		while (true) {
+			if (needInput) {
+				if (dst.position() > start) {
+					break;
+				}
+
+				final int r = readPacketData();
+				if (r < 0) {
+					return -1;
+				}
+				if (r == 0) {
+					break;
+				}
+			}
+
+			final SSLEngineResult result = unwrap(dst);
+			switch (result.getStatus()) {
+				case CLOSED:
+					inboundDone = true;
+					try {
+						// Reply close_notify
+						closeOutbound();
+					}
+					catch (IOException e) {
+						log.debug("Cannot reply TLS close_notify", e);
+					}
+					return dst.position() > start ? dst.position() - start : -1;
+
+				case BUFFER_OVERFLOW:
+					if (dst.position() == start) {
+						throw new SSLException("Read buffer too small for TLS record: " + dst.remaining());
+					}
+					return dst.position() - start;
+
+				default:
+					processHandshakeStatus(result.getHandshakeStatus());
+					break;
+			}
+		}
+
+		return dst.position() - start;
+	}
+
+	private int readHandshakeData(ByteBuffer dst) {
+		final int count = Math.min(dst.remaining(), appIn.remaining());
+		final int limit = appIn.limit();
+		appIn.limit(appIn.position() + count);
+		dst.put(appIn);
+		appIn.limit(limit);
+
+		if (!appIn.hasRemaining()) {
+			allocator.release(appIn);
+			appIn = null;
+		}
+		return count;
+	}
+
+	/**
+	 * Processes handshake messages received after the initial handshake inline.
+	 */
+	private void processHandshakeStatus(HandshakeStatus status) throws IOException {
+		while (true) {
+			switch (status) {
+				case NEED_TASK:
+					runDelegatedTasks();
+					break;
+
+				case NEED_WRAP:
+					writeLock.lock();
+					try {
+						wrap(EMPTY);
+					}
+					finally {
+						writeLock.unlock();
+					}
+					flush();
+					break;
+
+				default:
+					return;
+			}
+
+			status = engine.getHandshakeStatus();
+		}
+	}
+
+	/**
+	 * Checks if received data is buffered that can be decrypted without reading from the channel.
+	 */
+	public boolean hasBufferedInput() {
+		return appIn != null || (!needInput && !inboundDone);
+	}
+
+	/**
+	 * Reads packet data from the channel into the packet buffer, growing it if a record does not fit.
+	 *
+	 * @return the number of bytes read, <code>-1</code> on end of stream
+	 */
+	private int readPacketData() throws IOException {
+		final int packetSize = engine.getSession().getPacketBufferSize();
+		if (netIn == null) {
+			netIn = allocator.allocate(packetSize);
+		}
+		else if (!netIn.hasRemaining()) {
+			final ByteBuffer grown = allocator.allocate(Math.max(packetSize, netIn.capacity() * 2));
+			netIn.flip();
+			grown.put(netIn);
+			allocator.release(netIn);
+			netIn = grown;
+		}
+
+		final int r = channel.read(netIn);
+		if (r > 0) {
+			needInput = false;
+		}
+		else if (r < 0) {
+			try {
+				engine.closeInbound();
+			}
+			catch (SSLException e) {
+				log.debug("Connection closed without close_notify");
+			}
+			inboundDone = true;
+			releaseInput();
+		}
+		else {
+			releaseInput();
+		}
+		return r;
+	}
+
+	private SSLEngineResult unwrap(ByteBuffer dst) throws SSLException {
+		netIn.flip();
+		final SSLEngineResult result;
+		try {
+			result = engine.unwrap(netIn, dst);
+		}
+		finally {
+			netIn.compact();
+		}
+
+		if (result.getStatus() == SSLEngineResult.Status.BUFFER_UNDERFLOW || netIn.position() == 0) {
+			needInput = true;
+			releaseInput();
+		}
+		return result;
+	}
+
+	private void releaseInput() {
+		if (netIn != null && netIn.position() == 0) {
+			allocator.release(netIn);
+			netIn = null;
+		}
+	}
+
+
+	@Override
+	public int write(ByteBuffer src) throws IOException {
+		writeLock.lock();
+		try {
+			single[0] = src;
+			try {
+				return (int) write(single, 0, 1);
+			}
+			finally {
+				single[0] = null;
+			}
+		}
+		finally {
+			writeLock.unlock();
+		}
+	}
+
+	@Override
+	public long write(ByteBuffer[] srcs) throws IOException {
+		return write(srcs, 0, srcs.length);
+	}
+
+	/**
+	 * Encrypts and writes the data as far as the channel accepts it.<br>
+	 * Encrypted data not accepted is written first on the next write or {@link #flush()}.
+	 *
+	 * @return the number of data bytes consumed
+	 */
+	@Override
+	public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+		writeLock.lock();
+		try {
+			long consumed = 0L;
+
+			while (flush() && hasRemaining(srcs, offset, length)) {
+				final int packetSize = engine.getSession().getPacketBufferSize();
+				netOut = allocator.allocate(packetSize * WRITE_RECORDS);
+
+				do {
+					final SSLEngineResult result = engine.wrap(srcs, offset, length, netOut);
+					if (result.getStatus() == SSLEngineResult.Status.CLOSED) {
+						netOut.flip();
+						throw new ClosedChannelException();
+					}
+					consumed += result.bytesConsumed();
+					if (result.getHandshakeStatus() == HandshakeStatus.NEED_TASK) {
+						runDelegatedTasks();
+					}
+					if (result.bytesConsumed() == 0) {
+						// Renegotiating, data is encrypted once the handshake progressed
+						break;
+					}
+				}
+				while (netOut.remaining() >= packetSize && hasRemaining(srcs, offset, length));
+
+				netOut.flip();
+				if (!netOut.hasRemaining()) {
+					allocator.release(netOut);
+					netOut = null;
+					break;
+				}
+			}
+
+			return consumed;
+		}
+		finally {
+			writeLock.unlock();
+		}
+	}
+
+	private static boolean hasRemaining(ByteBuffer[] srcs, int offset, int length) {
+		for (int i = offset; i < offset + length; i++) {
+			if (srcs[i].hasRemaining()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Encrypts handshake data into the output buffer, must be called holding the write lock.
+	 */
+	private void wrap(ByteBuffer src) throws SSLException {
+		final int packetSize = engine.getSession().getPacketBufferSize();
+		if (netOut == null) {
+			netOut = allocator.allocate(packetSize);
+		}
+		else if (netOut.capacity() - netOut.remaining() < packetSize) {
+			final ByteBuffer grown = allocator.allocate(netOut.remaining() + packetSize);
+			grown.put(netOut);
+			allocator.release(netOut);
+			netOut = grown;
+		}
+		else {
+			netOut.compact();
+		}
+
+		try {
+			engine.wrap(src, netOut);
+		}
+		finally {
+			netOut.flip();
+		}
+	}
+
+	/**
+	 * Writes encrypted data left by previous calls.
+	 *
+	 * @return <code>true</code> if all data was written
+	 */
+	public boolean flush() throws IOException {
+		writeLock.lock();
+		try {
+			if (netOut == null) {
+				return true;
+			}
+
+			try {
+				while (netOut.hasRemaining()) {
+					if (channel.write(netOut) == 0) {
+						return false;
+					}
+				}
+			}
+			catch (IOException e) {
+				// Not written anymore
+				allocator.release(netOut);
+				netOut = null;
+				throw e;
+			}
+
+			allocator.release(netOut);
+			netOut = null;
+			return true;
+		}
+		finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Checks if encrypted data is waiting for {@link #flush()}.
+	 */
+	public boolean hasPendingOutput() {
+		writeLock.lock();
+		try {
+			return netOut != null;
+		}
+		finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Sends close_notify, or the alert of a failed handshake, to the peer as far as the channel accepts it without blocking.
+	 */
+	public void closeOutbound() throws IOException {
+		writeLock.lock();
+		try {
+			if (engine.isOutboundDone()) {
+				return;
+			}
+
+			engine.closeOutbound();
+			wrap(EMPTY);
+			flush();
+		}
+		finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Gives all buffers back to the allocator, called once the channel is not used anymore.
+	 */
+	public void release() {
+		writeLock.lock();
+		try {
+			if (netOut != null) {
+				allocator.release(netOut);
+				netOut = null;
+			}
+		}
+		finally {
+			writeLock.unlock();
+		}
+		if (netIn != null) {
+			allocator.release(netIn);
+			netIn = null;
+		}
+		if (appIn != null) {
+			allocator.release(appIn);
+			appIn = null;
+		}
+	}
+
+
+	@Override
+	public boolean isOpen() {
+		return channel.isOpen();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			closeOutbound();
+		}
+		finally {
+			channel.close();
+		}
+	}
+
+}
@@ -0,0 +1,253 @@
+package de.me.networking.server.tls;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+
+
+/**
+ * Settings for encrypting client connections with TLS.<br>
+ * Create it with {@link #forServer(SSLContext)} or {@link #forClient(SSLContext)} and set it on the server or client.
+ */
+public class TlsConfig {
+
+	private static final Method SET_APPLICATION_PROTOCOLS;
+	private static final Method GET_APPLICATION_PROTOCOL;
+
+	static {
+		Method setApplicationProtocols = null;
+		Method getApplicationProtocol = null;
+
+		try {
+			setApplicationProtocols = SSLParameters.class.getMethod("setApplicationProtocols", String[].class);
+			getApplicationProtocol = SSLEngine.class.getMethod("getApplicationProtocol");
+		}
+		catch (ReflectiveOperationException e) {
+			setApplicationProtocols = null;
+		}
+
+		SET_APPLICATION_PROTOCOLS = setApplicationProtocols;
+		GET_APPLICATION_PROTOCOL = getApplicationProtocol;
+	}
+
+	private final SSLContext sslContext;
+	private final boolean clientMode;
+	private String[] protocols;
+	private String[] cipherSuites;
+	private String[] applicationProtocols;
+	private boolean needClientAuth = false;
+	private boolean hostnameVerification = true;
+	private Executor taskExecutor;
+
+
+	private TlsConfig(SSLContext sslContext, boolean clientMode) {
+		if (sslContext == null) throw new IllegalArgumentException("SSL context required");
+		this.sslContext = sslContext;
+		this.clientMode = clientMode;
+	}
+
+	/**
+	 * Create new {@link TlsConfig} for the server side of connections, with the key material of the context.
+	 */
+	public static TlsConfig forServer(SSLContext sslContext) {
+		return new TlsConfig(sslContext, false);
+	}
+
+	/**
+	 * Create new {@link TlsConfig} for the client side of connections, verifying the server with the trust material of the context.
+	 */
+	public static TlsConfig forClient(SSLContext sslContext) {
+		return new TlsConfig(sslContext, true);
+	}
+
+
+	/**
+	 * Checks if the running platform supports ALPN, which is Java 9 or later and Java 8 since update 251.
+	 */
+	public static boolean isApplicationProtocolSupported() {
+		return SET_APPLICATION_PROTOCOLS != null;
+	}
+
+	/**
+	 * Creates an engine for a new connection.<br>
+	 * A client engine is created for the peer, so its sessions are cached and resumed per server.
+	 *
+	 * @param host the host of the peer or <code>null</code> if unknown
+	 * @param port the port of the peer
+	 */
+	public SSLEngine createEngine(String host, int port) {
+		final SSLEngine engine = host != null ? sslContext.createSSLEngine(host, port) : sslContext.createSSLEngine();
+		engine.setUseClientMode(clientMode);
+
+		final SSLParameters parameters = engine.getSSLParameters();
+		if (protocols != null) {
+			parameters.setProtocols(protocols);
+		}
+		if (cipherSuites != null) {
+			parameters.setCipherSuites(cipherSuites);
+		}
+		if (!clientMode && needClientAuth) {
+			parameters.setNeedClientAuth(true);
+		}
+		if (clientMode && hostnameVerification && host != null) {
+			parameters.setEndpointIdentificationAlgorithm("HTTPS");
+		}
+		if (applicationProtocols != null) {
+			try {
+				SET_APPLICATION_PROTOCOLS.invoke(parameters, (Object) applicationProtocols);
+			}
+			catch (ReflectiveOperationException e) {
+				throw new UnsupportedOperationException("Cannot set application protocols", e);
+			}
+		}
+		engine.setSSLParameters(parameters);
+
+		return engine;
+	}
+
+	/**
+	 * Gets the protocol the engine negotiated by ALPN or <code>null</code> if none.
+	 */
+	static String getApplicationProtocol(SSLEngine engine) {
+		if (GET_APPLICATION_PROTOCOL == null) {
+			return null;
+		}
+
+		try {
+			final String protocol = (String) GET_APPLICATION_PROTOCOL.invoke(engine);
+			return protocol == null || protocol.isEmpty() ? null : protocol;
+		}
+		catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
+
+
+	public SSLContext getSslContext() {
+		return sslContext;
+	}
+
+	public boolean isClientMode() {
+		return clientMode;
+	}
+
+	/**
+	 * Sets the enabled protocols, e.g. <code>TLSv1.3</code>, defaults to the ones enabled by the context.
+	 */
+	public TlsConfig setProtocols(String... protocols) {
+		if (protocols == null || protocols.length == 0) throw new IllegalArgumentException("Protocols required");
+		this.protocols = protocols.clone();
+		return this;
+	}
+
+	/**
+	 * Sets the enabled cipher suites, defaults to the ones enabled by the context.
+	 */
+	public TlsConfig setCipherSuites(String... cipherSuites) {
+		if (cipherSuites == null || cipherSuites.length == 0) throw new IllegalArgumentException("Cipher suites required");
+		this.cipherSuites = cipherSuites.clone();
+		return this;
+	}
+
+	/**
+	 * Sets the protocols offered by a client or accepted by a server with ALPN in order of preference, e.g. <code>h2</code>,
+	 * defaults to none.
+	 *
+	 * @throws UnsupportedOperationException if the platform does not support ALPN
+	 */
+	public TlsConfig setApplicationProtocols(String... applicationProtocols) {
+		if (applicationProtocols == null || applicationProtocols.length == 0) throw new IllegalArgumentException("Application protocols required");
+		if (!isApplicationProtocolSupported()) throw new UnsupportedOperationException("ALPN requires Java 9 or later");
+		this.applicationProtocols = applicationProtocols.clone();
+		return this;
+	}
+
+	/**
+	 * Sets if a server requires clients to authenticate with a certificate, defaults to <code>false</code>.
+	 */
+	public TlsConfig setNeedClientAuth(boolean needClientAuth) {
+		this.needClientAuth = needClientAuth;
+		return this;
+	}
+
+	/**
+	 * Sets if a client verifies that the server certificate matches the host name connected to, defaults to <code>true</code>.
+	 */
+	public TlsConfig setHostnameVerification(boolean hostnameVerification) {
+		this.hostnameVerification = hostnameVerification;
+		return this;
+	}
+
+	/**
+	 * Sets the maximum number of sessions cached for resumption, defaults to the context's setting.<br>
+	 * Applies to the context and so to all configurations sharing it.
+	 *
+	 * @param sessionCacheSize the number of sessions or <code>0</code> for no limit
+	 */
+	public TlsConfig setSessionCacheSize(int sessionCacheSize) {
+		if (sessionCacheSize < 0) throw new IllegalArgumentException("Invalid session cache size: " + sessionCacheSize);
+		sslContext.getServerSessionContext().setSessionCacheSize(sessionCacheSize);
+		sslContext.getClientSessionContext().setSessionCacheSize(sessionCacheSize);
+		return this;
+	}
+
+	/**
+	 * Sets the time cached sessions can be resumed, defaults to the context's setting.<br>
+	 * Applies to the context and so to all configurations sharing it.
+	 */
+	public TlsConfig setSessionTimeout(long sessionTimeout, TimeUnit unit) {
+		if (sessionTimeout <= 0) throw new IllegalArgumentException("Invalid session timeout: " + sessionTimeout);
+		final int seconds = (int) Math.min(Integer.MAX_VALUE, Math.max(1L, unit.toSeconds(sessionTimeout)));
+		sslContext.getServerSessionContext().setSessionTimeout(seconds);
+		sslContext.getClientSessionContext().setSessionTimeout(seconds);
+		return this;
+	}
+
+	/**
+	 * Gets the executor running the engine's delegated tasks.
+	 */
+	public Executor getTaskExecutor() {
+		return taskExecutor != null ? taskExecutor : SharedTaskExecutor.INSTANCE;
+	}
+
+	/**
+	 * Sets the executor running the engine's delegated tasks like certificate validation,
+	 * which would otherwise block the event loop, defaults to a cached pool of daemon threads shared by all configurations.
+	 */
+	public TlsConfig setTaskExecutor(Executor taskExecutor) {
+		if (taskExecutor == null) throw new IllegalArgumentException("Task executor required");
+		this.taskExecutor = taskExecutor;
+		return this;
+	}
+
+
+
+	/**
+	 * The executor for delegated tasks of all configurations without an own one, created on first use.
+	 */
+	private static class SharedTaskExecutor {
+
+		static final ExecutorService INSTANCE = Executors.newCachedThreadPool(new ThreadFactory() {
+
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable task) {
+				final Thread thread = new Thread(task, "simple-tls-task-" + count.getAndIncrement());
+				thread.setDaemon(true);
+				return thread;
+			}
+
+		});
+
+	}
+
+}
@@ -0,0 +1,79 @@
+package de.me.networking.client;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import de.me.networking.server.metrics.HistogramSnapshot;
+import de.me.networking.server.metrics.LatencyHistogram;
+
+
+public class OutstandingRequestsTest {
+
+	private final LatencyHistogram latency = new LatencyHistogram();
+	private final LatencyHistogram serviceTime = new LatencyHistogram();
+
+
+	@Test
+	public void testLatencyIncludesTimeRequestsWereDueButNotSent() {
+		final OutstandingRequests outstanding = new OutstandingRequests();
+
+		// Due every 10 units, but the second one is sent only once the stalled first one was echoed at 100
+		outstanding.add(0L, 0L, 8L);
+		assertEquals(1, outstanding.complete(8L, 100L, latency, serviceTime));
+		outstanding.add(10L, 100L, 16L);
+		assertEquals(1, outstanding.complete(16L, 101L, latency, serviceTime));
+
+		final HistogramSnapshot latencies = latency.snapshot();
+		assertEquals(2L, latencies.getCount());
+		assertEquals((100.0 + 91.0) / 2, latencies.getMean(), 0.001);
+
+		final HistogramSnapshot serviceTimes = serviceTime.snapshot();
+		assertEquals(2L, serviceTimes.getCount());
+		assertEquals((100.0 + 1.0) / 2, serviceTimes.getMean(), 0.001);
+	}
+
+	@Test
+	public void testCompletesOnlyFullyEchoedRequests() {
+		final OutstandingRequests outstanding = new OutstandingRequests();
+		outstanding.add(0L, 0L, 8L);
+		outstanding.add(0L, 0L, 16L);
+		outstanding.add(0L, 0L, 24L);
+
+		assertEquals(0, outstanding.complete(7L, 1L, latency, serviceTime));
+		assertEquals(2, outstanding.complete(20L, 1L, latency, serviceTime));
+		assertEquals(1, outstanding.size());
+		assertEquals(1, outstanding.complete(24L, 1L, latency, serviceTime));
+		assertEquals(0, outstanding.size());
+		assertEquals(3L, latency.snapshot().getCount());
+	}
+
+	@Test
+	public void testGrowsWrappedRingInOrder() {
+		final OutstandingRequests outstanding = new OutstandingRequests();
+		final int capacity = outstanding.capacity();
+
+		// Move the head into the middle, so the ring wraps when it fills up
+		for (int i = 0; i < capacity / 2; i++) {
+			outstanding.add(0L, 0L, i + 1);
+		}
+		assertEquals(capacity / 2, outstanding.complete(capacity / 2, 0L, latency, serviceTime));
+
+		// Each request is due at its end offset, so its latency shows the completion order
+		long end = capacity / 2;
+		for (int i = 0; i < 3 * capacity; i++) {
+			end++;
+			outstanding.add(end, end, end);
+		}
+		assertEquals(3 * capacity, outstanding.size());
+		assertEquals(4 * capacity, outstanding.capacity());
+
+		for (long received = capacity / 2 + 1; received <= end; received++) {
+			final LatencyHistogram single = new LatencyHistogram();
+			assertEquals(1, outstanding.complete(received, received, single, serviceTime));
+			assertEquals(0L, single.snapshot().getMax());
+		}
+		assertEquals(0, outstanding.size());
+	}
+
+}
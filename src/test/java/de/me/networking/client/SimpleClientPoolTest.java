@@ -0,0 +1,274 @@
+package de.me.networking.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.me.networking.server.timer.HashedWheelTimer;
+
+
+public class SimpleClientPoolTest {
+
+	private ServerSocketChannel server;
+	private InetSocketAddress address;
+	private HashedWheelTimer timer;
+	private SimpleClientPool pool;
+	private final List<SimpleClient> clients = Collections.synchronizedList(new ArrayList<SimpleClient>());
+	private final List<SocketChannel> accepted = new ArrayList<>();
+
+
+	@Before
+	public void setUp() throws IOException {
+		// Connections complete in the backlog, they are only accepted to act on the server side
+		server = ServerSocketChannel.open();
+		server.bind(new InetSocketAddress("127.0.0.1", 0));
+		address = (InetSocketAddress) server.getLocalAddress();
+
+		timer = new HashedWheelTimer(10, TimeUnit.MILLISECONDS, 64);
+		pool = new SimpleClientPool().setTimer(timer);
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		pool.close();
+		for (SimpleClient client : clients) {
+			try {
+				client.close();
+			}
+			catch (IllegalStateException e) {
+				// Closed by the pool
+			}
+		}
+		timer.stop();
+		for (SocketChannel channel : accepted) {
+			channel.close();
+		}
+		server.close();
+	}
+
+
+	@Test
+	public void testLeaseTimesOutWhenAllLeased() throws Exception {
+		pool.setMaxTotal(1);
+		lease(5000);
+
+		final long start = System.nanoTime();
+		try {
+			lease(100);
+			fail("Leased more clients than allowed");
+		}
+		catch (TimeoutException e) {
+			// Expected
+		}
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+		assertEquals(1, pool.getTotalCount(address));
+	}
+
+	@Test
+	public void testReleasedClientIsReused() throws Exception {
+		final SimpleClient client = lease(5000);
+		pool.release(client);
+		assertEquals(1, pool.getIdleCount(address));
+
+		assertSame(client, lease(5000));
+		assertEquals(0, pool.getIdleCount(address));
+		assertEquals(1, pool.getTotalCount(address));
+	}
+
+	@Test
+	public void testWaitersServedInArrivalOrder() throws Exception {
+		pool.setMaxTotal(1);
+		final SimpleClient client = lease(5000);
+
+		final List<Integer> served = Collections.synchronizedList(new ArrayList<Integer>());
+		final Thread[] waiters = new Thread[4];
+		for (int i = 0; i < waiters.length; i++) {
+			final int index = i;
+			waiters[i] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						final SimpleClient leased = pool.lease(address, 5, TimeUnit.SECONDS);
+						served.add(leased == client ? index : -1);
+						pool.release(leased);
+					}
+					catch (Exception e) {
+						served.add(-1);
+					}
+				}
+			};
+			waiters[i].start();
+			// Queued before the next one arrives
+			awaitWaiting(waiters[i]);
+		}
+
+		pool.release(client);
+		for (Thread waiter : waiters) {
+			waiter.join(5000);
+		}
+
+		assertEquals(Arrays.asList(0, 1, 2, 3), served);
+	}
+
+	@Test
+	public void testMaxTotalEnforced() throws Exception {
+		pool.setMaxTotal(2);
+		final AtomicInteger leased = new AtomicInteger();
+		final AtomicInteger mostLeased = new AtomicInteger();
+		final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+		final Thread[] threads = new Thread[6];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						for (int n = 0; n < 50; n++) {
+							final SimpleClient client = pool.lease(address, 5, TimeUnit.SECONDS);
+							final int count = leased.incrementAndGet();
+							int most;
+							while ((most = mostLeased.get()) < count && !mostLeased.compareAndSet(most, count)) {
+								// Raced with another thread
+							}
+							Thread.yield();
+							leased.decrementAndGet();
+							pool.release(client);
+						}
+					}
+					catch (Throwable e) {
+						failure.set(e);
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			thread.join(10000);
+		}
+
+		assertEquals(null, failure.get());
+		assertTrue(mostLeased.get() <= 2);
+		assertTrue(pool.getTotalCount(address) <= 2);
+		assertTrue(acceptAll().size() <= 2);
+	}
+
+	@Test
+	public void testBrokenIdleClientIsEvicted() throws Exception {
+		final SimpleClient client = lease(5000);
+		pool.release(client);
+		for (SocketChannel channel : acceptAll()) {
+			channel.close();
+		}
+
+		awaitTotal(0);
+		assertEquals(0, pool.getIdleCount(address));
+		awaitClosed(client);
+		assertNotSame(client, lease(5000));
+	}
+
+	@Test
+	public void testExpiredIdleClientIsEvicted() throws Exception {
+		pool.setMaxIdleTime(50, TimeUnit.MILLISECONDS).setValidationInterval(50, TimeUnit.MILLISECONDS);
+		final SimpleClient client = lease(5000);
+		pool.release(client);
+
+		awaitTotal(0);
+		awaitClosed(client);
+	}
+
+	@Test
+	public void testCloseFailsWaiters() throws Exception {
+		pool.setMaxTotal(1);
+		final SimpleClient client = lease(5000);
+
+		final AtomicReference<Throwable> failure = new AtomicReference<>();
+		final Thread waiter = new Thread() {
+			@Override
+			public void run() {
+				try {
+					clients.add(pool.lease(address, 10, TimeUnit.SECONDS));
+				}
+				catch (Throwable e) {
+					failure.set(e);
+				}
+			}
+		};
+		waiter.start();
+		awaitWaiting(waiter);
+
+		pool.close();
+		waiter.join(5000);
+		assertTrue(String.valueOf(failure.get()), failure.get() instanceof IllegalStateException);
+
+		// Leased clients are closed once given back
+		assertTrue(client.isOpen());
+		pool.release(client);
+		assertFalse(client.isOpen());
+	}
+
+
+	private SimpleClient lease(long timeoutMillis) throws Exception {
+		final SimpleClient client = pool.lease(address, timeoutMillis, TimeUnit.MILLISECONDS);
+		clients.add(client);
+		return client;
+	}
+
+	private List<SocketChannel> acceptAll() throws IOException {
+		final List<SocketChannel> channels = new ArrayList<>();
+		server.configureBlocking(false);
+		SocketChannel channel;
+		while ((channel = server.accept()) != null) {
+			channels.add(channel);
+		}
+		accepted.addAll(channels);
+		return channels;
+	}
+
+	private void awaitTotal(int total) throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + 5000L;
+		while (pool.getTotalCount(address) != total) {
+			if (System.currentTimeMillis() > deadline) fail("Still " + pool.getTotalCount(address) + " clients");
+			Thread.sleep(10);
+		}
+	}
+
+	/**
+	 * Waits for an evicted client to be closed, which is done after it left the pool.
+	 */
+	private static void awaitClosed(SimpleClient client) throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + 5000L;
+		while (client.isOpen()) {
+			if (System.currentTimeMillis() > deadline) fail("Evicted client not closed");
+			Thread.sleep(10);
+		}
+	}
+
+	private static void awaitWaiting(Thread thread) throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + 5000L;
+		while (thread.getState() != Thread.State.TIMED_WAITING) {
+			if (System.currentTimeMillis() > deadline) fail("Not waiting for a client");
+			Thread.sleep(1);
+		}
+	}
+
+}
@@ -0,0 +1,140 @@
+package de.me.networking.client;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.me.networking.client.listener.ClientListener;
+import de.me.networking.server.EventLoopGroup;
+
+
+public class SimpleClientTest {
+
+	private ServerSocketChannel server;
+	private InetSocketAddress address;
+	private EventLoopGroup group;
+	private final List<SocketChannel> channels = new ArrayList<>();
+	private final List<SimpleClient> clients = new ArrayList<>();
+
+
+	@Before
+	public void setUp() throws IOException {
+		// Connections complete in the backlog, nothing is accepted
+		server = ServerSocketChannel.open();
+		server.bind(new InetSocketAddress("127.0.0.1", 0), 1);
+		address = (InetSocketAddress) server.getLocalAddress();
+
+		group = new EventLoopGroup(1, "simple-client-test");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		for (SimpleClient client : clients) {
+			client.close();
+		}
+		for (SocketChannel channel : channels) {
+			channel.close();
+		}
+		server.close();
+		group.shutdown();
+		group.awaitTermination(5, TimeUnit.SECONDS);
+	}
+
+
+	@Test
+	public void testConnectAsyncNotifiesListenersOnLoopBeforeCompleting() throws Exception {
+		final AtomicReference<String> connectThread = new AtomicReference<>();
+		final SimpleClient client = newClient(new IgnoringListener() {
+			@Override
+			public void onConnect() {
+				connectThread.set(Thread.currentThread().getName());
+			}
+		});
+
+		final ConnectFuture future = client.connectAsync();
+		assertSame(client, future.get(5, TimeUnit.SECONDS));
+		assertTrue(future.isSuccess());
+		assertTrue("Connected on " + connectThread.get(), connectThread.get().startsWith("simple-client-test-"));
+	}
+
+	@Test
+	public void testConnectAsyncTimesOutWhenConnectHangs() throws Exception {
+		// With the backlog full the operating system drops further connection attempts
+		for (int i = 0; i < 8; i++) {
+			final SocketChannel channel = SocketChannel.open();
+			channels.add(channel);
+			channel.configureBlocking(false);
+			channel.connect(address);
+		}
+		Thread.sleep(200);
+
+		final AtomicReference<Throwable> error = new AtomicReference<>();
+		final SimpleClient client = newClient(new IgnoringListener() {
+			@Override
+			public void onError(Throwable exception) {
+				error.set(exception);
+			}
+		});
+		client.setConnectTimeout(200, TimeUnit.MILLISECONDS);
+
+		final ConnectFuture future = client.connectAsync();
+		try {
+			future.get(5, TimeUnit.SECONDS);
+			fail("Connected to full backlog");
+		}
+		catch (ExecutionException e) {
+			assertTrue("Failed with " + e.getCause(), e.getCause() instanceof SocketTimeoutException);
+		}
+		assertSame(future.getCause(), error.get());
+	}
+
+
+	private SimpleClient newClient(ClientListener listener) {
+		final SimpleClient client = new SimpleClient(address).setEventLoopGroup(group);
+		client.addListener(listener);
+		clients.add(client);
+		return client;
+	}
+
+
+
+	/**
+	 * Ignores all events, overridden for the ones of interest.
+	 */
+	private static class IgnoringListener implements ClientListener {
+
+		@Override
+		public void onConnect() {
+		}
+
+		@Override
+		public void onMessage(ByteBuffer messageBuffer) {
+		}
+
+		@Override
+		public void onClose() {
+		}
+
+		@Override
+		public void onError(Throwable exception) {
+		}
+
+	}
+
+}
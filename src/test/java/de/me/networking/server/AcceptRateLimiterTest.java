@@ -0,0 +1,52 @@
+package de.me.networking.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+
+public class AcceptRateLimiterTest {
+
+	@Test
+	public void testAllowsBurstOfOneSecond() {
+		final AcceptRateLimiter limiter = new AcceptRateLimiter(10);
+		assertEquals(0L, limiter.nanosUntilPermit());
+
+		for (int i = 0; i < 10; i++) {
+			assertTrue(limiter.tryAcquire());
+		}
+		assertFalse(limiter.tryAcquire());
+
+		final long wait = limiter.nanosUntilPermit();
+		assertTrue(wait > 0L && wait <= TimeUnit.MILLISECONDS.toNanos(100));
+	}
+
+	@Test
+	public void testRefillsOnePermitPerInterval() throws Exception {
+		final AcceptRateLimiter limiter = new AcceptRateLimiter(50);
+		while (limiter.tryAcquire()) {
+			// Drained
+		}
+
+		Thread.sleep(TimeUnit.NANOSECONDS.toMillis(limiter.nanosUntilPermit()) + 1);
+		assertTrue(limiter.tryAcquire());
+	}
+
+	@Test
+	public void testSavesNoMoreThanOneSecond() throws Exception {
+		final AcceptRateLimiter limiter = new AcceptRateLimiter(20);
+		// Two more permits if unused ones were saved
+		Thread.sleep(100);
+
+		int acquired = 0;
+		while (limiter.tryAcquire()) {
+			acquired++;
+		}
+		assertEquals(20, acquired);
+	}
+
+}
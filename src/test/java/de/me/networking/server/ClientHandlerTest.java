@@ -0,0 +1,687 @@
+package de.me.networking.server;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSession;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.me.networking.server.buffer.UnpooledBufferAllocator;
+import de.me.networking.server.listener.ClientListener;
+import de.me.networking.server.listener.HandshakeListener;
+import de.me.networking.server.listener.ReadCompleteListener;
+import de.me.networking.server.listener.SendListener;
+import de.me.networking.server.listener.WritabilityListener;
+import de.me.networking.server.metrics.NetworkMetrics;
+import de.me.networking.server.tls.SelfSignedContext;
+import de.me.networking.server.tls.TlsChannel;
+import de.me.networking.server.tls.TlsConfig;
+
+
+public class ClientHandlerTest {
+
+	private ServerSocketChannel server;
+	private SocketChannel peer;
+	private SocketChannel accepted;
+	private EventLoop loop;
+	private Thread thread;
+
+
+	@Before
+	public void setUp() throws IOException {
+		server = ServerSocketChannel.open();
+		server.bind(new InetSocketAddress("127.0.0.1", 0));
+		peer = SocketChannel.open(server.getLocalAddress());
+		accepted = server.accept();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		peer.close();
+		if (loop != null) {
+			loop.shutdown();
+		}
+		if (thread != null) {
+			thread.join(5000);
+		}
+		accepted.close();
+		server.close();
+	}
+
+
+	@Test
+	public void testPeerEofClosesChannelOnEventLoop() throws Exception {
+		final ClientHandler handler = new ClientHandler(accepted, new ClientConfig());
+		final CountDownLatch terminated = terminationLatch(handler);
+		handler.addListener(new IgnoringListener());
+
+		startLoop();
+		handler.register(loop);
+
+		peer.shutdownOutput();
+
+		assertTrue(terminated.await(5, TimeUnit.SECONDS));
+		assertFalse(accepted.isOpen());
+	}
+
+	@Test
+	public void testPeerEofClosesChannelWhenBlocking() throws Exception {
+		final ClientHandler handler = new ClientHandler(accepted, new ClientConfig());
+		final CountDownLatch terminated = terminationLatch(handler);
+		handler.addListener(new IgnoringListener());
+
+		thread = new Thread() {
+			@Override
+			public void run() {
+				try {
+					handler.executeBlocking();
+				}
+				catch (IOException e) {
+					// Reported to the listener
+				}
+			}
+		};
+		thread.start();
+
+		peer.shutdownOutput();
+
+		assertTrue(terminated.await(5, TimeUnit.SECONDS));
+		assertFalse(accepted.isOpen());
+	}
+
+	@Test
+	public void testTlsHandshakeAndEchoOnEventLoop() throws Exception {
+		final SSLContext context = SelfSignedContext.create();
+		final ClientHandler handler = new ClientHandler(accepted, new ClientConfig().setTlsConfig(TlsConfig.forServer(context)));
+		final TlsEchoListener listener = new TlsEchoListener(handler);
+		handler.addListener(listener);
+		startLoop();
+		handler.register(loop);
+
+		final TlsChannel tls = handshakePeer(context);
+		assertTrue(listener.handshake.await(5, TimeUnit.SECONDS));
+
+		tls.write(ByteBuffer.wrap("ping".getBytes(StandardCharsets.US_ASCII)));
+		final ByteBuffer echo = ByteBuffer.allocate(tls.getApplicationBufferSize());
+		while (echo.position() < 4) {
+			if (tls.read(echo) < 0) throw new IOException("Closed after " + echo.position() + " bytes");
+		}
+		echo.flip();
+		assertEquals("ping", StandardCharsets.US_ASCII.decode(echo).toString());
+	}
+
+	@Test
+	public void testTlsRecordsDoNotGrowReadBuffer() throws Exception {
+		final SSLContext context = SelfSignedContext.create();
+		final ClientConfig config = new ClientConfig().setTlsConfig(TlsConfig.forServer(context)).setBufferCapacity(4096);
+		final ClientHandler handler = new ClientHandler(accepted, config);
+		final TlsEchoListener listener = new TlsEchoListener(handler);
+		handler.addListener(listener);
+		startLoop();
+		handler.register(loop);
+
+		final TlsChannel tls = handshakePeer(context);
+		assertTrue(listener.handshake.await(5, TimeUnit.SECONDS));
+
+		// Full records are read into a buffer of the application buffer size, which they do not fill
+		final ByteBuffer message = ByteBuffer.allocate(256 << 10);
+		while (message.hasRemaining()) {
+			tls.write(message);
+		}
+		final ByteBuffer echo = ByteBuffer.allocate(message.capacity() + tls.getApplicationBufferSize());
+		while (echo.position() < message.capacity()) {
+			if (tls.read(echo) < 0) throw new IOException("Closed after " + echo.position() + " bytes");
+		}
+		assertEquals(4096, handler.getBufferCapacity());
+	}
+
+	@Test
+	public void testTlsSendCompletesOnceEncryptedDataWasWritten() throws Exception {
+		accepted.setOption(StandardSocketOptions.SO_SNDBUF, 8192);
+		peer.setOption(StandardSocketOptions.SO_RCVBUF, 8192);
+		final SSLContext context = SelfSignedContext.create();
+		final ClientHandler handler = new ClientHandler(accepted, new ClientConfig().setTlsConfig(TlsConfig.forServer(context)));
+		final TlsEchoListener listener = new TlsEchoListener(handler);
+		handler.addListener(listener);
+		startLoop();
+		handler.register(loop);
+
+		final TlsChannel tls = handshakePeer(context);
+		assertTrue(listener.handshake.await(5, TimeUnit.SECONDS));
+
+		// Nothing written after the send completed reaches the peer
+		final SendOutcome sent = new SendOutcome() {
+			@Override
+			public void onSent() {
+				try {
+					accepted.shutdownOutput();
+				}
+				catch (IOException e) {
+					throw new IllegalStateException(e);
+				}
+				super.onSent();
+			}
+		};
+		// Ends with several records encrypted at once, more than the socket buffers take
+		final int length = (256 << 10) - 4000;
+		handler.send(ByteBuffer.allocate(length), sent);
+
+		// Reading slowly keeps encrypted records waiting for the socket
+		final ByteBuffer received = ByteBuffer.allocate(tls.getApplicationBufferSize());
+		int total = 0;
+		while (total < length) {
+			received.clear();
+			final int r = tls.read(received);
+			if (r < 0) {
+				break;
+			}
+			total += r;
+			Thread.sleep(1);
+		}
+		assertEquals(length, total);
+		assertTrue(sent.done.await(5, TimeUnit.SECONDS));
+		assertEquals(null, sent.error.get());
+	}
+
+	@Test
+	public void testTlsHandshakeTimesOut() throws Exception {
+		final ClientConfig config = new ClientConfig()
+				.setTlsConfig(TlsConfig.forServer(SelfSignedContext.create()))
+				.setReadTimeout(200, TimeUnit.MILLISECONDS);
+		final ClientHandler handler = new ClientHandler(accepted, config);
+		final CountDownLatch terminated = terminationLatch(handler);
+		handler.addListener(new IgnoringListener());
+		startLoop();
+		handler.register(loop);
+
+		// The peer never sends its hello
+		assertTrue(terminated.await(5, TimeUnit.SECONDS));
+		assertFalse(accepted.isOpen());
+	}
+
+
+	@Test
+	public void testReadBudgetLimitsMessagesPerWakeUp() throws Exception {
+		assertEquals(Arrays.asList(16, 16, -1, 16, 16, -1, 16, -1), readBatches(new ClientConfig().setReadBudget(1 << 20, 2)));
+	}
+
+	@Test
+	public void testReadBudgetLimitsBytesPerWakeUp() throws Exception {
+		assertEquals(Arrays.asList(16, 16, 16, -1, 16, 16, -1), readBatches(new ClientConfig().setReadBudget(40, 64)));
+	}
+
+	@Test
+	public void testSendFileInOrderWithBuffers() throws Exception {
+		final byte[] content = new byte[4 << 20];
+		for (int i = 0; i < content.length; i++) {
+			content[i] = (byte) (i * 31);
+		}
+		final Path path = Files.createTempFile("send-file", ".bin");
+		try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE)) {
+			file.write(ByteBuffer.wrap(content));
+
+			final ClientHandler handler = new ClientHandler(accepted, new ClientConfig());
+			handler.addListener(new IgnoringListener());
+			startLoop();
+			handler.register(loop);
+
+			// More than the socket buffers take, so the region is transferred in several writes while the peer reads
+			final SendOutcome sent = new SendOutcome();
+			handler.send(ByteBuffer.wrap(new byte[] { 'H' }));
+			handler.sendFile(file, 10, content.length - 20, sent);
+			handler.send(ByteBuffer.wrap(new byte[] { 'T' }));
+
+			final ByteBuffer received = readFully(content.length - 18);
+			assertTrue(sent.done.await(5, TimeUnit.SECONDS));
+			assertEquals(null, sent.error.get());
+
+			final byte[] expected = new byte[content.length - 18];
+			expected[0] = 'H';
+			System.arraycopy(content, 10, expected, 1, content.length - 20);
+			expected[expected.length - 1] = 'T';
+			assertArrayEquals(expected, received.array());
+		}
+	}
+
+	@Test
+	public void testSendFileFailsWhenFileEndsEarly() throws Exception {
+		final Path path = Files.createTempFile("send-file", ".bin");
+		try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE)) {
+			file.write(ByteBuffer.allocate(100));
+
+			final ClientHandler handler = new ClientHandler(accepted, new ClientConfig());
+			handler.addListener(new IgnoringListener());
+			startLoop();
+			handler.register(loop);
+
+			final SendOutcome sent = new SendOutcome();
+			handler.sendFile(file, 0, 200, sent);
+
+			assertTrue(sent.done.await(5, TimeUnit.SECONDS));
+			assertTrue(String.valueOf(sent.error.get()), sent.error.get() instanceof EOFException);
+		}
+	}
+
+	@Test
+	public void testWriteInterestOnlyWhileDataIsPending() throws Exception {
+		accepted.setOption(StandardSocketOptions.SO_SNDBUF, 65536);
+		final ClientHandler handler = new ClientHandler(accepted, new ClientConfig().setSuspendReadWhenUnwritable(false));
+		handler.addListener(new IgnoringListener());
+		startLoop();
+		handler.register(loop);
+		awaitInterestOps(handler, SelectionKey.OP_READ);
+
+		final byte[] content = new byte[4 << 20];
+		for (int i = 0; i < content.length; i++) {
+			content[i] = (byte) (i * 31);
+		}
+
+		// The peer does not read yet, so the rest stays queued after the first partial write
+		final SendOutcome sent = new SendOutcome();
+		handler.send(ByteBuffer.wrap(content), sent);
+		awaitInterestOps(handler, SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+		assertTrue(handler.getPendingBytes() > 0);
+		assertEquals(1, sent.done.getCount());
+
+		assertArrayEquals(content, readFully(content.length).array());
+		assertTrue(sent.done.await(5, TimeUnit.SECONDS));
+		assertEquals(null, sent.error.get());
+		awaitInterestOps(handler, SelectionKey.OP_READ);
+		assertEquals(0, handler.getPendingBytes());
+	}
+
+	@Test
+	public void testQueuedSendsFailWhenClosed() throws Exception {
+		accepted.setOption(StandardSocketOptions.SO_SNDBUF, 65536);
+		final ClientHandler handler = new ClientHandler(accepted, new ClientConfig());
+		handler.addListener(new IgnoringListener());
+		startLoop();
+		handler.register(loop);
+
+		final SendOutcome first = new SendOutcome();
+		final SendOutcome second = new SendOutcome();
+		handler.send(ByteBuffer.allocate(4 << 20), first);
+		handler.send(ByteBuffer.allocate(16), second);
+		awaitInterestOps(handler, SelectionKey.OP_WRITE);
+
+		// A write racing with the close fails with its own error, e.g. a broken pipe
+		handler.close();
+		assertTrue(first.done.await(5, TimeUnit.SECONDS));
+		assertTrue(second.done.await(5, TimeUnit.SECONDS));
+		assertTrue(String.valueOf(first.error.get()), first.error.get() instanceof IOException);
+		assertTrue(String.valueOf(second.error.get()), second.error.get() instanceof IOException);
+		assertEquals(0, handler.getPendingBytes());
+	}
+
+	@Test
+	public void testWaterMarksSuspendReadingUntilDrained() throws Exception {
+		accepted.setOption(StandardSocketOptions.SO_SNDBUF, 65536);
+		final ClientHandler handler = new ClientHandler(accepted, new ClientConfig().setWriteBufferWaterMarks(1024, 65536));
+		final WritabilityRecorder listener = new WritabilityRecorder();
+		handler.addListener(listener);
+		startLoop();
+		handler.register(loop);
+		awaitInterestOps(handler, SelectionKey.OP_READ);
+
+		// Far more than the socket buffers take while the peer does not read
+		handler.send(ByteBuffer.allocate(4 << 20));
+		assertFalse(handler.isWritable());
+		awaitInterestOps(handler, SelectionKey.OP_WRITE);
+		assertEquals(Arrays.asList(false), listener.changes);
+
+		readFully(4 << 20);
+		awaitInterestOps(handler, SelectionKey.OP_READ);
+		assertTrue(handler.isWritable());
+		assertEquals(Arrays.asList(false, true), listener.changes);
+	}
+
+	@Test
+	public void testSuspendMessagesClearsReadInterest() throws Exception {
+		final ClientHandler handler = new ClientHandler(accepted, new ClientConfig());
+		final BatchListener listener = new BatchListener();
+		handler.addListener(listener);
+		startLoop();
+		handler.register(loop);
+		awaitInterestOps(handler, SelectionKey.OP_READ);
+
+		handler.suspendMessages();
+		awaitInterestOps(handler, 0);
+		peer.write(ByteBuffer.allocate(16));
+		Thread.sleep(100);
+		assertEquals(0, listener.bytes);
+
+		handler.resumeMessages();
+		awaitInterestOps(handler, SelectionKey.OP_READ);
+		final long deadline = System.currentTimeMillis() + 5000L;
+		while (listener.bytes < 16) {
+			if (System.currentTimeMillis() > deadline) throw new AssertionError("Read only " + listener.events);
+			Thread.sleep(1);
+		}
+	}
+
+	@Test
+	public void testSendsOfOneMessageAreWrittenTogether() throws Exception {
+		final WriteCountingMetrics metrics = new WriteCountingMetrics();
+		final ClientHandler handler = new ClientHandler(accepted, new ClientConfig().setWriteCoalescing(true).setMetrics(metrics));
+		handler.addListener(new IgnoringListener() {
+			@Override
+			public void onMessage(ByteBuffer messageBuffer) throws IOException {
+				handler.send(ByteBuffer.wrap("one,".getBytes(StandardCharsets.US_ASCII)));
+				handler.send(ByteBuffer.wrap("two,".getBytes(StandardCharsets.US_ASCII)));
+				handler.send(ByteBuffer.wrap("three".getBytes(StandardCharsets.US_ASCII)));
+			}
+		});
+		startLoop();
+		handler.register(loop);
+
+		peer.write(ByteBuffer.wrap(new byte[] { 1 }));
+		assertEquals("one,two,three", StandardCharsets.US_ASCII.decode((ByteBuffer) readFully(13).flip()).toString());
+
+		// Recorded after the write returned
+		final long deadline = System.currentTimeMillis() + 5000L;
+		while (metrics.getMessagesWritten() < 3) {
+			if (System.currentTimeMillis() > deadline) throw new AssertionError("Written " + metrics.getMessagesWritten());
+			Thread.sleep(1);
+		}
+		assertEquals(1, metrics.writes.get());
+	}
+
+	@Test
+	public void testBuffersNotFittingGatheringArrayKeepOrder() throws Exception {
+		// More buffers than a gathering write of the loop takes, so the entry is written on its own
+		final ByteBuffer[] buffers = new ByteBuffer[EventLoop.GATHERING_BUFFERS + 6];
+		final byte[] expected = new byte[buffers.length + 2];
+		expected[0] = 'H';
+		for (int i = 0; i < buffers.length; i++) {
+			buffers[i] = ByteBuffer.wrap(new byte[] { (byte) i });
+			expected[i + 1] = (byte) i;
+		}
+		expected[expected.length - 1] = 'T';
+
+		final ClientHandler handler = new ClientHandler(accepted, new ClientConfig().setWriteCoalescing(true));
+		handler.addListener(new IgnoringListener() {
+			@Override
+			public void onMessage(ByteBuffer messageBuffer) throws IOException {
+				handler.send(ByteBuffer.wrap(new byte[] { 'H' }));
+				handler.send(buffers);
+				handler.send(ByteBuffer.wrap(new byte[] { 'T' }));
+			}
+		});
+		startLoop();
+		handler.register(loop);
+
+		peer.write(ByteBuffer.wrap(new byte[] { 1 }));
+		assertArrayEquals(expected, readFully(expected.length).array());
+	}
+
+	private ByteBuffer readFully(int length) throws IOException {
+		final ByteBuffer received = ByteBuffer.allocate(length);
+		while (received.hasRemaining()) {
+			if (peer.read(received) < 0) throw new EOFException("Received only " + received.position() + " bytes");
+		}
+		return received;
+	}
+
+	/**
+	 * Reads 80 bytes already waiting in the socket in reads of 16 bytes.
+	 *
+	 * @return the message lengths, with <code>-1</code> for the end of each wake-up's reads
+	 */
+	private List<Integer> readBatches(ClientConfig config) throws Exception {
+		peer.write(ByteBuffer.allocate(80));
+
+		config.setBufferAllocator(UnpooledBufferAllocator.INSTANCE).setBufferCapacity(16).setBufferCapacityRange(16, 16);
+		final ClientHandler handler = new ClientHandler(accepted, config);
+		final BatchListener listener = new BatchListener();
+		handler.addListener(listener);
+		startLoop();
+		handler.register(loop);
+
+		final long deadline = System.currentTimeMillis() + 5000L;
+		while (listener.bytes < 80 || !listener.complete) {
+			if (System.currentTimeMillis() > deadline) throw new AssertionError("Read only " + listener.events);
+			Thread.sleep(1);
+		}
+		return listener.events;
+	}
+
+
+	/**
+	 * Waits until the interest set of the handler equals the expected one.
+	 */
+	private void awaitInterestOps(ClientHandler handler, int expected) throws Exception {
+		final long deadline = System.currentTimeMillis() + 5000L;
+		int ops;
+		while ((ops = interestOps(handler)) != expected) {
+			if (System.currentTimeMillis() > deadline) throw new AssertionError("Interest ops " + ops + " instead of " + expected);
+			Thread.sleep(1);
+		}
+	}
+
+	private int interestOps(final ClientHandler handler) throws InterruptedException {
+		final AtomicInteger ops = new AtomicInteger(-1);
+		final CountDownLatch done = new CountDownLatch(1);
+		loop.execute(new Runnable() {
+			@Override
+			public void run() {
+				ops.set(handler.getInterestOps());
+				done.countDown();
+			}
+		});
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		return ops.get();
+	}
+
+	/**
+	 * Handshakes the blocking peer, which only stops for the delegated tasks.
+	 */
+	private TlsChannel handshakePeer(SSLContext context) throws IOException {
+		final TlsChannel tls = new TlsChannel(peer, TlsConfig.forClient(context).createEngine("localhost", 443), UnpooledBufferAllocator.INSTANCE);
+		tls.beginHandshake();
+		while (tls.handshake() != TlsChannel.HandshakeStep.FINISHED) {
+			tls.runDelegatedTasks();
+		}
+		return tls;
+	}
+
+	private void startLoop() throws IOException {
+		loop = new EventLoop();
+		thread = new Thread(loop);
+		thread.start();
+	}
+
+	private static CountDownLatch terminationLatch(ClientHandler handler) {
+		final CountDownLatch terminated = new CountDownLatch(1);
+		handler.setTerminationTask(new Runnable() {
+			@Override
+			public void run() {
+				terminated.countDown();
+			}
+		});
+		return terminated;
+	}
+
+
+
+	/**
+	 * Listener not closing the client on EOF.
+	 */
+	private static class IgnoringListener implements ClientListener {
+
+		@Override
+		public void onMessage(ByteBuffer messageBuffer) throws IOException {
+		}
+
+		@Override
+		public void onClose() {
+		}
+
+		@Override
+		public void onError(Throwable exception) {
+		}
+
+	}
+
+
+
+	/**
+	 * Echoes the messages of a TLS connection.
+	 */
+	private static class TlsEchoListener implements ClientListener, HandshakeListener {
+
+		private final ClientHandler handler;
+		private final CountDownLatch handshake = new CountDownLatch(1);
+
+
+		TlsEchoListener(ClientHandler handler) {
+			this.handler = handler;
+		}
+
+
+		@Override
+		public void onHandshake(SSLSession session, String applicationProtocol) {
+			handshake.countDown();
+		}
+
+		@Override
+		public void onMessage(ByteBuffer messageBuffer) throws IOException {
+			final ByteBuffer reply = ByteBuffer.allocate(messageBuffer.remaining());
+			reply.put(messageBuffer);
+			reply.flip();
+			handler.send(reply);
+		}
+
+		@Override
+		public void onClose() throws IOException {
+			handler.close();
+		}
+
+		@Override
+		public void onError(Throwable exception) {
+		}
+
+	}
+
+
+
+	/**
+	 * Records the outcome of a send.
+	 */
+	private static class SendOutcome implements SendListener {
+
+		private final CountDownLatch done = new CountDownLatch(1);
+		private final AtomicReference<Throwable> error = new AtomicReference<>();
+
+
+		@Override
+		public void onSent() {
+			done.countDown();
+		}
+
+		@Override
+		public void onError(Throwable exception) {
+			error.set(exception);
+			done.countDown();
+		}
+
+	}
+
+
+
+	/**
+	 * Records the messages and read completions.
+	 */
+	private static class BatchListener implements ClientListener, ReadCompleteListener {
+
+		private final List<Integer> events = Collections.synchronizedList(new ArrayList<Integer>());
+		private volatile int bytes = 0;
+		private volatile boolean complete = false;
+
+
+		@Override
+		public void onMessage(ByteBuffer messageBuffer) {
+			complete = false;
+			events.add(messageBuffer.remaining());
+			bytes += messageBuffer.remaining();
+		}
+
+		@Override
+		public void onReadComplete() {
+			events.add(-1);
+			complete = true;
+		}
+
+		@Override
+		public void onClose() {
+		}
+
+		@Override
+		public void onError(Throwable exception) {
+		}
+
+	}
+
+
+
+	/**
+	 * Records the writability changes.
+	 */
+	private static class WritabilityRecorder extends IgnoringListener implements WritabilityListener {
+
+		private final List<Boolean> changes = Collections.synchronizedList(new ArrayList<Boolean>());
+
+
+		@Override
+		public void onWritabilityChanged(boolean writable) {
+			changes.add(writable);
+		}
+
+	}
+
+
+
+	/**
+	 * Counts the writes to the socket.
+	 */
+	private static class WriteCountingMetrics extends NetworkMetrics {
+
+		private final AtomicInteger writes = new AtomicInteger();
+
+
+		@Override
+		public void bytesWritten(long bytes) {
+			super.bytesWritten(bytes);
+			writes.incrementAndGet();
+		}
+
+	}
+
+}
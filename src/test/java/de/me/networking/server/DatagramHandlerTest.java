@@ -0,0 +1,149 @@
+package de.me.networking.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.me.networking.server.buffer.UnpooledBufferAllocator;
+import de.me.networking.server.listener.DatagramListener;
+
+
+public class DatagramHandlerTest {
+
+	private DatagramChannel receiver;
+	private DatagramChannel sender;
+	private EventLoop loop;
+	private Thread thread;
+	private DatagramHandler handler;
+
+
+	@Before
+	public void setUp() throws IOException {
+		receiver = DatagramChannel.open();
+		receiver.bind(new InetSocketAddress("127.0.0.1", 0));
+		sender = DatagramChannel.open();
+		sender.bind(new InetSocketAddress("127.0.0.1", 0));
+
+		loop = new EventLoop();
+		thread = new Thread(loop);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		// Deregistered on the loop, so the loop terminates
+		if (handler != null) {
+			handler.close();
+		}
+		receiver.close();
+		sender.close();
+		loop.shutdown();
+		if (thread.isAlive()) {
+			thread.join(5000);
+		}
+	}
+
+
+	@Test
+	public void testReceivesInBatches() throws Exception {
+		// Queued in the socket before the channel is registered, so the first wake-up finds all of them
+		for (int i = 0; i < 5; i++) {
+			send(new byte[] { (byte) i });
+		}
+
+		final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+		final CountDownLatch received = new CountDownLatch(5);
+		handler = new DatagramHandler(receiver, UnpooledBufferAllocator.INSTANCE, 64, 2, null);
+		handler.addListener(new DatagramAdapter() {
+			private boolean marked = false;
+
+			@Override
+			public void onDatagram(ByteBuffer payload, SocketAddress from) {
+				events.add(String.valueOf(payload.get()));
+				received.countDown();
+
+				// Runs on the loop once the current batch was received
+				if (!marked) {
+					marked = true;
+					loop.execute(new Runnable() {
+						@Override
+						public void run() {
+							events.add("|");
+							marked = false;
+						}
+					});
+				}
+			}
+		});
+		thread.start();
+		handler.register(loop);
+
+		assertTrue(received.await(5, TimeUnit.SECONDS));
+		// The last batch is marked before the loop terminates
+		handler.close();
+		loop.shutdown();
+		thread.join(5000);
+
+		assertEquals(Arrays.asList("0", "1", "|", "2", "3", "|", "4", "|"), events);
+	}
+
+	@Test
+	public void testPassesReadOnlyPayloadAndSender() throws Exception {
+		final List<Object> received = Collections.synchronizedList(new ArrayList<Object>());
+		final CountDownLatch done = new CountDownLatch(2);
+		handler = new DatagramHandler(receiver, UnpooledBufferAllocator.INSTANCE, 4, 8, null);
+		handler.addListener(new DatagramAdapter() {
+			@Override
+			public void onDatagram(ByteBuffer payload, SocketAddress from) {
+				final byte[] content = new byte[payload.remaining()];
+				payload.get(content);
+				received.add(payload.isReadOnly());
+				received.add(Arrays.toString(content));
+				received.add(from);
+				done.countDown();
+			}
+		});
+		thread.start();
+		handler.register(loop);
+
+		// The excess of the bigger datagram is discarded
+		send(new byte[] { 1, 2 });
+		send(new byte[] { 3, 4, 5, 6, 7, 8 });
+
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertEquals(Arrays.<Object> asList(true, "[1, 2]", sender.getLocalAddress(), true, "[3, 4, 5, 6]", sender.getLocalAddress()), received);
+	}
+
+
+	private void send(byte[] content) throws IOException {
+		assertEquals(content.length, sender.send(ByteBuffer.wrap(content), receiver.getLocalAddress()));
+	}
+
+
+
+	/**
+	 * Listener ignoring errors.
+	 */
+	private abstract static class DatagramAdapter implements DatagramListener {
+
+		@Override
+		public void onError(Throwable exception) {
+		}
+
+	}
+
+}
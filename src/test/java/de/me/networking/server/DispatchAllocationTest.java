@@ -0,0 +1,269 @@
+package de.me.networking.server;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.me.networking.server.listener.ClientListener;
+import de.me.networking.server.listener.SendListener;
+
+
+/**
+ * Measures the heap allocated by the thread handling a client per echoed message,
+ * so allocations creeping into the read, dispatch and write path fail the build.
+ */
+public class DispatchAllocationTest {
+
+	private static final int MESSAGE_SIZE = 64;
+	private static final int MESSAGES = 10000;
+	private static final int ROUNDS = 8;
+
+	private final List<SocketChannel> peers = new ArrayList<>();
+	private final List<SocketChannel> accepted = new ArrayList<>();
+	private ServerSocketChannel server;
+	private EventLoop loop;
+	private Thread thread;
+
+	private com.sun.management.ThreadMXBean threads;
+
+
+	@Before
+	public void setUp() throws IOException {
+		final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+		threads = (com.sun.management.ThreadMXBean) bean;
+		assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+		server = ServerSocketChannel.open();
+		server.bind(new InetSocketAddress("127.0.0.1", 0));
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		// The handlers see EOF and deregister, so the loop terminates
+		for (SocketChannel channel : peers) {
+			channel.close();
+		}
+		if (loop != null) {
+			loop.shutdown();
+		}
+		if (thread != null) {
+			thread.join(5000);
+		}
+		for (SocketChannel channel : accepted) {
+			channel.close();
+		}
+		if (server != null) {
+			server.close();
+		}
+	}
+
+
+	@Test
+	public void testBlockingEchoAllocatesNothing() throws Exception {
+		final SocketChannel peer = connect();
+		final ClientHandler handler = echoHandler(accept());
+		thread = new Thread() {
+			@Override
+			public void run() {
+				try {
+					handler.executeBlocking();
+				}
+				catch (IOException e) {
+					// Reported to the listener
+				}
+			}
+		};
+		thread.start();
+
+		double fewest = Double.MAX_VALUE;
+		for (int round = 0; round < ROUNDS; round++) {
+			fewest = Math.min(fewest, echo(peer));
+		}
+		assertTrue("Allocated " + fewest + " bytes per message", fewest == 0.0);
+	}
+
+	@Test
+	public void testEventLoopEchoAllocatesNoMoreThanSelector() throws Exception {
+		loop = new EventLoop();
+		thread = new Thread(loop);
+		thread.start();
+
+		// Plain echo on the same loop, allocating only what the JDK selector allocates for its selected keys
+		final SocketChannel rawPeer = connect();
+		final SocketChannel raw = accept();
+		loop.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					loop.register(raw, SelectionKey.OP_READ, new RawEcho());
+				}
+				catch (IOException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+		});
+
+		final SocketChannel peer = connect();
+		echoHandler(accept()).register(loop);
+
+		// Rounds alternate, so both are measured with the same compiled loop code
+		double selector = Double.MAX_VALUE;
+		double handler = Double.MAX_VALUE;
+		for (int round = 0; round < ROUNDS; round++) {
+			selector = Math.min(selector, echo(rawPeer));
+			handler = Math.min(handler, echo(peer));
+		}
+		assertTrue("Allocated " + handler + " bytes per message, the selector alone " + selector, handler <= selector);
+	}
+
+
+	private SocketChannel connect() throws IOException {
+		final SocketChannel channel = SocketChannel.open(server.getLocalAddress());
+		peers.add(channel);
+		return channel;
+	}
+
+	private SocketChannel accept() throws IOException {
+		final SocketChannel channel = server.accept();
+		accepted.add(channel);
+		return channel;
+	}
+
+	private ClientHandler echoHandler(SocketChannel channel) {
+		final ClientHandler handler = new ClientHandler(channel, new ClientConfig());
+		handler.addListener(new EchoListener(handler));
+		return handler;
+	}
+
+	/**
+	 * Echoes messages through the peer.
+	 *
+	 * @return the bytes allocated per message by the handling thread
+	 */
+	private double echo(SocketChannel peer) throws IOException {
+		final ByteBuffer out = ByteBuffer.allocateDirect(MESSAGE_SIZE);
+		final ByteBuffer in = ByteBuffer.allocateDirect(MESSAGE_SIZE);
+
+		final long before = threads.getThreadAllocatedBytes(thread.getId());
+		for (int i = 0; i < MESSAGES; i++) {
+			out.clear();
+			while (out.hasRemaining()) {
+				peer.write(out);
+			}
+
+			in.clear();
+			while (in.hasRemaining()) {
+				if (peer.read(in) < 0) {
+					throw new IOException("Handler closed the connection");
+				}
+			}
+		}
+		return (double) (threads.getThreadAllocatedBytes(thread.getId()) - before) / MESSAGES;
+	}
+
+
+
+	/**
+	 * Echoes each message from a ring of reply buffers, each reused only once it was sent.
+	 */
+	private static class EchoListener implements ClientListener, SendListener {
+
+		private final ClientHandler handler;
+		private final ByteBuffer[] replies = new ByteBuffer[16];
+		private int first = 0;
+		private int pending = 0;
+
+
+		EchoListener(ClientHandler handler) {
+			this.handler = handler;
+			for (int i = 0; i < replies.length; i++) {
+				replies[i] = ByteBuffer.allocateDirect(MESSAGE_SIZE * 4);
+			}
+		}
+
+
+		@Override
+		public void onMessage(ByteBuffer messageBuffer) throws IOException {
+			if (pending == replies.length) throw new IOException("All replies pending");
+
+			final ByteBuffer reply = replies[(first + pending++) % replies.length];
+			reply.clear();
+			reply.put(messageBuffer);
+			reply.flip();
+			handler.send(reply, this);
+		}
+
+		@Override
+		public void onSent() {
+			first = (first + 1) % replies.length;
+			pending--;
+		}
+
+		@Override
+		public void onError(Throwable exception) {
+		}
+
+		@Override
+		public void onClose() {
+		}
+
+	}
+
+
+
+	/**
+	 * Echoes the input without a {@link ClientHandler}.
+	 */
+	private class RawEcho implements SelectionHandler {
+
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(MESSAGE_SIZE * 4);
+
+
+		@Override
+		public void handleSelection(SelectionKey key) {
+			final SocketChannel channel = (SocketChannel) key.channel();
+			try {
+				buffer.clear();
+				if (channel.read(buffer) < 0) {
+					close(key);
+					return;
+				}
+
+				buffer.flip();
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+			}
+			catch (IOException e) {
+				close(key);
+			}
+		}
+
+		private void close(SelectionKey key) {
+			try {
+				key.channel().close();
+			}
+			catch (IOException e) {
+				// Closed anyway
+			}
+			loop.deregister(key);
+		}
+
+	}
+
+}
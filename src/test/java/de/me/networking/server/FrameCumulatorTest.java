@@ -0,0 +1,147 @@
+package de.me.networking.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.me.networking.server.buffer.UnpooledBufferAllocator;
+import de.me.networking.server.codec.DelimiterFrameDecoder;
+import de.me.networking.server.codec.FixedLengthFrameDecoder;
+import de.me.networking.server.codec.LengthFieldFrameDecoder;
+import de.me.networking.server.codec.TooLongFrameException;
+import de.me.networking.server.listener.ClientListener;
+
+
+public class FrameCumulatorTest {
+
+	private SocketChannel channel;
+	private ClientHandler handler;
+	private FrameCumulator cumulator;
+	private final List<String> frames = new ArrayList<>();
+
+
+	@Before
+	public void setUp() throws IOException {
+		channel = SocketChannel.open();
+		handler = new ClientHandler(channel, new ClientConfig());
+		cumulator = new FrameCumulator(UnpooledBufferAllocator.INSTANCE);
+
+		handler.addListener(new ClientListener() {
+
+			@Override
+			public void onMessage(ByteBuffer messageBuffer) {
+				final byte[] bytes = new byte[messageBuffer.remaining()];
+				messageBuffer.get(bytes);
+				frames.add(new String(bytes, StandardCharsets.US_ASCII));
+			}
+
+			@Override
+			public void onClose() {
+			}
+
+			@Override
+			public void onError(Throwable exception) {
+			}
+
+		});
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		channel.close();
+	}
+
+
+	@Test
+	public void testDelimiterFramesAcrossReads() throws IOException {
+		handler.setFrameDecoder(new DelimiterFrameDecoder("\r\n".getBytes(StandardCharsets.US_ASCII), 100));
+
+		read("one\r\ntw");
+		assertEquals(1, frames.size());
+		assertTrue(cumulator.hasPending());
+
+		read("o\r");
+		read("\nthree\r\n");
+		assertEquals(3, frames.size());
+		assertEquals("one", frames.get(0));
+		assertEquals("two", frames.get(1));
+		assertEquals("three", frames.get(2));
+		assertFalse(cumulator.hasPending());
+	}
+
+	@Test
+	public void testLengthFieldFrames() throws IOException {
+		handler.setFrameDecoder(new LengthFieldFrameDecoder(2, 1000));
+
+		final ByteBuffer data = ByteBuffer.allocate(100);
+		data.putShort((short) 5).put("hello".getBytes(StandardCharsets.US_ASCII));
+		data.putShort((short) 0);
+		data.putShort((short) 300).put("abc".getBytes(StandardCharsets.US_ASCII));
+		data.flip();
+
+		cumulator.decode(data, handler);
+		assertEquals(2, frames.size());
+		assertEquals("hello", frames.get(0));
+		assertEquals("", frames.get(1));
+		assertTrue(cumulator.hasPending());
+
+		// Remaining frame content grows the cumulation buffer
+		final ByteBuffer rest = ByteBuffer.allocate(297);
+		while (rest.hasRemaining()) {
+			rest.put((byte) 'x');
+		}
+		rest.flip();
+		cumulator.decode(rest, handler);
+
+		assertEquals(3, frames.size());
+		assertEquals(300, frames.get(2).length());
+		assertFalse(cumulator.hasPending());
+	}
+
+	@Test
+	public void testFixedLengthFrames() throws IOException {
+		handler.setFrameDecoder(new FixedLengthFrameDecoder(3));
+
+		read("abcdefg");
+		read("hi");
+
+		assertEquals(3, frames.size());
+		assertEquals("ghi", frames.get(2));
+	}
+
+	@Test
+	public void testDecoderSwitchedOff() throws IOException {
+		handler.setFrameDecoder(new FixedLengthFrameDecoder(4));
+
+		read("ab");
+		handler.setFrameDecoder(null);
+		read("cdef");
+
+		assertEquals(1, frames.size());
+		assertEquals("abcdef", frames.get(0));
+	}
+
+	@Test(expected = TooLongFrameException.class)
+	public void testTooLongFrame() throws IOException {
+		handler.setFrameDecoder(new DelimiterFrameDecoder(new byte[] { '\n' }, 4));
+
+		read("abcdef");
+	}
+
+
+	private void read(String data) throws IOException {
+		cumulator.decode(ByteBuffer.wrap(data.getBytes(StandardCharsets.US_ASCII)), handler);
+	}
+
+}
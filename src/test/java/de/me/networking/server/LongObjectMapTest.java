@@ -0,0 +1,73 @@
+package de.me.networking.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+
+public class LongObjectMapTest {
+
+	@Test
+	public void testPutGetRemove() {
+		final LongObjectMap<String> map = new LongObjectMap<>();
+		assertNull(map.put(1L, "a"));
+		assertNull(map.put(-1L, "b"));
+		assertEquals("a", map.put(1L, "c"));
+		assertEquals(2, map.size());
+
+		assertEquals("c", map.get(1L));
+		assertEquals("b", map.get(-1L));
+		assertNull(map.get(2L));
+
+		assertEquals("b", map.remove(-1L));
+		assertNull(map.remove(-1L));
+		assertNull(map.get(-1L));
+		assertEquals(1, map.size());
+	}
+
+	@Test
+	public void testAgainstHashMap() {
+		final LongObjectMap<Long> map = new LongObjectMap<>();
+		final Map<Long, Long> expected = new HashMap<>();
+		final Random random = new Random(42L);
+
+		// Narrow key range for many collisions and removals within probe sequences
+		for (int i = 0; i < 100000; i++) {
+			final long key = random.nextInt(2000);
+			if (random.nextInt(3) == 0) {
+				assertEquals(expected.remove(key), map.remove(key));
+			}
+			else {
+				assertEquals(expected.put(key, key), map.put(key, key));
+			}
+			assertEquals(expected.size(), map.size());
+		}
+
+		for (long key = 0L; key < 2000L; key++) {
+			assertEquals(expected.get(key), map.get(key));
+		}
+
+		final Long[] values = map.values(new Long[0]);
+		Arrays.sort(values);
+		final Long[] expectedValues = expected.values().toArray(new Long[0]);
+		Arrays.sort(expectedValues);
+		assertEquals(Arrays.asList(expectedValues), Arrays.asList(values));
+	}
+
+	@Test
+	public void testValuesTerminated() {
+		final LongObjectMap<String> map = new LongObjectMap<>();
+		map.put(7L, "a");
+
+		final String[] values = map.values(new String[] { "x", "y", "z" });
+		assertEquals("a", values[0]);
+		assertNull(values[1]);
+	}
+
+}
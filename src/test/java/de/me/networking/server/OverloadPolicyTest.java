@@ -0,0 +1,224 @@
+package de.me.networking.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.me.networking.server.listener.Client;
+import de.me.networking.server.listener.ClientAcceptListener;
+import de.me.networking.server.listener.ClientListener;
+
+
+/**
+ * Runs a server with a connection limit of one, so a second connection exceeds it while the first one is open.
+ */
+public class OverloadPolicyTest {
+
+	private InetSocketAddress address;
+	private SimpleServer server;
+	private Thread thread;
+	private final Semaphore accepted = new Semaphore(0);
+	private final List<SocketChannel> clients = new ArrayList<>();
+
+
+	@Before
+	public void setUp() throws IOException {
+		try (ServerSocketChannel probe = ServerSocketChannel.open()) {
+			probe.bind(new InetSocketAddress("127.0.0.1", 0));
+			address = (InetSocketAddress) probe.getLocalAddress();
+		}
+
+		server = new SimpleServer(address).setMaxConnections(1);
+		server.addListener(new ClientAcceptListener() {
+			@Override
+			public void onIncomingClient(final Client client) {
+				client.addListener(new ClosingListener(client));
+				accepted.release();
+			}
+		});
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		for (SocketChannel client : clients) {
+			client.close();
+		}
+		if (thread != null) {
+			server.stop();
+			thread.join(5000);
+		}
+	}
+
+
+	@Test
+	public void testCloseShedsConnectionsBeyondLimit() throws Exception {
+		start(OverloadPolicy.CLOSE);
+
+		final SocketChannel shed = connect();
+		assertEquals(-1, shed.read(ByteBuffer.allocate(16)));
+		assertEquals(1, server.getConnectionStats().getRejectedConnections());
+		assertEquals(0, accepted.availablePermits());
+	}
+
+	@Test
+	public void testRejectWritesMessageBeforeClosing() throws Exception {
+		server.setRejectionMessage(ByteBuffer.wrap("busy".getBytes(StandardCharsets.US_ASCII)));
+		start(OverloadPolicy.REJECT);
+
+		final SocketChannel rejected = connect();
+		final ByteBuffer message = ByteBuffer.allocate(16);
+		while (rejected.read(message) >= 0) {
+			// Until closed
+		}
+		message.flip();
+		assertEquals("busy", StandardCharsets.US_ASCII.decode(message).toString());
+		assertEquals(1, server.getConnectionStats().getRejectedConnections());
+	}
+
+	@Test
+	public void testPauseAcceptLeavesConnectionsWaitingUntilOneCloses() throws Exception {
+		final SocketChannel first = start(OverloadPolicy.PAUSE_ACCEPT);
+
+		// Completed by the operating system, but not accepted while the first one is open
+		connect();
+		assertTrue(!accepted.tryAcquire(200, TimeUnit.MILLISECONDS));
+		assertTrue(server.getConnectionStats().getAcceptPauses() >= 1);
+
+		first.close();
+		assertTrue(accepted.tryAcquire(5, TimeUnit.SECONDS));
+		assertEquals(0, server.getConnectionStats().getRejectedConnections());
+	}
+
+	@Test
+	public void testBacklogLimitsConnectionsWaitingToBeAccepted() throws Exception {
+		server.setBacklog(1);
+		start(OverloadPolicy.PAUSE_ACCEPT);
+
+		// While accepting is paused only about the backlog of connection attempts complete
+		final List<SocketChannel> pending = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			final SocketChannel client = SocketChannel.open();
+			clients.add(client);
+			client.configureBlocking(false);
+			client.connect(address);
+			pending.add(client);
+		}
+		Thread.sleep(200);
+
+		int connected = 0;
+		for (SocketChannel client : pending) {
+			if (client.finishConnect()) {
+				connected++;
+			}
+		}
+		assertTrue(connected + " connections completed", connected > 0 && connected < pending.size());
+	}
+
+	@Test
+	public void testAcceptRateLimitShedsConnections() throws Exception {
+		server.setMaxConnections(0).setAcceptRateLimit(1);
+		start(OverloadPolicy.CLOSE);
+
+		// The first connection took the only permit of this second
+		final SocketChannel shed = connect();
+		assertEquals(-1, shed.read(ByteBuffer.allocate(16)));
+		assertEquals(1, server.getConnectionStats().getRejectedConnections());
+	}
+
+	@Test
+	public void testConnectionStatsWithoutMetrics() throws Exception {
+		server.setMetricsEnabled(false);
+		start(OverloadPolicy.CLOSE);
+
+		final SocketChannel shed = connect();
+		assertEquals(-1, shed.read(ByteBuffer.allocate(16)));
+		assertEquals(1, server.getConnectionStats().getAcceptedConnections());
+		assertEquals(1, server.getConnectionStats().getRejectedConnections());
+		assertEquals(0, server.getMetrics().getOpenedConnections());
+	}
+
+
+	/**
+	 * Starts the server and connects the client taking the only connection slot.
+	 */
+	private SocketChannel start(OverloadPolicy policy) throws Exception {
+		server.setOverloadPolicy(policy);
+		thread = new Thread() {
+			@Override
+			public void run() {
+				try {
+					server.start();
+				}
+				catch (IOException e) {
+					// Fails the connection attempt
+				}
+			}
+		};
+		thread.start();
+
+		final long deadline = System.currentTimeMillis() + 5000L;
+		while (true) {
+			try {
+				final SocketChannel first = connect();
+				assertTrue(accepted.tryAcquire(5, TimeUnit.SECONDS));
+				return first;
+			}
+			catch (IOException e) {
+				if (System.currentTimeMillis() > deadline) fail("Server not started: " + e);
+				Thread.sleep(10);
+			}
+		}
+	}
+
+	private SocketChannel connect() throws IOException {
+		final SocketChannel client = SocketChannel.open(address);
+		clients.add(client);
+		return client;
+	}
+
+
+
+	/**
+	 * Closes the connection once the peer closed it.
+	 */
+	private static class ClosingListener implements ClientListener {
+
+		private final Client client;
+
+
+		ClosingListener(Client client) {
+			this.client = client;
+		}
+
+
+		@Override
+		public void onMessage(ByteBuffer messageBuffer) {
+		}
+
+		@Override
+		public void onClose() throws IOException {
+			client.close();
+		}
+
+		@Override
+		public void onError(Throwable exception) {
+		}
+
+	}
+
+}
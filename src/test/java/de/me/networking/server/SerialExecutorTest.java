@@ -0,0 +1,164 @@
+package de.me.networking.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class SerialExecutorTest {
+
+	private ExecutorService pool;
+
+
+	@Before
+	public void setUp() {
+		pool = Executors.newFixedThreadPool(4);
+	}
+
+	@After
+	public void tearDown() {
+		pool.shutdownNow();
+	}
+
+
+	@Test
+	public void testRunsInOrderOneAtATime() throws Exception {
+		final SerialExecutor executor = new SerialExecutor(pool);
+		final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicBoolean overlapped = new AtomicBoolean();
+		final int count = 1000;
+		final CountDownLatch done = new CountDownLatch(count);
+
+		for (int i = 0; i < count; i++) {
+			final int n = i;
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					if (running.incrementAndGet() > 1) {
+						overlapped.set(true);
+					}
+					order.add(n);
+					running.decrementAndGet();
+					done.countDown();
+				}
+			});
+		}
+
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertFalse(overlapped.get());
+		for (int i = 0; i < count; i++) {
+			assertEquals(Integer.valueOf(i), order.get(i));
+		}
+	}
+
+	@Test
+	public void testExecutorsRunInParallel() throws Exception {
+		final CountDownLatch started = new CountDownLatch(2);
+		final CountDownLatch release = new CountDownLatch(1);
+
+		for (int i = 0; i < 2; i++) {
+			new SerialExecutor(pool).execute(new Runnable() {
+				@Override
+				public void run() {
+					started.countDown();
+					try {
+						release.await();
+					}
+					catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			});
+		}
+
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		release.countDown();
+	}
+
+	@Test
+	public void testGivesThreadBackAfterBatch() throws Exception {
+		// A single thread shared by a busy and an idle executor
+		final ExecutorService single = Executors.newSingleThreadExecutor();
+		try {
+			final SerialExecutor busy = new SerialExecutor(single);
+			final SerialExecutor other = new SerialExecutor(single);
+			final AtomicInteger busyRun = new AtomicInteger();
+			final int[] busyRunBeforeOther = new int[1];
+			final CountDownLatch done = new CountDownLatch(1);
+
+			// Hold the thread until all tasks are queued, so the busy executor cannot run them all before the other one arrives
+			final CountDownLatch queued = new CountDownLatch(1);
+			single.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						queued.await();
+					}
+					catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			});
+
+			for (int i = 0; i < SerialExecutor.BATCH_SIZE * 4; i++) {
+				busy.execute(new Runnable() {
+					@Override
+					public void run() {
+						busyRun.incrementAndGet();
+					}
+				});
+			}
+			other.execute(new Runnable() {
+				@Override
+				public void run() {
+					busyRunBeforeOther[0] = busyRun.get();
+					done.countDown();
+				}
+			});
+			queued.countDown();
+
+			assertTrue(done.await(5, TimeUnit.SECONDS));
+			assertEquals(SerialExecutor.BATCH_SIZE, busyRunBeforeOther[0]);
+		}
+		finally {
+			single.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testFailingTaskDoesNotStopLaterOnes() throws Exception {
+		final SerialExecutor executor = new SerialExecutor(pool);
+		final CountDownLatch done = new CountDownLatch(1);
+
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				throw new IllegalStateException("Expected");
+			}
+		});
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				done.countDown();
+			}
+		});
+
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+	}
+
+}
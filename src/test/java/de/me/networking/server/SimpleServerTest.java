@@ -0,0 +1,233 @@
+package de.me.networking.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.net.BindException;
+import java.net.InetSocketAddress;
+import java.net.SocketOption;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.me.networking.server.listener.Client;
+import de.me.networking.server.listener.ClientAcceptListener;
+import de.me.networking.server.listener.ClientListener;
+
+
+public class SimpleServerTest {
+
+	private InetSocketAddress address;
+	private SimpleServer server;
+	private Thread thread;
+	private final Semaphore accepted = new Semaphore(0);
+	private final List<SocketChannel> clients = new ArrayList<>();
+
+
+	@Before
+	public void setUp() throws IOException {
+		try (ServerSocketChannel probe = ServerSocketChannel.open()) {
+			probe.bind(new InetSocketAddress("127.0.0.1", 0));
+			address = (InetSocketAddress) probe.getLocalAddress();
+		}
+
+		server = new SimpleServer(address).setEventLoopThreads(1);
+		server.addListener(new ClientAcceptListener() {
+			@Override
+			public void onIncomingClient(Client client) {
+				accepted.release();
+			}
+		});
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		for (SocketChannel client : clients) {
+			client.close();
+		}
+		if (thread != null) {
+			server.stop();
+			thread.join(5000);
+		}
+	}
+
+
+	@Test
+	public void testAcceptorsWithReusePortBindOwnChannels() throws Exception {
+		final SocketOption<Boolean> reusePort = reusePortOption();
+		assumeTrue(reusePort != null);
+		server.setAcceptorThreads(3).setReusePort(true);
+		start();
+
+		// Another channel can join the port only if every channel bound to it allows reuse
+		try (ServerSocketChannel other = ServerSocketChannel.open()) {
+			other.setOption(reusePort, true);
+			other.bind(address);
+		}
+
+		// Whichever acceptor the operating system picks, all connections are handled
+		for (int i = 0; i < 20; i++) {
+			connect();
+		}
+		assertTrue(accepted.tryAcquire(20, 5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testAcceptorsWithoutReusePortShareOneChannel() throws Exception {
+		final SocketOption<Boolean> reusePort = reusePortOption();
+		assumeTrue(reusePort != null);
+		server.setAcceptorThreads(3);
+		start();
+
+		try (ServerSocketChannel other = ServerSocketChannel.open()) {
+			other.setOption(reusePort, true);
+			other.bind(address);
+			fail("Bound to a port without reuse");
+		}
+		catch (BindException e) {
+			// Expected
+		}
+
+		for (int i = 0; i < 20; i++) {
+			connect();
+		}
+		assertTrue(accepted.tryAcquire(20, 5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testAllAcceptListenersShareClientAndSeeEveryMessage() throws Exception {
+		final AtomicReference<Client> first = new AtomicReference<>();
+		final AtomicReference<Client> second = new AtomicReference<>();
+		final AtomicLong firstBytes = new AtomicLong();
+		final AtomicLong secondBytes = new AtomicLong();
+		server.addListener(new CountingAcceptListener(first, firstBytes));
+		server.addListener(new CountingAcceptListener(second, secondBytes));
+		start();
+
+		final SocketChannel client = connect();
+		assertTrue(accepted.tryAcquire(5, TimeUnit.SECONDS));
+		for (int i = 0; i < 10; i++) {
+			client.write(ByteBuffer.wrap(new byte[1000]));
+		}
+
+		final long deadline = System.currentTimeMillis() + 5000L;
+		while (firstBytes.get() < 10000L || secondBytes.get() < 10000L) {
+			if (System.currentTimeMillis() > deadline) {
+				throw new AssertionError("Messages not seen by all listeners: " + firstBytes + ", " + secondBytes);
+			}
+			Thread.sleep(10);
+		}
+		assertSame(first.get(), second.get());
+		assertEquals(10000L, firstBytes.get());
+		assertEquals(10000L, secondBytes.get());
+	}
+
+
+	/**
+	 * Starts the server and waits until it accepts connections.
+	 */
+	private void start() throws Exception {
+		thread = new Thread() {
+			@Override
+			public void run() {
+				try {
+					server.start();
+				}
+				catch (IOException e) {
+					// Fails the connection attempt
+				}
+			}
+		};
+		thread.start();
+
+		final long deadline = System.currentTimeMillis() + 5000L;
+		while (true) {
+			try {
+				connect();
+				assertTrue(accepted.tryAcquire(5, TimeUnit.SECONDS));
+				return;
+			}
+			catch (IOException e) {
+				if (System.currentTimeMillis() > deadline) fail("Server not started: " + e);
+				Thread.sleep(10);
+			}
+		}
+	}
+
+	private SocketChannel connect() throws IOException {
+		final SocketChannel client = SocketChannel.open(address);
+		clients.add(client);
+		return client;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static SocketOption<Boolean> reusePortOption() {
+		try {
+			return (SocketOption<Boolean>) StandardSocketOptions.class.getField("SO_REUSEPORT").get(null);
+		}
+		catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
+
+
+
+	/**
+	 * Keeps the accepted client and counts the bytes of all its messages.<br>
+	 * The first connection opened by {@link SimpleServerTest#start()} is ignored.
+	 */
+	private static class CountingAcceptListener implements ClientAcceptListener {
+
+		private final AtomicReference<Client> client;
+		private final AtomicLong bytes;
+		private final AtomicBoolean first = new AtomicBoolean(true);
+
+
+		CountingAcceptListener(AtomicReference<Client> client, AtomicLong bytes) {
+			this.client = client;
+			this.bytes = bytes;
+		}
+
+
+		@Override
+		public void onIncomingClient(Client client) {
+			if (first.getAndSet(false)) {
+				return;
+			}
+
+			this.client.set(client);
+			client.addListener(new ClientListener() {
+				@Override
+				public void onMessage(ByteBuffer messageBuffer) {
+					bytes.addAndGet(messageBuffer.remaining());
+				}
+
+				@Override
+				public void onClose() {
+				}
+
+				@Override
+				public void onError(Throwable exception) {
+				}
+			});
+		}
+
+	}
+
+}
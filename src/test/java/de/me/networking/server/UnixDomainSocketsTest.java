@@ -0,0 +1,173 @@
+package de.me.networking.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.me.networking.server.listener.Client;
+import de.me.networking.server.listener.ClientAcceptListener;
+import de.me.networking.server.listener.ClientListener;
+
+
+public class UnixDomainSocketsTest {
+
+	private Path directory;
+	private Path file;
+
+
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("uds-test");
+		file = directory.resolve("server.sock");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(file);
+		Files.delete(directory);
+	}
+
+
+	@Test
+	public void testBindAndConnect() throws Exception {
+		assumeTrue(UnixDomainSockets.isSupported());
+
+		final SocketAddress address = UnixDomainSockets.address(file);
+		assertTrue(UnixDomainSockets.isUnixDomain(address));
+		assertEquals(file, UnixDomainSockets.getPath(address));
+
+		try (ServerSocketChannel server = UnixDomainSockets.openServerSocketChannel(address)) {
+			server.bind(address);
+			assertTrue(Files.exists(file));
+
+			try (SocketChannel client = UnixDomainSockets.openSocketChannel(address)) {
+				assertTrue(client.connect(address));
+				final SocketChannel accepted = server.accept();
+				client.write(ByteBuffer.wrap(new byte[] { 42 }));
+
+				final ByteBuffer received = ByteBuffer.allocate(1);
+				accepted.read(received);
+				accepted.close();
+				assertEquals(42, received.get(0));
+			}
+		}
+	}
+
+	@Test
+	public void testOpensTcpChannelsForInetAddresses() throws Exception {
+		final InetSocketAddress address = new InetSocketAddress("127.0.0.1", 0);
+		assertFalse(UnixDomainSockets.isUnixDomain(address));
+
+		try (ServerSocketChannel server = UnixDomainSockets.openServerSocketChannel(address)) {
+			server.bind(address);
+			assertTrue(server.getLocalAddress() instanceof InetSocketAddress);
+		}
+	}
+
+	@Test
+	public void testServerReplacesStaleSocketFileAndDeletesIt() throws Exception {
+		assumeTrue(UnixDomainSockets.isSupported());
+
+		final SocketAddress address = UnixDomainSockets.address(file);
+		// Closing a bound channel leaves the socket file behind
+		try (ServerSocketChannel stale = UnixDomainSockets.openServerSocketChannel(address)) {
+			stale.bind(address);
+		}
+		assertTrue(Files.exists(file));
+
+		final SimpleServer server = new SimpleServer(address);
+		server.addListener(new EchoAcceptListener());
+		final Thread thread = new Thread() {
+			@Override
+			public void run() {
+				try {
+					server.start();
+				}
+				catch (IOException e) {
+					// Fails the connection attempts
+				}
+			}
+		};
+		thread.start();
+
+		try (SocketChannel client = connect(address)) {
+			client.write(ByteBuffer.wrap(new byte[] { 7 }));
+			final ByteBuffer echo = ByteBuffer.allocate(1);
+			client.read(echo);
+			assertEquals(7, echo.get(0));
+		}
+		finally {
+			server.stop();
+			thread.join(5000);
+		}
+
+		assertFalse(Files.exists(file));
+	}
+
+
+	/**
+	 * Connects once the server accepts connections instead of the stale socket file refusing them.
+	 */
+	private static SocketChannel connect(SocketAddress address) throws Exception {
+		final long deadline = System.currentTimeMillis() + 5000L;
+		while (true) {
+			final SocketChannel channel = UnixDomainSockets.openSocketChannel(address);
+			try {
+				channel.connect(address);
+				return channel;
+			}
+			catch (IOException e) {
+				channel.close();
+				if (System.currentTimeMillis() > deadline) fail("Cannot connect: " + e);
+				Thread.sleep(10);
+			}
+		}
+	}
+
+
+
+	/**
+	 * Echoes the messages of accepted clients.
+	 */
+	private static class EchoAcceptListener implements ClientAcceptListener {
+
+		@Override
+		public void onIncomingClient(final Client client) {
+			client.addListener(new ClientListener() {
+				@Override
+				public void onMessage(ByteBuffer messageBuffer) throws IOException {
+					final ByteBuffer reply = ByteBuffer.allocate(messageBuffer.remaining());
+					reply.put(messageBuffer);
+					reply.flip();
+					client.send(reply);
+				}
+
+				@Override
+				public void onClose() throws IOException {
+					client.close();
+				}
+
+				@Override
+				public void onError(Throwable exception) {
+				}
+			});
+		}
+
+	}
+
+}
@@ -0,0 +1,84 @@
+package de.me.networking.server.buffer;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+
+public class AdaptiveBufferSizeTest {
+
+	@Test
+	public void testRoundsUpToPowersOfTwo() {
+		final AdaptiveBufferSize size = new AdaptiveBufferSize(100, 1000, 5000);
+		assertEquals(1024, size.size());
+
+		for (int i = 0; i < 20; i++) {
+			size.record(0);
+		}
+		assertEquals(128, size.size());
+
+		for (int i = 0; i < 20; i++) {
+			size.record(size.size());
+		}
+		assertEquals(8192, size.size());
+	}
+
+	@Test
+	public void testGrowsWhenReadFillsBuffer() {
+		final AdaptiveBufferSize size = new AdaptiveBufferSize(64, 1024, 4096);
+
+		size.record(1023);
+		assertEquals(1024, size.size());
+		size.record(1024);
+		assertEquals(2048, size.size());
+		size.record(2048);
+		assertEquals(4096, size.size());
+
+		// Stays at the maximum
+		size.record(4096);
+		assertEquals(4096, size.size());
+	}
+
+	@Test
+	public void testShrinksAfterTwoConsecutiveSmallReads() {
+		final AdaptiveBufferSize size = new AdaptiveBufferSize(64, 1024, 4096);
+
+		size.record(512);
+		assertEquals(1024, size.size());
+		// A bigger read in between starts over
+		size.record(513);
+		size.record(100);
+		assertEquals(1024, size.size());
+		size.record(100);
+		assertEquals(512, size.size());
+
+		for (int i = 0; i < 20; i++) {
+			size.record(0);
+		}
+		assertEquals(64, size.size());
+	}
+
+	@Test
+	public void testReadIntoBiggerBufferGrowsOnlyWhenFilled() {
+		final AdaptiveBufferSize size = new AdaptiveBufferSize(64, 1024, 65536);
+
+		// A whole TLS record read into a buffer of the application buffer size
+		size.record(16384, 16709);
+		size.record(16384, 16709);
+		assertEquals(1024, size.size());
+
+		size.record(16709, 16709);
+		assertEquals(2048, size.size());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRejectsInitialBelowMinimum() {
+		new AdaptiveBufferSize(1024, 512, 4096);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRejectsMaximumAboveOneGiB() {
+		new AdaptiveBufferSize(64, 1024, (1 << 30) + 1);
+	}
+
+}
@@ -0,0 +1,186 @@
+package de.me.networking.server.buffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import de.me.networking.server.VirtualThreads;
+
+
+public class PooledBufferAllocatorTest {
+
+	@Test
+	public void testRoundsUpToSizeClass() {
+		final PooledBufferAllocator allocator = new PooledBufferAllocator(512, 4096, 16384, 4);
+
+		final ByteBuffer small = allocator.allocate(1);
+		assertEquals(512, small.capacity());
+		assertEquals(1, small.limit());
+		assertTrue(small.isDirect());
+
+		final ByteBuffer buffer = allocator.allocate(1000);
+		assertEquals(1024, buffer.capacity());
+		assertEquals(0, buffer.position());
+		assertEquals(1000, buffer.limit());
+	}
+
+	@Test
+	public void testSlicesBuffersFromSlabs() {
+		final PooledBufferAllocator allocator = new PooledBufferAllocator(512, 4096, 16384, 0);
+
+		// A slab holds 16 buffers of 1 KiB
+		final ByteBuffer[] buffers = new ByteBuffer[17];
+		for (int i = 0; i < buffers.length; i++) {
+			buffers[i] = allocator.allocate(1024);
+			while (buffers[i].hasRemaining()) {
+				buffers[i].put((byte) i);
+			}
+		}
+
+		final BufferPoolStats stats = allocator.getStats();
+		assertEquals(2, stats.getSlabs());
+		assertEquals(2 * 16384, stats.getSlabBytes());
+		assertEquals(15, stats.getPoolHits());
+		assertEquals(15L * 1024, stats.getIdleBytes());
+
+		// The slices do not overlap
+		for (int i = 0; i < buffers.length; i++) {
+			for (int j = 0; j < buffers[i].capacity(); j++) {
+				assertEquals((byte) i, buffers[i].get(j));
+			}
+		}
+	}
+
+	@Test
+	public void testThreadCacheReusesReleasedBuffer() {
+		final PooledBufferAllocator allocator = new PooledBufferAllocator(512, 4096, 16384, 4);
+
+		final ByteBuffer buffer = allocator.allocate(2048);
+		buffer.position(100).limit(200);
+		allocator.release(buffer);
+
+		final ByteBuffer reused = allocator.allocate(1500);
+		assertSame(buffer, reused);
+		assertEquals(0, reused.position());
+		assertEquals(1500, reused.limit());
+		assertEquals(1, allocator.getStats().getThreadCacheHits());
+	}
+
+	@Test
+	public void testFullThreadCacheReleasesToSharedPool() {
+		final PooledBufferAllocator allocator = new PooledBufferAllocator(512, 4096, 16384, 2);
+
+		final ByteBuffer[] buffers = new ByteBuffer[3];
+		for (int i = 0; i < buffers.length; i++) {
+			buffers[i] = allocator.allocate(1024);
+		}
+		final long idleBytes = allocator.getStats().getIdleBytes();
+
+		for (ByteBuffer buffer : buffers) {
+			allocator.release(buffer);
+		}
+
+		// Two stay in the thread cache, which is not counted as idle
+		assertEquals(idleBytes + 1024, allocator.getStats().getIdleBytes());
+		assertEquals(3, allocator.getStats().getReleases());
+	}
+
+	@Test
+	public void testThreadCacheIsNotShared() throws Exception {
+		final PooledBufferAllocator allocator = new PooledBufferAllocator(512, 4096, 16384, 4);
+		final ByteBuffer buffer = allocator.allocate(1024);
+		allocator.release(buffer);
+
+		final AtomicReference<ByteBuffer> other = new AtomicReference<>();
+		final Thread thread = new Thread() {
+			@Override
+			public void run() {
+				other.set(allocator.allocate(1024));
+			}
+		};
+		thread.start();
+		thread.join(5000);
+
+		assertNotSame(buffer, other.get());
+		assertEquals(0, allocator.getStats().getThreadCacheHits());
+		assertEquals(1, allocator.getStats().getPoolHits());
+	}
+
+	@Test
+	public void testCacheOfTerminatedThreadReturnsToPool() throws Exception {
+		final PooledBufferAllocator allocator = new PooledBufferAllocator(512, 4096, 4096, 16);
+
+		// Takes the whole slab of four buffers and leaves them in its cache
+		final Thread thread = new Thread() {
+			@Override
+			public void run() {
+				final ByteBuffer[] buffers = new ByteBuffer[4];
+				for (int i = 0; i < buffers.length; i++) {
+					buffers[i] = allocator.allocate(1024);
+				}
+				for (ByteBuffer buffer : buffers) {
+					allocator.release(buffer);
+				}
+			}
+		};
+		thread.start();
+		thread.join(5000);
+		assertEquals(0, allocator.getStats().getIdleBytes());
+		final long poolHits = allocator.getStats().getPoolHits();
+
+		for (int i = 0; i < 4; i++) {
+			allocator.allocate(1024);
+			assertEquals((3 - i) * 1024L, allocator.getStats().getIdleBytes());
+		}
+		assertEquals(1, allocator.getStats().getSlabs());
+		assertEquals(poolHits + 4, allocator.getStats().getPoolHits());
+	}
+
+	@Test
+	public void testVirtualThreadsBypassThreadCache() throws Exception {
+		assumeTrue(VirtualThreads.isSupported());
+		final PooledBufferAllocator allocator = new PooledBufferAllocator(512, 4096, 16384, 4);
+
+		final AtomicReference<Throwable> failure = new AtomicReference<>();
+		final Thread thread = VirtualThreads.factory("allocator-test").newThread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					allocator.release(allocator.allocate(1024));
+				}
+				catch (Throwable e) {
+					failure.set(e);
+				}
+			}
+		});
+		thread.start();
+		thread.join(5000);
+
+		assertEquals(null, failure.get());
+		assertEquals(16L * 1024, allocator.getStats().getIdleBytes());
+	}
+
+	@Test
+	public void testForeignAndOversizedBuffersAreNotPooled() {
+		final PooledBufferAllocator allocator = new PooledBufferAllocator(512, 4096, 16384, 4);
+
+		final ByteBuffer oversized = allocator.allocate(5000);
+		assertEquals(5000, oversized.capacity());
+		assertTrue(oversized.isDirect());
+		assertEquals(1, allocator.getStats().getUnpooledAllocations());
+
+		allocator.release(oversized);
+		allocator.release(ByteBuffer.allocate(1024));
+		allocator.release(allocator.allocate(1024).asReadOnlyBuffer());
+		assertEquals(3, allocator.getStats().getDiscardedReleases());
+		assertEquals(1, allocator.getStats().getSlabs());
+	}
+
+}
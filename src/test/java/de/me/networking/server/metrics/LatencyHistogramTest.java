@@ -0,0 +1,80 @@
+package de.me.networking.server.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+
+public class LatencyHistogramTest {
+
+	@Test
+	public void testBucketBounds() {
+		for (long value : new long[] { 0L, 1L, 15L, 16L, 17L, 31L, 32L, 1000L, 123456789L, Long.MAX_VALUE }) {
+			final int index = LatencyHistogram.index(value);
+			assertTrue(value + " above lower bound", LatencyHistogram.lowerBound(index) <= value);
+			assertTrue(value + " below upper bound", LatencyHistogram.upperBound(index) >= value);
+		}
+
+		// Buckets are contiguous
+		for (int i = 1; i < LatencyHistogram.index(Long.MAX_VALUE); i++) {
+			assertEquals(LatencyHistogram.upperBound(i - 1) + 1, LatencyHistogram.lowerBound(i));
+			assertEquals(i, LatencyHistogram.index(LatencyHistogram.lowerBound(i)));
+		}
+	}
+
+	@Test
+	public void testPercentiles() {
+		final LatencyHistogram histogram = new LatencyHistogram();
+		for (long value = 1L; value <= 10000L; value++) {
+			histogram.record(value * 1000L);
+		}
+
+		final HistogramSnapshot snapshot = histogram.snapshot();
+		assertEquals(10000L, snapshot.getCount());
+		assertEquals(5000500.0, snapshot.getMean(), 0.001);
+		assertWithin(5000000L, snapshot.getValueAtPercentile(50.0));
+		assertWithin(9900000L, snapshot.getValueAtPercentile(99.0));
+		assertWithin(10000000L, snapshot.getMax());
+	}
+
+	@Test
+	public void testMergesValuesOfAllThreads() throws InterruptedException {
+		final LatencyHistogram histogram = new LatencyHistogram();
+		final Thread[] threads = new Thread[StripedCounter.STRIPES + 2];
+		for (int i = 0; i < threads.length; i++) {
+			final long value = (i + 1) * 1000L;
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					for (int j = 0; j < 1000; j++) {
+						histogram.record(value);
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		final HistogramSnapshot snapshot = histogram.snapshot();
+		assertEquals(threads.length * 1000L, snapshot.getCount());
+		assertEquals((threads.length + 1) * 500.0, snapshot.getMean(), 0.001);
+		assertWithin(threads.length * 1000L, snapshot.getMax());
+	}
+
+	@Test
+	public void testEmpty() {
+		final HistogramSnapshot snapshot = new LatencyHistogram().snapshot();
+		assertEquals(0L, snapshot.getCount());
+		assertEquals(0L, snapshot.getValueAtPercentile(99.0));
+		assertEquals(0L, snapshot.getMax());
+	}
+
+	private static void assertWithin(long expected, long actual) {
+		// Values are kept with a relative error of 1/16
+		assertTrue("Expected " + expected + " but was " + actual, actual >= expected && actual <= expected + expected / 16);
+	}
+
+}
@@ -0,0 +1,102 @@
+package de.me.networking.server.timer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class HashedWheelTimerTest {
+
+	private HashedWheelTimer timer;
+
+
+	@Before
+	public void setUp() {
+		// Few buckets to have timeouts spanning several rounds
+		timer = new HashedWheelTimer(10, TimeUnit.MILLISECONDS, 8);
+	}
+
+	@After
+	public void tearDown() {
+		timer.stop();
+	}
+
+
+	@Test
+	public void testExpiresInOrder() throws Exception {
+		final List<Integer> expired = Collections.synchronizedList(new ArrayList<Integer>());
+		final CountDownLatch done = new CountDownLatch(3);
+
+		for (final int delay : new int[] { 250, 30, 120 }) {
+			timer.newTimeout(new Runnable() {
+				@Override
+				public void run() {
+					expired.add(delay);
+					done.countDown();
+				}
+			}, delay, TimeUnit.MILLISECONDS);
+		}
+
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertEquals(Integer.valueOf(30), expired.get(0));
+		assertEquals(Integer.valueOf(120), expired.get(1));
+		assertEquals(Integer.valueOf(250), expired.get(2));
+	}
+
+	@Test
+	public void testNotExpiredEarly() throws Exception {
+		final long start = System.nanoTime();
+		final long[] expiredAfter = new long[1];
+		final CountDownLatch done = new CountDownLatch(1);
+
+		final Timeout timeout = timer.newTimeout(new Runnable() {
+			@Override
+			public void run() {
+				expiredAfter[0] = System.nanoTime() - start;
+				done.countDown();
+			}
+		}, 100, TimeUnit.MILLISECONDS);
+
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertTrue(timeout.isExpired());
+		assertTrue(expiredAfter[0] >= TimeUnit.MILLISECONDS.toNanos(100));
+	}
+
+	@Test
+	public void testCancel() throws Exception {
+		final CountDownLatch cancelledRun = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(1);
+
+		final Timeout cancelled = timer.newTimeout(new Runnable() {
+			@Override
+			public void run() {
+				cancelledRun.countDown();
+			}
+		}, 50, TimeUnit.MILLISECONDS);
+		timer.newTimeout(new Runnable() {
+			@Override
+			public void run() {
+				done.countDown();
+			}
+		}, 150, TimeUnit.MILLISECONDS);
+
+		assertTrue(cancelled.cancel());
+		assertFalse(cancelled.cancel());
+		assertTrue(cancelled.isCancelled());
+
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertEquals(1, cancelledRun.getCount());
+		assertFalse(cancelled.isExpired());
+	}
+
+}
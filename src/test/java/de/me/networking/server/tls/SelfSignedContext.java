@@ -0,0 +1,79 @@
+package de.me.networking.server.tls;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+
+
+/**
+ * Creates an {@link SSLContext} for tests with a self-signed certificate for <code>localhost</code>,
+ * trusting only that certificate.<br>
+ * The key store is generated by the <code>keytool</code> of the running JDK, so no certificate expires in the repository.
+ */
+public class SelfSignedContext {
+
+	private static final char[] PASSWORD = "changeit".toCharArray();
+
+	private static KeyStore keyStore;
+
+
+	private SelfSignedContext() {
+	}
+
+
+	public static synchronized SSLContext create() throws IOException, GeneralSecurityException {
+		if (keyStore == null) {
+			keyStore = generate();
+		}
+
+		final KeyManagerFactory keys = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+		keys.init(keyStore, PASSWORD);
+		final TrustManagerFactory trust = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+		trust.init(keyStore);
+
+		final SSLContext context = SSLContext.getInstance("TLS");
+		context.init(keys.getKeyManagers(), trust.getTrustManagers(), null);
+		return context;
+	}
+
+	private static KeyStore generate() throws IOException, GeneralSecurityException {
+		final File file = File.createTempFile("test-keystore", ".p12");
+		try {
+			// keytool refuses to overwrite a file that is not a key store
+			file.delete();
+
+			final String keytool = new File(System.getProperty("java.home"), "bin/keytool").getPath();
+			final Process process = new ProcessBuilder(keytool, "-genkeypair", "-alias", "test", "-keyalg", "RSA", "-keysize", "2048",
+					"-validity", "2", "-dname", "CN=localhost", "-ext", "SAN=dns:localhost,ip:127.0.0.1",
+					"-storetype", "PKCS12", "-keystore", file.getPath(), "-storepass", new String(PASSWORD), "-keypass", new String(PASSWORD))
+					.redirectErrorStream(true).start();
+			process.getOutputStream().close();
+			final InputStream output = process.getInputStream();
+			while (output.read() >= 0) {
+				// Drained so keytool cannot block
+			}
+			if (process.waitFor() != 0) throw new IOException("keytool failed with exit code " + process.exitValue());
+
+			final KeyStore store = KeyStore.getInstance("PKCS12");
+			try (InputStream in = new FileInputStream(file)) {
+				store.load(in, PASSWORD);
+			}
+			return store;
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted waiting for keytool", e);
+		}
+		finally {
+			file.delete();
+		}
+	}
+
+}
@@ -0,0 +1,240 @@
+package de.me.networking.server.tls;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.me.networking.server.buffer.UnpooledBufferAllocator;
+import de.me.networking.server.tls.TlsChannel.HandshakeStep;
+
+
+/**
+ * Runs both ends of a TLS connection over non-blocking loopback sockets in the test thread.
+ */
+public class TlsChannelTest {
+
+	private static final long TIMEOUT = 5000L;
+
+	private ServerSocketChannel server;
+	private SocketChannel clientSocket;
+	private SocketChannel serverSocket;
+	private TlsChannel client;
+	private TlsChannel peer;
+
+
+	@Before
+	public void setUp() throws Exception {
+		server = ServerSocketChannel.open();
+		server.bind(new InetSocketAddress("127.0.0.1", 0));
+		clientSocket = SocketChannel.open(server.getLocalAddress());
+		serverSocket = server.accept();
+		clientSocket.configureBlocking(false);
+		serverSocket.configureBlocking(false);
+
+		final SSLContext context = SelfSignedContext.create();
+		client = new TlsChannel(clientSocket, TlsConfig.forClient(context).createEngine("localhost", 443), UnpooledBufferAllocator.INSTANCE);
+		peer = new TlsChannel(serverSocket, TlsConfig.forServer(context).createEngine(null, 0), UnpooledBufferAllocator.INSTANCE);
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		clientSocket.close();
+		serverSocket.close();
+		server.close();
+	}
+
+
+	@Test
+	public void testNonBlockingHandshake() throws Exception {
+		client.beginHandshake();
+		peer.beginHandshake();
+
+		// The client hello is written, the answer cannot be there yet
+		assertEquals(HandshakeStep.NEED_READ, client.handshake());
+
+		finishHandshake();
+
+		assertEquals(client.getEngine().getSession().getProtocol(), peer.getEngine().getSession().getProtocol());
+		assertEquals("CN=localhost", client.getEngine().getSession().getPeerPrincipal().getName());
+		assertFalse(client.hasPendingOutput());
+		assertFalse(peer.hasPendingOutput());
+
+		writeFully(client, "ping");
+		assertEquals("ping", readString(peer, 4));
+		writeFully(peer, "pong");
+		assertEquals("pong", readString(client, 4));
+	}
+
+	@Test
+	public void testRecordsSplitAcrossReads() throws Exception {
+		handshake();
+
+		final ByteBuffer records = ByteBuffer.allocate(2 * client.getEngine().getSession().getPacketBufferSize());
+		wrap(client.getEngine(), "first record", records);
+		final int first = records.position();
+		wrap(client.getEngine(), "second record", records);
+		records.flip();
+
+		// Both records are cut, the first one before its end and the second one after its header
+		writeSlice(records, first - 5);
+		Thread.sleep(50);
+		final ByteBuffer dst = ByteBuffer.allocate(peer.getApplicationBufferSize());
+		assertEquals(0, peer.read(dst));
+		assertFalse(peer.hasBufferedInput());
+
+		writeSlice(records, first + 7);
+		assertEquals("first record", readString(peer, 12));
+
+		writeSlice(records, records.limit());
+		assertEquals("second record", readString(peer, 13));
+	}
+
+	@Test
+	public void testCloseNotify() throws Exception {
+		handshake();
+
+		client.closeOutbound();
+		assertTrue(client.getEngine().isOutboundDone());
+
+		assertEquals(-1, readUntilData(peer, ByteBuffer.allocate(peer.getApplicationBufferSize())));
+		assertTrue(peer.getEngine().isInboundDone());
+		// The close_notify is replied, the socket is left open
+		assertTrue(peer.getEngine().isOutboundDone());
+		assertTrue(serverSocket.isOpen());
+
+		assertEquals(-1, readUntilData(client, ByteBuffer.allocate(client.getApplicationBufferSize())));
+		assertTrue(client.getEngine().isInboundDone());
+		assertEquals(-1, peer.read(ByteBuffer.allocate(peer.getApplicationBufferSize())));
+	}
+
+	@Test
+	public void testPartlyWrittenOutbound() throws Exception {
+		handshake();
+
+		final byte[] content = new byte[16 << 20];
+		for (int i = 0; i < content.length; i++) {
+			content[i] = (byte) i;
+		}
+		final ByteBuffer data = ByteBuffer.wrap(content);
+
+		// More than the socket buffers take, so encrypted data is left behind
+		client.write(data);
+		assertTrue(data.hasRemaining());
+		assertTrue(client.hasPendingOutput());
+		assertFalse(client.flush());
+
+		final ByteBuffer received = ByteBuffer.allocate(content.length);
+		final ByteBuffer dst = ByteBuffer.allocate(peer.getApplicationBufferSize());
+		final long deadline = System.currentTimeMillis() + TIMEOUT;
+		while (received.hasRemaining()) {
+			if (System.currentTimeMillis() > deadline) fail("Received only " + received.position() + " bytes");
+
+			if (data.hasRemaining()) {
+				client.write(data);
+			}
+			else {
+				client.flush();
+			}
+
+			dst.clear();
+			assertTrue(peer.read(dst) >= 0);
+			dst.flip();
+			received.put(dst);
+		}
+
+		assertFalse(client.hasPendingOutput());
+		assertArrayEquals(content, received.array());
+	}
+
+
+	private void handshake() throws Exception {
+		client.beginHandshake();
+		peer.beginHandshake();
+		finishHandshake();
+	}
+
+	/**
+	 * Continues both handshakes in turn until finished, running the delegated tasks inline.
+	 */
+	private void finishHandshake() throws Exception {
+		HandshakeStep clientStep = null;
+		HandshakeStep peerStep = null;
+		final long deadline = System.currentTimeMillis() + TIMEOUT;
+		while (clientStep != HandshakeStep.FINISHED || peerStep != HandshakeStep.FINISHED) {
+			if (System.currentTimeMillis() > deadline) fail("Handshake stuck at " + clientStep + " and " + peerStep);
+
+			clientStep = step(client);
+			peerStep = step(peer);
+			if (clientStep == HandshakeStep.NEED_READ && peerStep == HandshakeStep.NEED_READ) {
+				Thread.sleep(1);
+			}
+		}
+	}
+
+	private static HandshakeStep step(TlsChannel tls) throws IOException {
+		final HandshakeStep step = tls.handshake();
+		if (step == HandshakeStep.NEED_TASK) {
+			tls.runDelegatedTasks();
+		}
+		return step;
+	}
+
+	private static void wrap(SSLEngine engine, String text, ByteBuffer dst) throws IOException {
+		engine.wrap(ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII)), dst);
+	}
+
+	private void writeSlice(ByteBuffer records, int end) throws IOException {
+		final ByteBuffer slice = records.duplicate();
+		slice.limit(end);
+		while (slice.hasRemaining()) {
+			clientSocket.write(slice);
+		}
+		records.position(end);
+	}
+
+	private static void writeFully(TlsChannel tls, String text) throws IOException {
+		final ByteBuffer data = ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII));
+		while (data.hasRemaining() || !tls.flush()) {
+			tls.write(data);
+		}
+	}
+
+	private static String readString(TlsChannel tls, int length) throws Exception {
+		final ByteBuffer dst = ByteBuffer.allocate(tls.getApplicationBufferSize());
+		while (dst.position() < length) {
+			if (readUntilData(tls, dst) < 0) throw new IOException("Closed after " + dst.position() + " bytes");
+		}
+		dst.flip();
+		return StandardCharsets.US_ASCII.decode(dst).toString();
+	}
+
+	/**
+	 * Reads until data was decrypted or the end of the stream was reached.
+	 */
+	private static int readUntilData(TlsChannel tls, ByteBuffer dst) throws Exception {
+		final long deadline = System.currentTimeMillis() + TIMEOUT;
+		int r;
+		while ((r = tls.read(dst)) == 0) {
+			if (System.currentTimeMillis() > deadline) fail("Nothing read");
+			Thread.sleep(1);
+		}
+		return r;
+	}
+
+}